@@ -0,0 +1,176 @@
+package com.alerts;
+
+import com.data_management.DataStorageListener;
+import com.data_management.PatientRecord;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Pushes newly stored records to an {@link AlertGenerator} as they arrive, instead of waiting for
+ * a polling sweep over all patients.
+ * Register it with {@code DataStorage.addListener}; records are queued in a bounded queue on the
+ * ingesting thread and evaluated on a dedicated thread. After the first queued record the thread
+ * waits up to the batching window to collect more, then evaluates each patient once with its new
+ * records. When the queue is full, ingestion blocks until the evaluator catches up.
+ * Once closed, the dispatcher drops the records it is notified of; remove it from the storage
+ * with {@code DataStorage.removeListener} as well, since it does not know the storage it is
+ * registered with.
+ */
+public class AlertDispatcher implements DataStorageListener, AutoCloseable {
+    private static final int MAX_BATCH_SIZE = 4096;
+    // How often an ingesting thread waiting for queue space checks whether the dispatcher closed
+    private static final long CLOSE_CHECK_MILLIS = 50;
+
+    private final AlertGenerator alertGenerator;
+    private final BlockingQueue<PendingRecord> queue;
+    private final long batchWindowNanos;
+    private final Thread worker;
+    private volatile boolean running;
+    private volatile boolean closed;
+    private volatile LongConsumer latencyObserver;
+
+    /**
+     * Creates a dispatcher; call {@link #start()} to begin evaluating.
+     *
+     * @param alertGenerator    the generator evaluating the records
+     * @param queueCapacity     maximum number of records waiting for evaluation
+     * @param batchWindowMillis how long to keep collecting records after the first one arrives;
+     *                          0 evaluates whatever is queued immediately
+     */
+    public AlertDispatcher(AlertGenerator alertGenerator, int queueCapacity, long batchWindowMillis) {
+        this.alertGenerator = alertGenerator;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+        this.worker = new Thread(this::run, "alert-dispatcher");
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Starts the evaluation thread.
+     */
+    public void start() {
+        running = true;
+        worker.start();
+    }
+
+    /**
+     * Sets a callback that receives, for every evaluated record, the nanoseconds between it being
+     * stored and its evaluation finishing.
+     *
+     * @param latencyObserver the callback, or null to stop reporting
+     */
+    public void setLatencyObserver(LongConsumer latencyObserver) {
+        this.latencyObserver = latencyObserver;
+    }
+
+    /**
+     * Returns the number of records waiting to be evaluated.
+     *
+     * @return the current queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void onRecordAdded(PatientRecord record) {
+        PendingRecord pending = new PendingRecord(record, System.nanoTime());
+        try {
+            // Nothing drains the queue after close, so a full queue must not block ingestion then
+            while (!closed && !queue.offer(pending, CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                // Keep waiting for the evaluator
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the evaluation thread and waits for it to finish the evaluation in progress, so no
+     * alert is raised once this returns. Records still queued are not evaluated, and records
+     * notified afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        running = false;
+        worker.interrupt();
+        if (Thread.currentThread() == worker) {
+            return;
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<PendingRecord> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + batchWindowNanos;
+                long remaining;
+                while (batch.size() < MAX_BATCH_SIZE && (remaining = deadline - System.nanoTime()) > 0) {
+                    PendingRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            }
+            if (!batch.isEmpty()) {
+                evaluate(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void evaluate(List<PendingRecord> batch) {
+        Map<Integer, List<PatientRecord>> byPatient = new LinkedHashMap<>();
+        for (PendingRecord pending : batch) {
+            byPatient.computeIfAbsent(pending.record.getPatientId(), id -> new ArrayList<>()).add(pending.record);
+        }
+        for (Map.Entry<Integer, List<PatientRecord>> entry : byPatient.entrySet()) {
+            List<PatientRecord> records = entry.getValue();
+            records.sort(Comparator.comparingLong(PatientRecord::getTimestamp));
+            try {
+                alertGenerator.evaluateNewRecords(entry.getKey(), records);
+            } catch (RuntimeException e) {
+                System.err.println("Error evaluating alerts for patient " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+
+        LongConsumer observer = latencyObserver;
+        if (observer != null) {
+            long now = System.nanoTime();
+            for (PendingRecord pending : batch) {
+                observer.accept(now - pending.enqueuedNanos);
+            }
+        }
+    }
+
+    private static final class PendingRecord {
+        final PatientRecord record;
+        final long enqueuedNanos;
+
+        PendingRecord(PatientRecord record, long enqueuedNanos) {
+            this.record = record;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -1,40 +1,378 @@
 package com.alerts;
 
 import com.data_management.DataStorage;
+import com.data_management.DataStorageListener;
 import com.data_management.Patient;
 import com.data_management.PatientRecord;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AlertGenerator implements AutoCloseable {
+    /**
+     * Records held per patient between two {@link #evaluateNewData(Patient)} calls; past it, the
+     * next call re-reads the patient's history instead.
+     */
+    public static final int MAX_PENDING_RECORDS = 10_000;
+    // Patients evaluated sequentially by one leaf task of a parallel sweep
+    private static final int SWEEP_LEAF_SIZE = 64;
 
-public class AlertGenerator {
     private final DataStorage dataStorage;
     private final List<AlertStrategy> alertStrategies;
     private final AlertFactory alertFactory;
-    private final List<Alert> triggeredAlerts = new ArrayList<>();
+    // Safe to append from sweep workers and the dispatcher thread; keeps insertion order
+    private final Collection<Alert> triggeredAlerts = new ConcurrentLinkedQueue<>();
+    // Union of the record types declared by the strategies
+    private final Set<String> consumedTypes = new HashSet<>();
+    // Records stored since the previous evaluateNewData, for every patient evaluated that way
+    private final ConcurrentMap<Integer, PendingRecords> pendingRecords = new ConcurrentHashMap<>();
+    private final DataStorageListener pendingCollector = record -> {
+        PendingRecords pending = pendingRecords.get(record.getPatientId());
+        if (pending != null) {
+            pending.add(record);
+        }
+    };
+    private final AtomicBoolean collecting = new AtomicBoolean();
 
     public AlertGenerator(DataStorage dataStorage, List<AlertStrategy> alertStrategies, AlertFactory alertFactory) {
         this.dataStorage = dataStorage;
         this.alertStrategies = alertStrategies;
         this.alertFactory = alertFactory;
+        for (AlertStrategy strategy : alertStrategies) {
+            consumedTypes.addAll(strategy.getRecordTypes());
+        }
     }
 
+    /**
+     * Evaluates every strategy against the patient's full history.
+     * This is the batch path, used for backfills; it does not affect {@link #evaluateNewData(Patient)}.
+     * The history is fetched once and each strategy only sees the record types it declares.
+     *
+     * @param patient the patient to evaluate
+     */
     public void evaluateData(Patient patient) {
-        List<PatientRecord> records = dataStorage.getRecords(patient.getPatientId(), 0, System.currentTimeMillis());
+        evaluateHistory(patient.getPatientId(), triggeredAlerts);
+    }
+
+    /**
+     * Runs {@link #evaluateData(Patient)} for many patients in parallel on the common
+     * ForkJoinPool.
+     *
+     * @param patients the patients to evaluate
+     * @see #evaluateAll(List, ForkJoinPool)
+     */
+    public void evaluateAll(List<Patient> patients) {
+        evaluateAll(patients, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs {@link #evaluateData(Patient)} for many patients in parallel.
+     * The patient list is split recursively into small ranges that the pool's workers steal from
+     * each other. Alerts are collected per range and appended in patient-list order once the
+     * sweep completes, so the result is the same as a sequential loop.
+     *
+     * @param patients the patients to evaluate
+     * @param pool     the pool to run the sweep on
+     */
+    public void evaluateAll(List<Patient> patients, ForkJoinPool pool) {
+        triggeredAlerts.addAll(pool.invoke(new SweepTask(patients, 0, patients.size())));
+    }
+
+    /**
+     * Evaluates only the records stored since the previous call for the same patient.
+     * {@link StreamingAlertStrategy} implementations see just those records, so the cost per call
+     * does not grow with history. Strategies that only support the batch path still receive the
+     * full history.
+     *
+     * <p>Progress is tracked in ingestion order, not by timestamp: the first call subscribes the
+     * generator to the storage and evaluates the patient's whole history, after which every
+     * record the storage reports as added is evaluated by the next call, however old its
+     * timestamp. Records are held for each patient evaluated this way until its next call, up
+     * to {@link #MAX_PENDING_RECORDS}; a patient that falls further behind has its streaming state
+     * reset and its whole history evaluated again, which may repeat alerts raised before.
+     * {@link #close()} unsubscribes from the storage and drops the held records.
+     *
+     * @param patient the patient to evaluate
+     */
+    public void evaluateNewData(Patient patient) {
+        int patientId = patient.getPatientId();
+        if (collecting.compareAndSet(false, true)) {
+            dataStorage.addListener(pendingCollector);
+        }
+        PendingRecords pending = pendingRecords.get(patientId);
+        if (pending != null && pending.overflowed()) {
+            // Records were dropped; start over from the stored history
+            pendingRecords.remove(patientId, pending);
+            resetStreamingState(patientId);
+            pending = null;
+        }
+        List<PatientRecord> newRecords;
+        if (pending == null) {
+            // Collect from now on, then read what was stored before; records stored in between
+            // are reported by both and kept once
+            pending = new PendingRecords();
+            PendingRecords existing = pendingRecords.putIfAbsent(patientId, pending);
+            pending = existing != null ? existing : pending;
+            newRecords = new ArrayList<>(dataStorage.getRecords(patientId, 0, Long.MAX_VALUE));
+            List<PatientRecord> collected = pending.drain();
+            if (!collected.isEmpty()) {
+                Set<String> stored = new HashSet<>();
+                for (PatientRecord record : newRecords) {
+                    stored.add(keyOf(record));
+                }
+                for (PatientRecord record : collected) {
+                    if (!stored.contains(keyOf(record))) {
+                        newRecords.add(record);
+                    }
+                }
+            }
+        } else {
+            newRecords = pending.drain();
+            if (newRecords.isEmpty()) {
+                return;
+            }
+        }
+        // Late records arrive after newer ones; strategies expect timestamp order
+        newRecords.sort(Comparator.comparingLong(PatientRecord::getTimestamp));
+        evaluateNewRecords(patientId, newRecords);
+    }
+
+    /**
+     * Evaluates records pushed to the generator rather than fetched from storage, e.g. by an
+     * {@link AlertDispatcher}. Streaming strategies see only these records; batch-only strategies
+     * receive the patient's full history. The records pending for
+     * {@link #evaluateNewData(Patient)} are not touched.
+     *
+     * @param patientId  the patient the records belong to
+     * @param newRecords the new records, in timestamp order
+     */
+    public void evaluateNewRecords(int patientId, List<PatientRecord> newRecords) {
+        long now = System.currentTimeMillis();
+        Map<String, List<PatientRecord>> routedNew = routeByType(newRecords);
+        History history = null;
+        for (AlertStrategy strategy : alertStrategies) {
+            boolean triggered;
+            if (strategy instanceof StreamingAlertStrategy) {
+                List<PatientRecord> records = recordsFor(strategy, newRecords, routedNew);
+                triggered = !records.isEmpty()
+                        && ((StreamingAlertStrategy) strategy).checkNewRecords(patientId, records);
+            } else {
+                if (history == null) {
+                    history = new History(patientId, now);
+                }
+                triggered = strategy.checkAlert(history.recordsFor(strategy));
+            }
+            if (triggered) {
+                triggerAlert(alertFactory.createAlert(String.valueOf(patientId), strategy.getCondition(), now));
+            }
+        }
+    }
+
+    /**
+     * Forgets the streaming progress for a patient so the next {@link #evaluateNewData(Patient)}
+     * starts again from the beginning of its history.
+     *
+     * @param patient the patient to reset
+     */
+    public void resetWatermark(Patient patient) {
+        pendingRecords.remove(patient.getPatientId());
+        resetStreamingState(patient.getPatientId());
+    }
+
+    /**
+     * Unsubscribes from the storage and drops the records held for {@link #evaluateNewData(Patient)}.
+     * A later call to it subscribes again and starts over from each patient's full history.
+     */
+    @Override
+    public void close() {
+        if (collecting.compareAndSet(true, false)) {
+            dataStorage.removeListener(pendingCollector);
+        }
+        pendingRecords.clear();
+    }
 
+    private void resetStreamingState(int patientId) {
         for (AlertStrategy strategy : alertStrategies) {
-            if (strategy.checkAlert(records)) {
-                Alert alert = alertFactory.createAlert(String.valueOf(patient.getPatientId()), strategy.getCondition(), System.currentTimeMillis());
-                triggerAlert(alert);
+            if (strategy instanceof StreamingAlertStrategy) {
+                ((StreamingAlertStrategy) strategy).resetState(patientId);
+            }
+        }
+    }
+
+    // Storage keeps one record per type and timestamp, so this identifies a stored record
+    private static String keyOf(PatientRecord record) {
+        return record.getRecordType() + '@' + record.getTimestamp();
+    }
+
+    private void evaluateHistory(int patientId, Collection<Alert> sink) {
+        History history = new History(patientId, System.currentTimeMillis());
+        for (AlertStrategy strategy : alertStrategies) {
+            if (strategy.checkAlert(history.recordsFor(strategy))) {
+                Alert alert = alertFactory.createAlert(String.valueOf(patientId), strategy.getCondition(), System.currentTimeMillis());
+                sink.add(alert);
+            }
+        }
+    }
+
+    /**
+     * Splits pushed records into one list per consumed type in a single pass, keeping their order.
+     */
+    private Map<String, List<PatientRecord>> routeByType(List<PatientRecord> records) {
+        Map<String, List<PatientRecord>> routed = new HashMap<>();
+        for (String type : consumedTypes) {
+            routed.put(type, new ArrayList<>());
+        }
+        for (PatientRecord record : records) {
+            List<PatientRecord> typed = routed.get(record.getRecordType());
+            if (typed != null) {
+                typed.add(record);
+            }
+        }
+        return routed;
+    }
+
+    private static List<PatientRecord> recordsFor(AlertStrategy strategy, List<PatientRecord> records,
+                                                  Map<String, List<PatientRecord>> routed) {
+        Set<String> types = strategy.getRecordTypes();
+        if (types.isEmpty()) {
+            return records;
+        }
+        if (types.size() == 1) {
+            return routed.get(types.iterator().next());
+        }
+        // Several types: select them from the original list so their relative order is kept
+        List<PatientRecord> selected = new ArrayList<>();
+        for (PatientRecord record : records) {
+            if (types.contains(record.getRecordType())) {
+                selected.add(record);
             }
         }
+        return selected;
     }
 
     private void triggerAlert(Alert alert) {
         triggeredAlerts.add(alert);
     }
 
+    /**
+     * Returns the alerts triggered so far, in the order they were raised.
+     *
+     * @return a snapshot of the triggered alerts
+     */
     public List<Alert> getTriggeredAlerts() {
-        return triggeredAlerts;
+        return new ArrayList<>(triggeredAlerts);
+    }
+
+    /**
+     * A patient's history up to one instant, read from storage on demand: a strategy declaring
+     * one record type gets that type's series directly, and each series or the merged history
+     * is fetched at most once per evaluation.
+     */
+    private final class History {
+        private final int patientId;
+        private final long end;
+        private final Map<String, List<PatientRecord>> byType = new HashMap<>();
+        private List<PatientRecord> merged;
+
+        History(int patientId, long end) {
+            this.patientId = patientId;
+            this.end = end;
+        }
+
+        List<PatientRecord> recordsFor(AlertStrategy strategy) {
+            Set<String> types = strategy.getRecordTypes();
+            if (types.size() == 1) {
+                return byType.computeIfAbsent(types.iterator().next(),
+                        type -> dataStorage.getRecords(patientId, type, 0, end));
+            }
+            if (merged == null) {
+                merged = dataStorage.getRecords(patientId, 0, end);
+            }
+            return types.isEmpty() ? merged : AlertGenerator.recordsFor(strategy, merged, null);
+        }
+    }
+
+    /**
+     * Evaluates {@code patients[from, to)}, forking halves until a range is small enough.
+     */
+    private class SweepTask extends RecursiveTask<List<Alert>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Patient> patients;
+        private final int from;
+        private final int to;
+
+        SweepTask(List<Patient> patients, int from, int to) {
+            this.patients = patients;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Alert> compute() {
+            if (to - from <= SWEEP_LEAF_SIZE) {
+                List<Alert> alerts = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    evaluateHistory(patients.get(i).getPatientId(), alerts);
+                }
+                return alerts;
+            }
+            int mid = (from + to) >>> 1;
+            SweepTask left = new SweepTask(patients, from, mid);
+            left.fork();
+            List<Alert> alerts = new SweepTask(patients, mid, to).compute();
+            List<Alert> leftAlerts = left.join();
+            leftAlerts.addAll(alerts);
+            return leftAlerts;
+        }
+    }
+
+    /**
+     * Records stored since one patient's previous {@link #evaluateNewData(Patient)}, appended by
+     * ingesting threads. Stops collecting once it would hold more than {@link #MAX_PENDING_RECORDS}.
+     */
+    private static final class PendingRecords {
+        private final Queue<PatientRecord> records = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private volatile boolean overflowed;
+
+        void add(PatientRecord record) {
+            if (overflowed) {
+                return;
+            }
+            if (size.incrementAndGet() > MAX_PENDING_RECORDS) {
+                overflowed = true;
+                return;
+            }
+            records.add(record);
+        }
+
+        boolean overflowed() {
+            return overflowed;
+        }
+
+        List<PatientRecord> drain() {
+            List<PatientRecord> drained = new ArrayList<>();
+            PatientRecord record;
+            while ((record = records.poll()) != null) {
+                drained.add(record);
+                size.decrementAndGet();
+            }
+            return drained;
+        }
     }
-}
\ No newline at end of file
+}
@@ -3,9 +3,20 @@ package com.alerts;
 import com.data_management.PatientRecord;
 
 import java.util.List;
+import java.util.Set;
 
 public interface AlertStrategy
 {
     boolean checkAlert(List<PatientRecord> records);
     String getCondition();
+
+    /**
+     * Returns the record types this strategy reads. {@link AlertGenerator} routes only records of
+     * these types to the strategy; an empty set means the strategy is given every record.
+     *
+     * @return the consumed record types
+     */
+    default Set<String> getRecordTypes() {
+        return Set.of();
+    }
 }
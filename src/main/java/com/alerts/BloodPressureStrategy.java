@@ -3,15 +3,29 @@ package com.alerts;
 import com.data_management.PatientRecord;
 
 import java.util.List;
+import java.util.Set;
 
-public class BloodPressureStrategy implements AlertStrategy
+public class BloodPressureStrategy implements StreamingAlertStrategy
 {
+    private static final String RECORD_TYPE = "SystolicBP";
+
     @Override
     public boolean checkAlert(List<PatientRecord> records) {
         return records.stream()
-                .filter(r -> r.getRecordType().equals("SystolicBP"))
+                .filter(r -> r.getRecordType().equals(RECORD_TYPE))
                 .anyMatch(r -> r.getMeasurementValue() < 90 || r.getMeasurementValue() > 180);
     }
+
+    @Override
+    public boolean checkNewRecords(int patientId, List<PatientRecord> newRecords) {
+        return checkAlert(newRecords);
+    }
+
+    @Override
+    public Set<String> getRecordTypes() {
+        return Set.of(RECORD_TYPE);
+    }
+
     public String getCondition() {
         return "Critical Systolic Blood Pressure Threshold";
     }
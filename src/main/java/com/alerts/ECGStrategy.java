@@ -3,15 +3,28 @@ package com.alerts;
 import com.data_management.PatientRecord;
 
 import java.util.List;
+import java.util.Set;
+
+public class ECGStrategy implements StreamingAlertStrategy {
+    private static final String RECORD_TYPE = "ECG";
 
-public class ECGStrategy implements AlertStrategy {
     @Override
     public boolean checkAlert(List<PatientRecord> records) {
         return records.stream()
-                .filter(r -> r.getRecordType().equals("ECG"))
+                .filter(r -> r.getRecordType().equals(RECORD_TYPE))
                 .anyMatch(r -> r.getMeasurementValue() > 2.5); // Example threshold
     }
 
+    @Override
+    public boolean checkNewRecords(int patientId, List<PatientRecord> newRecords) {
+        return checkAlert(newRecords);
+    }
+
+    @Override
+    public Set<String> getRecordTypes() {
+        return Set.of(RECORD_TYPE);
+    }
+
     @Override
     public String getCondition() {
         return "Abnormal ECG Data";
@@ -3,15 +3,29 @@ package com.alerts;
 import com.data_management.PatientRecord;
 
 import java.util.List;
+import java.util.Set;
 
-public class HeartRateStrategy implements AlertStrategy
+public class HeartRateStrategy implements StreamingAlertStrategy
 {
+    private static final String RECORD_TYPE = "HeartRate";
+
     @Override
     public boolean checkAlert(List<PatientRecord> records) {
         return records.stream()
-                .filter(r -> r.getRecordType().equals("HeartRate"))
+                .filter(r -> r.getRecordType().equals(RECORD_TYPE))
                 .anyMatch(r -> r.getMeasurementValue() < 60 || r.getMeasurementValue() > 100);
     }
+
+    @Override
+    public boolean checkNewRecords(int patientId, List<PatientRecord> newRecords) {
+        return checkAlert(newRecords);
+    }
+
+    @Override
+    public Set<String> getRecordTypes() {
+        return Set.of(RECORD_TYPE);
+    }
+
     public String getCondition() {
         return "Abnormal Heart Rate Detected";
     }
@@ -3,14 +3,28 @@ package com.alerts;
 import com.data_management.PatientRecord;
 
 import java.util.List;
+import java.util.Set;
+
+public class OxygenSaturationStrategy implements StreamingAlertStrategy {
+    private static final String RECORD_TYPE = "Saturation";
 
-public class OxygenSaturationStrategy implements AlertStrategy {
     @Override
     public boolean checkAlert(List<PatientRecord> records) {
         return records.stream()
-                .filter(r -> r.getRecordType().equals("Saturation"))
+                .filter(r -> r.getRecordType().equals(RECORD_TYPE))
                 .anyMatch(r -> r.getMeasurementValue() < 92);
     }
+
+    @Override
+    public boolean checkNewRecords(int patientId, List<PatientRecord> newRecords) {
+        return checkAlert(newRecords);
+    }
+
+    @Override
+    public Set<String> getRecordTypes() {
+        return Set.of(RECORD_TYPE);
+    }
+
     public String getCondition() {
         return "Low Blood Saturation";
     }
@@ -3,29 +3,74 @@ package com.alerts;
 import com.data_management.PatientRecord;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
-public class RapidSaturationDropStrategy implements AlertStrategy {
+public class RapidSaturationDropStrategy implements StreamingAlertStrategy {
+    private static final String RECORD_TYPE = "Saturation";
+    private static final double DROP_THRESHOLD = 5;
+    private static final long WINDOW_MILLIS = 600000; // 10 minutes in milliseconds
+
+    // Last saturation sample seen per patient by the streaming path
+    private final ConcurrentMap<Integer, PatientRecord> lastSaturation = new ConcurrentHashMap<>();
+
     @Override
     public boolean checkAlert(List<PatientRecord> records) {
         List<PatientRecord> saturationRecords = records.stream()
-                .filter(r -> r.getRecordType().equals("Saturation"))
+                .filter(r -> r.getRecordType().equals(RECORD_TYPE))
                 .collect(Collectors.toList());
 
         for (int i = 1; i < saturationRecords.size(); i++) {
-            double previous = saturationRecords.get(i - 1).getMeasurementValue();
-            double current = saturationRecords.get(i).getMeasurementValue();
-            long timeDiff = saturationRecords.get(i).getTimestamp() - saturationRecords.get(i - 1).getTimestamp();
-
-            if (previous - current >= 5 && timeDiff <= 600000) { // 10 minutes in milliseconds
+            if (isRapidDrop(saturationRecords.get(i - 1), saturationRecords.get(i))) {
                 return true;
             }
         }
         return false;
     }
 
+    @Override
+    public boolean checkNewRecords(int patientId, List<PatientRecord> newRecords) {
+        PatientRecord previous = lastSaturation.get(patientId);
+        boolean triggered = false;
+        for (PatientRecord record : newRecords) {
+            if (!record.getRecordType().equals(RECORD_TYPE)) {
+                continue;
+            }
+            if (previous != null && record.getTimestamp() < previous.getTimestamp()) {
+                // A late sample is not a drop from the newer one already seen
+                continue;
+            }
+            if (previous != null && isRapidDrop(previous, record)) {
+                triggered = true;
+            }
+            previous = record;
+        }
+        if (previous != null) {
+            lastSaturation.put(patientId, previous);
+        }
+        return triggered;
+    }
+
+    @Override
+    public void resetState(int patientId) {
+        lastSaturation.remove(patientId);
+    }
+
+    @Override
+    public Set<String> getRecordTypes() {
+        return Set.of(RECORD_TYPE);
+    }
+
     @Override
     public String getCondition() {
         return "Rapid Blood Saturation Drop";
     }
-}
\ No newline at end of file
+
+    private static boolean isRapidDrop(PatientRecord previous, PatientRecord current) {
+        long timeDiff = current.getTimestamp() - previous.getTimestamp();
+        return previous.getMeasurementValue() - current.getMeasurementValue() >= DROP_THRESHOLD
+                && timeDiff <= WINDOW_MILLIS;
+    }
+}
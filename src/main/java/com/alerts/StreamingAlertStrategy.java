@@ -0,0 +1,32 @@
+package com.alerts;
+
+import com.data_management.PatientRecord;
+
+import java.util.List;
+
+/**
+ * Streaming counterpart of {@link AlertStrategy}.
+ * Instead of the full history, the strategy is handed only the records that arrived since the
+ * previous evaluation of the same patient, and keeps whatever small per-patient state it needs
+ * to evaluate conditions that span evaluations. {@link #checkAlert(List)} remains the batch path
+ * for backfills.
+ */
+public interface StreamingAlertStrategy extends AlertStrategy {
+
+    /**
+     * Checks the records received for a patient since its previous evaluation.
+     *
+     * @param patientId  the patient the records belong to
+     * @param newRecords the new records, in timestamp order
+     * @return true if the new records trigger this strategy's alert
+     */
+    boolean checkNewRecords(int patientId, List<PatientRecord> newRecords);
+
+    /**
+     * Discards any state kept for a patient, e.g. before re-evaluating its history from scratch.
+     *
+     * @param patientId the patient whose state is dropped
+     */
+    default void resetState(int patientId) {
+    }
+}
@@ -1,7 +1,5 @@
 package com.cardio_generator;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import com.cardio_generator.generators.AlertGenerator;
@@ -10,15 +8,20 @@ import com.cardio_generator.generators.BloodPressureDataGenerator;
 import com.cardio_generator.generators.BloodSaturationDataGenerator;
 import com.cardio_generator.generators.BloodLevelsDataGenerator;
 import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.generators.ECGWaveformGenerator;
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.generators.SampleBlock;
 import com.cardio_generator.outputs.ConsoleOutputStrategy;
 import com.cardio_generator.outputs.FileOutputStrategy;
 import com.cardio_generator.outputs.OutputStrategy;
 import com.cardio_generator.outputs.TcpOutputStrategy;
 import com.cardio_generator.outputs.WebSocketOutputStrategy;
+import com.common.ThreadMode;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -33,9 +36,15 @@ public class HealthDataSimulator {
 
     private static HealthDataSimulator instance; // Singleton instance
     private static int patientCount = 50; // Default number of patients
-    private static ScheduledExecutorService scheduler;
+    private static int ecgSampleRate = 0; // Samples per second of a realistic ECG waveform, 0 for one sample per second
+    private static TickScheduler scheduler;
     private static OutputStrategy outputStrategy = new ConsoleOutputStrategy(); // Default output strategy
     private static final Random random = new Random();
+    // Periods of the ECG, saturation, blood pressure, blood levels and alert tasks
+    private static final long[] PERIODS_MILLIS = {1_000L, 1_000L, 60_000L, 120_000L, 20_000L};
+    private static final List<Thread> patientThreads = new ArrayList<>();
+    // Patients per scheduled generator task when not running a thread per patient
+    private static final int BATCH_SIZE = 64;
 
     /**
      * Private constructor to prevent instantiation.
@@ -77,12 +86,17 @@ public class HealthDataSimulator {
     private void run(String[] args) throws IOException {
         parseArguments(args);
 
-        scheduler = Executors.newScheduledThreadPool(patientCount * 4);
-
-        List<Integer> patientIds = initializePatientIds(patientCount);
-        Collections.shuffle(patientIds); // Randomize the order of patient IDs
+        ThreadMode threadMode = ThreadMode.getDefault();
+        if (threadMode == ThreadMode.VIRTUAL && !threadMode.isVirtual()) {
+            System.err.println("Virtual threads need Java 21 or later. Using platform threads.");
+        }
+        if (!threadMode.isVirtual()) {
+            // A fixed set of threads, however many patients there are
+            scheduler = new TickScheduler();
+        }
 
-        scheduleTasksForPatients(patientIds);
+        scheduleTasksForPatients();
+        awaitPatientThreads();
     }
 
 
@@ -123,9 +137,15 @@ public class HealthDataSimulator {
                             outputStrategy = new FileOutputStrategy(baseDirectory);
                         } else if (outputArg.startsWith("websocket:")) {
                             try {
-                                int port = Integer.parseInt(outputArg.substring(10));
+                                String[] settings = outputArg.substring(10).split(",");
+                                int port = Integer.parseInt(settings[0]);
                                 // Initialize your WebSocket output strategy here
-                                outputStrategy = new WebSocketOutputStrategy(port);
+                                if (settings.length == 3) {
+                                    outputStrategy = new WebSocketOutputStrategy(port,
+                                            Integer.parseInt(settings[1]), Long.parseLong(settings[2]));
+                                } else {
+                                    outputStrategy = new WebSocketOutputStrategy(port);
+                                }
                                 System.out.println("WebSocket output will be on port: " + port);
                             } catch (NumberFormatException e) {
                                 System.err.println(
@@ -145,6 +165,29 @@ public class HealthDataSimulator {
                         }
                     }
                     break;
+                case "--ecg-rate":
+                    if (i + 1 < args.length) {
+                        try {
+                            ecgSampleRate = Integer.parseInt(args[++i]);
+                            if (ecgSampleRate < 1 || ecgSampleRate > ECGWaveformGenerator.MAX_SAMPLE_RATE) {
+                                throw new NumberFormatException();
+                            }
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid ECG sample rate. Using one sample per second.");
+                            ecgSampleRate = 0;
+                        }
+                    }
+                    break;
+                case "--threads":
+                    if (i + 1 < args.length) {
+                        try {
+                            ThreadMode.setDefault(ThreadMode.parse(args[++i]));
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error: " + e.getMessage() + ". Using platform threads.");
+                            ThreadMode.setDefault(ThreadMode.PLATFORM);
+                        }
+                    }
+                    break;
                 default:
                     System.err.println("Unknown option '" + args[i] + "'");
                     printHelp();
@@ -166,7 +209,14 @@ public class HealthDataSimulator {
         System.out.println("                             'console' for console output,");
         System.out.println("                             'file:<directory>' for file output,");
         System.out.println("                             'websocket:<port>' for WebSocket output,");
+        System.out.println("                             'websocket:<port>,<batch>,<ms>' to batch up to <batch>");
+        System.out.println("                             samples per frame, waiting at most <ms> milliseconds,");
         System.out.println("                             'tcp:<port>' for TCP socket output.");
+        System.out.println("  --ecg-rate <hz>          Generate a realistic ECG waveform with <hz> samples per second");
+        System.out.println("                             (1 to 1000, e.g. 500), in blocks of 100 ms.");
+        System.out.println("  --threads <mode>         'platform' (default) runs all patients on a timing wheel with");
+        System.out.println("                             one thread per core; 'virtual' runs each patient as a loop");
+        System.out.println("                             on its own virtual thread (Java 21 or later).");
         System.out.println("Example:");
         System.out.println("  java HealthDataSimulator --patient-count 100 --output websocket:8080");
         System.out.println(
@@ -188,34 +238,90 @@ public class HealthDataSimulator {
     }
 
     /**
-     * Schedules tasks for each patient to generate health data.
-     *
-     * @param patientIds The list of patient IDs.
+     * Schedules tasks for each patient to generate health data. With virtual threads each patient
+     * runs its own loop; otherwise patients are generated in batches of {@value #BATCH_SIZE}
+     * consecutive IDs, one scheduled task per batch and generator.
      */
-    private static void scheduleTasksForPatients(List<Integer> patientIds) {
-        ECGDataGenerator ecgDataGenerator = new ECGDataGenerator(patientCount);
-        BloodSaturationDataGenerator bloodSaturationDataGenerator = new BloodSaturationDataGenerator(patientCount);
-        BloodPressureDataGenerator bloodPressureDataGenerator = new BloodPressureDataGenerator(patientCount);
-        BloodLevelsDataGenerator bloodLevelsDataGenerator = new BloodLevelsDataGenerator(patientCount);
-        AlertGenerator alertGenerator = new AlertGenerator(patientCount);
+    private static void scheduleTasksForPatients() {
+        long[] periodsMillis = PERIODS_MILLIS.clone();
+        PatientDataGenerator ecgGenerator = new ECGDataGenerator(patientCount);
+        if (ecgSampleRate > 0) {
+            ecgGenerator = new ECGWaveformGenerator(patientCount, ecgSampleRate);
+            periodsMillis[0] = ECGWaveformGenerator.DEFAULT_BLOCK_MILLIS;
+        }
+        PatientDataGenerator[] generators = {
+                ecgGenerator,
+                new BloodSaturationDataGenerator(patientCount),
+                new BloodPressureDataGenerator(patientCount),
+                new BloodLevelsDataGenerator(patientCount),
+                new AlertGenerator(patientCount)
+        };
 
+        if (scheduler != null) {
+            SplittableRandom batchRandom = new SplittableRandom(random.nextLong());
+            for (int from = 1; from <= patientCount; from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, patientCount + 1);
+                for (int i = 0; i < generators.length; i++) {
+                    scheduleTask(batchTask(generators[i], from, to, batchRandom.split()), periodsMillis[i],
+                            TimeUnit.MILLISECONDS);
+                }
+            }
+            return;
+        }
+        List<Integer> patientIds = initializePatientIds(patientCount);
+        Collections.shuffle(patientIds); // Start the patient threads in random order
         for (int patientId : patientIds) {
-            scheduleTask(() -> ecgDataGenerator.generate(patientId, outputStrategy), 1, TimeUnit.SECONDS);
-            scheduleTask(() -> bloodSaturationDataGenerator.generate(patientId, outputStrategy), 1, TimeUnit.SECONDS);
-            scheduleTask(() -> bloodPressureDataGenerator.generate(patientId, outputStrategy), 1, TimeUnit.MINUTES);
-            scheduleTask(() -> bloodLevelsDataGenerator.generate(patientId, outputStrategy), 2, TimeUnit.MINUTES);
-            scheduleTask(() -> alertGenerator.generate(patientId, outputStrategy), 20, TimeUnit.SECONDS);
+            Runnable[] tasks = new Runnable[generators.length];
+            for (int i = 0; i < generators.length; i++) {
+                PatientDataGenerator generator = generators[i];
+                tasks[i] = () -> generator.generate(patientId, outputStrategy);
+            }
+            Thread thread = ThreadMode.VIRTUAL.newThread("patient-" + patientId,
+                    new PatientLoop(tasks, periodsMillis, random));
+            thread.start();
+            patientThreads.add(thread);
+        }
+    }
+
+    /**
+     * Creates a task generating one batch of patients per run. The scheduler never runs a task
+     * concurrently with itself, so the block and the random source need no locking.
+     */
+    private static Runnable batchTask(PatientDataGenerator generator, int fromPatientId, int toPatientId,
+                                      SplittableRandom batchRandom) {
+        SampleBlock block = generator.newBlock(toPatientId - fromPatientId);
+        return () -> {
+            generator.generateBatch(fromPatientId, toPatientId, System.currentTimeMillis(), batchRandom, block);
+            block.writeTo(outputStrategy);
+        };
+    }
+
+    /**
+     * Waits for the patient threads, if any. Virtual threads are daemons, so without this the
+     * JVM would exit as soon as the main thread returns.
+     */
+    private static void awaitPatientThreads() {
+        try {
+            for (Thread thread : patientThreads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            patientThreads.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
         }
     }
 
     /**
-     * Schedules a task to run at a fixed rate.
+     * Schedules a task to run at a fixed rate. The first run is at a random point within the
+     * first period, so that patients are spread evenly over the scheduler's ticks.
      *
      * @param task   The task to be scheduled.
      * @param period The period between successive executions.
      * @param timeUnit The time unit of the period parameter.
      */
     private static void scheduleTask(Runnable task, long period, TimeUnit timeUnit) {
-        scheduler.scheduleAtFixedRate(task, random.nextInt(5), period, timeUnit);
+        long periodMillis = timeUnit.toMillis(period);
+        scheduler.scheduleAtFixedRate(task, (long) (random.nextDouble() * periodMillis), periodMillis,
+                TimeUnit.MILLISECONDS);
     }
 }
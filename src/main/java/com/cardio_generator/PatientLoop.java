@@ -0,0 +1,71 @@
+package com.cardio_generator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the periodic tasks of one patient on a thread of its own: it sleeps until the next task
+ * is due, runs every task that is due, and repeats until interrupted. Meant for virtual threads,
+ * where a sleeping loop per patient is cheap; with platform threads prefer {@link TickScheduler}.
+ *
+ * <p>Like {@link TickScheduler}, tasks keep a fixed-rate time grid and a task that throws is
+ * logged and stays scheduled.
+ */
+public final class PatientLoop implements Runnable {
+    private final Runnable[] tasks;
+    private final long[] periodNanos;
+    private final long[] dueNanos;
+
+    /**
+     * Creates a loop whose tasks first run at a random point within their first period.
+     *
+     * @param tasks         the tasks to run
+     * @param periodsMillis the period of each task
+     * @param random        the source of the first-run offsets
+     */
+    public PatientLoop(Runnable[] tasks, long[] periodsMillis, Random random) {
+        if (tasks.length == 0 || tasks.length != periodsMillis.length) {
+            throw new IllegalArgumentException("Each task needs exactly one period");
+        }
+        this.tasks = tasks.clone();
+        this.periodNanos = new long[tasks.length];
+        this.dueNanos = new long[tasks.length];
+        long now = System.nanoTime();
+        for (int i = 0; i < tasks.length; i++) {
+            if (periodsMillis[i] <= 0) {
+                throw new IllegalArgumentException("Periods must be positive");
+            }
+            periodNanos[i] = TimeUnit.MILLISECONDS.toNanos(periodsMillis[i]);
+            dueNanos[i] = now + (long) (random.nextDouble() * periodNanos[i]);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long next = Long.MAX_VALUE;
+            for (long due : dueNanos) {
+                next = Math.min(next, due);
+            }
+            long now = System.nanoTime();
+            if (next - now > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(next - now);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            for (int i = 0; i < tasks.length; i++) {
+                if (dueNanos[i] - now <= 0) {
+                    try {
+                        tasks[i].run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Error running scheduled task: " + e.getMessage());
+                    }
+                    dueNanos[i] += periodNanos[i];
+                }
+            }
+        }
+    }
+}
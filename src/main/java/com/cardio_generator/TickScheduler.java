@@ -0,0 +1,280 @@
+package com.cardio_generator;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs many periodic tasks on a hashed timing wheel, with a fixed number of threads however
+ * many tasks there are.
+ *
+ * <p>Time is cut into ticks. Each task sits in the wheel slot of the tick it is next due in,
+ * with the number of full wheel turns still to wait. A timer thread visits one slot per tick and
+ * runs every task due there, split across the worker threads; the next tick starts once they
+ * are all done, so a task never overlaps its previous run. If the tasks of a tick take longer
+ * than the tick, later ticks run back to back until the scheduler has caught up; like
+ * {@link java.util.concurrent.ScheduledExecutorService#scheduleAtFixedRate}, tasks keep their
+ * original time grid.
+ *
+ * <p>The timer thread is not a daemon, so a running scheduler keeps the JVM alive until
+ * {@link #close()}.
+ */
+public final class TickScheduler implements AutoCloseable {
+    /** Default tick length. */
+    public static final long DEFAULT_TICK_MILLIS = 10L;
+    /** Default number of slots; with the default tick one turn of the wheel is 5.12 seconds. */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+    // Below this many due tasks per thread, a tick is not worth splitting further
+    private static final int MIN_TASKS_PER_THREAD = 64;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Entry[][] slots;
+    private final int[] slotSizes;
+    private final int threads;
+    private final ExecutorService workers;
+    private final Queue<Entry> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger taskCount = new AtomicInteger();
+    private final Thread timer;
+    private final long startNanos;
+    private Entry[] due = new Entry[64];
+    private volatile boolean running = true;
+    // Next tick to run; only the timer thread writes it
+    private volatile long currentTick;
+
+    /**
+     * Creates a scheduler with the default tick and wheel size and one thread per available
+     * processor.
+     */
+    public TickScheduler() {
+        this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a scheduler and starts its timer thread.
+     *
+     * @param tickMillis the tick length; task periods are rounded up to whole ticks
+     * @param wheelSize  the number of slots, a power of two
+     * @param threads    the number of threads running tasks, including the timer thread
+     */
+    public TickScheduler(long tickMillis, int wheelSize, int threads) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be at least 1 ms");
+        }
+        if (wheelSize < 1 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is required");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = wheelSize - 1;
+        this.slots = new Entry[wheelSize][];
+        this.slotSizes = new int[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new Entry[8];
+        }
+        this.threads = threads;
+        AtomicInteger workerIds = new AtomicInteger();
+        // The timer thread runs a share of each tick itself
+        this.workers = threads > 1 ? Executors.newFixedThreadPool(threads - 1, r -> {
+            Thread t = new Thread(r, "tick-worker-" + workerIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        this.startNanos = System.nanoTime();
+        this.timer = new Thread(this::timerLoop, "tick-scheduler");
+        timer.start();
+    }
+
+    /**
+     * Runs a task every {@code period}, starting after {@code initialDelay}. Delays are rounded
+     * up to whole ticks. If the task throws, the error is printed and the task stays scheduled.
+     *
+     * @param task         the task to run
+     * @param initialDelay the time until the first run
+     * @param period       the time between the starts of two runs
+     * @param unit         the unit of {@code initialDelay} and {@code period}
+     */
+    public void scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (initialDelay < 0 || period <= 0) {
+            throw new IllegalArgumentException("Delays must not be negative and the period must be positive");
+        }
+        if (!running) {
+            throw new IllegalStateException("Scheduler is closed");
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        long firstTick = ticksCeil(elapsed + unit.toNanos(initialDelay));
+        incoming.add(new Entry(task, firstTick, Math.max(1, ticksCeil(unit.toNanos(period)))));
+        taskCount.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of tasks scheduled.
+     *
+     * @return the task count
+     */
+    public int getTaskCount() {
+        return taskCount.get();
+    }
+
+    /**
+     * Returns the number of ticks run so far.
+     *
+     * @return the tick count
+     */
+    public long getTickCount() {
+        return currentTick;
+    }
+
+    /**
+     * Stops the scheduler, waiting for the tick in progress to finish. Tasks are not run again.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(timer);
+        if (Thread.currentThread() != timer) {
+            try {
+                timer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    private long ticksCeil(long nanos) {
+        return (nanos + tickNanos - 1) / tickNanos;
+    }
+
+    private void timerLoop() {
+        long tick = 0;
+        while (running) {
+            long wait = startNanos + tick * tickNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            Entry entry;
+            while ((entry = incoming.poll()) != null) {
+                place(entry, tick);
+            }
+            runTick(tick);
+            currentTick = ++tick;
+        }
+    }
+
+    /**
+     * Puts an entry into the slot of its next due tick, counting the wheel turns until then
+     * from {@code tick}, the next tick to run.
+     */
+    private void place(Entry entry, long tick) {
+        long delay = Math.max(0, entry.dueTick - tick);
+        int slot = (int) ((tick + delay) & mask);
+        entry.rounds = delay / slots.length;
+        Entry[] entries = slots[slot];
+        int size = slotSizes[slot];
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+            slots[slot] = entries;
+        }
+        entries[size] = entry;
+        slotSizes[slot] = size + 1;
+    }
+
+    private void runTick(long tick) {
+        int slot = (int) (tick & mask);
+        Entry[] entries = slots[slot];
+        int size = slotSizes[slot];
+        int kept = 0;
+        int dueCount = 0;
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries[i];
+            if (entry.rounds > 0) {
+                entry.rounds--;
+                entries[kept++] = entry;
+            } else {
+                if (dueCount == due.length) {
+                    due = Arrays.copyOf(due, dueCount * 2);
+                }
+                due[dueCount++] = entry;
+            }
+        }
+        Arrays.fill(entries, kept, size, null);
+        slotSizes[slot] = kept;
+        if (dueCount == 0) {
+            return;
+        }
+
+        run(due, dueCount);
+        for (int i = 0; i < dueCount; i++) {
+            Entry entry = due[i];
+            due[i] = null;
+            entry.dueTick += entry.periodTicks;
+            place(entry, tick + 1);
+        }
+    }
+
+    /**
+     * Runs the due tasks, in parts on the worker threads and the last part on this thread, and
+     * returns once all have finished.
+     */
+    private void run(Entry[] entries, int count) {
+        int parts = Math.min(threads, (count + MIN_TASKS_PER_THREAD - 1) / MIN_TASKS_PER_THREAD);
+        if (parts <= 1) {
+            runRange(entries, 0, count);
+            return;
+        }
+        int partSize = (count + parts - 1) / parts;
+        int submitted = (count - 1) / partSize;
+        CountDownLatch done = new CountDownLatch(submitted);
+        for (int part = 0; part < submitted; part++) {
+            int from = part * partSize;
+            workers.execute(() -> {
+                try {
+                    runRange(entries, from, from + partSize);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        runRange(entries, submitted * partSize, count);
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runRange(Entry[] entries, int from, int to) {
+        for (int i = from; i < to; i++) {
+            try {
+                entries[i].task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error running scheduled task: " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Entry {
+        final Runnable task;
+        final long periodTicks;
+        long dueTick;
+        long rounds;
+
+        Entry(Runnable task, long dueTick, long periodTicks) {
+            this.task = task;
+            this.dueTick = dueTick;
+            this.periodTicks = periodTicks;
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.cardio_generator.outputs.OutputStrategy;
+import com.common.RecordTypes;
 
 /**
  * The ECGDataGenerator class generates ECG data for patients.
  */
 public class AlertGenerator implements PatientDataGenerator {
-    // Changed constant name from random_generator to RANDOM_GENERATOR (UPPER_SNAKE_CASE)
-    public static final Random RANDOM_GENERATOR = new Random();
     // Changed variable name from AlertStates to alertStates (camelCase)
     private boolean[] alertStates; // false = resolved, true = pressed
+    // Probability of at least one alert in a period, for an average rate of 0.1 alerts per period
+    private static final double TRIGGER_PROBABILITY = -Math.expm1(-0.1);
 
 
     /**
@@ -33,21 +35,21 @@ public class AlertGenerator implements PatientDataGenerator {
     public void generate(int patientId, OutputStrategy outputStrategy) {
         try {
             if (alertStates[patientId]) {
-                if (RANDOM_GENERATOR.nextDouble() < 0.9) { // 90% chance to resolve
+                if (ThreadLocalRandom.current().nextDouble() < 0.9) { // 90% chance to resolve
                     alertStates[patientId] = false;
                     // Output the alert
-                    outputStrategy.output(patientId, System.currentTimeMillis(), "Alert", "resolved");
+                    outputStrategy.output(patientId, System.currentTimeMillis(), RecordTypes.ALERT, 0);
                 }
             } else {
                 // Changed variable name from Lambda to lambda (camelCase)
                 double lambda = 0.1; // Average rate (alerts per period), adjust based on desired frequency
                 double p = -Math.expm1(-lambda); // Probability of at least one alert in the period
-                boolean alertTriggered = RANDOM_GENERATOR.nextDouble() < p;
+                boolean alertTriggered = ThreadLocalRandom.current().nextDouble() < p;
 
                 if (alertTriggered) {
                     alertStates[patientId] = true;
                     // Output the alert
-                    outputStrategy.output(patientId, System.currentTimeMillis(), "Alert", "triggered");
+                    outputStrategy.output(patientId, System.currentTimeMillis(), RecordTypes.ALERT, 1);
                 }
             }
         } catch (Exception e) {
@@ -55,4 +57,32 @@ public class AlertGenerator implements PatientDataGenerator {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public SampleBlock newBlock(int capacity) {
+        return new SampleBlock(capacity, RecordTypes.ALERT);
+    }
+
+    /**
+     * Generates one tick of alerts; the block holds 1 where an alert is triggered, 0 where one
+     * is resolved and NaN where nothing changes.
+     */
+    @Override
+    public void generateBatch(int fromPatientId, int toPatientId, long timestamp, SplittableRandom random,
+                              SampleBlock block) {
+        block.reset(fromPatientId, toPatientId, timestamp);
+        int count = toPatientId - fromPatientId;
+        double[] draws = block.noise[0];
+        for (int i = 0; i < count; i++) {
+            draws[i] = random.nextDouble();
+        }
+        double[] alerts = block.getValues(0);
+        for (int i = 0; i < count; i++) {
+            boolean pressed = alertStates[fromPatientId + i];
+            // 90% chance to resolve an alert, otherwise a chance to trigger one
+            boolean changes = draws[i] < (pressed ? 0.9 : TRIGGER_PROBABILITY);
+            alertStates[fromPatientId + i] = pressed != changes;
+            alerts[i] = changes ? (pressed ? 0 : 1) : Double.NaN;
+        }
+    }
 }
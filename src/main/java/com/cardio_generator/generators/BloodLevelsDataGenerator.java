@@ -1,8 +1,11 @@
 package com.cardio_generator.generators;
 
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.cardio_generator.outputs.OutputStrategy;
+import com.common.RecordTypes;
 
 public class BloodLevelsDataGenerator implements PatientDataGenerator {
     private static final Random random = new Random();
@@ -28,18 +31,47 @@ public class BloodLevelsDataGenerator implements PatientDataGenerator {
     public void generate(int patientId, OutputStrategy outputStrategy) {
         try {
             // Generate values around the baseline for realism
+            ThreadLocalRandom random = ThreadLocalRandom.current();
             double cholesterol = baselineCholesterol[patientId] + (random.nextDouble() - 0.5) * 10; // Small variation
             double whiteCells = baselineWhiteCells[patientId] + (random.nextDouble() - 0.5) * 1; // Small variation
             double redCells = baselineRedCells[patientId] + (random.nextDouble() - 0.5) * 0.2; // Small variation
 
             // Output the generated values
-            outputStrategy.output(patientId, System.currentTimeMillis(), "Cholesterol", Double.toString(cholesterol));
-            outputStrategy.output(patientId, System.currentTimeMillis(), "WhiteBloodCells",
-                    Double.toString(whiteCells));
-            outputStrategy.output(patientId, System.currentTimeMillis(), "RedBloodCells", Double.toString(redCells));
+            outputStrategy.output(patientId, System.currentTimeMillis(), RecordTypes.CHOLESTEROL, cholesterol);
+            outputStrategy.output(patientId, System.currentTimeMillis(), RecordTypes.WHITE_BLOOD_CELLS, whiteCells);
+            outputStrategy.output(patientId, System.currentTimeMillis(), RecordTypes.RED_BLOOD_CELLS, redCells);
         } catch (Exception e) {
             System.err.println("An error occurred while generating blood levels data for patient " + patientId);
             e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
         }
     }
+
+    @Override
+    public SampleBlock newBlock(int capacity) {
+        return new SampleBlock(capacity, RecordTypes.CHOLESTEROL, RecordTypes.WHITE_BLOOD_CELLS,
+                RecordTypes.RED_BLOOD_CELLS);
+    }
+
+    @Override
+    public void generateBatch(int fromPatientId, int toPatientId, long timestamp, SplittableRandom random,
+                              SampleBlock block) {
+        block.reset(fromPatientId, toPatientId, timestamp);
+        int count = toPatientId - fromPatientId;
+        double[] cholesterolNoise = block.noise[0];
+        double[] whiteCellsNoise = block.noise[1];
+        double[] redCellsNoise = block.noise[2];
+        for (int i = 0; i < count; i++) {
+            cholesterolNoise[i] = random.nextDouble();
+            whiteCellsNoise[i] = random.nextDouble();
+            redCellsNoise[i] = random.nextDouble();
+        }
+        double[] cholesterol = block.getValues(0);
+        double[] whiteCells = block.getValues(1);
+        double[] redCells = block.getValues(2);
+        for (int i = 0; i < count; i++) {
+            cholesterol[i] = baselineCholesterol[fromPatientId + i] + (cholesterolNoise[i] - 0.5) * 10;
+            whiteCells[i] = baselineWhiteCells[fromPatientId + i] + (whiteCellsNoise[i] - 0.5) * 1;
+            redCells[i] = baselineRedCells[fromPatientId + i] + (redCellsNoise[i] - 0.5) * 0.2;
+        }
+    }
 }
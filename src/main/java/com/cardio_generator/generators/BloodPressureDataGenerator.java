@@ -1,8 +1,11 @@
 package com.cardio_generator.generators;
 
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.cardio_generator.outputs.OutputStrategy;
+import com.common.RecordTypes;
 
 public class BloodPressureDataGenerator implements PatientDataGenerator {
     private static final Random random = new Random();
@@ -24,6 +27,7 @@ public class BloodPressureDataGenerator implements PatientDataGenerator {
     @Override
     public void generate(int patientId, OutputStrategy outputStrategy) {
         try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
             int systolicVariation = random.nextInt(5) - 2; // -2, -1, 0, 1, or 2
             int diastolicVariation = random.nextInt(5) - 2;
             int newSystolicValue = lastSystolicValues[patientId] + systolicVariation;
@@ -34,13 +38,39 @@ public class BloodPressureDataGenerator implements PatientDataGenerator {
             lastSystolicValues[patientId] = newSystolicValue;
             lastDiastolicValues[patientId] = newDiastolicValue;
 
-            outputStrategy.output(patientId, System.currentTimeMillis(), "SystolicPressure",
-                    Double.toString(newSystolicValue));
-            outputStrategy.output(patientId, System.currentTimeMillis(), "DiastolicPressure",
-                    Double.toString(newDiastolicValue));
+            outputStrategy.output(patientId, System.currentTimeMillis(), RecordTypes.SYSTOLIC_PRESSURE, newSystolicValue);
+            outputStrategy.output(patientId, System.currentTimeMillis(), RecordTypes.DIASTOLIC_PRESSURE, newDiastolicValue);
         } catch (Exception e) {
             System.err.println("An error occurred while generating blood pressure data for patient " + patientId);
             e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
         }
     }
+
+    @Override
+    public SampleBlock newBlock(int capacity) {
+        return new SampleBlock(capacity, RecordTypes.SYSTOLIC_PRESSURE, RecordTypes.DIASTOLIC_PRESSURE);
+    }
+
+    @Override
+    public void generateBatch(int fromPatientId, int toPatientId, long timestamp, SplittableRandom random,
+                              SampleBlock block) {
+        block.reset(fromPatientId, toPatientId, timestamp);
+        int count = toPatientId - fromPatientId;
+        int[] systolicVariation = block.intNoise[0];
+        int[] diastolicVariation = block.intNoise[1];
+        for (int i = 0; i < count; i++) {
+            systolicVariation[i] = random.nextInt(5) - 2;
+            diastolicVariation[i] = random.nextInt(5) - 2;
+        }
+        double[] systolic = block.getValues(0);
+        double[] diastolic = block.getValues(1);
+        for (int i = 0; i < count; i++) {
+            int newSystolicValue = Math.min(Math.max(lastSystolicValues[fromPatientId + i] + systolicVariation[i], 90), 180);
+            int newDiastolicValue = Math.min(Math.max(lastDiastolicValues[fromPatientId + i] + diastolicVariation[i], 60), 120);
+            lastSystolicValues[fromPatientId + i] = newSystolicValue;
+            lastDiastolicValues[fromPatientId + i] = newDiastolicValue;
+            systolic[i] = newSystolicValue;
+            diastolic[i] = newDiastolicValue;
+        }
+    }
 }
@@ -1,8 +1,11 @@
 package com.cardio_generator.generators;
 
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.cardio_generator.outputs.OutputStrategy;
+import com.common.RecordTypes;
 
 /**
  * The BloodPressureDataGenerator class generates blood pressure data for patients.
@@ -35,17 +38,38 @@ public class BloodSaturationDataGenerator implements PatientDataGenerator {
     public void generate(int patientId, OutputStrategy outputStrategy) {
         try {
             // Simulate blood saturation values
-            int variation = random.nextInt(3) - 1; // -1, 0, or 1 to simulate small fluctuations
+            int variation = ThreadLocalRandom.current().nextInt(3) - 1; // -1, 0, or 1 to simulate small fluctuations
             int newSaturationValue = lastSaturationValues[patientId] + variation;
 
             // Ensure the saturation stays within a realistic and healthy range
             newSaturationValue = Math.min(Math.max(newSaturationValue, 90), 100);
             lastSaturationValues[patientId] = newSaturationValue;
-            outputStrategy.output(patientId, System.currentTimeMillis(), "Saturation",
-                    Double.toString(newSaturationValue) + "%");
+            outputStrategy.output(patientId, System.currentTimeMillis(), RecordTypes.SATURATION, newSaturationValue);
         } catch (Exception e) {
             System.err.println("An error occurred while generating blood saturation data for patient " + patientId);
             e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
         }
     }
+
+    @Override
+    public SampleBlock newBlock(int capacity) {
+        return new SampleBlock(capacity, RecordTypes.SATURATION);
+    }
+
+    @Override
+    public void generateBatch(int fromPatientId, int toPatientId, long timestamp, SplittableRandom random,
+                              SampleBlock block) {
+        block.reset(fromPatientId, toPatientId, timestamp);
+        int count = toPatientId - fromPatientId;
+        int[] variation = block.intNoise[0];
+        for (int i = 0; i < count; i++) {
+            variation[i] = random.nextInt(3) - 1;
+        }
+        double[] saturation = block.getValues(0);
+        for (int i = 0; i < count; i++) {
+            int value = Math.min(Math.max(lastSaturationValues[fromPatientId + i] + variation[i], 90), 100);
+            lastSaturationValues[fromPatientId + i] = value;
+            saturation[i] = value;
+        }
+    }
 }
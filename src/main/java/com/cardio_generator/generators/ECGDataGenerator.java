@@ -1,39 +1,62 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.cardio_generator.outputs.OutputStrategy;
+import com.common.RecordTypes;
 
 public class ECGDataGenerator implements PatientDataGenerator {
-    private static final Random random = new Random();
-    private double[] lastEcgValues;
     private static final double PI = Math.PI;
 
     public ECGDataGenerator(int patientCount) {
-        lastEcgValues = new double[patientCount + 1];
-        // Initialize the last ECG value for each patient
-        for (int i = 1; i <= patientCount; i++) {
-            lastEcgValues[i] = 0; // Initial ECG value can be set to 0
-        }
+        // Each value depends only on the time, so there is no per-patient state to allocate
     }
 
     @Override
     public void generate(int patientId, OutputStrategy outputStrategy) {
         // TODO Check how realistic this data is and make it more realistic if necessary
         try {
-            double ecgValue = simulateEcgWaveform(patientId, lastEcgValues[patientId]);
-            outputStrategy.output(patientId, System.currentTimeMillis(), "ECG", Double.toString(ecgValue));
-            lastEcgValues[patientId] = ecgValue;
+            double ecgValue = simulateEcgWaveform();
+            outputStrategy.output(patientId, System.currentTimeMillis(), RecordTypes.ECG, ecgValue);
         } catch (Exception e) {
             System.err.println("An error occurred while generating ECG data for patient " + patientId);
             e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
         }
     }
 
-    private double simulateEcgWaveform(int patientId, double lastEcgValue) {
-        // Simplified ECG waveform generation based on sinusoids
-        double hr = 60.0 + random.nextDouble() * 20.0; // Simulate heart rate variability between 60 and 80 bpm
+    @Override
+    public SampleBlock newBlock(int capacity) {
+        return new SampleBlock(capacity, RecordTypes.ECG);
+    }
+
+    @Override
+    public void generateBatch(int fromPatientId, int toPatientId, long timestamp, SplittableRandom random,
+                              SampleBlock block) {
+        block.reset(fromPatientId, toPatientId, timestamp);
+        int count = toPatientId - fromPatientId;
+        double[] heartRateDraws = block.noise[0];
+        double[] noiseDraws = block.noise[1];
+        for (int i = 0; i < count; i++) {
+            heartRateDraws[i] = random.nextDouble();
+            noiseDraws[i] = random.nextDouble();
+        }
+        double t = timestamp / 1000.0;
+        double[] ecg = block.getValues(0);
+        for (int i = 0; i < count; i++) {
+            ecg[i] = waveform(heartRateDraws[i], t, noiseDraws[i]);
+        }
+    }
+
+    private static double simulateEcgWaveform() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
         double t = System.currentTimeMillis() / 1000.0; // Use system time to simulate continuous time
+        return waveform(random.nextDouble(), t, random.nextDouble());
+    }
+
+    private static double waveform(double heartRateDraw, double t, double noiseDraw) {
+        // Simplified ECG waveform generation based on sinusoids
+        double hr = 60.0 + heartRateDraw * 20.0; // Simulate heart rate variability between 60 and 80 bpm
         double ecgFrequency = hr / 60.0; // Convert heart rate to Hz
 
         // Simulate different components of the ECG signal
@@ -41,6 +64,6 @@ public class ECGDataGenerator implements PatientDataGenerator {
         double qrsComplex = 0.5 * Math.sin(2 * PI * 3 * ecgFrequency * t); // QRS is higher frequency
         double tWave = 0.2 * Math.sin(2 * PI * 2 * ecgFrequency * t + PI / 4); // T wave is offset
 
-        return pWave + qrsComplex + tWave + random.nextDouble() * 0.05; // Add small noise
+        return pWave + qrsComplex + tWave + noiseDraw * 0.05; // Add small noise
     }
 }
@@ -0,0 +1,249 @@
+package com.cardio_generator.generators;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import com.cardio_generator.outputs.OutputStrategy;
+import com.common.RecordTypes;
+
+/**
+ * Generates ECG signals at a clinical sampling rate (typically 250 to 1000 Hz), for load-testing
+ * the storage and alert paths with realistic data volumes.
+ *
+ * <p>Each beat follows a precomputed PQRST template, a lookup table over the phase of the beat
+ * built from one Gaussian per wave. Every patient has a baseline heart rate of 60 to 90 bpm
+ * whose beat-to-beat intervals vary with respiration (sinus arrhythmia) and with patient-specific
+ * random variability; on top come baseline wander at the breathing rate and measurement noise.
+ * Respiration and noise are read from lookup tables as well, so a sample costs a few table reads
+ * and no random draws or trigonometric calls.
+ *
+ * <p>Samples are produced in blocks of {@link #getBlockMillis()} milliseconds: each
+ * {@link #generate} call emits one block of one patient's samples starting at the current time,
+ * each {@link #generateBatch} call fills a {@link SampleBlock} with one channel per sampling
+ * instant. Values are in millivolts.
+ */
+public class ECGWaveformGenerator implements PatientDataGenerator {
+    /** Highest supported sampling rate; timestamps are in millis, so faster samples would collide. */
+    public static final int MAX_SAMPLE_RATE = 1000;
+    /** Default length of a block of samples. */
+    public static final long DEFAULT_BLOCK_MILLIS = 100;
+
+    private static final Random random = new Random();
+
+    private static final int TABLE_SIZE = 1024;
+    private static final int NOISE_SIZE = 4096;
+    private static final int NOISE_MASK = NOISE_SIZE - 1;
+    // One beat by phase, and one breath; each has an extra entry equal to the first for interpolation
+    private static final double[] TEMPLATE = new double[TABLE_SIZE + 1];
+    private static final double[] SINE = new double[TABLE_SIZE + 1];
+    // Approximately normal, mean 0 and standard deviation 1
+    private static final double[] NOISE = new double[NOISE_SIZE];
+
+    // P, Q, R, S and T waves: position in the beat, width, and amplitude in millivolts
+    private static final double[][] WAVES = {
+            {0.20, 0.025, 0.15},
+            {0.355, 0.008, -0.15},
+            {0.375, 0.010, 1.2},
+            {0.395, 0.008, -0.3},
+            {0.65, 0.050, 0.35}
+    };
+    // Relative change of the RR interval over a breath
+    private static final double SINUS_ARRHYTHMIA = 0.04;
+    private static final double WANDER_MILLIVOLTS = 0.05;
+    private static final double NOISE_MILLIVOLTS = 0.01;
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            double phase = (double) (i % TABLE_SIZE) / TABLE_SIZE;
+            double value = 0;
+            for (double[] wave : WAVES) {
+                double distance = (phase - wave[0]) / wave[1];
+                value += wave[2] * Math.exp(-0.5 * distance * distance);
+            }
+            TEMPLATE[i] = value;
+            SINE[i] = Math.sin(2 * Math.PI * phase);
+        }
+        Random noise = new Random(42);
+        for (int i = 0; i < NOISE_SIZE; i++) {
+            // The sum of four uniforms is close enough to normal for measurement noise
+            NOISE[i] = (noise.nextDouble() + noise.nextDouble() + noise.nextDouble() + noise.nextDouble() - 2)
+                    * Math.sqrt(3);
+        }
+    }
+
+    private final int sampleRate;
+    private final long blockMillis;
+    private final long[] offsetsMillis;
+
+    // Per-patient state, indexed by patient ID
+    private final double[] beatPhase;
+    private final double[] beatStep;
+    private final double[] meanRrMillis;
+    private final double[] variability;
+    private final double[] amplitude;
+    private final double[] breathPhase;
+    private final double[] breathStep;
+    private final int[] noiseIndex;
+    private final int[] beatNoiseIndex;
+
+    /**
+     * Creates a generator with blocks of {@value #DEFAULT_BLOCK_MILLIS} milliseconds.
+     *
+     * @param patientCount the number of patients, with IDs from 1
+     * @param sampleRate   samples per second, at most {@value #MAX_SAMPLE_RATE}
+     */
+    public ECGWaveformGenerator(int patientCount, int sampleRate) {
+        this(patientCount, sampleRate, DEFAULT_BLOCK_MILLIS);
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param patientCount the number of patients, with IDs from 1
+     * @param sampleRate   samples per second, at most {@value #MAX_SAMPLE_RATE}
+     * @param blockMillis  the time covered by one block; must hold a whole number of samples
+     */
+    public ECGWaveformGenerator(int patientCount, int sampleRate, long blockMillis) {
+        if (sampleRate < 1 || sampleRate > MAX_SAMPLE_RATE) {
+            throw new IllegalArgumentException("Sample rate must be between 1 and " + MAX_SAMPLE_RATE + " Hz");
+        }
+        if (blockMillis < 1 || blockMillis * sampleRate % 1000 != 0) {
+            throw new IllegalArgumentException("A block of " + blockMillis + " ms at " + sampleRate
+                    + " Hz does not hold a whole number of samples");
+        }
+        this.sampleRate = sampleRate;
+        this.blockMillis = blockMillis;
+        this.offsetsMillis = new long[(int) (blockMillis * sampleRate / 1000)];
+        for (int k = 0; k < offsetsMillis.length; k++) {
+            offsetsMillis[k] = k * 1000L / sampleRate;
+        }
+
+        beatPhase = new double[patientCount + 1];
+        beatStep = new double[patientCount + 1];
+        meanRrMillis = new double[patientCount + 1];
+        variability = new double[patientCount + 1];
+        amplitude = new double[patientCount + 1];
+        breathPhase = new double[patientCount + 1];
+        breathStep = new double[patientCount + 1];
+        noiseIndex = new int[patientCount + 1];
+        beatNoiseIndex = new int[patientCount + 1];
+        for (int i = 1; i <= patientCount; i++) {
+            meanRrMillis[i] = 60_000.0 / (60 + random.nextDouble() * 30); // 60 to 90 bpm
+            variability[i] = 0.02 + random.nextDouble() * 0.04; // 2% to 6% of the RR interval
+            amplitude[i] = 0.8 + random.nextDouble() * 0.4;
+            breathStep[i] = (12 + random.nextDouble() * 8) / 60.0 / sampleRate; // 12 to 20 breaths a minute
+            breathPhase[i] = random.nextDouble();
+            noiseIndex[i] = random.nextInt(NOISE_SIZE);
+            beatNoiseIndex[i] = random.nextInt(NOISE_SIZE);
+            beatPhase[i] = random.nextDouble();
+            startBeat(i);
+        }
+    }
+
+    /**
+     * Returns the sampling rate.
+     *
+     * @return samples per second
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Returns the time covered by one block.
+     *
+     * @return the block length in millis
+     */
+    public long getBlockMillis() {
+        return blockMillis;
+    }
+
+    /**
+     * Returns the number of samples per patient in one block.
+     *
+     * @return the samples per block
+     */
+    public int getSamplesPerBlock() {
+        return offsetsMillis.length;
+    }
+
+    /**
+     * Emits one block of the patient's samples, starting at the current time.
+     */
+    @Override
+    public void generate(int patientId, OutputStrategy outputStrategy) {
+        try {
+            long timestamp = System.currentTimeMillis();
+            for (long offset : offsetsMillis) {
+                outputStrategy.output(patientId, timestamp + offset, RecordTypes.ECG, nextSample(patientId));
+            }
+        } catch (Exception e) {
+            System.err.println("An error occurred while generating ECG waveform data for patient " + patientId);
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public SampleBlock newBlock(int capacity) {
+        return new SampleBlock(capacity, RecordTypes.ECG, offsetsMillis);
+    }
+
+    /**
+     * Fills the block with one block of samples per patient, channel {@code k} holding the
+     * samples taken {@code k / sampleRate} seconds after {@code timestamp}. The waveform needs no
+     * random draws, so {@code random} is not used.
+     */
+    @Override
+    public void generateBatch(int fromPatientId, int toPatientId, long timestamp, SplittableRandom random,
+                              SampleBlock block) {
+        block.reset(fromPatientId, toPatientId, timestamp);
+        int count = toPatientId - fromPatientId;
+        for (int k = 0; k < offsetsMillis.length; k++) {
+            double[] samples = block.getValues(k);
+            for (int i = 0; i < count; i++) {
+                samples[i] = nextSample(fromPatientId + i);
+            }
+        }
+    }
+
+    private double nextSample(int patientId) {
+        double phase = beatPhase[patientId] + beatStep[patientId];
+        if (phase >= 1) {
+            // More than one beat per sample only happens at very low sampling rates
+            phase -= Math.floor(phase);
+            beatPhase[patientId] = phase;
+            startBeat(patientId);
+        } else {
+            beatPhase[patientId] = phase;
+        }
+        double breath = breathPhase[patientId] + breathStep[patientId];
+        if (breath >= 1) {
+            breath -= 1;
+        }
+        breathPhase[patientId] = breath;
+        int noise = (noiseIndex[patientId] + 1) & NOISE_MASK;
+        noiseIndex[patientId] = noise;
+        return amplitude[patientId] * lookup(TEMPLATE, phase) + WANDER_MILLIVOLTS * lookup(SINE, breath)
+                + NOISE_MILLIVOLTS * NOISE[noise];
+    }
+
+    /**
+     * Draws the length of the patient's next beat.
+     */
+    private void startBeat(int patientId) {
+        int noise = (beatNoiseIndex[patientId] + 1) & NOISE_MASK;
+        beatNoiseIndex[patientId] = noise;
+        double rrMillis = meanRrMillis[patientId] * (1 + SINUS_ARRHYTHMIA * lookup(SINE, breathPhase[patientId])
+                + variability[patientId] * NOISE[noise]);
+        // Whatever the draws, stay between 30 and 200 bpm
+        rrMillis = Math.min(Math.max(rrMillis, 300), 2000);
+        beatStep[patientId] = 1000.0 / (rrMillis * sampleRate);
+    }
+
+    private static double lookup(double[] table, double phase) {
+        double position = phase * TABLE_SIZE;
+        int index = (int) position;
+        double fraction = position - index;
+        return table[index] + fraction * (table[index + 1] - table[index]);
+    }
+}
@@ -1,5 +1,7 @@
 package com.cardio_generator.generators;
 
+import java.util.SplittableRandom;
+
 import com.cardio_generator.outputs.OutputStrategy;
 
 /**
@@ -14,4 +16,40 @@ public interface PatientDataGenerator {
      * @param outputStrategy The strategy to use for outputting the generated data.
      */
     void generate(int patientId, OutputStrategy outputStrategy);
+
+    /**
+     * Creates a block for {@link #generateBatch}, with one channel per label this generator emits.
+     * By default the block has no channels, for the default {@link #generateBatch}.
+     *
+     * @param capacity The largest number of patients one batch may cover.
+     * @return a new, empty block
+     */
+    default SampleBlock newBlock(int capacity) {
+        return new SampleBlock(capacity);
+    }
+
+    /**
+     * Generates one tick of data for the patients {@code fromPatientId} to {@code toPatientId - 1}
+     * at once, into {@code block}. Each patient's state advances as with one {@link #generate}
+     * call. Batches over disjoint patient ranges may run concurrently, each thread with its own
+     * block and random source.
+     *
+     * <p>By default {@link #generate} is called for each patient and its samples are kept in the
+     * block as emitted, with their own timestamps; {@code random} is not used. Generators with a
+     * columnar form override this together with {@link #newBlock(int)}.
+     *
+     * @param fromPatientId The first patient ID, inclusive.
+     * @param toPatientId The last patient ID, exclusive.
+     * @param timestamp The timestamp of every sample of the tick.
+     * @param random The calling thread's random source.
+     * @param block A block from {@link #newBlock(int)} of this generator, overwritten.
+     */
+    default void generateBatch(int fromPatientId, int toPatientId, long timestamp, SplittableRandom random,
+                               SampleBlock block) {
+        block.reset(fromPatientId, toPatientId, timestamp);
+        OutputStrategy passThrough = block.passThrough();
+        for (int patientId = fromPatientId; patientId < toPatientId; patientId++) {
+            generate(patientId, passThrough);
+        }
+    }
 }
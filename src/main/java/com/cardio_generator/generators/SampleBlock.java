@@ -0,0 +1,212 @@
+package com.cardio_generator.generators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.cardio_generator.outputs.OutputStrategy;
+import com.common.RecordTypes;
+
+/**
+ * One tick of a generator's samples for a contiguous range of patients, as filled by
+ * {@link PatientDataGenerator#generateBatch}. Each record type the generator emits is a channel: a
+ * primitive column holding the value for patient {@code getFromPatientId() + i} at index
+ * {@code i}, or NaN where that patient has no sample this tick. A block may also hold several
+ * samples of one record type per patient, one channel per sampling instant, each channel offset
+ * from the block's timestamp.
+ *
+ * <p>A generator without a columnar form leaves its block without channels and passes the samples
+ * of its per-patient {@code generate} calls through the block instead, see
+ * {@link PatientDataGenerator#generateBatch}; they are written after the channels.
+ *
+ * <p>A block is reused from tick to tick and is not thread-safe; each thread generating
+ * batches keeps its own, created with {@link PatientDataGenerator#newBlock(int)}.
+ */
+public final class SampleBlock {
+
+    private final int[] typeIds;
+    private final long[] offsetsMillis;
+    private final double[][] values;
+    // Per-tick random draws, drawn in a loop of their own so the arithmetic loop has no RNG state
+    final double[][] noise;
+    final int[][] intNoise;
+    private int fromPatientId;
+    private int patientCount;
+    private long timestamp;
+    // Samples emitted by generate calls, in emission order
+    private final List<PassedSample> passedThrough = new ArrayList<>();
+    private final OutputStrategy passThrough = new OutputStrategy() {
+        @Override
+        public void output(int patientId, long timestamp, String label, String data) {
+            passedThrough.add(new PassedSample(patientId, timestamp, label, data, -1, Double.NaN));
+        }
+
+        @Override
+        public void output(int patientId, long timestamp, int typeId, double value) {
+            passedThrough.add(new PassedSample(patientId, timestamp, null, null, typeId, value));
+        }
+    };
+
+    SampleBlock(int capacity, int... typeIds) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.typeIds = typeIds;
+        this.offsetsMillis = new long[typeIds.length];
+        this.values = new double[typeIds.length][capacity];
+        this.noise = new double[3][capacity];
+        this.intNoise = new int[2][capacity];
+    }
+
+    /**
+     * Creates a block with one channel of the given record type per sampling instant.
+     */
+    SampleBlock(int capacity, int typeId, long[] offsetsMillis) {
+        this(capacity, filled(offsetsMillis.length, typeId));
+        System.arraycopy(offsetsMillis, 0, this.offsetsMillis, 0, offsetsMillis.length);
+    }
+
+    private static int[] filled(int length, int typeId) {
+        int[] typeIds = new int[length];
+        Arrays.fill(typeIds, typeId);
+        return typeIds;
+    }
+
+    /**
+     * Starts a new tick for patients {@code fromPatientId} to {@code toPatientId - 1}.
+     */
+    void reset(int fromPatientId, int toPatientId, long timestamp) {
+        int count = toPatientId - fromPatientId;
+        if (count < 0 || count > noise[0].length) {
+            throw new IllegalArgumentException("Block holds up to " + noise[0].length + " patients, not " + count);
+        }
+        this.fromPatientId = fromPatientId;
+        this.patientCount = count;
+        this.timestamp = timestamp;
+        passedThrough.clear();
+    }
+
+    /**
+     * Returns an output strategy whose samples are kept in this block until the next
+     * {@link #reset}, and written after the channels by {@link #writeTo}.
+     */
+    OutputStrategy passThrough() {
+        return passThrough;
+    }
+
+    /**
+     * Returns the ID of the patient at index 0.
+     *
+     * @return the first patient ID
+     */
+    public int getFromPatientId() {
+        return fromPatientId;
+    }
+
+    /**
+     * Returns the number of patients in this tick.
+     *
+     * @return the patient count
+     */
+    public int getPatientCount() {
+        return patientCount;
+    }
+
+    /**
+     * Returns the timestamp of this tick, that of channels without an offset.
+     *
+     * @return the timestamp in millis
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the timestamp of a channel's samples.
+     *
+     * @param channel the channel index
+     * @return the timestamp in millis
+     */
+    public long getTimestamp(int channel) {
+        return timestamp + offsetsMillis[channel];
+    }
+
+    /**
+     * Returns the number of channels, one per record type.
+     *
+     * @return the channel count
+     */
+    public int getChannelCount() {
+        return typeIds.length;
+    }
+
+    /**
+     * Returns the record type of a channel.
+     *
+     * @param channel the channel index
+     * @return the {@link RecordTypes} id, e.g. {@link RecordTypes#SYSTOLIC_PRESSURE}
+     */
+    public int getTypeId(int channel) {
+        return typeIds[channel];
+    }
+
+    /**
+     * Returns the label of a channel.
+     *
+     * @param channel the channel index
+     * @return the label, e.g. "SystolicPressure"
+     */
+    public String getLabel(int channel) {
+        return RecordTypes.nameOf(typeIds[channel]);
+    }
+
+    /**
+     * Returns the values of a channel; only the first {@link #getPatientCount()} are valid.
+     *
+     * @param channel the channel index
+     * @return the column, NaN where a patient has no sample
+     */
+    public double[] getValues(int channel) {
+        return values[channel];
+    }
+
+    /**
+     * Sends every sample to an output strategy, one
+     * {@link OutputStrategy#outputBatch(int, int, long, int, double[])} call per channel, followed
+     * by the samples passed through the block as they were emitted.
+     *
+     * @param outputStrategy the strategy to output to
+     */
+    public void writeTo(OutputStrategy outputStrategy) {
+        for (int channel = 0; channel < typeIds.length; channel++) {
+            outputStrategy.outputBatch(fromPatientId, patientCount, timestamp + offsetsMillis[channel], typeIds[channel],
+                    values[channel]);
+        }
+        for (PassedSample sample : passedThrough) {
+            if (sample.label != null) {
+                outputStrategy.output(sample.patientId, sample.timestamp, sample.label, sample.data);
+            } else {
+                outputStrategy.output(sample.patientId, sample.timestamp, sample.typeId, sample.value);
+            }
+        }
+    }
+
+    /** A sample passed through as a string, when label is set, or as a typed value. */
+    private static final class PassedSample {
+        final int patientId;
+        final long timestamp;
+        final String label;
+        final String data;
+        final int typeId;
+        final double value;
+
+        PassedSample(int patientId, long timestamp, String label, String data, int typeId, double value) {
+            this.patientId = patientId;
+            this.timestamp = timestamp;
+            this.label = label;
+            this.data = data;
+            this.typeId = typeId;
+            this.value = value;
+        }
+    }
+}
@@ -1,21 +1,46 @@
 package com.cardio_generator.outputs;
 
+import com.common.RecordTypes;
+
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * FileOutputStrategy is a class that implements the OutputStrategy interface to output generated data to files.
+ *
+ * <p>Each label's file is opened once and kept open. Lines are collected in a per-label buffer
+ * that is written out when it fills, every flush interval, and when the strategy is closed or
+ * the JVM shuts down. Optionally, every flush interval also forces the written data to disk, so
+ * one fsync covers all the samples written since the previous one.
  */
 // Changed class name from fileOutputStrategy to FileOutputStrategy (UpperCamelCase)
-public class FileOutputStrategy implements OutputStrategy {
+public class FileOutputStrategy implements OutputStrategy, AutoCloseable {
+    /** Default per-label buffer size in bytes. */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    /** Default time between background flushes. */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
     // Changed variable name from BaseDirectory to baseDirectory (lowerCamelCase)
     private String baseDirectory;
     // Changed variable name from file_map to fileMap (lowerCamelCase)
     public final ConcurrentHashMap<String, String> fileMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LabelFile> files = new ConcurrentHashMap<>();
+    private final int bufferSize;
+    private final boolean fsync;
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook = new Thread(this::close, "file-output-shutdown");
+    private volatile boolean closed;
 
     /**
      * Constructor for FileOutputStrategy.
@@ -23,8 +48,31 @@ public class FileOutputStrategy implements OutputStrategy {
      * @param baseDirectory The base directory where files will be created.
      */
     public FileOutputStrategy(String baseDirectory) {
+        this(baseDirectory, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS, false);
+    }
 
+    /**
+     * Constructor for FileOutputStrategy with explicit flush settings.
+     *
+     * @param baseDirectory       The base directory where files will be created.
+     * @param bufferSize          The per-label buffer size in bytes; a full buffer is written at once.
+     * @param flushIntervalMillis The longest buffered data waits before being written.
+     * @param fsync               Whether each interval also forces the written data to disk.
+     */
+    public FileOutputStrategy(String baseDirectory, int bufferSize, long flushIntervalMillis, boolean fsync) {
+        if (bufferSize < 1 || flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("Buffer size and flush interval must be positive");
+        }
         this.baseDirectory = baseDirectory;
+        this.bufferSize = bufferSize;
+        this.fsync = fsync;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "file-output-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAll, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
     }
 
     /**
@@ -37,23 +85,198 @@ public class FileOutputStrategy implements OutputStrategy {
      */
     @Override
     public void output(int patientId, long timestamp, String label, String data) {
+        if (closed) {
+            return;
+        }
+        String line = "Patient ID: " + patientId + ", Timestamp: " + timestamp + ", Label: " + label
+                + ", Data: " + data + System.lineSeparator();
+        append(label, line);
+    }
+
+    /**
+     * Outputs one typed sample to its label's file, as the same line the string form produces.
+     *
+     * @param patientId The ID of the patient.
+     * @param timestamp The timestamp of the data.
+     * @param typeId    The record type id.
+     * @param value     The measured value.
+     */
+    @Override
+    public void output(int patientId, long timestamp, int typeId, double value) {
+        if (closed) {
+            return;
+        }
+        String label = RecordTypes.nameOf(typeId);
+        String line = "Patient ID: " + patientId + ", Timestamp: " + timestamp + ", Label: " + label
+                + ", Data: " + SampleFormat.format(typeId, value) + System.lineSeparator();
+        append(label, line);
+    }
+
+    private void append(String label, String line) {
+        LabelFile file = files.get(label);
+        if (file == null) {
+            try {
+                file = files.computeIfAbsent(label, this::open);
+            } catch (RuntimeException e) {
+                System.err.println("Error opening file for " + label + ": " + e.getMessage());
+                return;
+            }
+        }
         try {
-            // Create the directory
-            Files.createDirectories(Paths.get(baseDirectory));
+            if (closed) {
+                // Opened while close() was running, which may not have seen it
+                file.close(fsync);
+                return;
+            }
+            file.append(line.getBytes(StandardCharsets.UTF_8));
         } catch (IOException e) {
-            System.err.println("Error creating base directory: " + e.getMessage());
+            System.err.println("Error writing to file " + file.path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every buffered line to its file, and forces it to disk if fsync is enabled.
+     */
+    public void flush() {
+        flushAll();
+    }
+
+    /**
+     * Flushes and closes every file. Samples output afterwards are ignored.
+     */
+    @Override
+    public void close() {
+        if (closed) {
             return;
         }
+        closed = true;
+        flusher.shutdown();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down; this is the hook running
+        }
+        for (LabelFile file : files.values()) {
+            try {
+                file.close(fsync);
+            } catch (IOException e) {
+                System.err.println("Error closing file " + file.path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void flushAll() {
+        for (LabelFile file : files.values()) {
+            try {
+                file.flush(fsync);
+            } catch (IOException e) {
+                System.err.println("Error writing to file " + file.path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private LabelFile open(String label) {
         // Set the filePath variable
         // Changed variable name from FilePath to filePath (lowerCamelCase)
         String filePath = fileMap.computeIfAbsent(label, k -> Paths.get(baseDirectory, label + ".txt").toString());
+        try {
+            // Create the directory
+            Files.createDirectories(Paths.get(baseDirectory));
+            return new LabelFile(Paths.get(filePath), bufferSize);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * An open file and its pending bytes; appends from several generator threads are serialized.
+     * A {@link ReentrantLock} rather than a monitor, so that a virtual thread writing the file
+     * while holding it does not pin its carrier thread. Once closed, appends and flushes are
+     * ignored, so output racing with close never reaches the closed channel.
+     */
+    private static final class LabelFile {
+        final Path path;
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final ReentrantLock lock = new ReentrantLock();
+        // Bytes written since the last fsync
+        private boolean unsynced;
+        // Guarded by lock
+        private boolean closed;
+
+        LabelFile(Path path, int bufferSize) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        void append(byte[] line) throws IOException {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (buffer.remaining() < line.length) {
+                    writeBuffer();
+                    if (line.length > buffer.capacity()) {
+                        writeFully(ByteBuffer.wrap(line));
+                        return;
+                    }
+                }
+                buffer.put(line);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void flush(boolean fsync) throws IOException {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                writeBuffer();
+                if (fsync && unsynced) {
+                    channel.force(false);
+                    unsynced = false;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void close(boolean fsync) throws IOException {
+            lock.lock();
+            try {
+                flush(fsync);
+            } finally {
+                try {
+                    closed = true;
+                    channel.close();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private void writeBuffer() throws IOException {
+            if (buffer.position() == 0) {
+                return;
+            }
+            buffer.flip();
+            try {
+                writeFully(buffer);
+            } finally {
+                buffer.clear();
+            }
+        }
 
-        // Write the data to the file
-        try (PrintWriter out = new PrintWriter(
-                Files.newBufferedWriter(Paths.get(filePath), StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
-            out.printf("Patient ID: %d, Timestamp: %d, Label: %s, Data: %s%n", patientId, timestamp, label, data);
-        } catch (Exception e) {
-            System.err.println("Error writing to file " + filePath + ": " + e.getMessage());
+        private void writeFully(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            unsynced = true;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,14 @@
 package com.cardio_generator.outputs;
 
+import com.common.RecordTypes;
+
 /**
  * Interface for outputting generated data.
+ *
+ * <p>Generators emit typed samples: a {@link RecordTypes} id and a double, one at a time or a
+ * column of consecutive patients at once. By default both are adapted to the string-based
+ * {@link #output(int, long, String, String)}, formatted as the text the generators used to
+ * produce; outputs that can carry values directly override them.
  */
 public interface OutputStrategy {
 
@@ -14,4 +21,35 @@ public interface OutputStrategy {
      * @param data The actual data to be outputted.
      */
     void output(int patientId, long timestamp, String label, String data);
+
+    /**
+     * Outputs one typed sample.
+     *
+     * @param patientId The ID of the patient.
+     * @param timestamp The timestamp of the data.
+     * @param typeId The {@link RecordTypes} id of the record type.
+     * @param value The measured value; for alerts 1 when triggered and 0 when resolved.
+     */
+    default void output(int patientId, long timestamp, int typeId, double value) {
+        output(patientId, timestamp, RecordTypes.nameOf(typeId), SampleFormat.format(typeId, value));
+    }
+
+    /**
+     * Outputs one sample of one type for each of the patients {@code fromPatientId} to
+     * {@code fromPatientId + patientCount - 1}, all with the same timestamp. NaN values mark
+     * patients without a sample and are skipped.
+     *
+     * @param fromPatientId The ID of the patient at index 0.
+     * @param patientCount The number of values to read.
+     * @param timestamp The timestamp of every sample.
+     * @param typeId The {@link RecordTypes} id of the record type.
+     * @param values The values, indexed by patient ID minus {@code fromPatientId}.
+     */
+    default void outputBatch(int fromPatientId, int patientCount, long timestamp, int typeId, double[] values) {
+        for (int i = 0; i < patientCount; i++) {
+            if (!Double.isNaN(values[i])) {
+                output(fromPatientId + i, timestamp, typeId, values[i]);
+            }
+        }
+    }
 }
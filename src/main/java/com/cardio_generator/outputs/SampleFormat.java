@@ -0,0 +1,53 @@
+package com.cardio_generator.outputs;
+
+import com.common.RecordTypes;
+
+/**
+ * The text form of typed samples, as the generators produced it before typed output: the value
+ * as {@link Double#toString(double)}, saturation with a trailing '%', and alerts as "triggered"
+ * or "resolved".
+ */
+final class SampleFormat {
+
+    private SampleFormat() {}
+
+    /**
+     * Returns the text form of a value.
+     *
+     * @param typeId the {@link RecordTypes} id of the record type
+     * @param value  the value
+     * @return the text a string-based output receives as data
+     */
+    static String format(int typeId, double value) {
+        switch (typeId) {
+            case RecordTypes.SATURATION:
+                return Double.toString(value) + "%";
+            case RecordTypes.ALERT:
+                return value == 1 ? "triggered" : "resolved";
+            default:
+                return Double.toString(value);
+        }
+    }
+
+    /**
+     * Appends a {@code patientId,timestamp,label,data} line, without a line separator.
+     *
+     * @param line      the builder to append to
+     * @param patientId the patient ID
+     * @param timestamp the timestamp in millis
+     * @param typeId    the {@link RecordTypes} id of the record type
+     * @param value     the value
+     * @return the builder
+     */
+    static StringBuilder appendCsv(StringBuilder line, int patientId, long timestamp, int typeId, double value) {
+        line.append(patientId).append(',').append(timestamp).append(',').append(RecordTypes.nameOf(typeId)).append(',');
+        switch (typeId) {
+            case RecordTypes.SATURATION:
+                return line.append(value).append('%');
+            case RecordTypes.ALERT:
+                return line.append(value == 1 ? "triggered" : "resolved");
+            default:
+                return line.append(value);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.cardio_generator.outputs;
+
+/**
+ * What a network output strategy does when a client's bounded outbound buffer is full.
+ */
+public enum SlowConsumerPolicy {
+    /** Discard the client's oldest queued data to make room. */
+    DROP_OLDEST,
+    /** Close the connection; the client may reconnect. */
+    DISCONNECT,
+    /** Wait for room, which stalls the producing thread. */
+    BLOCK
+}
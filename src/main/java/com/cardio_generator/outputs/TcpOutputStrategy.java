@@ -1,20 +1,53 @@
 package com.cardio_generator.outputs;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.concurrent.Executors;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
  * The TcpOutputStrategy class implements the OutputStrategy interface to output generated data over a TCP socket.
+ *
+ * <p>A single selector thread accepts any number of clients and writes to them without blocking.
+ * Each line is encoded once and copied into a per-client chain of direct buffers; the selector
+ * thread sends a client's filled buffers with one gathering write, either when a buffer fills or
+ * at the flush interval, so many lines share each system call. A client whose buffers are all in
+ * use is handled by the {@link SlowConsumerPolicy}.
  */
-public class TcpOutputStrategy implements OutputStrategy {
+public class TcpOutputStrategy implements OutputStrategy, AutoCloseable {
 
-    private ServerSocket serverSocket;
-    private Socket clientSocket;
-    private PrintWriter out;
+    /** Default size of one per-client buffer. */
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    /** Default number of buffers a client may have queued. */
+    public static final int DEFAULT_MAX_BUFFERS = 64;
+    private static final long FLUSH_INTERVAL_MILLIS = 2;
+
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final SlowConsumerPolicy policy;
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    // Clients disconnected by producers, whose keys and channels the selector thread releases
+    private final Queue<Client> closing = new ConcurrentLinkedQueue<>();
+    private final LongAdder droppedLines = new LongAdder();
+    private final LongAdder disconnectedClients = new LongAdder();
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private volatile boolean running = true;
 
     /**
      * Constructor to initialize the TCP output strategy.
@@ -22,20 +55,36 @@ public class TcpOutputStrategy implements OutputStrategy {
      * @param port The port number to listen for client connections.
      */
     public TcpOutputStrategy(int port) {
+        this(port, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_BUFFERS, SlowConsumerPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Constructor to initialize the TCP output strategy with explicit per-client limits.
+     *
+     * @param port       The port number to listen for client connections.
+     * @param bufferSize The size in bytes of each per-client buffer.
+     * @param maxBuffers The number of buffers a client may have queued before the policy applies.
+     * @param policy     What to do with a client that does not keep up.
+     */
+    public TcpOutputStrategy(int port, int bufferSize, int maxBuffers, SlowConsumerPolicy policy) {
+        if (bufferSize < 1 || maxBuffers < 1 || policy == null) {
+            throw new IllegalArgumentException("Buffer size and count must be positive and a policy is required");
+        }
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+        this.policy = policy;
         try {
-            serverSocket = new ServerSocket(port);
-            System.out.println("TCP Server started on port " + port);
-
-            // Accept clients in a new thread to not block the main thread
-            Executors.newSingleThreadExecutor().submit(() -> {
-                try {
-                    clientSocket = serverSocket.accept();
-                    out = new PrintWriter(clientSocket.getOutputStream(), true);
-                    System.out.println("Client connected: " + clientSocket.getInetAddress());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            });
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("TCP Server started on port " + getPort());
+
+            // Accept and write in a separate thread to not block the main thread
+            Thread ioThread = new Thread(this::selectLoop, "tcp-output-selector");
+            ioThread.setDaemon(true);
+            ioThread.start();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -51,9 +100,353 @@ public class TcpOutputStrategy implements OutputStrategy {
      */
     @Override
     public void output(int patientId, long timestamp, String label, String data) {
-        if (out != null) {
-            String message = String.format("%d,%d,%s,%s", patientId, timestamp, label, data);
-            out.println(message);
+        if (clients.isEmpty()) {
+            return;
+        }
+        String message = String.format("%d,%d,%s,%s\n", patientId, timestamp, label, data);
+        send(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Outputs one typed sample over the TCP socket, as the same line the string form produces.
+     *
+     * @param patientId The ID of the patient.
+     * @param timestamp The timestamp of the data.
+     * @param typeId The record type id.
+     * @param value The measured value.
+     */
+    @Override
+    public void output(int patientId, long timestamp, int typeId, double value) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        String message = SampleFormat.appendCsv(new StringBuilder(48), patientId, timestamp, typeId, value)
+                .append('\n').toString();
+        send(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void send(byte[] line) {
+        boolean wakeSelector = false;
+        for (Client client : clients) {
+            wakeSelector |= client.append(line);
+        }
+        if (wakeSelector) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Returns the port the server listens on, which is useful when it was started on port 0.
+     *
+     * @return the local port, or -1 if the server could not be started
+     */
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (IOException | NullPointerException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the number of connected clients.
+     *
+     * @return the client count
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Returns the number of lines discarded because a client's buffers were full.
+     *
+     * @return the dropped line count
+     */
+    public long getDroppedLineCount() {
+        return droppedLines.sum();
+    }
+
+    /**
+     * Returns the number of clients closed by {@link SlowConsumerPolicy#DISCONNECT}.
+     *
+     * @return the disconnected client count
+     */
+    public long getDisconnectedClientCount() {
+        return disconnectedClients.sum();
+    }
+
+    /**
+     * Stops accepting clients and closes every connection. Data not yet sent is discarded.
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    private void selectLoop() {
+        try {
+            while (running) {
+                selector.select(FLUSH_INTERVAL_MILLIS);
+                releaseClosing();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        discardInput((Client) key.attachment());
+                    }
+                    // Writable keys are served by the flush below
+                }
+                for (Client client : clients) {
+                    client.flush();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            for (Client client : clients) {
+                client.close();
+            }
+            releaseClosing();
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void releaseClosing() {
+        Client client;
+        while ((client = closing.poll()) != null) {
+            client.release();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        Client client = new Client(channel);
+        // Reads only tell us when the client goes away
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+        clients.add(client);
+        System.out.println("Client connected: " + channel.getRemoteAddress());
+    }
+
+    private void discardInput(Client client) {
+        ByteBuffer sink = ByteBuffer.allocate(256);
+        try {
+            if (client.channel.read(sink) < 0) {
+                client.close();
+            }
+        } catch (IOException e) {
+            client.close();
+        }
+    }
+
+    /**
+     * One connected client. Producers append under the client's lock; only the selector thread
+     * writes to the channel, and only it cancels the key and closes the channel, so its interest
+     * updates cannot race with a producer disconnecting the client. The lock is a {@link ReentrantLock} rather than a monitor so that a
+     * producer waiting under {@link SlowConsumerPolicy#BLOCK} on a virtual thread does not pin
+     * its carrier thread.
+     */
+    private final class Client {
+        final SocketChannel channel;
+        SelectionKey key;
+        // Filled buffers waiting to be written, oldest first, flipped for reading
+        private final ArrayDeque<ByteBuffer> ready = new ArrayDeque<>();
+        // Buffers handed to the selector thread; never touched by producers
+        private final ArrayDeque<ByteBuffer> inFlight = new ArrayDeque<>();
+        private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+        private final ByteBuffer[] gather = new ByteBuffer[maxBuffers];
+        private final ReentrantLock lock = new ReentrantLock();
+        // Signalled when written buffers are returned to the free list, or on close
+        private final Condition buffersFreed = lock.newCondition();
+        private ByteBuffer current;
+        private int allocated;
+        private boolean closed;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /** Copies a line into the client's buffers; returns true if a buffer filled up. */
+        boolean append(byte[] line) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                if (line.length > bufferSize) {
+                    droppedLines.increment();
+                    return false;
+                }
+                if (current == null) {
+                    current = takeBuffer();
+                    if (current == null) {
+                        return false;
+                    }
+                }
+                boolean sealed = false;
+                if (current.remaining() < line.length) {
+                    current.flip();
+                    ready.add(current);
+                    current = null;
+                    sealed = true;
+                    current = takeBuffer();
+                    if (current == null) {
+                        return true;
+                    }
+                }
+                current.put(line);
+                return sealed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Returns an empty buffer, applying the slow-consumer policy when none is left. */
+        private ByteBuffer takeBuffer() {
+            while (true) {
+                if (!free.isEmpty()) {
+                    return free.poll();
+                }
+                if (allocated < maxBuffers) {
+                    allocated++;
+                    return ByteBuffer.allocateDirect(bufferSize);
+                }
+                switch (policy) {
+                    case DROP_OLDEST:
+                        ByteBuffer oldest = ready.poll();
+                        if (oldest == null) {
+                            // Everything is already being written; drop the new line instead
+                            droppedLines.increment();
+                            return null;
+                        }
+                        droppedLines.add(countLines(oldest));
+                        oldest.clear();
+                        return oldest;
+                    case DISCONNECT:
+                        droppedLines.increment();
+                        disconnectedClients.increment();
+                        closeLater();
+                        return null;
+                    case BLOCK:
+                        try {
+                            selector.wakeup();
+                            buffersFreed.await(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            droppedLines.increment();
+                            return null;
+                        }
+                        if (closed) {
+                            return null;
+                        }
+                        break;
+                }
+            }
+        }
+
+        /** Writes everything queued with one gathering write; called on the selector thread only. */
+        void flush() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (current != null && current.position() > 0) {
+                    current.flip();
+                    ready.add(current);
+                    current = null;
+                }
+                inFlight.addAll(ready);
+                ready.clear();
+            } finally {
+                lock.unlock();
+            }
+            if (inFlight.isEmpty()) {
+                return;
+            }
+            try {
+                int count = inFlight.size();
+                inFlight.toArray(gather);
+                channel.write(gather, 0, count);
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            lock.lock();
+            try {
+                while (!inFlight.isEmpty() && !inFlight.peek().hasRemaining()) {
+                    ByteBuffer written = inFlight.poll();
+                    written.clear();
+                    free.add(written);
+                }
+                buffersFreed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            // Ask to be woken when the socket can take the rest
+            if (key.isValid()) {
+                key.interestOps(inFlight.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+
+        /** Marks the client closed from a producer thread; the selector thread finishes the job. */
+        private void closeLater() {
+            closed = true;
+            clients.remove(this);
+            closing.add(this);
+            selector.wakeup();
+        }
+
+        /** Closes the client; called on the selector thread only. */
+        void close() {
+            lock.lock();
+            try {
+                if (!closed) {
+                    closed = true;
+                    clients.remove(this);
+                }
+                buffersFreed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            release();
+        }
+
+        /** Cancels the key and closes the channel; called on the selector thread only. */
+        void release() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static long countLines(ByteBuffer buffer) {
+        long lines = 0;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                lines++;
+            }
         }
+        return lines;
     }
 }
@@ -0,0 +1,191 @@
+package com.cardio_generator.outputs;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.framing.BinaryFrame;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.DataFrame;
+import org.java_websocket.framing.TextFrame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-connection bounded outbound queues for {@link WebSocketOutputStrategy}, drained by one
+ * sender thread so that producers only ever enqueue.
+ *
+ * <p>The sender moves frames into a connection only while the library's own (unbounded) write
+ * queue for it is short, so a slow client backs up here, where the queue is bounded and the
+ * {@link SlowConsumerPolicy} applies.
+ */
+final class WebSocketFanOut implements AutoCloseable {
+    // Frames allowed in the library's write queue of one connection before the sender holds back
+    private static final int LIBRARY_QUEUE_SLACK = 64;
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+
+    private final int queueCapacity;
+    private final SlowConsumerPolicy policy;
+    private final ConcurrentMap<WebSocket, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final LongAdder droppedFrames = new LongAdder();
+    private final LongAdder disconnectedClients = new LongAdder();
+    private final Thread sender;
+    private volatile boolean running = true;
+
+    WebSocketFanOut(int queueCapacity, SlowConsumerPolicy policy) {
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+        this.sender = new Thread(this::drainLoop, "websocket-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    /**
+     * Queues a frame for one connection, applying the slow-consumer policy if its queue is full.
+     * Call {@link #signal()} once the frames of a broadcast are queued.
+     */
+    void offer(WebSocket conn, Frame frame) {
+        if (!conn.isOpen()) {
+            return;
+        }
+        Subscriber subscriber = subscribers.computeIfAbsent(conn, c -> new Subscriber(c, queueCapacity));
+        BlockingQueue<Frame> queue = subscriber.queue;
+        switch (policy) {
+            case DROP_OLDEST:
+                while (!queue.offer(frame)) {
+                    if (queue.poll() != null) {
+                        droppedFrames.increment();
+                    }
+                }
+                break;
+            case DISCONNECT:
+                if (!queue.offer(frame)) {
+                    droppedFrames.increment();
+                    if (subscribers.remove(conn, subscriber)) {
+                        disconnectedClients.increment();
+                        conn.close(CloseFrame.TRY_AGAIN_LATER, "Client too slow");
+                    }
+                }
+                break;
+            case BLOCK:
+                try {
+                    if (!queue.offer(frame)) {
+                        signal();
+                        queue.put(frame);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedFrames.increment();
+                }
+                break;
+        }
+    }
+
+    /**
+     * Wakes the sender thread; one wake-up covers every frame queued before it.
+     */
+    void signal() {
+        LockSupport.unpark(sender);
+    }
+
+    Map<WebSocket, Integer> queueDepths() {
+        Map<WebSocket, Integer> depths = new HashMap<>();
+        for (Subscriber subscriber : subscribers.values()) {
+            depths.put(subscriber.conn, subscriber.queue.size());
+        }
+        return depths;
+    }
+
+    long droppedFrames() {
+        return droppedFrames.sum();
+    }
+
+    long disconnectedClients() {
+        return disconnectedClients.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(sender);
+    }
+
+    private void drainLoop() {
+        while (running) {
+            boolean progressed = false;
+            for (Subscriber subscriber : subscribers.values()) {
+                try {
+                    progressed |= subscriber.drain();
+                } catch (Exception e) {
+                    System.err.println("Error sending message to " + subscriber.conn.getRemoteSocketAddress() + ": " + e.getMessage());
+                }
+                if (!subscriber.conn.isOpen()) {
+                    subscribers.remove(subscriber.conn, subscriber);
+                    subscriber.queue.clear();
+                }
+            }
+            if (!progressed) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private static final class Subscriber {
+        final WebSocket conn;
+        final BlockingQueue<Frame> queue;
+
+        Subscriber(WebSocket conn, int capacity) {
+            this.conn = conn;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        boolean drain() {
+            int room = conn instanceof WebSocketImpl
+                    ? LIBRARY_QUEUE_SLACK - ((WebSocketImpl) conn).outQueue.size()
+                    : Integer.MAX_VALUE;
+            boolean sent = false;
+            Frame frame;
+            while (room-- > 0 && (frame = queue.poll()) != null) {
+                conn.sendFrame(frame.toFramedata());
+                sent = true;
+            }
+            return sent;
+        }
+    }
+
+    /**
+     * An encoded payload shared by every connection it is queued for.
+     */
+    static final class Frame {
+        private final boolean text;
+        private final ByteBuffer payload;
+
+        private Frame(boolean text, ByteBuffer payload) {
+            this.text = text;
+            this.payload = payload;
+        }
+
+        static Frame text(String message) {
+            return new Frame(true, ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        static Frame binary(ByteBuffer frame) {
+            return new Frame(false, frame);
+        }
+
+        DataFrame toFramedata() {
+            DataFrame framedata = text ? new TextFrame() : new BinaryFrame();
+            // Only the small frame header is built per connection; the payload bytes are shared
+            framedata.setPayload(payload.duplicate());
+            framedata.setFin(true);
+            return framedata;
+        }
+    }
+}
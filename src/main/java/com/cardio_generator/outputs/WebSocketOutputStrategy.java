@@ -1,20 +1,148 @@
 package com.cardio_generator.outputs;
 
+import com.common.BinaryRecordCodec;
+import com.common.RecordParser;
+import com.common.RecordTypes;
 import org.java_websocket.WebSocket;
 import org.java_websocket.server.WebSocketServer;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Broadcasts generated data to every connected WebSocket client.
+ *
+ * <p>Clients receive text frames ({@code patientId,timestamp,label,data}) unless they connect
+ * with {@code ?format=binary} in the URI, in which case numeric samples are sent as
+ * {@link BinaryRecordCodec} frames. Samples whose data is not a number are always sent as text.
+ * Typed samples are sent to binary clients as they are, and formatted only for text clients.
+ *
+ * <p>By default every sample is sent as its own frame. With batching enabled, samples are
+ * buffered and sent as one multi-record frame per format once the batch is full or the oldest
+ * buffered sample has waited for the maximum delay; text batches hold one sample per line.
+ * Unbatched, a {@link #outputBatch(int, int, long, int, double[])} call is sent as one such frame.
+ *
+ * <p>By default frames are sent on the caller's thread. With a per-connection queue capacity,
+ * each payload is encoded once and queued for every client, and a sender thread feeds the
+ * clients; a client that falls behind is handled by a {@link SlowConsumerPolicy}.
+ *
+ * <p>{@link #close()} sends any buffered samples and releases the server and its threads.
+ */
+public class WebSocketOutputStrategy implements OutputStrategy, AutoCloseable {
+
+    /** Query parameter a client adds to its URI to receive binary frames. */
+    public static final String BINARY_FORMAT_QUERY = "format=binary";
+
+    /** Connection attachment marking a client that asked for binary frames. */
+    static final Object BINARY_CLIENT = new Object();
 
-public class WebSocketOutputStrategy implements OutputStrategy {
 
     private final WebSocketServer server;
+    // Batching state; all null when every sample is sent immediately
+    private final Object bufferLock = new Object();
+    // Not a monitor: sending may block under SlowConsumerPolicy.BLOCK, which would pin a virtual thread
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private Batch filling;
+    private Batch sending;
+    private ScheduledExecutorService flusher;
+    // Null when frames are sent on the caller's thread
+    private final WebSocketFanOut fanOut;
+    private volatile boolean closed;
 
     public WebSocketOutputStrategy(int port) {
+        this(port, 0, null);
+    }
+
+    /**
+     * Creates a strategy that hands frames to per-connection bounded queues instead of sending
+     * them on the caller's thread.
+     *
+     * @param port          the port to listen on
+     * @param queueCapacity frames each client may have queued, or 0 to send on the caller's thread
+     * @param policy        what to do with a client whose queue is full
+     */
+    public WebSocketOutputStrategy(int port, int queueCapacity, SlowConsumerPolicy policy) {
+        if (queueCapacity > 0 && policy == null) {
+            throw new IllegalArgumentException("A slow consumer policy is required with per-connection queues");
+        }
+        this.fanOut = queueCapacity > 0 ? new WebSocketFanOut(queueCapacity, policy) : null;
         this.server = createServer(port);
         System.out.println("WebSocket server created on port: " + port + ", listening for connections...");
         this.server.start();
     }
 
+    /**
+     * Creates a strategy that batches samples into multi-record frames.
+     *
+     * @param port           the port to listen on
+     * @param maxBatchSize   the number of samples that triggers an immediate flush
+     * @param maxDelayMillis the longest a sample may wait in the buffer
+     */
+    public WebSocketOutputStrategy(int port, int maxBatchSize, long maxDelayMillis) {
+        this(port, maxBatchSize, maxDelayMillis, 0, null);
+    }
+
+    /**
+     * Creates a strategy that batches samples and hands the frames to per-connection queues.
+     *
+     * @param port           the port to listen on
+     * @param maxBatchSize   the number of samples that triggers an immediate flush
+     * @param maxDelayMillis the longest a sample may wait in the buffer
+     * @param queueCapacity  frames each client may have queued, or 0 to send on the flushing thread
+     * @param policy         what to do with a client whose queue is full
+     */
+    public WebSocketOutputStrategy(int port, int maxBatchSize, long maxDelayMillis,
+                                   int queueCapacity, SlowConsumerPolicy policy) {
+        this(port, queueCapacity, policy);
+        if (maxBatchSize < 1 || maxDelayMillis < 1) {
+            throw new IllegalArgumentException("Batch size and delay must be positive");
+        }
+        this.filling = new Batch(maxBatchSize);
+        this.sending = new Batch(maxBatchSize);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "websocket-batch-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Checking at a quarter of the deadline keeps the overshoot small without busy polling
+        long period = Math.max(1, maxDelayMillis * 1000 / 4);
+        long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        flusher.scheduleAtFixedRate(() -> flushOlderThan(maxDelayNanos), period, period, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Returns the number of frames waiting in each client's outbound queue.
+     *
+     * @return queue depth per connection; empty unless per-connection queues are enabled
+     */
+    public Map<WebSocket, Integer> getQueueDepths() {
+        return fanOut == null ? Map.of() : fanOut.queueDepths();
+    }
+
+    /**
+     * Returns the number of frames discarded because a client's queue was full.
+     *
+     * @return the dropped frame count
+     */
+    public long getDroppedFrameCount() {
+        return fanOut == null ? 0 : fanOut.droppedFrames();
+    }
+
+    /**
+     * Returns the number of clients closed by {@link SlowConsumerPolicy#DISCONNECT}.
+     *
+     * @return the disconnected client count
+     */
+    public long getDisconnectedClientCount() {
+        return fanOut == null ? 0 : fanOut.disconnectedClients();
+    }
+
     /** Allows tests to override what server gets used. */
     protected WebSocketServer createServer(int port) {
         return new SimpleWebSocketServer(new InetSocketAddress(port));
@@ -22,26 +150,393 @@ public class WebSocketOutputStrategy implements OutputStrategy {
 
     @Override
     public void output(int patientId, long timestamp, String label, String data) {
-        String message = String.format("%d,%d,%s,%s", patientId, timestamp, label, data);
+        if (closed) {
+            return;
+        }
+        if (filling == null) {
+            sendSample(patientId, timestamp, label, data);
+            return;
+        }
+        boolean full;
+        while (true) {
+            synchronized (bufferLock) {
+                if (!filling.isFull()) {
+                    full = filling.add(patientId, timestamp, label, data);
+                    break;
+                }
+            }
+            // Another thread filled the batch and is waiting to send it
+            flush();
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    @Override
+    public void output(int patientId, long timestamp, int typeId, double value) {
+        if (closed) {
+            return;
+        }
+        if (filling == null) {
+            sendSample(patientId, timestamp, typeId, value);
+            return;
+        }
+        boolean full;
+        while (true) {
+            synchronized (bufferLock) {
+                if (!filling.isFull()) {
+                    full = filling.add(patientId, timestamp, typeId, value);
+                    break;
+                }
+            }
+            flush();
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    @Override
+    public void outputBatch(int fromPatientId, int patientCount, long timestamp, int typeId, double[] values) {
+        if (closed) {
+            return;
+        }
+        if (filling == null) {
+            Batch batch = new Batch(patientCount);
+            for (int i = 0; i < patientCount; i++) {
+                if (!Double.isNaN(values[i])) {
+                    batch.add(fromPatientId + i, timestamp, typeId, values[i]);
+                }
+            }
+            if (batch.size > 0) {
+                sendBatch(batch);
+            }
+            return;
+        }
+        int i = 0;
+        while (i < patientCount) {
+            boolean full;
+            synchronized (bufferLock) {
+                for (; i < patientCount && !filling.isFull(); i++) {
+                    if (!Double.isNaN(values[i])) {
+                        filling.add(fromPatientId + i, timestamp, typeId, values[i]);
+                    }
+                }
+                full = filling.isFull();
+            }
+            if (full) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Sends whatever samples are buffered. Does nothing when batching is disabled.
+     */
+    public void flush() {
+        flushOlderThan(0);
+    }
+
+    /**
+     * Stops the batch flusher, sends the samples still buffered, and stops the server. Frames
+     * still waiting in per-connection queues are discarded. Samples output afterwards are ignored.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                // Let a flush in progress finish so the final one keeps batches in order
+                flusher.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flush();
+        }
+        if (fanOut != null) {
+            fanOut.close();
+        }
+        try {
+            server.stop(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushOlderThan(long ageNanos) {
+        if (filling == null) {
+            return;
+        }
+        // Holding the send lock across the swap keeps batches in order on the wire
+        sendLock.lock();
+        try {
+            Batch batch;
+            synchronized (bufferLock) {
+                if (filling.size == 0 || System.nanoTime() - filling.firstAddedNanos < ageNanos) {
+                    return;
+                }
+                batch = filling;
+                filling = sending;
+                sending = batch;
+            }
+            try {
+                sendBatch(batch);
+            } catch (Exception e) {
+                System.err.println("Error sending batch: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private void sendSample(int patientId, long timestamp, String label, String data) {
+        // Each format is encoded at most once, however many clients use it
+        Outgoing message = null;
+        Outgoing frame = null;
+        boolean numeric = true;
         // Broadcast the message to all connected clients
         for (WebSocket conn : server.getConnections()) {
             try {
-                conn.send(message);
+                if (numeric && conn.getAttachment() == BINARY_CLIENT) {
+                    if (frame == null) {
+                        double value = RecordParser.parseDouble(data, 0, data.length());
+                        numeric = !Double.isNaN(value);
+                        if (numeric) {
+                            frame = new Outgoing(BinaryRecordCodec.encode(patientId, timestamp, label, value));
+                        }
+                    }
+                    if (numeric) {
+                        frame.sendTo(conn);
+                        continue;
+                    }
+                }
+                if (message == null) {
+                    message = new Outgoing(String.format("%d,%d,%s,%s", patientId, timestamp, label, data));
+                }
+                message.sendTo(conn);
             } catch (Exception e) {
                 System.err.println("Error sending message to " + conn.getRemoteSocketAddress() + ": " + e.getMessage());
             }
         }
+        if (fanOut != null) {
+            fanOut.signal();
+        }
+    }
+
+    private void sendSample(int patientId, long timestamp, int typeId, double value) {
+        Outgoing message = null;
+        Outgoing frame = null;
+        for (WebSocket conn : server.getConnections()) {
+            try {
+                if (conn.getAttachment() == BINARY_CLIENT) {
+                    if (frame == null) {
+                        frame = new Outgoing(BinaryRecordCodec.encode(patientId, timestamp, typeId, value));
+                    }
+                    frame.sendTo(conn);
+                } else {
+                    if (message == null) {
+                        message = new Outgoing(SampleFormat.appendCsv(new StringBuilder(48), patientId, timestamp,
+                                typeId, value).toString());
+                    }
+                    message.sendTo(conn);
+                }
+            } catch (Exception e) {
+                System.err.println("Error sending message to " + conn.getRemoteSocketAddress() + ": " + e.getMessage());
+            }
+        }
+        if (fanOut != null) {
+            fanOut.signal();
+        }
+    }
+
+    private void sendBatch(Batch batch) {
+        Outgoing text = null;
+        Outgoing frame = null;
+        Outgoing nonNumericText = null;
+        for (WebSocket conn : server.getConnections()) {
+            try {
+                if (conn.getAttachment() == BINARY_CLIENT) {
+                    if (frame == null) {
+                        ByteBuffer binary = batch.encodeBinary();
+                        String lines = batch.encodeText(true);
+                        frame = binary.remaining() > 1 ? new Outgoing(binary) : null;
+                        nonNumericText = lines.isEmpty() ? null : new Outgoing(lines);
+                        if (frame == null && nonNumericText == null) {
+                            continue;
+                        }
+                    }
+                    if (frame != null) {
+                        frame.sendTo(conn);
+                    }
+                    if (nonNumericText != null) {
+                        nonNumericText.sendTo(conn);
+                    }
+                } else {
+                    if (text == null) {
+                        text = new Outgoing(batch.encodeText(false));
+                    }
+                    text.sendTo(conn);
+                }
+            } catch (Exception e) {
+                System.err.println("Error sending message to " + conn.getRemoteSocketAddress() + ": " + e.getMessage());
+            }
+        }
+        if (fanOut != null) {
+            fanOut.signal();
+        }
+    }
+
+    /**
+     * One encoded payload, sent to every client that takes its format.
+     */
+    private final class Outgoing {
+        private final String text;
+        private final ByteBuffer binary;
+        // Built on first use so clients without per-connection queues never pay for it
+        private WebSocketFanOut.Frame shared;
+
+        Outgoing(String text) {
+            this.text = text;
+            this.binary = null;
+        }
+
+        Outgoing(ByteBuffer binary) {
+            this.text = null;
+            this.binary = binary;
+        }
+
+        void sendTo(WebSocket conn) {
+            if (fanOut != null) {
+                if (shared == null) {
+                    shared = text != null ? WebSocketFanOut.Frame.text(text) : WebSocketFanOut.Frame.binary(binary);
+                }
+                fanOut.offer(conn, shared);
+            } else if (text != null) {
+                conn.send(text);
+            } else {
+                // The send consumes the buffer, so every client gets its own view
+                conn.send(binary.duplicate());
+            }
+        }
+    }
+
+    /**
+     * Buffered samples, stored column by column and encoded only for the formats in use. Typed
+     * samples have no data text; string samples have their value parsed only if a binary client
+     * needs it.
+     */
+    private static final class Batch {
+        final int[] patientIds;
+        final long[] timestamps;
+        final int[] typeIds;
+        final String[] data;
+        final double[] values;
+        // Reused for every frame of this batch; only touched while the batch is being sent
+        final BinaryRecordCodec.FrameWriter writer;
+        int size;
+        long firstAddedNanos;
+
+        Batch(int capacity) {
+            patientIds = new int[capacity];
+            timestamps = new long[capacity];
+            typeIds = new int[capacity];
+            data = new String[capacity];
+            values = new double[capacity];
+            writer = new BinaryRecordCodec.FrameWriter(BinaryRecordCodec.FLAG_DELTA_TIMESTAMPS, capacity * 20);
+        }
+
+        /** Adds a string sample and tells whether the batch is now full. */
+        boolean add(int patientId, long timestamp, String label, String sample) {
+            data[size] = sample;
+            return add(patientId, timestamp, RecordTypes.idOf(label), Double.NaN);
+        }
+
+        /** Adds a typed sample and tells whether the batch is now full. */
+        boolean add(int patientId, long timestamp, int typeId, double value) {
+            if (size == 0) {
+                firstAddedNanos = System.nanoTime();
+            }
+            patientIds[size] = patientId;
+            timestamps[size] = timestamp;
+            typeIds[size] = typeId;
+            values[size] = value;
+            size++;
+            return isFull();
+        }
+
+        boolean isFull() {
+            return size == patientIds.length;
+        }
+
+        /** Numeric samples as one delta-timestamp binary frame. */
+        ByteBuffer encodeBinary() {
+            for (int i = 0; i < size; i++) {
+                if (data[i] != null) {
+                    values[i] = RecordParser.parseDouble(data[i], 0, data[i].length());
+                }
+                if (!Double.isNaN(values[i])) {
+                    writer.add(patientIds[i], timestamps[i], typeIds[i], values[i]);
+                }
+            }
+            return writer.finish();
+        }
+
+        /** Samples as CSV lines; only the non-numeric ones after {@link #encodeBinary()} if asked. */
+        String encodeText(boolean nonNumericOnly) {
+            // Binary clients usually need no text at all, so the builder is created on demand
+            StringBuilder text = null;
+            for (int i = 0; i < size; i++) {
+                if (nonNumericOnly && !Double.isNaN(values[i])) {
+                    continue;
+                }
+                if (text == null) {
+                    text = new StringBuilder(size * 40);
+                } else {
+                    text.append('\n');
+                }
+                if (data[i] == null) {
+                    SampleFormat.appendCsv(text, patientIds[i], timestamps[i], typeIds[i], values[i]);
+                } else {
+                    text.append(patientIds[i]).append(',').append(timestamps[i]).append(',')
+                            .append(RecordTypes.nameOf(typeIds[i])).append(',').append(data[i]);
+                }
+            }
+            return text == null ? "" : text.toString();
+        }
+
+        void clear() {
+            Arrays.fill(data, 0, size, null);
+            size = 0;
+        }
     }
 
     private static class SimpleWebSocketServer extends WebSocketServer {
 
         public SimpleWebSocketServer(InetSocketAddress address) {
             super(address);
+            // Frames are already coalesced by batching; Nagle would only add up to 40 ms on top
+            setTcpNoDelay(true);
         }
 
         @Override
         public void onOpen(WebSocket conn, org.java_websocket.handshake.ClientHandshake handshake) {
             System.out.println("New connection: " + conn.getRemoteSocketAddress());
+            String resource = handshake.getResourceDescriptor();
+            int query = resource.indexOf('?');
+            if (query >= 0) {
+                for (String parameter : resource.substring(query + 1).split("&")) {
+                    if (parameter.equals(BINARY_FORMAT_QUERY)) {
+                        conn.setAttachment(BINARY_CLIENT);
+                    }
+                }
+            }
         }
 
         @Override
@@ -0,0 +1,315 @@
+package com.common;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Compact binary wire format for patient records, used for binary WebSocket frames.
+ *
+ * <p>A frame is one flags byte followed by one or more records, big-endian:
+ * <pre>
+ * record := patientId:int32  timestamp  typeId:uint16  [label]  value:float64
+ * </pre>
+ * The timestamp is an int64, or, when {@link #FLAG_DELTA_TIMESTAMPS} is set, a zig-zag varint
+ * holding the difference from the previous record in the frame (the first record is relative to
+ * 0). Type ids are those of {@link RecordTypes}; only the pre-registered ids are stable between
+ * processes, so any other type is sent as id {@link #INLINE_LABEL} followed by a one-byte length
+ * and the UTF-8 label. A single-record frame is 23 bytes.
+ */
+public final class BinaryRecordCodec {
+
+    /** Timestamps are varint deltas instead of fixed int64s. */
+    public static final int FLAG_DELTA_TIMESTAMPS = 1;
+    /** Type id announcing a label carried inline. */
+    public static final int INLINE_LABEL = 0xFFFF;
+    /** Upper bound of the encoded size of a record with a well-known type. */
+    public static final int MAX_RECORD_BYTES = 4 + 10 + 2 + 8;
+    private static final int MAX_LABEL_BYTES = 255;
+
+    private BinaryRecordCodec() {}
+
+    /**
+     * Encodes a single-record frame.
+     *
+     * @param patientId  the patient ID
+     * @param timestamp  the timestamp in millis
+     * @param recordType the record type label
+     * @param value      the measured value
+     * @return a frame ready to send, positioned at 0
+     */
+    public static ByteBuffer encode(int patientId, long timestamp, String recordType, double value) {
+        FrameWriter writer = new FrameWriter(0, MAX_RECORD_BYTES + 1);
+        writer.add(patientId, timestamp, recordType, value);
+        return writer.finish();
+    }
+
+    /**
+     * Encodes a single-record frame for a registered record type.
+     *
+     * @param patientId the patient ID
+     * @param timestamp the timestamp in millis
+     * @param typeId    the {@link RecordTypes} id of the record type
+     * @param value     the measured value
+     * @return a frame ready to send, positioned at 0
+     */
+    public static ByteBuffer encode(int patientId, long timestamp, int typeId, double value) {
+        FrameWriter writer = new FrameWriter(0, MAX_RECORD_BYTES + 1);
+        writer.add(patientId, timestamp, typeId, value);
+        return writer.finish();
+    }
+
+    /**
+     * Decodes every record in a frame received from an untrusted peer. The whole frame is
+     * validated before any record is handed to the handler, so a malformed frame delivers
+     * nothing. The buffer's position is advanced past what was read.
+     *
+     * @param frame   the frame to decode
+     * @param handler receives each decoded record
+     * @return the number of records decoded, or -1 if the frame is malformed
+     * @see #decode(ByteBuffer, RecordParser.Handler, boolean)
+     */
+    public static int decode(ByteBuffer frame, RecordParser.Handler handler) {
+        return decode(frame, handler, false);
+    }
+
+    /**
+     * Decodes every record in a frame, delivering either all of them or, if the frame is
+     * malformed, none. Inline labels not registered yet are registered within the limit for the
+     * input's trust level, see {@link RecordTypes#idOf(String, int)}; a label beyond it makes the
+     * frame malformed. Labels are registered only once the frame is known to be well-formed, so a
+     * rejected frame leaves the registry unchanged. The buffer's position is advanced past what
+     * was read.
+     *
+     * @param frame   the frame to decode
+     * @param handler receives each decoded record
+     * @param trusted whether the frame comes from a trusted source, such as this process's own log
+     * @return the number of records decoded, or -1 if the frame is malformed
+     */
+    public static int decode(ByteBuffer frame, RecordParser.Handler handler, boolean trusted) {
+        int typeLimit = trusted ? RecordTypes.MAX_TYPES : RecordTypes.MAX_UNTRUSTED_TYPES;
+        Set<String> newLabels = new LinkedHashSet<>();
+        if (read(frame.duplicate(), null, newLabels, typeLimit) < 0 || !register(newLabels, typeLimit)) {
+            frame.position(frame.limit());
+            return -1;
+        }
+        return read(frame, handler, null, typeLimit);
+    }
+
+    /**
+     * Registers the labels a validated frame introduces.
+     *
+     * @return false if a concurrent registration filled the registry first
+     */
+    private static boolean register(Set<String> labels, int typeLimit) {
+        for (String label : labels) {
+            if (RecordTypes.idOf(label, typeLimit) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the records of a frame, handing them to the handler if it is not null. With a
+     * {@code newLabels} set the frame is only validated: unknown inline labels are collected there
+     * instead of being registered.
+     */
+    private static int read(ByteBuffer frame, RecordParser.Handler handler, Set<String> newLabels,
+                            int typeLimit) {
+        try {
+            if (!frame.hasRemaining()) {
+                return -1;
+            }
+            boolean delta = (frame.get() & FLAG_DELTA_TIMESTAMPS) != 0;
+            long previous = 0;
+            int count = 0;
+            while (frame.hasRemaining()) {
+                int patientId = frame.getInt();
+                long timestamp = delta ? previous + zigZagDecode(readVarLong(frame)) : frame.getLong();
+                int typeId = frame.getShort() & 0xFFFF;
+                String recordType;
+                if (typeId == INLINE_LABEL) {
+                    byte[] label = new byte[frame.get() & 0xFF];
+                    frame.get(label);
+                    recordType = new String(label, StandardCharsets.UTF_8);
+                    if (newLabels != null) {
+                        if (RecordTypes.lookup(recordType, 0, recordType.length()) == null
+                                && newLabels.add(recordType)
+                                && RecordTypes.size() + newLabels.size() > typeLimit) {
+                            return -1;
+                        }
+                    } else {
+                        int id = RecordTypes.idOf(recordType, typeLimit);
+                        if (id < 0) {
+                            return -1;
+                        }
+                        recordType = RecordTypes.nameOf(id);
+                    }
+                } else if (RecordTypes.isWellKnown(typeId)) {
+                    recordType = RecordTypes.nameOf(typeId);
+                } else {
+                    return -1;
+                }
+                double value = frame.getDouble();
+                if (handler != null) {
+                    handler.onRecord(patientId, timestamp, recordType, value);
+                }
+                previous = timestamp;
+                count++;
+            }
+            return count;
+        } catch (BufferUnderflowException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Builds a frame record by record. Not thread-safe.
+     */
+    public static final class FrameWriter {
+        private final int flags;
+        private ByteBuffer buffer;
+        private long previousTimestamp;
+        private int count;
+
+        /**
+         * Creates a writer for a new frame.
+         *
+         * @param flags           frame flags, e.g. {@link #FLAG_DELTA_TIMESTAMPS}
+         * @param initialCapacity initial buffer size in bytes
+         */
+        public FrameWriter(int flags, int initialCapacity) {
+            this.flags = flags;
+            this.buffer = ByteBuffer.allocate(Math.max(initialCapacity, MAX_RECORD_BYTES + 1));
+            reset();
+        }
+
+        /**
+         * Appends a record to the frame.
+         *
+         * @param patientId  the patient ID
+         * @param timestamp  the timestamp in millis
+         * @param recordType the record type label
+         * @param value      the measured value
+         */
+        public void add(int patientId, long timestamp, String recordType, double value) {
+            add(patientId, timestamp, RecordTypes.idOf(recordType), value);
+        }
+
+        /**
+         * Appends a record of a registered record type.
+         *
+         * @param patientId the patient ID
+         * @param timestamp the timestamp in millis
+         * @param typeId    the {@link RecordTypes} id of the record type
+         * @param value     the measured value
+         */
+        public void add(int patientId, long timestamp, int typeId, double value) {
+            byte[] label = null;
+            int needed = MAX_RECORD_BYTES;
+            if (!RecordTypes.isWellKnown(typeId)) {
+                String recordType = RecordTypes.nameOf(typeId);
+                label = recordType.getBytes(StandardCharsets.UTF_8);
+                if (label.length > MAX_LABEL_BYTES) {
+                    throw new IllegalArgumentException("Record type label too long: " + recordType);
+                }
+                needed += 1 + label.length;
+            }
+            ensureRemaining(needed);
+            buffer.putInt(patientId);
+            if ((flags & FLAG_DELTA_TIMESTAMPS) != 0) {
+                writeVarLong(buffer, zigZagEncode(timestamp - previousTimestamp));
+            } else {
+                buffer.putLong(timestamp);
+            }
+            if (label == null) {
+                buffer.putShort((short) typeId);
+            } else {
+                buffer.putShort((short) INLINE_LABEL);
+                buffer.put((byte) label.length);
+                buffer.put(label);
+            }
+            buffer.putDouble(value);
+            previousTimestamp = timestamp;
+            count++;
+        }
+
+        /**
+         * Returns the number of records added since the last {@link #finish()}.
+         *
+         * @return the record count
+         */
+        public int count() {
+            return count;
+        }
+
+        /**
+         * Returns the number of bytes the frame would have if finished now.
+         *
+         * @return the encoded size
+         */
+        public int size() {
+            return buffer.position();
+        }
+
+        /**
+         * Completes the frame and starts a new, empty one.
+         *
+         * @return a copy of the completed frame, positioned at 0
+         */
+        public ByteBuffer finish() {
+            buffer.flip();
+            ByteBuffer frame = ByteBuffer.allocate(buffer.remaining());
+            frame.put(buffer).flip();
+            reset();
+            return frame;
+        }
+
+        private void reset() {
+            buffer.clear();
+            buffer.put((byte) flags);
+            previousTimestamp = 0;
+            count = 0;
+        }
+
+        private void ensureRemaining(int needed) {
+            if (buffer.remaining() < needed) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+        }
+    }
+
+    private static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new BufferUnderflowException();
+    }
+}
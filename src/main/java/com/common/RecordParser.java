@@ -0,0 +1,304 @@
+package com.common;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Index-based parser for comma-separated patient records.
+ * Fields are read directly out of the input {@link CharSequence}; numbers are parsed in place
+ * and labels are matched against the {@link RecordTypes} registry, so a well-formed line with a
+ * known label is parsed without allocating. Lines that cannot be parsed are counted rather than
+ * reported one by one.
+ *
+ * <p>Values are numbers, optionally followed by '%'. Alert values may also be the words the
+ * simulator's text outputs send, "triggered" and "resolved", which are read as 1 and 0 like the
+ * values of binary frames.
+ *
+ * <p>Input is untrusted by default: a label not registered yet is only registered while the
+ * registry holds fewer than {@link RecordTypes#MAX_UNTRUSTED_TYPES} labels, after which its
+ * lines are rejected, so a network peer cannot grow the registry without bound. Parsers for
+ * trusted input such as local files may register up to {@link RecordTypes#MAX_TYPES}.
+ */
+public final class RecordParser {
+
+    /**
+     * Field order of a line.
+     */
+    public enum Layout {
+        /** {@code patientId,timestamp,label,value}, as sent by the simulator's network outputs. */
+        STREAM,
+        /** {@code patientId,value,label,timestamp}, as read by the storage side's file reader. */
+        FILE
+    }
+
+    /**
+     * Receives the fields of each parsed line.
+     */
+    public interface Handler {
+        /**
+         * Called once for every well-formed line.
+         *
+         * @param patientId        the patient ID
+         * @param timestamp        the timestamp in millis
+         * @param recordType       the interned record type label
+         * @param measurementValue the measured value
+         */
+        void onRecord(int patientId, long timestamp, String recordType, double measurementValue);
+    }
+
+    // Powers of ten exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+    // Largest mantissa for which mantissa / 10^k is still correctly rounded
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    static {
+        double power = 1;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+    }
+
+    private final Layout layout;
+    private final int typeLimit;
+    private final LongAdder malformed = new LongAdder();
+
+    // Scratch state for the line being parsed; instances are not shared between threads
+    private int patientId;
+    private long timestamp;
+    private String recordType;
+    private double value;
+
+    /**
+     * Creates a parser for untrusted input in the given field order.
+     *
+     * @param layout the field order of the lines to parse
+     */
+    public RecordParser(Layout layout) {
+        this(layout, false);
+    }
+
+    /**
+     * Creates a parser for the given field order.
+     *
+     * @param layout  the field order of the lines to parse
+     * @param trusted whether the input may register labels up to {@link RecordTypes#MAX_TYPES}
+     *                rather than {@link RecordTypes#MAX_UNTRUSTED_TYPES}
+     */
+    public RecordParser(Layout layout, boolean trusted) {
+        this.layout = layout;
+        this.typeLimit = trusted ? RecordTypes.MAX_TYPES : RecordTypes.MAX_UNTRUSTED_TYPES;
+    }
+
+    /**
+     * Parses a whole line, ignoring surrounding whitespace.
+     *
+     * @param line    the line to parse
+     * @param handler receives the record if the line is well-formed
+     * @return true if the line was well-formed
+     */
+    public boolean parse(CharSequence line, Handler handler) {
+        return parse(line, 0, line.length(), handler);
+    }
+
+    /**
+     * Parses {@code text[start, end)} as one line, ignoring surrounding whitespace.
+     *
+     * @param text    the text containing the line
+     * @param start   index of the first character of the line
+     * @param end     index after the last character of the line
+     * @param handler receives the record if the line is well-formed
+     * @return true if the line was well-formed
+     */
+    public boolean parse(CharSequence text, int start, int end, Handler handler) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (!parseFields(text, start, end)) {
+            malformed.increment();
+            return false;
+        }
+        handler.onRecord(patientId, timestamp, recordType, value);
+        return true;
+    }
+
+    /**
+     * Returns the number of lines rejected as malformed by this parser, including lines with a
+     * new label that the registry had no more room for.
+     *
+     * @return the malformed line count
+     */
+    public long getMalformedCount() {
+        return malformed.sum();
+    }
+
+    private boolean parseFields(CharSequence text, int start, int end) {
+        int first = indexOf(text, start, end);
+        int second = first < 0 ? -1 : indexOf(text, first + 1, end);
+        int third = second < 0 ? -1 : indexOf(text, second + 1, end);
+        if (third < 0 || indexOf(text, third + 1, end) >= 0) {
+            return false;
+        }
+        long id = parseLong(text, start, first);
+        if (id == Long.MIN_VALUE || id > Integer.MAX_VALUE || id < Integer.MIN_VALUE) {
+            return false;
+        }
+        patientId = (int) id;
+        if (layout == Layout.STREAM) {
+            timestamp = parseLong(text, first + 1, second);
+            value = parseValue(text, third + 1, end);
+        } else {
+            value = parseValue(text, first + 1, second);
+            timestamp = parseLong(text, third + 1, end);
+        }
+        if (timestamp == Long.MIN_VALUE || Double.isNaN(value) || second + 1 == third) {
+            return false;
+        }
+        recordType = RecordTypes.lookup(text, second + 1, third);
+        if (recordType == null) {
+            int typeId = RecordTypes.idOf(text.subSequence(second + 1, third).toString(), typeLimit);
+            if (typeId < 0) {
+                return false;
+            }
+            recordType = RecordTypes.nameOf(typeId);
+        }
+        return true;
+    }
+
+    private static double parseValue(CharSequence text, int start, int end) {
+        double number = parseDouble(text, start, end);
+        if (Double.isNaN(number)) {
+            if (matches(text, start, end, "triggered")) {
+                return 1;
+            }
+            if (matches(text, start, end, "resolved")) {
+                return 0;
+            }
+        }
+        return number;
+    }
+
+    private static boolean matches(CharSequence text, int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (text.charAt(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence text, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (text.charAt(i) == ',') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a decimal integer; returns Long.MIN_VALUE if the text is not one.
+     *
+     * @param text  the text containing the number
+     * @param start index of the first character
+     * @param end   index after the last character
+     * @return the value, or Long.MIN_VALUE if the text is not an integer
+     */
+    public static long parseLong(CharSequence text, int start, int end) {
+        if (start >= end) {
+            return Long.MIN_VALUE;
+        }
+        boolean negative = text.charAt(start) == '-';
+        int i = negative || text.charAt(start) == '+' ? start + 1 : start;
+        if (i == end) {
+            return Long.MIN_VALUE;
+        }
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result > (Long.MAX_VALUE - digit) / 10) {
+                return Long.MIN_VALUE;
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parses a decimal number with an optional exponent and an optional trailing '%'.
+     * Short mantissas are converted exactly without allocating; anything else falls back to
+     * {@link Double#parseDouble(String)}.
+     *
+     * @param text  the text containing the number
+     * @param start index of the first character
+     * @param end   index after the last character
+     * @return the value, or NaN if the text is not a number
+     */
+    public static double parseDouble(CharSequence text, int start, int end) {
+        if (end > start && text.charAt(end - 1) == '%') {
+            end--;
+        }
+        if (start >= end) {
+            return Double.NaN;
+        }
+        boolean negative = text.charAt(start) == '-';
+        int i = negative || text.charAt(start) == '+' ? start + 1 : start;
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean exact = true;
+        boolean seenDot = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (seenDot) {
+                        scale++;
+                    }
+                } else {
+                    exact = false;
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        int exponent = 0;
+        if (i < end) {
+            char c = text.charAt(i);
+            if (c != 'e' && c != 'E') {
+                return Double.NaN;
+            }
+            long parsed = parseLong(text, i + 1, end);
+            if (parsed == Long.MIN_VALUE || Math.abs(parsed) > 400) {
+                return fallbackParse(text, start, end);
+            }
+            exponent = (int) parsed;
+        }
+        int power = exponent - scale;
+        if (!exact || Math.abs(power) >= POWERS_OF_TEN.length) {
+            return fallbackParse(text, start, end);
+        }
+        double result = power < 0 ? mantissa / POWERS_OF_TEN[-power] : mantissa * POWERS_OF_TEN[power];
+        return negative ? -result : result;
+    }
+
+    private static double fallbackParse(CharSequence text, int start, int end) {
+        try {
+            return Double.parseDouble(text.subSequence(start, end).toString());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.common;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry that interns record type labels (e.g. "ECG", "Saturation") to small integer ids.
+ * Storage keys its per-type series by these ids so that a label is kept once per JVM instead
+ * of once per sample. The labels emitted by the simulator and read by the alert strategies are
+ * registered up front, so they always have the same ids, available as constants such as
+ * {@link #ECG}. At most {@link #MAX_TYPES} labels can be registered, and labels from untrusted
+ * input such as network peers only while fewer than {@link #MAX_UNTRUSTED_TYPES} are, so a noisy
+ * peer cannot grow the registry without bound or use up the room left for trusted labels.
+ */
+public final class RecordTypes {
+
+    /** Id of "ECG". */
+    public static final int ECG = 0;
+    /** Id of "Saturation", a percentage. */
+    public static final int SATURATION = 1;
+    /** Id of "SystolicPressure". */
+    public static final int SYSTOLIC_PRESSURE = 2;
+    /** Id of "DiastolicPressure". */
+    public static final int DIASTOLIC_PRESSURE = 3;
+    /** Id of "Cholesterol". */
+    public static final int CHOLESTEROL = 4;
+    /** Id of "WhiteBloodCells". */
+    public static final int WHITE_BLOOD_CELLS = 5;
+    /** Id of "RedBloodCells". */
+    public static final int RED_BLOOD_CELLS = 6;
+    /** Id of "Alert"; 1 for a triggered alert, 0 for a resolved one. */
+    public static final int ALERT = 7;
+    /** Id of "HeartRate". */
+    public static final int HEART_RATE = 8;
+    /** Id of "SystolicBP". */
+    public static final int SYSTOLIC_BP = 9;
+
+    /** Largest number of labels the registry holds. */
+    public static final int MAX_TYPES = 1024;
+    /** Registry size below which labels from untrusted input are still registered. */
+    public static final int MAX_UNTRUSTED_TYPES = 256;
+
+    // Indexed by the id constants above
+    private static final String[] WELL_KNOWN = {"ECG", "Saturation", "SystolicPressure", "DiastolicPressure",
+            "Cholesterol", "WhiteBloodCells", "RedBloodCells", "Alert", "HeartRate", "SystolicBP"};
+
+    private static final ConcurrentMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[0];
+    // Open-addressing hash table of the names, keyed by String.hashCode and at most half full;
+    // replaced, never modified, on registration
+    private static volatile String[] table = new String[16];
+
+    static {
+        for (String known : WELL_KNOWN) {
+            register(known, MAX_TYPES);
+        }
+    }
+
+    private RecordTypes() {}
+
+    /**
+     * Returns the id for the given record type, registering it if it has not been seen before.
+     *
+     * @param recordType the record type label
+     * @return the interned id, stable for the lifetime of the JVM
+     * @throws IllegalStateException if the label is new and {@link #MAX_TYPES} labels are
+     *                               already registered
+     */
+    public static int idOf(String recordType) {
+        Integer id = IDS.get(recordType);
+        if (id != null) {
+            return id;
+        }
+        int newId = register(recordType, MAX_TYPES);
+        if (newId < 0) {
+            throw new IllegalStateException("Record type registry is full (" + MAX_TYPES + " types)");
+        }
+        return newId;
+    }
+
+    /**
+     * Returns the id for the given record type, registering it only if fewer than {@code limit}
+     * labels are registered.
+     *
+     * @param recordType the record type label
+     * @param limit      the registry size up to which a new label is registered, at most
+     *                   {@link #MAX_TYPES}
+     * @return the interned id, or -1 if the label is new and the registry has reached the limit
+     */
+    public static int idOf(String recordType, int limit) {
+        Integer id = IDS.get(recordType);
+        if (id != null) {
+            return id;
+        }
+        return register(recordType, Math.min(limit, MAX_TYPES));
+    }
+
+    /**
+     * Returns the registered label equal to {@code text[start, end)}, without allocating.
+     *
+     * @param text  the text containing the label
+     * @param start index of the first character of the label
+     * @param end   index after the last character of the label
+     * @return the registered label, or null if no registered label matches
+     */
+    public static String lookup(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        String[] slots = table;
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String name = slots[slot];
+            if (name == null) {
+                return null;
+            }
+            if (name.hashCode() == hash && matches(name, text, start, end)) {
+                return name;
+            }
+        }
+    }
+
+    /**
+     * Returns the label registered for the given id.
+     *
+     * @param id an id previously returned by {@link #idOf(String)}
+     * @return the record type label
+     * @throws IllegalArgumentException if the id is unknown
+     */
+    public static String nameOf(int id) {
+        String[] snapshot = names;
+        if (id < 0 || id >= snapshot.length) {
+            throw new IllegalArgumentException("Unknown record type id: " + id);
+        }
+        return snapshot[id];
+    }
+
+    /**
+     * Tells whether an id belongs to one of the pre-registered labels. Only those ids are the
+     * same in every JVM, so only they may be exchanged with other processes.
+     *
+     * @param id a record type id
+     * @return true if the id is stable across processes
+     */
+    public static boolean isWellKnown(int id) {
+        return id >= 0 && id < WELL_KNOWN.length;
+    }
+
+    /**
+     * Returns the number of record types registered so far.
+     *
+     * @return the registry size; valid ids are {@code 0..size()-1}
+     */
+    public static int size() {
+        return names.length;
+    }
+
+    private static synchronized int register(String recordType, int limit) {
+        Integer id = IDS.get(recordType);
+        if (id != null) {
+            return id;
+        }
+        if (names.length >= limit) {
+            return -1;
+        }
+        String[] grown = Arrays.copyOf(names, names.length + 1);
+        int newId = names.length;
+        grown[newId] = recordType;
+        // Publish the name before the id so readers never see an id without its label
+        names = grown;
+        table = buildTable(grown);
+        IDS.put(recordType, newId);
+        return newId;
+    }
+
+    private static String[] buildTable(String[] names) {
+        int capacity = 16;
+        while (capacity < names.length * 2) {
+            capacity <<= 1;
+        }
+        String[] slots = new String[capacity];
+        int mask = capacity - 1;
+        for (String name : names) {
+            int slot = spread(name.hashCode()) & mask;
+            while (slots[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = name;
+        }
+        return slots;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence text, int start, int end) {
+        int length = end - start;
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
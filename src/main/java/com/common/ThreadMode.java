@@ -0,0 +1,131 @@
+package com.common;
+
+import java.lang.reflect.Method;
+
+/**
+ * The kind of thread the simulator and the readers start for their blocking loops.
+ *
+ * <p>{@link #VIRTUAL} threads need Java 21 or later. The project still compiles for Java 11, so
+ * they are looked up at run time; on an older JVM {@link #newThread} falls back to platform
+ * threads, see {@link #isVirtualAvailable()}. The default mode comes from the
+ * {@value #PROPERTY} system property ({@code platform} or {@code virtual}) and can be changed
+ * with {@link #setDefault(ThreadMode)}.
+ */
+public enum ThreadMode {
+    /** Operating-system threads. */
+    PLATFORM,
+    /** Virtual threads, which park on blocking calls without holding an operating-system thread. */
+    VIRTUAL;
+
+    /** System property selecting the default mode. */
+    public static final String PROPERTY = "cardio.threads";
+
+    // Thread.ofVirtual() and the Thread.Builder methods, or null before Java 21
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method UNSTARTED;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method unstarted = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class);
+            unstarted = builder.getMethod("unstarted", Runnable.class);
+            // Preview builds without --enable-preview have the methods but refuse to use them
+            unstarted.invoke(ofVirtual.invoke(null), (Runnable) () -> { });
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        UNSTARTED = unstarted;
+    }
+
+    private static volatile ThreadMode defaultMode = fromProperty();
+
+    /**
+     * Returns whether this JVM supports virtual threads.
+     *
+     * @return true on Java 21 or later
+     */
+    public static boolean isVirtualAvailable() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Returns the mode used by components that are not given one explicitly.
+     *
+     * @return the default mode
+     */
+    public static ThreadMode getDefault() {
+        return defaultMode;
+    }
+
+    /**
+     * Sets the mode used by components that are not given one explicitly.
+     *
+     * @param mode the new default mode
+     */
+    public static void setDefault(ThreadMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("Thread mode must not be null");
+        }
+        defaultMode = mode;
+    }
+
+    /**
+     * Parses a mode name, ignoring case.
+     *
+     * @param name {@code platform} or {@code virtual}
+     * @return the mode
+     */
+    public static ThreadMode parse(String name) {
+        for (ThreadMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown thread mode: " + name);
+    }
+
+    private static ThreadMode fromProperty() {
+        try {
+            return parse(System.getProperty(PROPERTY, "platform"));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage() + ". Using platform threads.");
+            return PLATFORM;
+        }
+    }
+
+    /**
+     * Returns whether threads created in this mode really are virtual on this JVM.
+     *
+     * @return true for {@link #VIRTUAL} on Java 21 or later
+     */
+    public boolean isVirtual() {
+        return this == VIRTUAL && isVirtualAvailable();
+    }
+
+    /**
+     * Creates an unstarted thread of this mode. Platform threads are not daemons; virtual
+     * threads always are.
+     *
+     * @param name the thread name
+     * @param task what the thread runs
+     * @return the new thread
+     */
+    public Thread newThread(String name, Runnable task) {
+        if (!isVirtual()) {
+            return new Thread(task, name);
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+            return (Thread) UNSTARTED.invoke(builder, task);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create a virtual thread", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.data_management;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.common.RecordParser;
+
+/**
+ * Reusable {@link CharSequence} view over ASCII bytes in a buffer, so network or memory-mapped
+ * input can be handed to {@link RecordParser} without decoding it into a String first.
+ */
+final class AsciiSequence implements CharSequence {
+    private ByteBuffer bytes;
+    private int offset;
+    private int length;
+
+    /**
+     * Points the view at the absolute range {@code [offset, offset + length)} of the buffer.
+     */
+    AsciiSequence wrap(ByteBuffer bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        byte[] copy = new byte[length];
+        for (int i = 0; i < length; i++) {
+            copy[i] = bytes.get(offset + i);
+        }
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+}
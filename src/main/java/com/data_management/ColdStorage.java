@@ -0,0 +1,287 @@
+package com.data_management;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Disk tier for old samples. Attach it with {@link DataStorage#setColdStorage(ColdStorage, long)}
+ * and each patient's series keep only a recent window on the heap: older samples are sealed, a
+ * chunk of {@link TimeSeries#CHUNK_SIZE} at a time, into immutable blocks compressed with
+ * {@link TimeSeriesCodec} and appended to segment files in this directory. Range queries read
+ * the blocks they overlap and merge them with the heap data transparently.
+ *
+ * <p>The location of every block is kept in memory by the series it came from, so the files
+ * are a spill area for the running process, not a durable copy: segments left by a previous
+ * run are deleted when the storage is opened. Durability is provided by a
+ * {@link WriteAheadLog}.
+ *
+ * <p>Each segment counts the blocks still referenced by a series. Once a {@link RetentionPolicy}
+ * has dropped all of them, the segment file is deleted by the next-but-one
+ * {@link DataStorage#compact()}, which leaves readers that took a snapshot before the drop a
+ * compaction interval to finish with the blocks.
+ */
+public final class ColdStorage implements AutoCloseable {
+    /** Default size at which a segment is sealed and a new one started. */
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final String SEGMENT_PREFIX = "cold-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final LongAdder sealedSamples = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+
+    // Guarded by this
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment current;
+    private int segmentNumber;
+    // Segments without live blocks: emptied since the last reclaim, and before it
+    private List<Segment> emptied = new ArrayList<>();
+    private List<Segment> retired = new ArrayList<>();
+    private boolean closed;
+
+    /**
+     * Opens a cold tier with {@link #DEFAULT_SEGMENT_BYTES} segments.
+     *
+     * @param directory the directory holding the segments; created if missing
+     * @throws IOException if the directory cannot be prepared
+     */
+    public ColdStorage(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens a cold tier, deleting any segments left in the directory by a previous run.
+     *
+     * @param directory    the directory holding the segments; created if missing
+     * @param segmentBytes the size at which a segment is sealed
+     * @throws IOException if the directory cannot be prepared
+     */
+    public ColdStorage(Path directory, long segmentBytes) throws IOException {
+        if (segmentBytes < 1) {
+            throw new IllegalArgumentException("Segment size must be positive");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stale) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of samples moved to disk so far.
+     *
+     * @return the sealed sample count
+     */
+    public long getSealedSampleCount() {
+        return sealedSamples.sum();
+    }
+
+    /**
+     * Returns the number of bytes the sealed samples take on disk. Uncompressed, a sample takes
+     * 16 bytes.
+     *
+     * @return the stored size in bytes
+     */
+    public long getStoredBytes() {
+        return storedBytes.sum();
+    }
+
+    /**
+     * Returns the number of segment files on disk.
+     *
+     * @return the segment count
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size() + emptied.size() + retired.size();
+    }
+
+    /**
+     * Closes every segment. Blocks sealed into this storage can no longer be read afterwards.
+     *
+     * @throws IOException if a segment cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        IOException failure = null;
+        List<Segment> all = new ArrayList<>(segments);
+        all.addAll(emptied);
+        all.addAll(retired);
+        for (Segment segment : all) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Deletes the segments emptied before the previous call, and retires those emptied since,
+     * to be deleted by the next call.
+     *
+     * @throws IOException if a segment cannot be deleted
+     */
+    synchronized void reclaim() throws IOException {
+        if (closed) {
+            return;
+        }
+        List<Segment> expired = retired;
+        retired = emptied;
+        emptied = new ArrayList<>();
+        for (Segment segment : expired) {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+            storedBytes.add(-segment.size);
+        }
+    }
+
+    /**
+     * Records that a series no longer references a block; a segment left without live blocks
+     * is deleted later, see {@link #reclaim()}.
+     */
+    private synchronized void release(Block block) {
+        if (block.released) {
+            return;
+        }
+        block.released = true;
+        Segment segment = block.segment;
+        segment.liveBlocks--;
+        if (segment.liveBlocks == 0 && segment != current) {
+            retire(segment);
+        }
+    }
+
+    private void retire(Segment segment) {
+        segments.remove(segment);
+        emptied.add(segment);
+    }
+
+    /**
+     * Compresses samples into a new block and appends it to the current segment.
+     *
+     * @param timestamps sample times, in timestamp order
+     * @param values     measured values, parallel to {@code timestamps}
+     * @param count      number of samples, at least 1
+     * @return the sealed block
+     * @throws IOException if the block cannot be written
+     */
+    Block write(long[] timestamps, double[] values, int count) throws IOException {
+        byte[] encoded = TimeSeriesCodec.encode(timestamps, values, count);
+        long offset;
+        Segment segment;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Cold storage is closed");
+            }
+            if (current == null || current.size >= segmentBytes) {
+                Segment previous = current;
+                Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, ++segmentNumber,
+                        SEGMENT_SUFFIX));
+                current = new Segment(path, FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE));
+                segments.add(current);
+                if (previous != null && previous.liveBlocks == 0) {
+                    retire(previous);
+                }
+            }
+            segment = current;
+            offset = segment.size;
+            ByteBuffer buffer = ByteBuffer.wrap(encoded);
+            while (buffer.hasRemaining()) {
+                segment.channel.write(buffer, offset + buffer.position());
+            }
+            segment.size += encoded.length;
+            segment.liveBlocks++;
+        }
+        sealedSamples.add(count);
+        storedBytes.add(encoded.length);
+        return new Block(segment, offset, encoded.length, count, timestamps[0], timestamps[count - 1]);
+    }
+
+    /**
+     * One segment file; its fields are guarded by the storage.
+     */
+    private static final class Segment {
+        final Path path;
+        final FileChannel channel;
+        long size;
+        int liveBlocks;
+
+        Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Location and time range of one sealed block.
+     */
+    final class Block {
+        private final Segment segment;
+        private final long offset;
+        private final int length;
+        final int count;
+        final long minTimestamp;
+        final long maxTimestamp;
+        // Guarded by the storage
+        private boolean released;
+
+        private Block(Segment segment, long offset, int length, int count, long minTimestamp, long maxTimestamp) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.count = count;
+            this.minTimestamp = minTimestamp;
+            this.maxTimestamp = maxTimestamp;
+        }
+
+        /**
+         * Tells whether the block's time range overlaps {@code [start, end]}.
+         */
+        boolean overlaps(long start, long end) {
+            return maxTimestamp >= start && minTimestamp <= end;
+        }
+
+        /**
+         * Tells the storage the block is no longer referenced, so its segment can be deleted
+         * once all its blocks are. Further calls do nothing.
+         */
+        void release() {
+            ColdStorage.this.release(this);
+        }
+
+        /**
+         * Reads and decodes the block.
+         *
+         * @param timestamps receives the {@link #count} sample times from index {@code at}
+         * @param values     receives the measured values from index {@code at}
+         * @param at         index of the first sample in the output arrays
+         * @throws IOException if the block cannot be read
+         */
+        void read(long[] timestamps, double[] values, int at) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (segment.channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Cold segment truncated");
+                }
+            }
+            TimeSeriesCodec.decode(buffer.array(), timestamps, values, at);
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.data_management;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.alerts.AlertFactory;
 import com.alerts.AlertGenerator;
@@ -23,6 +30,15 @@ public class DataStorage {
     // Thread-safe map for concurrent access
     private static volatile DataStorage instance;
     private final ConcurrentMap<Integer, PatientRecordContainer> patientMap;
+    private final List<DataStorageListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile WriteAheadLog writeAheadLog;
+    private volatile ColdStorage coldStorage;
+    private volatile long hotWindowMillis;
+    private volatile RetentionPolicy retentionPolicy;
+    // Guarded by this; runs compact() while a retention policy is set
+    private ScheduledExecutorService compactor;
+    // Compactions must not overlap: rollups have a single writer
+    private final Object compactionLock = new Object();
 
     /**
      * Constructs a new instance of DataStorage, initializing the underlying storage
@@ -59,7 +75,15 @@ public class DataStorage {
 
     /**
      * Adds or updates patient data in real-time, deduplicating by timestamp and type.
-     * Uses a per-patient lock to handle concurrent updates.
+     * Writers to the same patient are serialized by a per-patient lock, which is uncontended in
+     * the usual case of one producer per patient; readers never wait for it.
+     * Registered listeners are notified after the lock is released. If a write-ahead log is
+     * attached, the record is logged before it is stored.
+     *
+     * <p>This is not the only way records are inserted: the readers store whole messages
+     * through {@link #addPatientDataBatch(RecordBatch)}, which does not call this method. A
+     * subclass that intercepts inserts must override both, and one that replaces their storage
+     * calls {@link #notifyListeners(PatientRecord)} for each record it adds.
      *
      * @param patientId        patient's ID
      * @param measurementValue the value of the health metric
@@ -67,16 +91,231 @@ public class DataStorage {
      * @param timestamp        reading time in millis
      */
     public void addPatientData(int patientId, double measurementValue, String recordType, long timestamp) {
+        WriteAheadLog log = writeAheadLog;
+        if (log != null) {
+            log.append(patientId, measurementValue, recordType, timestamp);
+        }
         // Get or create container atomically
-        PatientRecordContainer container =
-                patientMap.computeIfAbsent(patientId, id -> new PatientRecordContainer(new Patient(id)));
+        PatientRecordContainer container = containerFor(patientId);
 
         // Delegate to container which handles locking and deduplication
-        container.addRecord(measurementValue, recordType, timestamp);
+        if (container.addRecord(measurementValue, recordType, timestamp) && !listeners.isEmpty()) {
+            notifyListeners(new PatientRecord(patientId, measurementValue, recordType, timestamp));
+        }
+    }
+
+    /**
+     * Adds or updates every record of a batch, with the same deduplication as
+     * {@link #addPatientData(int, double, String, long)}. Records are grouped by patient so each
+     * patient is looked up and locked once per batch, and each patient's records are applied in
+     * batch order. Listeners are notified of the added records, in batch order, after all of
+     * them are stored. If a write-ahead log is attached, the batch is logged as one entry
+     * before it is stored.
+     *
+     * @param batch the records to add; it is not modified
+     */
+    public void addPatientDataBatch(RecordBatch batch) {
+        int size = batch.size();
+        if (size == 0) {
+            return;
+        }
+        WriteAheadLog log = writeAheadLog;
+        if (log != null) {
+            log.append(batch);
+        }
+        boolean[] added = listeners.isEmpty() ? null : new boolean[size];
+        storeBatch(batch, added);
+        if (added != null) {
+            for (int i = 0; i < size; i++) {
+                if (added[i]) {
+                    notifyListeners(new PatientRecord(batch.patientIdAt(i), batch.valueAt(i),
+                            batch.recordTypeAt(i), batch.timestampAt(i)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports a stored record to the registered listeners. Subclasses that replace the insert
+     * methods with their own storage call this for every record they add, so listeners such as
+     * the alert engine keep seeing new data.
+     *
+     * @param record the record that was added
+     */
+    protected void notifyListeners(PatientRecord record) {
+        for (DataStorageListener listener : listeners) {
+            listener.onRecordAdded(record);
+        }
+    }
+
+    /**
+     * Stores a batch replayed by {@link WriteAheadLog#recover}, without logging it again or
+     * notifying listeners.
+     *
+     * @param batch the records to restore; it is not modified
+     */
+    void restoreBatch(RecordBatch batch) {
+        if (batch.size() > 0) {
+            storeBatch(batch, null);
+        }
+    }
+
+    private void storeBatch(RecordBatch batch, boolean[] added) {
+        PatientGroups groups = new PatientGroups(batch);
+        for (int group = 0; group < groups.count; group++) {
+            PatientRecordContainer container = containerFor(groups.patientIds[group]);
+            container.addRecords(batch, groups.order, groups.starts[group], groups.starts[group + 1], added);
+        }
+    }
+
+    private PatientRecordContainer containerFor(int patientId) {
+        // Known patients skip computeIfAbsent, whose capturing lambda is allocated on every call
+        PatientRecordContainer existing = patientMap.get(patientId);
+        if (existing != null) {
+            return existing;
+        }
+        return patientMap.computeIfAbsent(patientId, id -> {
+            Patient patient = new Patient(id);
+            ColdStorage store = coldStorage;
+            if (store != null) {
+                patient.setColdStorage(store, hotWindowMillis);
+            }
+            return new PatientRecordContainer(patient);
+        });
+    }
+
+    /**
+     * Keeps only a recent window of each patient's data on the heap: as data arrives, samples
+     * more than {@code hotWindowMillis} older than the newest sample of their type are
+     * compressed into the given disk tier. {@link #getRecords} merges both tiers transparently.
+     * Applies to patients already stored and to those added later.
+     *
+     * @param store           the disk tier, or null to keep new data on the heap
+     * @param hotWindowMillis how far back data stays on the heap
+     */
+    public void setColdStorage(ColdStorage store, long hotWindowMillis) {
+        if (hotWindowMillis < 0) {
+            throw new IllegalArgumentException("Hot window must not be negative");
+        }
+        this.hotWindowMillis = hotWindowMillis;
+        this.coldStorage = store;
+        for (PatientRecordContainer container : patientMap.values()) {
+            container.getPatient().setColdStorage(store, hotWindowMillis);
+        }
+    }
+
+    /**
+     * Applies a retention policy: a background thread then periodically runs {@link #compact()}
+     * at the policy's compaction interval. Replacing the policy restarts the thread; null stops
+     * it and keeps data from then on.
+     *
+     * @param policy the retention policy, or null to keep everything
+     */
+    public synchronized void setRetentionPolicy(RetentionPolicy policy) {
+        if (compactor != null) {
+            compactor.shutdownNow();
+            compactor = null;
+        }
+        retentionPolicy = policy;
+        if (policy == null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "storage-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = policy.getCompactionIntervalMillis();
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                compact();
+            } catch (RuntimeException e) {
+                // Keep compacting on later runs; an exception would cancel the schedule
+                System.err.println("Error compacting storage: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Rolls up newly completed buckets and discards data that has outlived the retention policy,
+     * patient by patient. Aggregation reads without locking; only the final swap of each
+     * patient's trimmed series takes the patient's writer lock, so ingest is not held up.
+     * Cold segment files emptied by an earlier run are deleted, see {@link ColdStorage}.
+     * Does nothing without a retention policy.
+     */
+    public void compact() {
+        RetentionPolicy policy = retentionPolicy;
+        if (policy == null) {
+            return;
+        }
+        synchronized (compactionLock) {
+            for (PatientRecordContainer container : patientMap.values()) {
+                container.compact(policy);
+            }
+            ColdStorage store = coldStorage;
+            if (store != null) {
+                try {
+                    store.reclaim();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves min/max/average summaries of one of a patient's record types over a time range,
+     * as built by {@link #compact()}. Long ranges are served from coarse buckets.
+     *
+     * @param patientId  the ID of the patient
+     * @param recordType the type of record, e.g., "HeartRate"
+     * @param startTime  the start of the time range in millis
+     * @param endTime    the end of the time range in millis
+     * @param maxBuckets the largest number of buckets wanted
+     * @return the buckets overlapping the range, in time order
+     * @see Patient#getRollups(String, long, long, int)
+     */
+    public List<Rollup> getRollups(int patientId, String recordType, long startTime, long endTime, int maxBuckets) {
+        PatientRecordContainer container = patientMap.get(patientId);
+        if (container != null) {
+            return container.getPatient().getRollups(recordType, startTime, endTime, maxBuckets);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Attaches a write-ahead log to which every subsequent insert is written before it is
+     * stored. Replay existing history with {@link WriteAheadLog#recover} before attaching.
+     *
+     * @param log the log to write to, or null to stop logging
+     */
+    public void setWriteAheadLog(WriteAheadLog log) {
+        this.writeAheadLog = log;
+    }
+
+    /**
+     * Subscribes a listener to every record subsequently added to this storage.
+     *
+     * @param listener the listener to notify
+     */
+    public void addListener(DataStorageListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unsubscribes a listener previously passed to {@link #addListener(DataStorageListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(DataStorageListener listener) {
+        listeners.remove(listener);
     }
 
     /**
      * Retrieves records for a given patient within a time range.
+     * Only raw samples are returned: with a {@link RetentionPolicy}, samples older than the raw
+     * retention are gone, so a range reaching back past it comes back partial or empty. Read
+     * long ranges with {@link #getRollups(int, String, long, long, int)} instead.
      * @param patientId the ID of the patient
      * @return a list of PatientRecord objects within the specified time range
      */
@@ -88,6 +327,34 @@ public class DataStorage {
         return new ArrayList<>();
     }
 
+    /**
+     * Retrieves a patient's records of one type within a time range, as a zero-copy view of the
+     * type's series. Patients not held by this storage are looked up through
+     * {@link #getRecords(int, long, long)}, filtered by type, so subclasses that keep records
+     * elsewhere still answer correctly. Raw samples past the retention are gone, as with
+     * {@link #getRecords(int, long, long)}.
+     *
+     * @param patientId  the ID of the patient
+     * @param recordType the type of record, e.g., "HeartRate"
+     * @param startTime  the start of the time range in millis
+     * @param endTime    the end of the time range in millis
+     * @return the matching records, in timestamp order
+     * @see Patient#getRecords(String, long, long)
+     */
+    public List<PatientRecord> getRecords(int patientId, String recordType, long startTime, long endTime) {
+        PatientRecordContainer container = patientMap.get(patientId);
+        if (container != null) {
+            return container.getPatient().getRecords(recordType, startTime, endTime);
+        }
+        List<PatientRecord> records = new ArrayList<>();
+        for (PatientRecord record : getRecords(patientId, startTime, endTime)) {
+            if (record.getRecordType().equals(recordType)) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
     /**
      * Returns all patients currently stored.
      * @return a list of all patients
@@ -101,39 +368,81 @@ public class DataStorage {
     }
 
     /**
-     * Container pairing a Patient with a ReadWriteLock and deduplication logic.
+     * Container pairing a Patient with its writer lock and deduplication logic.
+     * Patient supports one writer with lock-free readers, so only the write path locks here;
+     * the lock is the fallback for the rare case of several producers feeding one patient.
      */
     private static class PatientRecordContainer {
         private final Patient patient;
-        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Lock writeLock = new ReentrantLock();
 
         PatientRecordContainer(Patient patient) {
             this.patient = patient;
         }
         /**
          * Adds a record to the patient, ensuring no duplicates by timestamp and type.
-         * Uses a write lock to ensure thread safety.
+         * Uses the writer lock so concurrent producers cannot interleave.
          *
          * @param value     the measurement value
          * @param type      the type of record
          * @param timestamp the timestamp of the record
+         * @return true if the record was added, false if it was a duplicate
          */
 
-        void addRecord(double value, String type, long timestamp) {
-            lock.writeLock().lock();
+        boolean addRecord(double value, String type, long timestamp) {
+            writeLock.lock();
+            try {
+                // The per-type series is sorted, so the duplicate check does not scan history
+                return patient.addRecordIfAbsent(value, type, timestamp);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        /**
+         * Adds the batch records at {@code order[from, to)}, all of which belong to this
+         * patient, under a single acquisition of the writer lock.
+         *
+         * @param batch the batch holding the records
+         * @param order batch indices grouped by patient
+         * @param from  first position in {@code order}, inclusive
+         * @param to    last position in {@code order}, exclusive
+         * @param added if not null, set to true at the index of every record that was added
+         */
+        void addRecords(RecordBatch batch, int[] order, int from, int to, boolean[] added) {
+            writeLock.lock();
             try {
-                //deduplicate before adding
-                if (patient.getRecords(timestamp, timestamp).stream()
-                        .noneMatch(record -> record.getRecordType().equals(type))) {
-                    patient.addRecord(value, type, timestamp);
+                for (int i = from; i < to; i++) {
+                    int index = order[i];
+                    boolean stored = patient.addRecordIfAbsent(batch.valueAt(index), batch.recordTypeAt(index),
+                            batch.timestampAt(index));
+                    if (added != null) {
+                        added[index] = stored;
+                    }
                 }
             } finally {
-                lock.writeLock().unlock();
+                writeLock.unlock();
             }
         }
+
+        /**
+         * Rolls up the patient's data without a lock, then drops expired data under the
+         * writer lock.
+         *
+         * @param policy the retention policy
+         */
+        void compact(RetentionPolicy policy) {
+            patient.rollUp();
+            writeLock.lock();
+            try {
+                patient.dropExpired(policy);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
         /**
          * Retrieves records for the patient within a specified time range.
-         * Uses a read lock to ensure thread safety.
+         * Takes no lock; the patient's series publish consistent snapshots to readers.
          *
          * @param  start the start time
          * @param end   the end time
@@ -141,18 +450,97 @@ public class DataStorage {
          */
 
         List<PatientRecord> getRecords(long start, long end) {
-            lock.readLock().lock();
-            try {
-                return patient.getRecords(start, end);
-            } finally {
-                lock.readLock().unlock();
-            }
+            return patient.getRecords(start, end);
         }
 
         Patient getPatient() {
             return patient;
         }
     }
+    /**
+     * Stable grouping of a batch's record indices by patient, built with a primitive hash table
+     * and a counting sort so no patient ID is boxed per record.
+     */
+    private static final class PatientGroups {
+        // Distinct patient IDs in order of first appearance
+        final int[] patientIds;
+        // Batch indices; group g occupies order[starts[g], starts[g + 1])
+        final int[] order;
+        final int[] starts;
+        final int count;
+
+        PatientGroups(RecordBatch batch) {
+            int size = batch.size();
+            int[] groupOf = new int[size];
+            // Sized for every record having its own patient, up to a point
+            int expected = Math.min(size, 1024);
+            int[] ids = new int[expected];
+            int[] counts = new int[expected];
+            // Open addressing table of group index + 1; 0 marks an empty slot
+            int[] table = new int[Integer.highestOneBit(expected) * 4];
+            int groups = 0;
+            for (int i = 0; i < size; i++) {
+                int patientId = batch.patientIdAt(i);
+                int slot = probe(table, ids, patientId);
+                int group;
+                if (table[slot] != 0) {
+                    group = table[slot] - 1;
+                } else {
+                    if (groups == ids.length) {
+                        ids = Arrays.copyOf(ids, groups * 2);
+                        counts = Arrays.copyOf(counts, groups * 2);
+                    }
+                    group = groups++;
+                    ids[group] = patientId;
+                    table[slot] = groups;
+                    if (groups * 2 > table.length) {
+                        table = rehash(ids, groups, table.length * 2);
+                    }
+                }
+                groupOf[i] = group;
+                counts[group]++;
+            }
+            starts = new int[groups + 1];
+            for (int group = 0; group < groups; group++) {
+                starts[group + 1] = starts[group] + counts[group];
+            }
+            int[] next = Arrays.copyOf(starts, groups);
+            order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[next[groupOf[i]]++] = i;
+            }
+            patientIds = ids;
+            count = groups;
+        }
+
+        /** Returns the slot holding {@code patientId}, or the empty slot where it belongs. */
+        private static int probe(int[] table, int[] ids, int patientId) {
+            int mask = table.length - 1;
+            int slot = mix(patientId) & mask;
+            while (table[slot] != 0 && ids[table[slot] - 1] != patientId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static int[] rehash(int[] ids, int groups, int capacity) {
+            int[] table = new int[capacity];
+            for (int group = 0; group < groups; group++) {
+                int slot = mix(ids[group]) & (capacity - 1);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                table[slot] = group + 1;
+            }
+            return table;
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
     /**
      * The main method for the DataStorage class.
      * Initializes the system, reads data into storage, and continuously monitors
@@ -180,10 +568,8 @@ public class DataStorage {
 
         // Initialize the AlertGenerator with the storage
         AlertGenerator alertGenerator = new AlertGenerator(storage, new ArrayList<>(), new AlertFactory());
-        // Evaluate all patients' data to check for conditions that may trigger alerts
-        for (Patient patient : storage.getAllPatients()) {
-            alertGenerator.evaluateData(patient);
-        }
+        // Evaluate all patients' data in parallel to check for conditions that may trigger alerts
+        alertGenerator.evaluateAll(storage.getAllPatients());
     }
 
 }
@@ -0,0 +1,16 @@
+package com.data_management;
+
+/**
+ * Receives records as they are added to a {@link DataStorage}.
+ * Listeners are called on the ingesting thread after the record is stored, so implementations
+ * should hand the work off quickly rather than evaluate it inline.
+ */
+public interface DataStorageListener {
+
+    /**
+     * Called once for every record that was stored; duplicates that were dropped are not reported.
+     *
+     * @param record the record that was added
+     */
+    void onRecordAdded(PatientRecord record);
+}
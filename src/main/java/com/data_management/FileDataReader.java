@@ -3,33 +3,217 @@ package com.data_management;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.common.RecordParser;
 
 public class FileDataReader implements DataReader {
+    /** Default size of the file ranges parsed in parallel by {@link #bulkLoad(DataStorage)}. */
+    public static final int DEFAULT_CHUNK_BYTES = 32 * 1024 * 1024;
+    /** Number of lines {@link #readData(DataStorage)} stores at a time. */
+    public static final int READ_BATCH_SIZE = 4096;
+    // Longest line searched for when aligning a chunk boundary to the next newline
+    private static final int MAX_LINE_BYTES = 4096;
 
     private String filePath;
+    private final LongAdder malformedLines = new LongAdder();
 
     public FileDataReader(String filePath) {
         this.filePath = filePath;
     }
 
+    /**
+     * Reads the file line by line, storing records in batches of {@link #READ_BATCH_SIZE}.
+     * Malformed lines are skipped and counted, see {@link #getMalformedLineCount()}.
+     *
+     * @param dataStorage the storage where data will be stored
+     * @throws IOException if the file cannot be read
+     */
     @Override
     public void readData(DataStorage dataStorage) throws IOException {
+        // Format: patientId,value,type,timestamp
+        RecordParser parser = new RecordParser(RecordParser.Layout.FILE, true);
+        RecordBatch batch = new RecordBatch(READ_BATCH_SIZE);
         try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
             String line;
 
             while ((line = br.readLine()) != null) {
-                // Format: patientId,value,type,timestamp
-                String[] parts = line.trim().split(",");
-                if (parts.length != 4) continue; // skip malformed lines
+                if (!line.isBlank()) {
+                    parser.parse(line, batch);
+                }
+                if (batch.size() == READ_BATCH_SIZE) {
+                    dataStorage.addPatientDataBatch(batch);
+                    batch.clear();
+                }
+            }
+            dataStorage.addPatientDataBatch(batch);
+        } finally {
+            malformedLines.add(parser.getMalformedCount());
+        }
+    }
 
-                int patientId = Integer.parseInt(parts[0]);
-                double value = Double.parseDouble(parts[1]);
-                String type = parts[2];
-                long timestamp = Long.parseLong(parts[3]);
+    /**
+     * Loads the whole file using the common ForkJoinPool, for backfilling large histories.
+     *
+     * @param dataStorage the storage where data will be stored
+     * @throws IOException if the file cannot be read
+     * @see #bulkLoad(DataStorage, ForkJoinPool, int)
+     */
+    public void bulkLoad(DataStorage dataStorage) throws IOException {
+        bulkLoad(dataStorage, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
 
-                // Use the correct method to add data to DataStorage
-                dataStorage.addPatientData(patientId, value, type, timestamp);
+    /**
+     * Loads the whole file in parallel. The file is memory-mapped in newline-aligned chunks that
+     * are parsed in place, one chunk per task, without creating a String per line. Chunks are
+     * processed in waves of one per worker: a wave is parsed in parallel into one batch per worker,
+     * split by patient, then stored in parallel with each worker inserting its batches in file
+     * order, so a file written in time order is appended to storage in order and workers never
+     * contend for a patient.
+     * Malformed lines are skipped and counted, see {@link #getMalformedLineCount()}.
+     *
+     * @param dataStorage the storage where data will be stored
+     * @param pool        the pool to parse and store on
+     * @param chunkBytes  the approximate size of each chunk
+     * @throws IOException if the file cannot be read
+     */
+    public void bulkLoad(DataStorage dataStorage, ForkJoinPool pool, int chunkBytes) throws IOException {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, chunkBytes);
+            int workers = pool.getParallelism();
+            for (int first = 0; first < bounds.length - 1; first += workers) {
+                int last = Math.min(first + workers, bounds.length - 1);
+                List<ForkJoinTask<RecordBatch[]>> parsing = new ArrayList<>();
+                for (int chunk = first; chunk < last; chunk++) {
+                    long start = bounds[chunk];
+                    long end = bounds[chunk + 1];
+                    parsing.add(pool.submit(() -> parseChunk(channel, start, end, workers)));
+                }
+                List<RecordBatch[]> batches = new ArrayList<>();
+                for (ForkJoinTask<RecordBatch[]> task : parsing) {
+                    batches.add(task.join());
+                }
+                List<ForkJoinTask<?>> storing = new ArrayList<>();
+                for (int worker = 0; worker < workers; worker++) {
+                    int partition = worker;
+                    storing.add(pool.submit(() -> store(dataStorage, batches, partition)));
+                }
+                for (ForkJoinTask<?> task : storing) {
+                    task.join();
+                }
             }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns the number of lines skipped by {@link #readData} and {@link #bulkLoad} because they
+     * could not be parsed.
+     *
+     * @return the malformed line count
+     */
+    public long getMalformedLineCount() {
+        return malformedLines.sum();
+    }
+
+    /**
+     * Splits the file into ranges of about {@code chunkBytes}, each ending just after a newline.
+     */
+    private static long[] chunkBounds(FileChannel channel, int chunkBytes) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(MAX_LINE_BYTES);
+        long position = chunkBytes;
+        while (position < size) {
+            probe.clear();
+            channel.read(probe, position);
+            probe.flip();
+            long boundary = -1;
+            while (probe.hasRemaining()) {
+                if (probe.get() == '\n') {
+                    boundary = position + probe.position();
+                    break;
+                }
+            }
+            if (boundary < 0) {
+                throw new IOException("No line break within " + MAX_LINE_BYTES + " bytes at offset " + position);
+            }
+            if (boundary >= size) {
+                break;
+            }
+            bounds.add(boundary);
+            position = boundary + chunkBytes;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Parses {@code [start, end)} of the file into one batch per store partition.
+     */
+    private RecordBatch[] parseChunk(FileChannel channel, long start, long end, int partitions) {
+        RecordParser parser = new RecordParser(RecordParser.Layout.FILE, true);
+        AsciiSequence line = new AsciiSequence();
+        RecordBatch[] batches = new RecordBatch[partitions];
+        for (int partition = 0; partition < partitions; partition++) {
+            // Lines are 30 to 50 bytes long
+            batches[partition] = new RecordBatch((int) ((end - start) / 32 / partitions));
+        }
+        RecordParser.Handler route = (patientId, timestamp, recordType, value) ->
+                batches[Math.floorMod(patientId, partitions)].add(patientId, timestamp, recordType, value);
+        MappedByteBuffer bytes;
+        try {
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int limit = bytes.limit();
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (bytes.get(i) == '\n') {
+                parseLine(parser, line.wrap(bytes, lineStart, i - lineStart), route);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < limit) {
+            parseLine(parser, line.wrap(bytes, lineStart, limit - lineStart), route);
+        }
+        malformedLines.add(parser.getMalformedCount());
+        return batches;
+    }
+
+    private static void parseLine(RecordParser parser, AsciiSequence line, RecordParser.Handler handler) {
+        // Blank lines, such as a trailing "\r\n" remainder, are not records
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > ' ') {
+                parser.parse(line, handler);
+                return;
+            }
+        }
+    }
+
+    private static void store(DataStorage dataStorage, List<RecordBatch[]> batches, int partition) {
+        for (RecordBatch[] chunk : batches) {
+            dataStorage.addPatientDataBatch(chunk[partition]);
         }
     }
-}
\ No newline at end of file
+}
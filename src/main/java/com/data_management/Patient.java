@@ -1,27 +1,44 @@
 package com.data_management;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import com.common.RecordTypes;
+
 /**
  * Represents a patient and manages their medical records.
  * This class stores patient-specific data, allowing for the addition and
  * retrieval
  * of medical records based on specified criteria.
+ * Records are kept in one columnar {@link TimeSeries} per record type; PatientRecord
+ * objects are only materialized when they are requested.
+ * Writes must come from one thread at a time, but reads need no locking and may run
+ * concurrently with that writer.
+ * With a {@link ColdStorage}, samples older than a hot window are moved to disk as they age
+ * and read back transparently by the range queries.
  */
 public class Patient {
     private int patientId;
-    private List<PatientRecord> patientRecords;
+    // Indexed by RecordTypes id; null slots are types this patient has no data for.
+    // Replaced, never modified, when a new type is added so readers see complete series.
+    private volatile TimeSeries[] seriesByType;
+    // Disk tier for expired samples; null keeps everything on the heap
+    private volatile ColdStorage coldStorage;
+    private volatile long hotWindowMillis;
+    // Indexed like seriesByType; only written by the compactor
+    private volatile Rollups[] rollupsByType = new Rollups[0];
 
     /**
      * Constructs a new Patient with a specified ID.
-     * Initializes an empty list of patient records.
+     * Initializes an empty record store.
      *
      * @param patientId the unique identifier for the patient
      */
     public Patient(int patientId) {
         this.patientId = patientId;
-        this.patientRecords = new ArrayList<>();
+        this.seriesByType = new TimeSeries[0];
     }
     /**
      * Returns the unique identifier for the patient.
@@ -34,7 +51,7 @@ public class Patient {
     /**
      * Adds a new record to this patient's list of medical records.
      * The record is created with the specified measurement value, record type, and
-     * timestamp.
+     * timestamp. Records arriving out of timestamp order are inserted at their position.
      *
      * @param measurementValue the measurement value to store in the record
      * @param recordType       the type of record, e.g., "HeartRate",
@@ -43,29 +60,225 @@ public class Patient {
      *                         milliseconds since UNIX epoch
      */
     public void addRecord(double measurementValue, String recordType, long timestamp) {
-        PatientRecord record = new PatientRecord(this.patientId, measurementValue, recordType, timestamp);
-        this.patientRecords.add(record);
+        TimeSeries series = seriesFor(RecordTypes.idOf(recordType));
+        series.add(timestamp, measurementValue);
+        sealExpired(series);
+    }
+
+    /**
+     * Adds a new record unless this patient already has a record of the same type at the
+     * same timestamp. In-order records are checked in constant time.
+     *
+     * @param measurementValue the measurement value to store in the record
+     * @param recordType       the type of record, e.g., "HeartRate"
+     * @param timestamp        the time at which the measurement was taken, in
+     *                         milliseconds since UNIX epoch
+     * @return true if the record was added, false if it was a duplicate
+     */
+    public boolean addRecordIfAbsent(double measurementValue, String recordType, long timestamp) {
+        TimeSeries series = seriesFor(RecordTypes.idOf(recordType));
+        if (!series.addIfAbsent(timestamp, measurementValue)) {
+            return false;
+        }
+        sealExpired(series);
+        return true;
+    }
+
+    /**
+     * Moves this patient's samples older than the hot window to a disk tier as new samples
+     * arrive. Takes effect on the next write to each record type.
+     *
+     * @param store           the disk tier, or null to keep new data on the heap
+     * @param hotWindowMillis how far back from each type's newest sample data stays on the heap
+     */
+    void setColdStorage(ColdStorage store, long hotWindowMillis) {
+        this.hotWindowMillis = hotWindowMillis;
+        this.coldStorage = store;
     }
 
     /**
      * Retrieves a list of PatientRecord objects for this patient that fall within a
      * specified time range.
-     * The method filters records based on the start and end times provided.
+     * Each record type is located by binary search, after reading any sealed blocks that
+     * overlap the range from cold storage; when only one type has data in the
+     * range the result is a zero-copy view, otherwise the types are merged chronologically.
+     * Raw samples dropped by a {@link RetentionPolicy} are gone, so a range reaching back past the
+     * raw retention returns only what is left; {@link #getRollups} summarizes such ranges.
      *
      * @param startTime the start of the time range, in milliseconds since UNIX
      *                  epoch
      * @param endTime   the end of the time range, in milliseconds since UNIX epoch
-     * @return a list of PatientRecord objects that fall within the specified time
-     *         range
+     * @return an unmodifiable list of PatientRecord objects that fall within the
+     *         specified time range, in timestamp order
      */
     public List<PatientRecord> getRecords(long startTime, long endTime) {
-        List<PatientRecord> filteredRecords = new ArrayList<>();
-        for (PatientRecord record : patientRecords) {
-            if (record.getTimestamp() >= startTime && record.getTimestamp() <= endTime) {
-                filteredRecords.add(record);
+        TimeSeries[] series = seriesByType;
+        int typeCount = series.length;
+        TimeSeries.Snapshot[] snapshots = new TimeSeries.Snapshot[typeCount];
+        int[] from = new int[typeCount];
+        int[] to = new int[typeCount];
+        int nonEmpty = 0;
+        int lastType = -1;
+        int total = 0;
+        for (int typeId = 0; typeId < typeCount; typeId++) {
+            if (series[typeId] == null) {
+                continue;
             }
+            TimeSeries.Snapshot snapshot = series[typeId].snapshot().withColdRange(startTime, endTime);
+            snapshots[typeId] = snapshot;
+            from[typeId] = snapshot.lowerBound(startTime);
+            to[typeId] = snapshot.upperBound(endTime);
+            if (from[typeId] < to[typeId]) {
+                nonEmpty++;
+                lastType = typeId;
+                total += to[typeId] - from[typeId];
+            }
+        }
+        if (nonEmpty == 0) {
+            return List.of();
+        }
+        if (nonEmpty == 1) {
+            return snapshots[lastType].view(from[lastType], to[lastType], patientId,
+                    RecordTypes.nameOf(lastType));
+        }
+
+        // Merge the per-type ranges; ties go to the lower type id
+        List<PatientRecord> merged = new ArrayList<>(total);
+        while (merged.size() < total) {
+            int next = -1;
+            long nextTimestamp = Long.MAX_VALUE;
+            for (int typeId = 0; typeId < typeCount; typeId++) {
+                if (from[typeId] < to[typeId]) {
+                    long timestamp = snapshots[typeId].timestampAt(from[typeId]);
+                    if (next == -1 || timestamp < nextTimestamp) {
+                        next = typeId;
+                        nextTimestamp = timestamp;
+                    }
+                }
+            }
+            merged.add(new PatientRecord(patientId, snapshots[next].valueAt(from[next]), RecordTypes.nameOf(next),
+                    nextTimestamp));
+            from[next]++;
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    /**
+     * Retrieves the records of one type within a specified time range.
+     * The range is located by binary search and returned as a zero-copy view. As with
+     * {@link #getRecords(long, long)}, raw samples past the retention are gone; use
+     * {@link #getRollups} for long ranges.
+     *
+     * @param recordType the type of record, e.g., "HeartRate"
+     * @param startTime  the start of the time range, in milliseconds since UNIX epoch
+     * @param endTime    the end of the time range, in milliseconds since UNIX epoch
+     * @return an unmodifiable list of matching records, in timestamp order
+     */
+    public List<PatientRecord> getRecords(String recordType, long startTime, long endTime) {
+        int typeId = RecordTypes.idOf(recordType);
+        TimeSeries[] series = seriesByType;
+        if (typeId >= series.length || series[typeId] == null) {
+            return List.of();
+        }
+        TimeSeries.Snapshot snapshot = series[typeId].snapshot().withColdRange(startTime, endTime);
+        return snapshot.view(snapshot.lowerBound(startTime), snapshot.upperBound(endTime), patientId, recordType);
+    }
+
+    /**
+     * Retrieves min/max/average summaries of one record type over a time range, for ranges too
+     * long to read sample by sample. The finest resolution with at most {@code maxBuckets}
+     * buckets in the range that still holds data from the start of the range is used. Only
+     * buckets built by the storage compactor are returned, see {@link RetentionPolicy}.
+     *
+     * @param recordType the type of record, e.g., "HeartRate"
+     * @param startTime  the start of the time range, in milliseconds since UNIX epoch
+     * @param endTime    the end of the time range, in milliseconds since UNIX epoch
+     * @param maxBuckets the largest number of buckets wanted
+     * @return the buckets overlapping the range, in time order
+     */
+    public List<Rollup> getRollups(String recordType, long startTime, long endTime, int maxBuckets) {
+        if (maxBuckets < 1) {
+            throw new IllegalArgumentException("maxBuckets must be positive");
+        }
+        int typeId = RecordTypes.idOf(recordType);
+        Rollups[] rollups = rollupsByType;
+        if (typeId >= rollups.length || rollups[typeId] == null) {
+            return List.of();
+        }
+        return rollups[typeId].get(patientId, recordType, startTime, endTime, maxBuckets);
+    }
+
+    /**
+     * Aggregates the buckets completed since the last call into rollups. Reads without a lock,
+     * concurrently with the writer; compactions must not overlap.
+     */
+    void rollUp() {
+        TimeSeries[] series = seriesByType;
+        for (int typeId = 0; typeId < series.length; typeId++) {
+            if (series[typeId] != null) {
+                rollupsFor(typeId).rollUp(series[typeId]);
+            }
+        }
+    }
+
+    /**
+     * Discards raw samples and rollup buckets that have outlived their retention. Raw samples
+     * are kept until they have been rolled up. Must be called with writes excluded, but only
+     * swaps references, so it holds them up briefly.
+     *
+     * @param policy the retention policy
+     * @return the number of raw samples discarded
+     */
+    int dropExpired(RetentionPolicy policy) {
+        TimeSeries[] series = seriesByType;
+        Rollups[] rollups = rollupsByType;
+        int dropped = 0;
+        for (int typeId = 0; typeId < series.length && typeId < rollups.length; typeId++) {
+            if (series[typeId] == null || rollups[typeId] == null) {
+                continue;
+            }
+            TimeSeries.Snapshot snapshot = series[typeId].snapshot();
+            if (snapshot.size() == 0) {
+                continue;
+            }
+            long newest = snapshot.timestampAt(snapshot.size() - 1);
+            long cutoff = Math.min(RetentionPolicy.before(newest, policy.rawRetentionMillis(typeId)),
+                    rollups[typeId].rolledUpBefore());
+            dropped += series[typeId].dropBefore(cutoff);
+            rollups[typeId].dropExpired(policy, newest);
+        }
+        return dropped;
+    }
+
+    private Rollups rollupsFor(int typeId) {
+        Rollups[] current = rollupsByType;
+        if (typeId < current.length && current[typeId] != null) {
+            return current[typeId];
+        }
+        Rollups[] grown = Arrays.copyOf(current, Math.max(current.length, typeId + 1));
+        Rollups rollups = new Rollups();
+        grown[typeId] = rollups;
+        rollupsByType = grown;
+        return rollups;
+    }
+
+    private void sealExpired(TimeSeries series) {
+        ColdStorage store = coldStorage;
+        if (store != null) {
+            series.sealExpired(store, hotWindowMillis);
+        }
+    }
+
+    private TimeSeries seriesFor(int typeId) {
+        TimeSeries[] current = seriesByType;
+        if (typeId < current.length && current[typeId] != null) {
+            return current[typeId];
         }
-        return filteredRecords;
+        TimeSeries[] grown = Arrays.copyOf(current, Math.max(current.length, typeId + 1));
+        TimeSeries series = new TimeSeries();
+        grown[typeId] = series;
+        seriesByType = grown;
+        return series;
     }
 
 }
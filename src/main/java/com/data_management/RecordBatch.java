@@ -0,0 +1,115 @@
+package com.data_management;
+
+import java.util.Arrays;
+
+import com.common.RecordParser;
+
+/**
+ * A reusable, growable batch of records stored column by column. It can be filled directly by a
+ * {@link RecordParser} and is cleared rather than reallocated between uses. Not thread-safe.
+ */
+public final class RecordBatch implements RecordParser.Handler {
+    private int[] patientIds;
+    private long[] timestamps;
+    private String[] recordTypes;
+    private double[] values;
+    private int size;
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param initialCapacity the number of records the batch holds before growing
+     */
+    public RecordBatch(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        patientIds = new int[capacity];
+        timestamps = new long[capacity];
+        recordTypes = new String[capacity];
+        values = new double[capacity];
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param patientId        the patient ID
+     * @param timestamp        the timestamp in millis
+     * @param recordType       the record type label
+     * @param measurementValue the measured value
+     */
+    public void add(int patientId, long timestamp, String recordType, double measurementValue) {
+        if (size == patientIds.length) {
+            int capacity = size * 2;
+            patientIds = Arrays.copyOf(patientIds, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            recordTypes = Arrays.copyOf(recordTypes, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        patientIds[size] = patientId;
+        timestamps[size] = timestamp;
+        recordTypes[size] = recordType;
+        values[size] = measurementValue;
+        size++;
+    }
+
+    @Override
+    public void onRecord(int patientId, long timestamp, String recordType, double measurementValue) {
+        add(patientId, timestamp, recordType, measurementValue);
+    }
+
+    /**
+     * Returns the number of records in the batch.
+     *
+     * @return the record count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the patient ID of a record.
+     *
+     * @param index the record's position in the batch
+     * @return the patient ID
+     */
+    public int patientIdAt(int index) {
+        return patientIds[index];
+    }
+
+    /**
+     * Returns the timestamp of a record.
+     *
+     * @param index the record's position in the batch
+     * @return the timestamp
+     */
+    public long timestampAt(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Returns the record type label of a record.
+     *
+     * @param index the record's position in the batch
+     * @return the record type label
+     */
+    public String recordTypeAt(int index) {
+        return recordTypes[index];
+    }
+
+    /**
+     * Returns the measured value of a record.
+     *
+     * @param index the record's position in the batch
+     * @return the measured value
+     */
+    public double valueAt(int index) {
+        return values[index];
+    }
+
+    /**
+     * Empties the batch, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(recordTypes, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,161 @@
+package com.data_management;
+
+import java.util.Arrays;
+
+import com.common.RecordTypes;
+
+/**
+ * How long {@link DataStorage} keeps raw samples and their rollups. Apply it with
+ * {@link DataStorage#setRetentionPolicy(RetentionPolicy)}; a background compactor then
+ * aggregates raw samples into min/max/average buckets of one second, one minute and one hour,
+ * and drops raw samples and buckets that have outlived their retention.
+ *
+ * <p>Retention is measured back from the newest sample of each patient's record type, so it
+ * follows the data's own clock. Raw samples are only dropped once they have been rolled up.
+ * Instances are immutable; the {@code with} methods return modified copies.
+ */
+public final class RetentionPolicy {
+
+    /**
+     * Bucket sizes of the rollups, finest first.
+     */
+    public enum Resolution {
+        SECOND(1_000L),
+        MINUTE(60_000L),
+        HOUR(3_600_000L);
+
+        private final long millis;
+
+        Resolution(long millis) {
+            this.millis = millis;
+        }
+
+        /**
+         * Returns the bucket length.
+         *
+         * @return the bucket length in millis
+         */
+        public long millis() {
+            return millis;
+        }
+    }
+
+    /** Default time between two compactions. */
+    public static final long DEFAULT_COMPACTION_INTERVAL_MILLIS = 10_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final long defaultRawRetentionMillis;
+    // Indexed by RecordTypes id; 0 means the default applies
+    private final long[] rawRetentionByType;
+    private final long[] rollupRetention;
+    private final long compactionIntervalMillis;
+
+    /**
+     * Creates a policy keeping raw samples of every type for the given time, one-second rollups
+     * for 1 hour, one-minute rollups for 7 days and one-hour rollups for 365 days.
+     *
+     * @param defaultRawRetentionMillis how long raw samples of types without their own retention
+     *                                  are kept
+     */
+    public RetentionPolicy(long defaultRawRetentionMillis) {
+        this(requirePositive(defaultRawRetentionMillis), new long[0],
+                new long[] {3_600_000L, 7 * DAY_MILLIS, 365 * DAY_MILLIS}, DEFAULT_COMPACTION_INTERVAL_MILLIS);
+    }
+
+    private RetentionPolicy(long defaultRawRetentionMillis, long[] rawRetentionByType, long[] rollupRetention,
+                            long compactionIntervalMillis) {
+        this.defaultRawRetentionMillis = defaultRawRetentionMillis;
+        this.rawRetentionByType = rawRetentionByType;
+        this.rollupRetention = rollupRetention;
+        this.compactionIntervalMillis = compactionIntervalMillis;
+    }
+
+    /**
+     * Returns a copy of this policy with its own raw retention for one record type.
+     *
+     * @param recordType the record type label, e.g. "ECG"
+     * @param millis     how long raw samples of that type are kept
+     * @return the modified policy
+     */
+    public RetentionPolicy withRawRetention(String recordType, long millis) {
+        int typeId = RecordTypes.idOf(recordType);
+        long[] byType = Arrays.copyOf(rawRetentionByType, Math.max(rawRetentionByType.length, typeId + 1));
+        byType[typeId] = requirePositive(millis);
+        return new RetentionPolicy(defaultRawRetentionMillis, byType, rollupRetention, compactionIntervalMillis);
+    }
+
+    /**
+     * Returns a copy of this policy with a different retention for one rollup resolution.
+     *
+     * @param resolution the rollup resolution
+     * @param millis     how long buckets of that resolution are kept
+     * @return the modified policy
+     */
+    public RetentionPolicy withRollupRetention(Resolution resolution, long millis) {
+        long[] retention = rollupRetention.clone();
+        retention[resolution.ordinal()] = requirePositive(millis);
+        return new RetentionPolicy(defaultRawRetentionMillis, rawRetentionByType, retention, compactionIntervalMillis);
+    }
+
+    /**
+     * Returns a copy of this policy with a different time between two background compactions.
+     *
+     * @param millis the compaction interval
+     * @return the modified policy
+     */
+    public RetentionPolicy withCompactionInterval(long millis) {
+        return new RetentionPolicy(defaultRawRetentionMillis, rawRetentionByType, rollupRetention,
+                requirePositive(millis));
+    }
+
+    /**
+     * Returns how long raw samples of a record type are kept.
+     *
+     * @param recordType the record type label
+     * @return the retention in millis
+     */
+    public long getRawRetentionMillis(String recordType) {
+        return rawRetentionMillis(RecordTypes.idOf(recordType));
+    }
+
+    /**
+     * Returns how long buckets of a rollup resolution are kept.
+     *
+     * @param resolution the rollup resolution
+     * @return the retention in millis
+     */
+    public long getRollupRetentionMillis(Resolution resolution) {
+        return rollupRetention[resolution.ordinal()];
+    }
+
+    /**
+     * Returns the time between two background compactions.
+     *
+     * @return the interval in millis
+     */
+    public long getCompactionIntervalMillis() {
+        return compactionIntervalMillis;
+    }
+
+    long rawRetentionMillis(int typeId) {
+        if (typeId < rawRetentionByType.length && rawRetentionByType[typeId] != 0) {
+            return rawRetentionByType[typeId];
+        }
+        return defaultRawRetentionMillis;
+    }
+
+    /**
+     * Returns {@code timestamp - millis}, or {@link Long#MIN_VALUE} if that underflows.
+     */
+    static long before(long timestamp, long millis) {
+        long result = timestamp - millis;
+        return result > timestamp ? Long.MIN_VALUE : result;
+    }
+
+    private static long requirePositive(long millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("Durations must be positive");
+        }
+        return millis;
+    }
+}
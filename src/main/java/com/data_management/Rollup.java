@@ -0,0 +1,113 @@
+package com.data_management;
+
+/**
+ * Summary of one record type's samples over a fixed time bucket, as produced by the compactor
+ * of a {@link DataStorage} with a {@link RetentionPolicy}.
+ */
+public final class Rollup {
+    private final int patientId;
+    private final String recordType;
+    private final long startTime;
+    private final long durationMillis;
+    private final long count;
+    private final double min;
+    private final double max;
+    private final double average;
+
+    /**
+     * Creates a rollup bucket.
+     *
+     * @param patientId      the patient ID
+     * @param recordType     the record type label
+     * @param startTime      the start of the bucket in millis, inclusive
+     * @param durationMillis the length of the bucket
+     * @param count          the number of samples summarized
+     * @param min            the smallest sample value
+     * @param max            the largest sample value
+     * @param average        the mean sample value
+     */
+    public Rollup(int patientId, String recordType, long startTime, long durationMillis, long count,
+                  double min, double max, double average) {
+        this.patientId = patientId;
+        this.recordType = recordType;
+        this.startTime = startTime;
+        this.durationMillis = durationMillis;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.average = average;
+    }
+
+    /**
+     * Returns the patient ID associated with this bucket.
+     *
+     * @return the patient ID
+     */
+    public int getPatientId() {
+        return patientId;
+    }
+
+    /**
+     * Returns the record type summarized by this bucket.
+     *
+     * @return the record type label
+     */
+    public String getRecordType() {
+        return recordType;
+    }
+
+    /**
+     * Returns the start of the bucket.
+     *
+     * @return the start time in millis, inclusive
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Returns the length of the bucket; the bucket ends at {@code getStartTime() + getDurationMillis()},
+     * exclusive.
+     *
+     * @return the bucket length in millis
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Returns the number of samples summarized by this bucket.
+     *
+     * @return the sample count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest sample value in this bucket.
+     *
+     * @return the minimum
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the largest sample value in this bucket.
+     *
+     * @return the maximum
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean sample value in this bucket.
+     *
+     * @return the average
+     */
+    public double getAverage() {
+        return average;
+    }
+}
@@ -0,0 +1,248 @@
+package com.data_management;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The min/max/average rollups of one record type of one patient, one {@link Series} per
+ * {@link RetentionPolicy.Resolution}. One-second buckets are aggregated from the raw samples,
+ * coarser ones from the next finer resolution, so each sample is read once.
+ *
+ * <p>Rollups cover complete buckets only: a bucket is built once the raw series holds a sample
+ * at or after its end, and is never updated afterwards, so samples arriving later than that are
+ * not reflected in it. All writes come from the compactor, one at a time; readers take no lock.
+ */
+final class Rollups {
+    private static final RetentionPolicy.Resolution[] RESOLUTIONS = RetentionPolicy.Resolution.values();
+
+    private final Series[] series = new Series[RESOLUTIONS.length];
+    // Per resolution, the start of the first bucket not built yet; everything before it is rolled up
+    private final long[] watermarks = new long[RESOLUTIONS.length];
+
+    Rollups() {
+        for (int level = 0; level < RESOLUTIONS.length; level++) {
+            series[level] = new Series(RESOLUTIONS[level].millis());
+            watermarks[level] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Builds every bucket completed since the last call, reading the raw samples without a lock.
+     * Sealed samples are read a window at a time, each ending with a block, so only the blocks
+     * overlapping one window are on the heap at once.
+     *
+     * @param raw the raw series to aggregate
+     */
+    void rollUp(TimeSeries raw) {
+        TimeSeries.Snapshot snapshot = raw.snapshot();
+        if (snapshot.size() == 0) {
+            return;
+        }
+        long newest = snapshot.timestampAt(snapshot.size() - 1);
+        long cutoff = bucketStart(newest, RESOLUTIONS[0].millis());
+        if (watermarks[0] < cutoff) {
+            Series seconds = series[0];
+            for (long from = watermarks[0], to; from < cutoff; from = to) {
+                to = snapshot.coldWindowEnd(from, cutoff);
+                TimeSeries.Snapshot range = snapshot.withColdRange(from, to - 1);
+                for (int i = range.lowerBound(from), end = range.lowerBound(to); i < end; i++) {
+                    double value = range.valueAt(i);
+                    seconds.add(bucketStart(range.timestampAt(i), seconds.durationMillis), value, value, value, 1);
+                }
+            }
+            seconds.publish();
+            watermarks[0] = cutoff;
+        }
+        for (int level = 1; level < RESOLUTIONS.length; level++) {
+            cutoff = bucketStart(newest, RESOLUTIONS[level].millis());
+            if (watermarks[level] >= cutoff) {
+                continue;
+            }
+            Series source = series[level - 1];
+            Series target = series[level];
+            for (int i = source.lowerBound(watermarks[level]); i < source.to; i++) {
+                if (source.starts[i] >= cutoff) {
+                    break;
+                }
+                target.add(bucketStart(source.starts[i], target.durationMillis), source.mins[i], source.maxes[i],
+                        source.sums[i], source.counts[i]);
+            }
+            target.publish();
+            watermarks[level] = cutoff;
+        }
+    }
+
+    /**
+     * Returns the time before which every raw sample has been rolled up.
+     *
+     * @return the one-second watermark in millis
+     */
+    long rolledUpBefore() {
+        return watermarks[0];
+    }
+
+    /**
+     * Drops buckets that have outlived their retention, measured back from {@code newest}.
+     * A bucket is kept until the next coarser resolution has been built from it.
+     *
+     * @param policy the retention policy
+     * @param newest the newest raw sample time in millis
+     */
+    void dropExpired(RetentionPolicy policy, long newest) {
+        for (int level = 0; level < RESOLUTIONS.length; level++) {
+            long cutoff = RetentionPolicy.before(newest, policy.getRollupRetentionMillis(RESOLUTIONS[level]));
+            if (level + 1 < RESOLUTIONS.length) {
+                cutoff = Math.min(cutoff, watermarks[level + 1]);
+            }
+            series[level].dropBefore(cutoff);
+        }
+    }
+
+    /**
+     * Returns the buckets overlapping {@code [startTime, endTime]} at the finest resolution that
+     * has at most {@code maxBuckets} buckets in that span and still holds data from its start.
+     * Falls back to one-hour buckets if no resolution qualifies.
+     *
+     * @return the buckets in time order
+     */
+    List<Rollup> get(int patientId, String recordType, long startTime, long endTime, int maxBuckets) {
+        View chosen = null;
+        for (int level = 0; level < RESOLUTIONS.length; level++) {
+            View view = series[level].view;
+            long span = endTime - startTime;
+            boolean fits = span >= 0 && span / view.durationMillis < maxBuckets;
+            boolean covers = view.complete || (view.from < view.to && view.starts[view.from] <= startTime);
+            chosen = view;
+            if (fits && covers) {
+                break;
+            }
+        }
+        List<Rollup> rollups = new ArrayList<>();
+        for (int i = chosen.lowerBound(RetentionPolicy.before(startTime, chosen.durationMillis - 1));
+             i < chosen.to && chosen.starts[i] <= endTime; i++) {
+            rollups.add(new Rollup(patientId, recordType, chosen.starts[i], chosen.durationMillis, chosen.counts[i],
+                    chosen.mins[i], chosen.maxes[i], chosen.sums[i] / chosen.counts[i]));
+        }
+        return rollups;
+    }
+
+    private static long bucketStart(long timestamp, long durationMillis) {
+        return Math.floorDiv(timestamp, durationMillis) * durationMillis;
+    }
+
+    /**
+     * Published state of a {@link Series}: the arrays and the range of valid buckets in them.
+     * Slots inside the range are never modified; the writer appends past it and publishes a
+     * new view, and drops buckets by publishing a view with a later start.
+     */
+    static class View {
+        final long durationMillis;
+        long[] starts;
+        double[] mins;
+        double[] maxes;
+        double[] sums;
+        long[] counts;
+        int from;
+        int to;
+        // Nothing has been dropped yet, so the buckets cover all data ever rolled up
+        boolean complete;
+
+        View(long durationMillis, long[] starts, double[] mins, double[] maxes, double[] sums, long[] counts,
+             int from, int to, boolean complete) {
+            this.durationMillis = durationMillis;
+            this.starts = starts;
+            this.mins = mins;
+            this.maxes = maxes;
+            this.sums = sums;
+            this.counts = counts;
+            this.from = from;
+            this.to = to;
+            this.complete = complete;
+        }
+
+        /**
+         * Returns the absolute index of the first bucket starting at or after {@code timestamp}.
+         */
+        int lowerBound(long timestamp) {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Buckets of one resolution in time order. The fields inherited from {@link View} are the
+     * writer's working state; readers use the published {@link #view}.
+     */
+    static final class Series extends View {
+        volatile View view;
+
+        Series(long durationMillis) {
+            super(durationMillis, new long[16], new double[16], new double[16], new double[16], new long[16], 0, 0, true);
+            publish();
+        }
+
+        /**
+         * Folds an aggregate into the bucket starting at {@code bucketStart}, which must not be
+         * earlier than the last bucket. Invisible to readers until {@link #publish()}.
+         */
+        void add(long bucketStart, double min, double max, double sum, long count) {
+            // Only the bucket being built can match: published ones all precede the watermark
+            int last = to - 1;
+            if (last >= from && starts[last] == bucketStart) {
+                mins[last] = Math.min(mins[last], min);
+                maxes[last] = Math.max(maxes[last], max);
+                sums[last] += sum;
+                counts[last] += count;
+                return;
+            }
+            if (to == starts.length) {
+                // New arrays, never an in-place shift, so published views stay intact
+                int live = to - from;
+                // Room to grow by half; with old buckets being dropped this is a compaction
+                int capacity = live + live / 2 + 16;
+                starts = Arrays.copyOfRange(starts, from, from + capacity);
+                mins = Arrays.copyOfRange(mins, from, from + capacity);
+                maxes = Arrays.copyOfRange(maxes, from, from + capacity);
+                sums = Arrays.copyOfRange(sums, from, from + capacity);
+                counts = Arrays.copyOfRange(counts, from, from + capacity);
+                from = 0;
+                to = live;
+            }
+            starts[to] = bucketStart;
+            mins[to] = min;
+            maxes[to] = max;
+            sums[to] = sum;
+            counts[to] = count;
+            to++;
+        }
+
+        /**
+         * Drops the buckets that end at or before {@code cutoff}.
+         */
+        void dropBefore(long cutoff) {
+            int first = from;
+            while (first < to && starts[first] <= RetentionPolicy.before(cutoff, durationMillis)) {
+                first++;
+            }
+            if (first != from) {
+                from = first;
+                complete = false;
+                publish();
+            }
+        }
+
+        void publish() {
+            view = new View(durationMillis, starts, mins, maxes, sums, counts, from, to, complete);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.data_management;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import com.common.RecordParser;
+import com.common.ThreadMode;
+
+/**
+ * TcpDataReader connects to a TcpOutputStrategy, reads its line-delimited stream
+ * ({@code patientId,timestamp,label,data}) and stores the records in the system's DataStorage.
+ *
+ * <p>Bytes are read into one reusable buffer and parsed in place, so well-formed lines with
+ * known labels are stored without allocating a String per line. Records parsed from one read
+ * are handed to storage as one batch. If the connection drops, the reader reconnects after a delay
+ * and carries on with the live stream; the incomplete line at the point of the drop is discarded.
+ */
+public class TcpDataReader implements DataReader, AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InetSocketAddress address;
+    private final long reconnectDelayMillis;
+    private final RecordParser parser = new RecordParser(RecordParser.Layout.STREAM);
+    private final AsciiSequence line = new AsciiSequence();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    // Records parsed from the current read, stored together once the read is processed
+    private final RecordBatch pending = new RecordBatch(BUFFER_SIZE / 32);
+    private DataStorage dataStorage;
+    private volatile SocketChannel channel;
+    private volatile boolean closed;
+
+    /**
+     * Creates a reader for the given server; reconnects wait 3 seconds.
+     *
+     * @param host the host running the TcpOutputStrategy
+     * @param port the port it listens on
+     */
+    public TcpDataReader(String host, int port) {
+        this(host, port, 3000);
+    }
+
+    /**
+     * Creates a reader for the given server.
+     *
+     * @param host                 the host running the TcpOutputStrategy
+     * @param port                 the port it listens on
+     * @param reconnectDelayMillis how long to wait before reconnecting after the connection drops
+     */
+    public TcpDataReader(String host, int port, long reconnectDelayMillis) {
+        this.address = new InetSocketAddress(host, port);
+        this.reconnectDelayMillis = reconnectDelayMillis;
+    }
+
+    /**
+     * Connects to the server and starts storing records on a background thread of the default
+     * {@link ThreadMode}.
+     *
+     * @param dataStorage The storage system to store parsed patient data
+     * @throws IOException If the first connection attempt fails
+     */
+    @Override
+    public void readData(DataStorage dataStorage) throws IOException {
+        this.dataStorage = dataStorage;
+        this.channel = SocketChannel.open(address);
+        System.out.println("Connected to TCP server " + address);
+        Thread thread = ThreadMode.getDefault().newThread("tcp-data-reader", this::readLoop);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the number of lines dropped because they could not be parsed.
+     *
+     * @return the malformed line count
+     */
+    public long getMalformedLineCount() {
+        return parser.getMalformedCount();
+    }
+
+    /**
+     * Stops reading and closes the connection.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            SocketChannel current = channel;
+            if (current != null) {
+                current.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing TCP connection: " + e.getMessage());
+        }
+    }
+
+    private void readLoop() {
+        while (!closed) {
+            try {
+                SocketChannel current = channel;
+                while (current.read(buffer) >= 0) {
+                    processLines();
+                }
+                System.out.println("TCP connection closed by server.");
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("TCP read error: " + e.getMessage());
+                }
+            }
+            reconnect();
+        }
+    }
+
+    /**
+     * Parses every complete line in the buffer and keeps the trailing partial line for the next read.
+     */
+    private void processLines() {
+        byte[] bytes = buffer.array();
+        int end = buffer.position();
+        int start = 0;
+        for (int i = 0; i < end; i++) {
+            if (bytes[i] == '\n') {
+                parser.parse(line.wrap(buffer, start, i - start), pending);
+                start = i + 1;
+            }
+        }
+        storePending();
+        if (start == 0 && end == bytes.length) {
+            // A single line longer than the buffer; it cannot be a valid record
+            System.err.println("Discarding oversized TCP line");
+            buffer.clear();
+            return;
+        }
+        buffer.position(start);
+        buffer.limit(end);
+        buffer.compact();
+    }
+
+    private void storePending() {
+        dataStorage.addPatientDataBatch(pending);
+        pending.clear();
+    }
+
+    private void reconnect() {
+        buffer.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing TCP connection: " + e.getMessage());
+        }
+        while (!closed) {
+            try {
+                Thread.sleep(reconnectDelayMillis);
+                if (closed) {
+                    return;
+                }
+                System.out.println("Attempting to reconnect...");
+                channel = SocketChannel.open(address);
+                if (closed) {
+                    // close() may have run before the new channel was published
+                    channel.close();
+                    return;
+                }
+                System.out.println("Reconnected to TCP server " + address);
+                return;
+            } catch (IOException e) {
+                System.err.println("Reconnect failed: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closed = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,620 @@
+package com.data_management;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Columnar storage for the samples of one record type of one patient.
+ * Timestamps and values are kept in parallel primitive arrays split into fixed-size chunks,
+ * so a sample costs 16 bytes instead of a full {@link PatientRecord} object.
+ * The first chunk starts small and grows until it reaches {@link #CHUNK_SIZE}, which keeps
+ * rarely-sampled types (e.g. blood levels) cheap.
+ *
+ * <p>Samples are kept in timestamp order so range lookups are binary searches. In-order samples
+ * are appended in place; a late sample is inserted at its position by copying the chunks it
+ * shifts, so views handed out earlier keep seeing the data they were created over.
+ *
+ * <p>The series has a single writer and any number of readers. Writers must be serialized by
+ * the caller. Readers take no lock: an append writes past the published size and then
+ * publishes the new size, and the chunk arrays are only ever replaced, never modified below the
+ * published size. A late insert is the one change that moves existing samples, so it is wrapped
+ * in a version counter that {@link #snapshot()} checks, in the manner of a seqlock.
+ *
+ * <p>With a {@link ColdStorage} the oldest full chunks can be sealed to disk, see
+ * {@link #sealExpired}. The sealed blocks are published together with the chunks, so a
+ * snapshot sees every sample exactly once, on the heap or in a block.
+ */
+final class TimeSeries {
+
+    static final int CHUNK_SHIFT = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final ColdStorage.Block[] NO_BLOCKS = new ColdStorage.Block[0];
+
+    private volatile Chunks chunks = new Chunks(new long[1][], new double[1][], NO_BLOCKS);
+    private volatile int size;
+    // Odd while a late insert is replacing the chunks
+    private volatile int version;
+
+    /**
+     * Adds a sample, keeping the series in timestamp order.
+     * Samples with equal timestamps keep their insertion order.
+     *
+     * @param timestamp the sample time in millis
+     * @param value     the measured value
+     */
+    void add(long timestamp, double value) {
+        int n = size;
+        if (n == 0 || timestamp >= chunks.timestampAt(n - 1)) {
+            append(n, timestamp, value);
+        } else {
+            insert(n, snapshot().upperBound(timestamp), timestamp, value);
+        }
+    }
+
+    /**
+     * Adds a sample unless one with the same timestamp is already stored.
+     * A sample newer than the last one is unique by construction, so the usual in-order case
+     * costs a single comparison; late samples fall back to a binary search, and samples no newer
+     * than the newest sealed sample to reading the sealed blocks that cover them.
+     *
+     * @param timestamp the sample time in millis
+     * @param value     the measured value
+     * @return true if the sample was added, false if it was a duplicate
+     */
+    boolean addIfAbsent(long timestamp, double value) {
+        int n = size;
+        if (n == 0 || timestamp > chunks.timestampAt(n - 1)) {
+            append(n, timestamp, value);
+            return true;
+        }
+        Snapshot current = snapshot();
+        int index = current.lowerBound(timestamp);
+        if (index < n && current.timestampAt(index) == timestamp) {
+            return false;
+        }
+        // A late sample lands on the heap, so sealed data may cover timestamps past the first heap sample
+        if (timestamp <= current.newestSealedTimestamp() && current.isSealed(timestamp)) {
+            return false;
+        }
+        insert(n, index, timestamp, value);
+        return true;
+    }
+
+    /**
+     * Moves the oldest chunks to cold storage while they lie entirely more than
+     * {@code hotWindowMillis} before the newest sample. Only full chunks are sealed and the
+     * newest chunk always stays on the heap, so the check costs one comparison per call until a
+     * chunk expires. Readers see the samples either in the chunks or in the new block, never
+     * both or neither.
+     *
+     * @param store           the storage to seal into
+     * @param hotWindowMillis how far back from the newest sample data stays on the heap
+     * @return the number of samples sealed
+     * @throws UncheckedIOException if a block cannot be written
+     */
+    int sealExpired(ColdStorage store, long hotWindowMillis) {
+        int n = size;
+        int sealed = 0;
+        while (n > CHUNK_SIZE) {
+            Chunks current = chunks;
+            if (current.timestampAt(n - 1) - current.timestampAt(CHUNK_SIZE - 1) <= hotWindowMillis) {
+                break;
+            }
+            ColdStorage.Block block;
+            try {
+                block = store.write(current.timestamps[0], current.values[0], CHUNK_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            ColdStorage.Block[] cold = Arrays.copyOf(current.cold, current.cold.length + 1);
+            cold[current.cold.length] = block;
+            version++;
+            try {
+                chunks = current.dropFirst(1, cold);
+                size = n - CHUNK_SIZE;
+            } finally {
+                version++;
+            }
+            n -= CHUNK_SIZE;
+            sealed += CHUNK_SIZE;
+        }
+        return sealed;
+    }
+
+    /**
+     * Discards the samples older than {@code cutoff}, on the heap a full chunk at a time and on
+     * disk a sealed block at a time, so a few older samples may remain. The newest chunk is always
+     * kept. Dropped blocks are released to their {@link ColdStorage}, which deletes a segment
+     * file once none of its blocks are referenced.
+     *
+     * @param cutoff the time before which samples may be discarded
+     * @return the number of samples discarded
+     */
+    int dropBefore(long cutoff) {
+        int n = size;
+        Chunks current = chunks;
+        int dropChunks = 0;
+        while (n - dropChunks * CHUNK_SIZE > CHUNK_SIZE
+                && current.timestampAt((dropChunks + 1) * CHUNK_SIZE - 1) < cutoff) {
+            dropChunks++;
+        }
+        int dropped = dropChunks * CHUNK_SIZE;
+        int keptBlocks = 0;
+        ColdStorage.Block[] cold = new ColdStorage.Block[current.cold.length];
+        for (ColdStorage.Block block : current.cold) {
+            if (block.maxTimestamp < cutoff) {
+                dropped += block.count;
+            } else {
+                cold[keptBlocks++] = block;
+            }
+        }
+        if (dropped == 0) {
+            return 0;
+        }
+        version++;
+        try {
+            chunks = current.dropFirst(dropChunks, Arrays.copyOf(cold, keptBlocks));
+            size = n - dropChunks * CHUNK_SIZE;
+        } finally {
+            version++;
+        }
+        for (ColdStorage.Block block : current.cold) {
+            if (block.maxTimestamp < cutoff) {
+                block.release();
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Returns the number of samples stored.
+     *
+     * @return the sample count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns a consistent, immutable view of the series as of now, without locking.
+     *
+     * @return the current snapshot
+     */
+    Snapshot snapshot() {
+        while (true) {
+            int before = version;
+            if ((before & 1) == 0) {
+                // Size first: any chunks published before it hold at least that many samples
+                int n = size;
+                Chunks current = chunks;
+                if (version == before) {
+                    return new Snapshot(current, n);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void append(int n, long timestamp, double value) {
+        int chunk = n >>> CHUNK_SHIFT;
+        int offset = n & CHUNK_MASK;
+        Chunks current = chunks;
+        if (current.needsGrowth(chunk, offset)) {
+            current = current.grow(chunk, offset);
+            chunks = current;
+        }
+        current.timestamps[chunk][offset] = timestamp;
+        current.values[chunk][offset] = value;
+        size = n + 1;
+    }
+
+    private void insert(int n, int index, long timestamp, double value) {
+        version++;
+        try {
+            Chunks copy = chunks.copyForInsert(index, n);
+            for (int i = n; i > index; i--) {
+                copy.set(i, copy.timestampAt(i - 1), copy.valueAt(i - 1));
+            }
+            copy.set(index, timestamp, value);
+            chunks = copy;
+            size = n + 1;
+        } finally {
+            version++;
+        }
+    }
+
+    /**
+     * Chunk arrays published together. Slots are never replaced once published; growth and
+     * late inserts build a new instance instead.
+     */
+    private static final class Chunks {
+        final long[][] timestamps;
+        final double[][] values;
+        // Samples sealed out of this series, oldest first
+        final ColdStorage.Block[] cold;
+
+        Chunks(long[][] timestamps, double[][] values, ColdStorage.Block[] cold) {
+            this.timestamps = timestamps;
+            this.values = values;
+            this.cold = cold;
+        }
+
+        /**
+         * Builds chunks holding {@code timestamps[0, n)} and {@code values[0, n)}.
+         */
+        static Chunks of(long[] timestamps, double[] values, int n) {
+            int count = Math.max(1, (n + CHUNK_MASK) >>> CHUNK_SHIFT);
+            long[][] timestampChunks = new long[count][];
+            double[][] valueChunks = new double[count][];
+            for (int chunk = 0; chunk < count; chunk++) {
+                int from = chunk << CHUNK_SHIFT;
+                int to = Math.min(n, from + CHUNK_SIZE);
+                timestampChunks[chunk] = Arrays.copyOfRange(timestamps, from, to);
+                valueChunks[chunk] = Arrays.copyOfRange(values, from, to);
+            }
+            return new Chunks(timestampChunks, valueChunks, NO_BLOCKS);
+        }
+
+        long timestampAt(int index) {
+            return timestamps[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        double valueAt(int index) {
+            return values[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        void set(int index, long timestamp, double value) {
+            timestamps[index >>> CHUNK_SHIFT][index & CHUNK_MASK] = timestamp;
+            values[index >>> CHUNK_SHIFT][index & CHUNK_MASK] = value;
+        }
+
+        boolean needsGrowth(int chunk, int offset) {
+            return chunk == timestamps.length || timestamps[chunk] == null || offset == timestamps[chunk].length;
+        }
+
+        /**
+         * Returns chunks with room for a sample at {@code (chunk, offset)}.
+         */
+        Chunks grow(int chunk, int offset) {
+            int length = chunk == timestamps.length ? chunk * 2 : timestamps.length;
+            long[][] newTimestamps = Arrays.copyOf(timestamps, length);
+            double[][] newValues = Arrays.copyOf(values, length);
+            long[] existing = newTimestamps[chunk];
+            if (existing == null) {
+                // Only the first chunk starts below full size; later chunks are allocated whole
+                int capacity = chunk == 0 ? INITIAL_CAPACITY : CHUNK_SIZE;
+                newTimestamps[chunk] = new long[capacity];
+                newValues[chunk] = new double[capacity];
+            } else if (offset == existing.length) {
+                int capacity = Math.min(existing.length * 2, CHUNK_SIZE);
+                newTimestamps[chunk] = Arrays.copyOf(existing, capacity);
+                newValues[chunk] = Arrays.copyOf(newValues[chunk], capacity);
+            }
+            return new Chunks(newTimestamps, newValues, cold);
+        }
+
+        /**
+         * Returns chunks without the first {@code count} chunks and with the given sealed blocks.
+         */
+        Chunks dropFirst(int count, ColdStorage.Block[] sealed) {
+            return new Chunks(Arrays.copyOfRange(timestamps, count, timestamps.length),
+                    Arrays.copyOfRange(values, count, values.length), sealed);
+        }
+
+        /**
+         * Returns chunks with room for one more sample in which every chunk from {@code index}
+         * to the end is a private copy that can be shifted without affecting readers.
+         */
+        Chunks copyForInsert(int index, int n) {
+            int lastChunk = n >>> CHUNK_SHIFT;
+            Chunks grown = needsGrowth(lastChunk, n & CHUNK_MASK) ? grow(lastChunk, n & CHUNK_MASK)
+                    : new Chunks(timestamps.clone(), values.clone(), cold);
+            for (int chunk = index >>> CHUNK_SHIFT; chunk <= lastChunk; chunk++) {
+                if (chunk < timestamps.length && grown.timestamps[chunk] == timestamps[chunk]) {
+                    grown.timestamps[chunk] = timestamps[chunk].clone();
+                    grown.values[chunk] = values[chunk].clone();
+                }
+            }
+            return grown;
+        }
+    }
+
+    /**
+     * Immutable view of the series at one point in time.
+     */
+    static final class Snapshot {
+        private final Chunks chunks;
+        private final int size;
+
+        private Snapshot(Chunks chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        /**
+         * Returns the number of samples in this snapshot.
+         *
+         * @return the sample count
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the timestamp of the sample at the given index.
+         *
+         * @param index sample index, {@code 0 <= index < size()}
+         * @return the timestamp in millis
+         */
+        long timestampAt(int index) {
+            return chunks.timestampAt(index);
+        }
+
+        /**
+         * Returns the value of the sample at the given index.
+         *
+         * @param index sample index, {@code 0 <= index < size()}
+         * @return the measured value
+         */
+        double valueAt(int index) {
+            return chunks.valueAt(index);
+        }
+
+        /**
+         * Returns the index of the first sample whose timestamp is at least {@code timestamp}.
+         *
+         * @param timestamp the lower bound in millis
+         * @return an index in {@code 0..size()}
+         */
+        int lowerBound(long timestamp) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (chunks.timestampAt(mid) < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the index of the first sample whose timestamp is greater than {@code timestamp}.
+         *
+         * @param timestamp the upper bound in millis
+         * @return an index in {@code 0..size()}
+         */
+        int upperBound(long timestamp) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (chunks.timestampAt(mid) <= timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns a snapshot of the samples in {@code [start, end]} that also holds the sealed
+         * ones, read from cold storage and merged into timestamp order. Returns this snapshot if
+         * no sealed block overlaps the range.
+         *
+         * @param start the start of the range in millis, inclusive
+         * @param end   the end of the range in millis, inclusive
+         * @return a snapshot whose samples are all on the heap
+         * @throws UncheckedIOException if a block cannot be read
+         */
+        Snapshot withColdRange(long start, long end) {
+            ColdStorage.Block[] blocks = chunks.cold;
+            int coldCount = 0;
+            for (ColdStorage.Block block : blocks) {
+                if (block.overlaps(start, end)) {
+                    coldCount += block.count;
+                }
+            }
+            if (coldCount == 0) {
+                return this;
+            }
+            long[] coldTimestamps = new long[coldCount];
+            double[] coldValues = new double[coldCount];
+            int n = 0;
+            try {
+                for (ColdStorage.Block block : blocks) {
+                    if (!block.overlaps(start, end)) {
+                        continue;
+                    }
+                    if (n == 0 || block.minTimestamp >= coldTimestamps[n - 1]) {
+                        block.read(coldTimestamps, coldValues, n);
+                    } else {
+                        // Late samples sealed after newer ones: merge the block into place
+                        long[] blockTimestamps = new long[block.count];
+                        double[] blockValues = new double[block.count];
+                        block.read(blockTimestamps, blockValues, 0);
+                        long[] mergedTimestamps = new long[coldCount];
+                        double[] mergedValues = new double[coldCount];
+                        merge(coldTimestamps, coldValues, 0, n, blockTimestamps, blockValues, 0, block.count,
+                                mergedTimestamps, mergedValues);
+                        coldTimestamps = mergedTimestamps;
+                        coldValues = mergedValues;
+                    }
+                    n += block.count;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Snapshot cold = new Snapshot(Chunks.of(coldTimestamps, coldValues, n), n);
+            int coldFrom = cold.lowerBound(start);
+            int coldTo = cold.upperBound(end);
+            int hotFrom = lowerBound(start);
+            int hotTo = upperBound(end);
+            long[] hotTimestamps = new long[hotTo - hotFrom];
+            double[] hotValues = new double[hotTo - hotFrom];
+            for (int i = hotFrom; i < hotTo; i++) {
+                hotTimestamps[i - hotFrom] = chunks.timestampAt(i);
+                hotValues[i - hotFrom] = chunks.valueAt(i);
+            }
+            int total = coldTo - coldFrom + hotTimestamps.length;
+            long[] timestamps = new long[total];
+            double[] values = new double[total];
+            merge(coldTimestamps, coldValues, coldFrom, coldTo, hotTimestamps, hotValues, 0, hotTimestamps.length,
+                    timestamps, values);
+            return new Snapshot(Chunks.of(timestamps, values, total), total);
+        }
+
+        /**
+         * Returns where a scan from {@code start} should stop so that it reads one sealed block:
+         * just after the first block still holding samples at or after {@code start} ends, or
+         * {@code limit} if that comes first.
+         *
+         * @param start the start of the window in millis
+         * @param limit the exclusive end of the whole scan in millis
+         * @return the exclusive end of the window, greater than {@code start} when {@code start < limit}
+         */
+        long coldWindowEnd(long start, long limit) {
+            long end = limit;
+            for (ColdStorage.Block block : chunks.cold) {
+                if (block.maxTimestamp >= start && block.maxTimestamp < end) {
+                    end = block.maxTimestamp + 1;
+                }
+            }
+            return end;
+        }
+
+        /**
+         * Returns the newest timestamp held by any sealed block, or {@link Long#MIN_VALUE} if
+         * nothing is sealed. Blocks sealed after a late insert may overlap older ones, so every
+         * block is checked.
+         */
+        long newestSealedTimestamp() {
+            long newest = Long.MIN_VALUE;
+            for (ColdStorage.Block block : chunks.cold) {
+                newest = Math.max(newest, block.maxTimestamp);
+            }
+            return newest;
+        }
+
+        /**
+         * Tells whether a sealed block holds a sample at exactly {@code timestamp}.
+         *
+         * @throws UncheckedIOException if a block cannot be read
+         */
+        boolean isSealed(long timestamp) {
+            for (ColdStorage.Block block : chunks.cold) {
+                if (!block.overlaps(timestamp, timestamp)) {
+                    continue;
+                }
+                long[] timestamps = new long[block.count];
+                try {
+                    block.read(timestamps, new double[block.count], 0);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (Arrays.binarySearch(timestamps, timestamp) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns a read-only view of the samples in {@code [from, to)} as PatientRecords.
+         * Records are materialized on each {@code get}.
+         *
+         * @param from       first index, inclusive
+         * @param to         last index, exclusive
+         * @param patientId  the patient the samples belong to
+         * @param recordType the record type label of this series
+         * @return an unmodifiable random-access list
+         */
+        List<PatientRecord> view(int from, int to, int patientId, String recordType) {
+            if (from >= to) {
+                return List.of();
+            }
+            int firstChunk = from >>> CHUNK_SHIFT;
+            int lastChunk = (to - 1) >>> CHUNK_SHIFT;
+            long[][] timestamps = Arrays.copyOfRange(chunks.timestamps, firstChunk, lastChunk + 1);
+            double[][] values = Arrays.copyOfRange(chunks.values, firstChunk, lastChunk + 1);
+            int base = firstChunk << CHUNK_SHIFT;
+            return new RecordView(timestamps, values, from - base, to - base, patientId, recordType);
+        }
+    }
+
+    /**
+     * Merges two sorted runs into {@code timestamps} and {@code values} from index 0; on equal
+     * timestamps the first run goes first.
+     */
+    private static void merge(long[] firstTimestamps, double[] firstValues, int firstFrom, int firstTo,
+                              long[] secondTimestamps, double[] secondValues, int secondFrom, int secondTo,
+                              long[] timestamps, double[] values) {
+        int i = firstFrom;
+        int j = secondFrom;
+        int out = 0;
+        while (i < firstTo || j < secondTo) {
+            if (j == secondTo || (i < firstTo && firstTimestamps[i] <= secondTimestamps[j])) {
+                timestamps[out] = firstTimestamps[i];
+                values[out++] = firstValues[i++];
+            } else {
+                timestamps[out] = secondTimestamps[j];
+                values[out++] = secondValues[j++];
+            }
+        }
+    }
+
+    /**
+     * Zero-copy list over a captured range of chunks.
+     */
+    private static final class RecordView extends AbstractList<PatientRecord> implements RandomAccess {
+        private final long[][] timestampChunks;
+        private final double[][] valueChunks;
+        private final int from;
+        private final int to;
+        private final int patientId;
+        private final String recordType;
+
+        RecordView(long[][] timestampChunks, double[][] valueChunks, int from, int to,
+                   int patientId, String recordType) {
+            this.timestampChunks = timestampChunks;
+            this.valueChunks = valueChunks;
+            this.from = from;
+            this.to = to;
+            this.patientId = patientId;
+            this.recordType = recordType;
+        }
+
+        @Override
+        public PatientRecord get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            int i = from + index;
+            return new PatientRecord(patientId, valueChunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK],
+                    recordType, timestampChunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public List<PatientRecord> subList(int fromIndex, int toIndex) {
+            if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex);
+            }
+            return new RecordView(timestampChunks, valueChunks, from + fromIndex, from + toIndex,
+                    patientId, recordType);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.data_management;
+
+import java.util.Arrays;
+
+/**
+ * Compresses a run of samples in the style of Facebook's Gorilla time-series store.
+ *
+ * <p>A block is a bit stream, most significant bit first:
+ * <pre>
+ * block  := count:32  timestamp:64  value:64  sample*
+ * sample := timestampDeltaOfDelta  valueXor
+ * </pre>
+ * A timestamp is stored as the change in the gap to its predecessor: {@code 0} when the gap is
+ * unchanged, else {@code 10}, {@code 110} or {@code 1110} followed by a 7, 9 or 12 bit
+ * offset value, or {@code 1111} followed by the full 64 bits. A value is stored as the XOR of its
+ * bits with its predecessor's: {@code 0} when equal, {@code 10} followed by the meaningful bits
+ * when they fit the previous value's window of leading and trailing zeros, or {@code 11}, the
+ * 5-bit leading zero count, the 6-bit meaningful bit count minus one, and the meaningful bits.
+ * Regularly sampled series with slowly changing values shrink to a few bits per sample.
+ */
+final class TimeSeriesCodec {
+
+    private TimeSeriesCodec() {}
+
+    /**
+     * Encodes samples into a block.
+     *
+     * @param timestamps sample times, in the order they are to be decoded
+     * @param values     measured values, parallel to {@code timestamps}
+     * @param count      number of samples to encode, at least 1
+     * @return the encoded block
+     */
+    static byte[] encode(long[] timestamps, double[] values, int count) {
+        BitWriter out = new BitWriter(count * 4 + 24);
+        out.write(count, 32);
+        out.write(timestamps[0], 64);
+        long previousBits = Double.doubleToRawLongBits(values[0]);
+        out.write(previousBits, 64);
+        long previousTimestamp = timestamps[0];
+        long previousDelta = 0;
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = timestamps[i] - previousTimestamp;
+            long deltaOfDelta = delta - previousDelta;
+            if (deltaOfDelta == 0) {
+                out.write(0, 1);
+            } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+                out.write(0b10, 2);
+                out.write(deltaOfDelta + 63, 7);
+            } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+                out.write(0b110, 3);
+                out.write(deltaOfDelta + 255, 9);
+            } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+                out.write(0b1110, 4);
+                out.write(deltaOfDelta + 2047, 12);
+            } else {
+                out.write(0b1111, 4);
+                out.write(deltaOfDelta, 64);
+            }
+            previousTimestamp = timestamps[i];
+            previousDelta = delta;
+
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previousBits;
+            if (xor == 0) {
+                out.write(0, 1);
+            } else {
+                // The leading zero count has 5 bits
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                    out.write(0b10, 2);
+                    out.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                } else {
+                    int meaningful = 64 - leading - trailing;
+                    out.write(0b11, 2);
+                    out.write(leading, 5);
+                    out.write(meaningful - 1, 6);
+                    out.write(xor >>> trailing, meaningful);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previousBits = bits;
+        }
+        return out.finish();
+    }
+
+    /**
+     * Decodes a block.
+     *
+     * @param block      an encoded block
+     * @param timestamps receives the sample times from index {@code at}
+     * @param values     receives the measured values from index {@code at}
+     * @param at         index of the first decoded sample in the output arrays
+     */
+    static void decode(byte[] block, long[] timestamps, double[] values, int at) {
+        BitReader in = new BitReader(block);
+        int count = (int) in.read(32);
+        long timestamp = in.read(64);
+        long bits = in.read(64);
+        timestamps[at] = timestamp;
+        values[at] = Double.longBitsToDouble(bits);
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            long deltaOfDelta;
+            if (in.readBit() == 0) {
+                deltaOfDelta = 0;
+            } else if (in.readBit() == 0) {
+                deltaOfDelta = in.read(7) - 63;
+            } else if (in.readBit() == 0) {
+                deltaOfDelta = in.read(9) - 255;
+            } else if (in.readBit() == 0) {
+                deltaOfDelta = in.read(12) - 2047;
+            } else {
+                deltaOfDelta = in.read(64);
+            }
+            delta += deltaOfDelta;
+            timestamp += delta;
+
+            if (in.readBit() == 1) {
+                if (in.readBit() == 1) {
+                    leading = (int) in.read(5);
+                    int meaningful = (int) in.read(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                bits ^= in.read(64 - leading - trailing) << trailing;
+            }
+            timestamps[at + i] = timestamp;
+            values[at + i] = Double.longBitsToDouble(bits);
+        }
+    }
+
+    /**
+     * Appends bits to a growable byte array, most significant bit first.
+     */
+    private static final class BitWriter {
+        private byte[] bytes;
+        private int length;
+        private long pending;
+        private int pendingBits;
+
+        BitWriter(int initialCapacity) {
+            bytes = new byte[Math.max(initialCapacity, 8)];
+        }
+
+        /**
+         * Writes the low {@code bitCount} bits of {@code value}.
+         */
+        void write(long value, int bitCount) {
+            if (bitCount < 64) {
+                value &= (1L << bitCount) - 1;
+            }
+            int free = 64 - pendingBits;
+            if (bitCount <= free) {
+                pending |= value << (free - bitCount);
+                pendingBits += bitCount;
+                if (pendingBits == 64) {
+                    flushWord();
+                }
+            } else {
+                int overflow = bitCount - free;
+                pending |= value >>> overflow;
+                pendingBits = 64;
+                flushWord();
+                pending = value << (64 - overflow);
+                pendingBits = overflow;
+            }
+        }
+
+        byte[] finish() {
+            int remaining = (pendingBits + 7) >>> 3;
+            ensureCapacity(remaining);
+            for (int i = 0; i < remaining; i++) {
+                bytes[length++] = (byte) (pending >>> (56 - 8 * i));
+            }
+            pending = 0;
+            pendingBits = 0;
+            return Arrays.copyOf(bytes, length);
+        }
+
+        private void flushWord() {
+            ensureCapacity(8);
+            for (int i = 0; i < 8; i++) {
+                bytes[length++] = (byte) (pending >>> (56 - 8 * i));
+            }
+            pending = 0;
+            pendingBits = 0;
+        }
+
+        private void ensureCapacity(int needed) {
+            if (length + needed > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + needed));
+            }
+        }
+    }
+
+    /**
+     * Reads bits written by {@link BitWriter}.
+     */
+    private static final class BitReader {
+        private final byte[] bytes;
+        private long position;
+
+        BitReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readBit() {
+            int bit = (bytes[(int) (position >>> 3)] >>> (7 - (int) (position & 7))) & 1;
+            position++;
+            return bit;
+        }
+
+        long read(int bitCount) {
+            long result = 0;
+            while (bitCount > 0) {
+                int offset = (int) (position & 7);
+                int available = 8 - offset;
+                int take = Math.min(available, bitCount);
+                int chunk = ((bytes[(int) (position >>> 3)] & 0xFF) >>> (available - take)) & ((1 << take) - 1);
+                result = (result << take) | chunk;
+                position += take;
+                bitCount -= take;
+            }
+            return result;
+        }
+    }
+}
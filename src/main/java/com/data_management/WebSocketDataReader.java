@@ -1,18 +1,31 @@
 package com.data_management;
 
+import com.common.BinaryRecordCodec;
+import com.common.RecordParser;
+import com.common.ThreadMode;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * WebSocketDataReader is a real-time data reader that connects to a WebSocket server,
  * receives patient data messages, parses them, and stores them in the system's DataStorage.
  * It implements the DataReader interface and extends WebSocketClient to handle WebSocket communication.
+ * Both text frames and {@link BinaryRecordCodec} binary frames are accepted; append
+ * {@code ?format=binary} to the server URI to ask the server for binary frames.
  */
 public class WebSocketDataReader extends WebSocketClient implements DataReader {
     public DataStorage dataStorage;
+    // Only used from the client's read thread
+    private final RecordParser parser = new RecordParser(RecordParser.Layout.STREAM);
+    private final RecordParser.Handler storeRecord = this::storeRecord;
+    // Records of the current batched message or binary frame
+    private final RecordBatch batch = new RecordBatch(256);
+    private final LongAdder malformedFrames = new LongAdder();
 
     /**
      * Constructs a WebSocketDataReader that connects to the given server URI.
@@ -49,29 +62,74 @@ public class WebSocketDataReader extends WebSocketClient implements DataReader {
 
     /**
      * Called when a message is received from the WebSocket server.
-     * Parses the message and stores it in the DataStorage.
+     * Parses the message in place and stores it in the DataStorage; malformed messages are
+     * counted, see {@link #getMalformedMessageCount()}. A batched message holds one record per line
+     * and is stored as one batch.
      * @param s The incoming message in CSV format
      */
     @Override
     public void onMessage(String s) {
         // Expected format: patientId,timestamp,label,data
         try {
-            String[] parts = s.trim().split(",");
-            if (parts.length != 4) {
-                System.err.println("Invalid message format: " + s);
+            int newline = s.indexOf('\n');
+            if (newline < 0) {
+                parser.parse(s, storeRecord);
                 return;
             }
-            int patientId = Integer.parseInt(parts[0]);
-            long timestamp = Long.parseLong(parts[1]);
-            String label = parts[2];
-            String data = parts[3];
-            double measurementValue = Double.parseDouble(data);
-            dataStorage.addPatientData(patientId, measurementValue, label, timestamp);
+            int start = 0;
+            while (start < s.length()) {
+                parser.parse(s, start, newline, batch);
+                start = newline + 1;
+                newline = s.indexOf('\n', start);
+                if (newline < 0) {
+                    newline = s.length();
+                }
+            }
+            storeBatch();
+        } catch (Exception e) {
+            System.err.println("Error processing message: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Called when a binary frame is received from the WebSocket server.
+     * Decodes the records in the frame and stores them in the DataStorage as one batch; malformed
+     * frames are dropped whole and counted, see {@link #getMalformedMessageCount()}.
+     * @param bytes The incoming frame in {@link BinaryRecordCodec} format
+     */
+    @Override
+    public void onMessage(ByteBuffer bytes) {
+        try {
+            if (BinaryRecordCodec.decode(bytes, batch) < 0) {
+                malformedFrames.increment();
+                return;
+            }
+            storeBatch();
         } catch (Exception e) {
             System.err.println("Error processing message: " + e.getMessage());
         }
     }
 
+    /**
+     * Returns the number of text messages and binary frames dropped because they could not be parsed.
+     * @return the malformed message count
+     */
+    public long getMalformedMessageCount() {
+        return parser.getMalformedCount() + malformedFrames.sum();
+    }
+
+    private void storeRecord(int patientId, long timestamp, String label, double measurementValue) {
+        dataStorage.addPatientData(patientId, measurementValue, label, timestamp);
+    }
+
+    private void storeBatch() {
+        try {
+            dataStorage.addPatientDataBatch(batch);
+        } finally {
+            batch.clear();
+        }
+    }
+
     /**
      * Called when the WebSocket connection is closed.
      * Attempts to reconnect after a short delay.
@@ -83,10 +141,11 @@ public class WebSocketDataReader extends WebSocketClient implements DataReader {
     }
 
     /**
-     * Attempts to reconnect to the WebSocket server after a delay.
+     * Attempts to reconnect to the WebSocket server after a delay, on a thread of the default
+     * {@link ThreadMode}.
      */
     private void attemptReconnect() {
-        new Thread(() -> {
+        ThreadMode.getDefault().newThread("websocket-reconnect", () -> {
             try {
                 Thread.sleep(3000); // Wait 3 seconds before retry
                 System.out.println("Attempting to reconnect...");
@@ -0,0 +1,397 @@
+package com.data_management;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import com.common.BinaryRecordCodec;
+import com.common.RecordParser;
+
+/**
+ * Append-only log of the records ingested by a {@link DataStorage}, so its contents survive a
+ * restart. Attach it with {@link DataStorage#setWriteAheadLog(WriteAheadLog)}; every insert is
+ * then logged before it is stored, and after a restart {@link #recover(Path, DataStorage)}
+ * replays the log into a fresh storage.
+ *
+ * <p>The log is a directory of numbered segment files. A segment is a sequence of entries,
+ * one per insert call:
+ * <pre>
+ * entry := length:int32  crc32:int32  frame
+ * </pre>
+ * where {@code frame} is a {@link BinaryRecordCodec} frame with delta timestamps and the CRC
+ * covers the frame. A new segment is started when the current one reaches the segment size,
+ * and every time a log is opened, so an entry torn by a crash is always at the end of a
+ * segment, where recovery stops reading it.
+ *
+ * <p>Appends use group commit: an insert encodes its entry into a shared buffer and then waits
+ * until the entry is written. The first waiting thread writes, and optionally forces, everything
+ * buffered so far in one go, which completes the inserts that queued up behind it as well.
+ */
+public final class WriteAheadLog implements AutoCloseable {
+    /** Default size at which a segment is sealed and a new one started. */
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final int ENTRY_HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean sync;
+
+    // Guarded by appendLock
+    private final Object appendLock = new Object();
+    private final BinaryRecordCodec.FrameWriter frames =
+            new BinaryRecordCodec.FrameWriter(BinaryRecordCodec.FLAG_DELTA_TIMESTAMPS, 4096);
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private long appended;
+    private boolean closed;
+    private IOException failure;
+
+    // Guarded by flushLock
+    private final Lock flushLock = new ReentrantLock();
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private FileChannel segment;
+    private long segmentNumber;
+    private long segmentSize;
+
+    private volatile long durable;
+
+    /**
+     * Opens a log that forces every group commit to disk, with {@link #DEFAULT_SEGMENT_BYTES}
+     * segments.
+     *
+     * @param directory the directory holding the segments; created if missing
+     * @throws IOException if the directory or the first segment cannot be created
+     */
+    public WriteAheadLog(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, true);
+    }
+
+    /**
+     * Opens a log in the given directory. Existing segments are left untouched; appends go to
+     * a new segment numbered after them.
+     *
+     * @param directory    the directory holding the segments; created if missing
+     * @param segmentBytes the size at which a segment is sealed
+     * @param sync         whether each group commit is forced to the storage device; if false,
+     *                     commits survive a JVM crash but not an operating system crash
+     * @throws IOException if the directory or the first segment cannot be created
+     */
+    public WriteAheadLog(Path directory, long segmentBytes, boolean sync) throws IOException {
+        if (segmentBytes < 1 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between 1 byte and 2 GB");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.sync = sync;
+        Files.createDirectories(directory);
+        List<Path> existing = segments(directory);
+        segmentNumber = existing.isEmpty() ? 0 : numberOf(existing.get(existing.size() - 1));
+        openNextSegment();
+    }
+
+    /**
+     * Logs one record and returns once it is written.
+     *
+     * @param patientId        the patient ID
+     * @param measurementValue the measured value
+     * @param recordType       the record type label
+     * @param timestamp        the timestamp in millis
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public void append(int patientId, double measurementValue, String recordType, long timestamp) {
+        long sequence;
+        synchronized (appendLock) {
+            ensureWritable();
+            frames.add(patientId, timestamp, recordType, measurementValue);
+            sequence = enqueue(frames.finish());
+        }
+        commit(sequence);
+    }
+
+    /**
+     * Logs every record of a batch as one entry and returns once it is written.
+     *
+     * @param batch the records to log; it is not modified
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public void append(RecordBatch batch) {
+        if (batch.size() == 0) {
+            return;
+        }
+        long sequence;
+        synchronized (appendLock) {
+            ensureWritable();
+            for (int i = 0; i < batch.size(); i++) {
+                frames.add(batch.patientIdAt(i), batch.timestampAt(i), batch.recordTypeAt(i), batch.valueAt(i));
+            }
+            sequence = enqueue(frames.finish());
+        }
+        commit(sequence);
+    }
+
+    /**
+     * Writes out anything still buffered and closes the current segment. Further appends fail.
+     *
+     * @throws IOException if the remaining entries cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flushLock.lock();
+        try {
+            if (failure == null) {
+                flush();
+            }
+        } finally {
+            segment.close();
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Replays a log directory into a storage using the common ForkJoinPool.
+     *
+     * @param directory   the log directory
+     * @param dataStorage the storage to restore into
+     * @return the number of records replayed
+     * @throws IOException if a segment cannot be read
+     * @see #recover(Path, DataStorage, ForkJoinPool)
+     */
+    public static long recover(Path directory, DataStorage dataStorage) throws IOException {
+        return recover(directory, dataStorage, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Replays a log directory into a storage. Run it before attaching a log to the storage:
+     * replayed records are neither logged again nor reported to listeners.
+     *
+     * <p>Segments are memory-mapped and decoded in parallel, one segment per task, in waves of
+     * one per worker. Each wave is then stored in parallel with every worker inserting a
+     * disjoint set of patients in log order, as {@link FileDataReader#bulkLoad} does, so records
+     * are appended to storage in the order they were ingested. Decoding of a segment stops at
+     * the first torn or corrupt entry.
+     *
+     * @param directory   the log directory; a missing directory holds no records
+     * @param dataStorage the storage to restore into
+     * @param pool        the pool to decode and store on
+     * @return the number of records replayed
+     * @throws IOException if a segment cannot be read
+     */
+    public static long recover(Path directory, DataStorage dataStorage, ForkJoinPool pool) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        List<Path> segments = segments(directory);
+        int workers = pool.getParallelism();
+        LongAdder replayed = new LongAdder();
+        try {
+            for (int first = 0; first < segments.size(); first += workers) {
+                int last = Math.min(first + workers, segments.size());
+                List<ForkJoinTask<RecordBatch[]>> decoding = new ArrayList<>();
+                for (Path file : segments.subList(first, last)) {
+                    decoding.add(pool.submit(() -> decodeSegment(file, workers, replayed)));
+                }
+                List<RecordBatch[]> batches = new ArrayList<>();
+                for (ForkJoinTask<RecordBatch[]> task : decoding) {
+                    batches.add(task.join());
+                }
+                List<ForkJoinTask<?>> storing = new ArrayList<>();
+                for (int worker = 0; worker < workers; worker++) {
+                    int partition = worker;
+                    storing.add(pool.submit(() -> {
+                        for (RecordBatch[] decoded : batches) {
+                            dataStorage.restoreBatch(decoded[partition]);
+                        }
+                    }));
+                }
+                for (ForkJoinTask<?> task : storing) {
+                    task.join();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return replayed.sum();
+    }
+
+    private void ensureWritable() {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed earlier", failure);
+        }
+    }
+
+    /**
+     * Buffers an entry for the next group commit. Called with appendLock held.
+     *
+     * @return the sequence number that is durable once the entry is written
+     */
+    private long enqueue(ByteBuffer frame) {
+        crc.reset();
+        crc.update(frame.duplicate());
+        int needed = ENTRY_HEADER_BYTES + frame.remaining();
+        if (pending.remaining() < needed) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        pending.putInt(frame.remaining());
+        pending.putInt((int) crc.getValue());
+        pending.put(frame);
+        return ++appended;
+    }
+
+    /**
+     * Waits until the entry with the given sequence number is written, writing it and everything
+     * buffered with it unless another thread already is.
+     */
+    private void commit(long sequence) {
+        while (durable < sequence) {
+            flushLock.lock();
+            try {
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log failed", failure);
+                }
+                if (durable < sequence) {
+                    flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes every buffered entry to the current segment. Called with flushLock held.
+     */
+    private void flush() throws IOException {
+        ByteBuffer batch;
+        long upTo;
+        synchronized (appendLock) {
+            batch = pending;
+            upTo = appended;
+            pending = spare;
+            spare = batch;
+        }
+        batch.flip();
+        try {
+            int bytes = batch.remaining();
+            while (batch.hasRemaining()) {
+                segment.write(batch);
+            }
+            if (sync && bytes > 0) {
+                segment.force(false);
+            }
+            segmentSize += bytes;
+            if (segmentSize >= segmentBytes) {
+                segment.close();
+                openNextSegment();
+            }
+        } catch (IOException e) {
+            synchronized (appendLock) {
+                failure = e;
+            }
+            throw e;
+        } finally {
+            batch.clear();
+        }
+        durable = upTo;
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentNumber++;
+        segment = FileChannel.open(directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, segmentNumber,
+                SEGMENT_SUFFIX)), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentSize = 0;
+    }
+
+    /**
+     * Decodes one segment into one batch per store partition.
+     */
+    private static RecordBatch[] decodeSegment(Path file, int partitions, LongAdder replayed) {
+        RecordBatch[] batches = new RecordBatch[partitions];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (int partition = 0; partition < partitions; partition++) {
+                // Delta-encoded records are about 16 bytes long
+                batches[partition] = new RecordBatch((int) Math.min(size / 16 / partitions, 1 << 24));
+            }
+            if (size == 0) {
+                return batches;
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            RecordParser.Handler route = (patientId, timestamp, recordType, value) ->
+                    batches[Math.floorMod(patientId, partitions)].add(patientId, timestamp, recordType, value);
+            CRC32 crc = new CRC32();
+            while (bytes.remaining() >= ENTRY_HEADER_BYTES) {
+                int length = bytes.getInt();
+                int checksum = bytes.getInt();
+                if (length <= 0 || length > bytes.remaining()) {
+                    break;
+                }
+                ByteBuffer frame = bytes.slice();
+                frame.limit(length);
+                crc.reset();
+                crc.update(frame.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                int count = BinaryRecordCodec.decode(frame, route, true);
+                if (count < 0) {
+                    break;
+                }
+                replayed.add(count);
+                bytes.position(bytes.position() + length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return batches;
+    }
+
+    /**
+     * Lists the segment files of a log directory in log order.
+     */
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        // Numbers are zero-padded, so names sort in log order
+        segments.sort(null);
+        return segments;
+    }
+
+    private static long numberOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
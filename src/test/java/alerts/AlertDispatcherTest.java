@@ -0,0 +1,84 @@
+package alerts;
+
+import com.alerts.Alert;
+import com.alerts.AlertDispatcher;
+import com.alerts.AlertFactory;
+import com.alerts.AlertGenerator;
+import com.alerts.OxygenSaturationStrategy;
+import com.alerts.RapidSaturationDropStrategy;
+import com.data_management.DataStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlertDispatcherTest {
+    private DataStorage storage;
+    private AlertGenerator alertGenerator;
+    private AlertDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        storage = new DataStorage() {};
+        alertGenerator = new AlertGenerator(storage,
+                List.of(new OxygenSaturationStrategy(), new RapidSaturationDropStrategy()), new AlertFactory());
+        dispatcher = new AlertDispatcher(alertGenerator, 16, 5);
+        storage.addListener(dispatcher);
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.close();
+    }
+
+    @Test
+    void testStoredRecordsArePushedToAlertGenerator() throws InterruptedException {
+        CountDownLatch evaluated = new CountDownLatch(3);
+        dispatcher.setLatencyObserver(nanos -> evaluated.countDown());
+
+        storage.addPatientData(1, 98, "Saturation", 1000);
+        storage.addPatientData(1, 98, "Saturation", 1000); // duplicate, not pushed
+        storage.addPatientData(1, 91, "Saturation", 2000);
+        storage.addPatientData(2, 97, "Saturation", 2000);
+
+        assertTrue(evaluated.await(5, TimeUnit.SECONDS), "All stored records should be evaluated");
+        List<Alert> alerts = alertGenerator.getTriggeredAlerts();
+        assertEquals(2, alerts.size());
+        assertEquals("1", alerts.get(0).getPatientId());
+        assertEquals("Low Blood Saturation", alerts.get(0).getCondition());
+        assertEquals("Rapid Blood Saturation Drop", alerts.get(1).getCondition());
+    }
+
+    @Test
+    void testIngestionAfterCloseDoesNotBlock() throws InterruptedException {
+        dispatcher.close();
+        Thread ingest = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                storage.addPatientData(1, 97, "Saturation", 1000L + i);
+            }
+        });
+        ingest.start();
+        ingest.join(5000);
+
+        assertFalse(ingest.isAlive(), "Ingestion should not wait for a closed dispatcher");
+        assertEquals(100, storage.getRecords(1, 0, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void testRemovedListenerIsNotNotified() throws InterruptedException {
+        storage.removeListener(dispatcher);
+        storage.addPatientData(1, 80, "Saturation", 1000);
+
+        Thread.sleep(50);
+        assertEquals(0, dispatcher.getQueueDepth());
+        assertTrue(alertGenerator.getTriggeredAlerts().isEmpty());
+    }
+}
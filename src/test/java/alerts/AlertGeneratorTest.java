@@ -2,6 +2,7 @@ package alerts;
 
 import com.alerts.*;
 import com.data_management.DataStorage;
+import com.data_management.DataStorageListener;
 import com.data_management.Patient;
 import com.data_management.PatientRecord;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +10,8 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -97,6 +100,141 @@ class AlertGeneratorTest {
         assertEquals(1, alerts.size());
         assertEquals("Abnormal ECG Data", alerts.get(0).getCondition());    }
 
+    @Test
+    void testEvaluateNewData_OnlyAlertsOnNewRecords() {
+        Patient patient = new Patient(7);
+        dataStorage.addPatientData(7, 91, "Saturation", 1000);
+
+        alertGenerator.evaluateNewData(patient);
+        assertEquals(1, alertGenerator.getTriggeredAlerts().size());
+
+        // Nothing new since the last evaluation, so no repeated alert
+        alertGenerator.evaluateNewData(patient);
+        assertEquals(1, alertGenerator.getTriggeredAlerts().size());
+    }
+
+    @Test
+    void testEvaluateNewData_RapidDropAcrossEvaluations() {
+        Patient patient = new Patient(8);
+        dataStorage.addPatientData(8, 99, "Saturation", 1000);
+        alertGenerator.evaluateNewData(patient);
+        assertTrue(alertGenerator.getTriggeredAlerts().isEmpty());
+
+        dataStorage.addPatientData(8, 93, "Saturation", 2000);
+        alertGenerator.evaluateNewData(patient);
+
+        List<Alert> alerts = alertGenerator.getTriggeredAlerts();
+        assertEquals(1, alerts.size());
+        assertEquals("Rapid Blood Saturation Drop", alerts.get(0).getCondition());
+    }
+
+    @Test
+    void testEvaluateNewData_LateRecordIsEvaluated() {
+        Patient patient = new Patient(10);
+        dataStorage.addPatientData(10, 97, "Saturation", 3_600_000);
+        alertGenerator.evaluateNewData(patient);
+        assertTrue(alertGenerator.getTriggeredAlerts().isEmpty());
+
+        // Stored after the evaluation but timestamped an hour before it, as with backfilled data
+        dataStorage.addPatientData(10, 91, "Saturation", 1000);
+        alertGenerator.evaluateNewData(patient);
+
+        List<Alert> alerts = alertGenerator.getTriggeredAlerts();
+        assertEquals(1, alerts.size());
+        assertEquals("Low Blood Saturation", alerts.get(0).getCondition());
+    }
+
+    @Test
+    void testEvaluateNewData_RereadsHistoryWhenTooFarBehind() {
+        Patient patient = new Patient(11);
+        dataStorage.addPatientData(11, 97, "Saturation", 1000);
+        alertGenerator.evaluateNewData(patient);
+        assertTrue(alertGenerator.getTriggeredAlerts().isEmpty());
+
+        for (int i = 1; i <= AlertGenerator.MAX_PENDING_RECORDS; i++) {
+            dataStorage.addPatientData(11, 97, "Saturation", 1000 + i * 1000L);
+        }
+        // No longer held, so only the history re-read can see it
+        dataStorage.addPatientData(11, 91, "Saturation", 1000 + (AlertGenerator.MAX_PENDING_RECORDS + 1) * 1000L);
+        alertGenerator.evaluateNewData(patient);
+
+        assertTrue(alertGenerator.getTriggeredAlerts().stream()
+                .anyMatch(alert -> alert.getCondition().equals("Low Blood Saturation")));
+    }
+
+    @Test
+    void testCloseUnsubscribesFromStorage() {
+        List<DataStorageListener> removed = new ArrayList<>();
+        DataStorage storage = new InMemoryDataStorage() {
+            @Override
+            public void removeListener(DataStorageListener listener) {
+                removed.add(listener);
+                super.removeListener(listener);
+            }
+        };
+        AlertGenerator generator = new AlertGenerator(storage, List.of(new OxygenSaturationStrategy()), new AlertFactory());
+        generator.evaluateNewData(new Patient(12));
+
+        generator.close();
+        assertEquals(1, removed.size());
+        generator.close();
+        assertEquals(1, removed.size(), "Closing again should not unsubscribe twice");
+    }
+
+    @Test
+    void testStrategiesOnlyReceiveDeclaredRecordTypes() {
+        List<String> seenTypes = new ArrayList<>();
+        AlertStrategy heartRateOnly = new AlertStrategy() {
+            @Override
+            public boolean checkAlert(List<PatientRecord> records) {
+                records.forEach(r -> seenTypes.add(r.getRecordType()));
+                return false;
+            }
+
+            @Override
+            public String getCondition() {
+                return "Test";
+            }
+
+            @Override
+            public Set<String> getRecordTypes() {
+                return Set.of("HeartRate");
+            }
+        };
+        AlertGenerator generator = new AlertGenerator(dataStorage,
+                List.of(heartRateOnly, new OxygenSaturationStrategy()), new AlertFactory());
+        dataStorage.addPatientData(9, 70, "HeartRate", 1000);
+        dataStorage.addPatientData(9, 91, "Saturation", 2000);
+        dataStorage.addPatientData(9, 1.0, "ECG", 3000);
+
+        generator.evaluateData(new Patient(9));
+
+        assertEquals(List.of("HeartRate"), seenTypes);
+        assertEquals(1, generator.getTriggeredAlerts().size());
+    }
+
+    @Test
+    void testEvaluateAll_ParallelSweepKeepsPatientOrder() {
+        List<Patient> patients = new ArrayList<>();
+        for (int id = 100; id < 400; id++) {
+            dataStorage.addPatientData(id, id % 2 == 0 ? 91 : 97, "Saturation", 1000);
+            patients.add(new Patient(id));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            alertGenerator.evaluateAll(patients, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        List<Alert> alerts = alertGenerator.getTriggeredAlerts();
+        assertEquals(150, alerts.size());
+        for (int i = 0; i < alerts.size(); i++) {
+            assertEquals(String.valueOf(100 + 2 * i), alerts.get(i).getPatientId());
+        }
+    }
+
     static class InMemoryDataStorage extends DataStorage {
         private final List<PatientRecord> records = new ArrayList<>();
 
@@ -115,7 +253,9 @@ class AlertGeneratorTest {
 
         @Override
         public void addPatientData(int patientId, double measurementValue, String recordType, long timestamp) {
-            records.add(new PatientRecord(patientId, measurementValue, recordType, timestamp));
+            PatientRecord record = new PatientRecord(patientId, measurementValue, recordType, timestamp);
+            records.add(record);
+            notifyListeners(record);
         }
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.alerts.AlertStrategy;
 import com.alerts.BloodPressureStrategy;
 import com.alerts.HeartRateStrategy;
 import com.alerts.OxygenSaturationStrategy;
+import com.alerts.RapidSaturationDropStrategy;
 import com.data_management.PatientRecord;
 import org.junit.jupiter.api.Test;
 
@@ -71,4 +72,27 @@ class AlertStrategyTest {
 
         assertFalse(strategy.checkAlert(records));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRapidSaturationDropStrategyKeepsLastSample() {
+        RapidSaturationDropStrategy strategy = new RapidSaturationDropStrategy();
+
+        assertFalse(strategy.checkNewRecords(1, Arrays.asList(
+                new PatientRecord(1, 98, "Saturation", 1000),
+                new PatientRecord(1, 60, "HeartRate", 1500)
+        )));
+        // The drop spans two calls, so only the remembered sample can detect it
+        assertTrue(strategy.checkNewRecords(1, Arrays.asList(
+                new PatientRecord(1, 92, "Saturation", 2000)
+        )));
+        // Another patient's state is independent
+        assertFalse(strategy.checkNewRecords(2, Arrays.asList(
+                new PatientRecord(2, 92, "Saturation", 2000)
+        )));
+
+        strategy.resetState(1);
+        assertFalse(strategy.checkNewRecords(1, Arrays.asList(
+                new PatientRecord(1, 80, "Saturation", 3000)
+        )));
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import com.alerts.AlertFactory;
+import com.alerts.AlertGenerator;
+import com.alerts.AlertStrategy;
+import com.alerts.BloodPressureStrategy;
+import com.alerts.ECGStrategy;
+import com.alerts.HeartRateStrategy;
+import com.alerts.OxygenSaturationStrategy;
+import com.alerts.RapidSaturationDropStrategy;
+import com.data_management.DataStorage;
+import com.data_management.Patient;
+
+import java.util.List;
+
+/**
+ * Compares the per-evaluation cost of {@link AlertGenerator#evaluateData(Patient)} (full history)
+ * with {@link AlertGenerator#evaluateNewData(Patient)} (records since the last call) while one
+ * patient's history grows by a fixed number of samples between evaluations.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.AlertEvaluationBenchmark -Dexec.args="200 1000"
+ * </pre>
+ * Arguments are {@code <evaluations> <samples added between evaluations>}.
+ */
+public class AlertEvaluationBenchmark {
+
+    public static void main(String[] args) {
+        int evaluations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int samplesPerStep = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        System.out.printf("batch:       %s%n", run(false, evaluations, samplesPerStep));
+        System.out.printf("incremental: %s%n", run(true, evaluations, samplesPerStep));
+    }
+
+    private static String run(boolean incremental, int evaluations, int samplesPerStep) {
+        DataStorage storage = new DataStorage() {};
+        List<AlertStrategy> strategies = List.of(new HeartRateStrategy(), new ECGStrategy(),
+                new OxygenSaturationStrategy(), new BloodPressureStrategy(), new RapidSaturationDropStrategy());
+        AlertGenerator generator = new AlertGenerator(storage, strategies, new AlertFactory());
+        Patient patient = new Patient(1);
+        long timestamp = System.currentTimeMillis() - (long) evaluations * samplesPerStep;
+
+        long evaluationNanos = 0;
+        long lastStepNanos = 0;
+        for (int step = 0; step < evaluations; step++) {
+            for (int i = 0; i < samplesPerStep; i++) {
+                storage.addPatientData(1, 96 + (i % 3), "Saturation", timestamp++);
+            }
+            long begin = System.nanoTime();
+            if (incremental) {
+                generator.evaluateNewData(patient);
+            } else {
+                generator.evaluateData(patient);
+            }
+            lastStepNanos = System.nanoTime() - begin;
+            evaluationNanos += lastStepNanos;
+        }
+        long samples = (long) evaluations * samplesPerStep;
+        return String.format("%,d samples, %,.0f ns/sample overall, last evaluation %,.0f ns/sample",
+                samples, (double) evaluationNanos / samples, (double) lastStepNanos / samplesPerStep);
+    }
+}
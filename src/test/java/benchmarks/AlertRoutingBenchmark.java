@@ -0,0 +1,75 @@
+package benchmarks;
+
+import com.alerts.AlertFactory;
+import com.alerts.AlertGenerator;
+import com.alerts.AlertStrategy;
+import com.alerts.BloodPressureStrategy;
+import com.alerts.ECGStrategy;
+import com.alerts.HeartRateStrategy;
+import com.alerts.OxygenSaturationStrategy;
+import com.alerts.RapidSaturationDropStrategy;
+import com.data_management.DataStorage;
+import com.data_management.Patient;
+import com.data_management.PatientRecord;
+
+import java.util.List;
+
+/**
+ * Compares a batch evaluation that fetches the patient's merged history and has every strategy
+ * filter the full mixed list (the previous behaviour) with
+ * {@link AlertGenerator#evaluateData(Patient)}, which hands each strategy the series of the record
+ * type it declares straight from storage. Both sides include the storage fetch.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.AlertRoutingBenchmark -Dexec.args="100000 200"
+ * </pre>
+ * Arguments are {@code <records> <iterations>}. Records cycle through the simulator's seven
+ * record types with values that never trigger, so every strategy scans its whole input.
+ */
+public class AlertRoutingBenchmark {
+
+    private static final String[] TYPES = {"ECG", "Saturation", "SystolicBP", "DiastolicPressure",
+            "HeartRate", "Cholesterol", "WhiteBloodCells"};
+    private static final double[] VALUES = {1.0, 97, 120, 80, 75, 180, 6};
+
+    public static void main(String[] args) {
+        int recordCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        DataStorage storage = new DataStorage() {};
+        for (int i = 0; i < recordCount; i++) {
+            storage.addPatientData(1, VALUES[i % TYPES.length], TYPES[i % TYPES.length], 1_000_000L + i);
+        }
+        List<AlertStrategy> strategies = List.of(new HeartRateStrategy(), new ECGStrategy(),
+                new OxygenSaturationStrategy(), new BloodPressureStrategy(), new RapidSaturationDropStrategy());
+        AlertGenerator generator = new AlertGenerator(storage, strategies, new AlertFactory());
+        Patient patient = new Patient(1);
+
+        Runnable unrouted = () -> {
+            List<PatientRecord> records = storage.getRecords(1, 0, System.currentTimeMillis());
+            for (AlertStrategy strategy : strategies) {
+                strategy.checkAlert(records);
+            }
+        };
+        Runnable routed = () -> generator.evaluateData(patient);
+
+        double unroutedNanos = nanosPerOp(iterations, unrouted);
+        double routedNanos = nanosPerOp(iterations, routed);
+        System.out.printf("%,d records, %d strategies: every strategy filters all %,.0f us/eval, "
+                        + "routed %,.0f us/eval (%.1fx)%n", recordCount, strategies.size(),
+                unroutedNanos / 1e3, routedNanos / 1e3, unroutedNanos / routedNanos);
+    }
+
+    private static double nanosPerOp(int iterations, Runnable operation) {
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        return (double) (System.nanoTime() - begin) / iterations;
+    }
+}
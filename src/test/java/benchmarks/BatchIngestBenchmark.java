@@ -0,0 +1,64 @@
+package benchmarks;
+
+import com.data_management.DataStorage;
+import com.data_management.RecordBatch;
+
+/**
+ * Compares {@link DataStorage#addPatientData} with {@link DataStorage#addPatientDataBatch} for a
+ * stream of samples interleaved across patients, as a reader receives them from the simulator.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.BatchIngestBenchmark -Dexec.args="1000 10000000 4096"
+ * </pre>
+ * Arguments: patients, samples, batch size. Each mode runs twice into a fresh storage; the
+ * second run is reported.
+ */
+public class BatchIngestBenchmark {
+
+    private static final String[] LABELS = {"ECG", "Saturation", "SystolicPressure", "DiastolicPressure"};
+
+    public static void main(String[] args) {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+
+        for (int run = 0; run < 2; run++) {
+            DataStorage storage = new DataStorage() {};
+            long begin = System.nanoTime();
+            for (int i = 0; i < samples; i++) {
+                storage.addPatientData(patientOf(i, patients), i, LABELS[i % LABELS.length], timestampOf(i, patients));
+            }
+            report(run, "addPatientData", samples, System.nanoTime() - begin);
+        }
+        for (int run = 0; run < 2; run++) {
+            DataStorage storage = new DataStorage() {};
+            RecordBatch batch = new RecordBatch(batchSize);
+            long begin = System.nanoTime();
+            for (int i = 0; i < samples; i++) {
+                batch.add(patientOf(i, patients), timestampOf(i, patients), LABELS[i % LABELS.length], i);
+                if (batch.size() == batchSize) {
+                    storage.addPatientDataBatch(batch);
+                    batch.clear();
+                }
+            }
+            storage.addPatientDataBatch(batch);
+            report(run, "addPatientDataBatch (" + batchSize + ")", samples, System.nanoTime() - begin);
+        }
+    }
+
+    private static int patientOf(int sample, int patients) {
+        return 1000 + sample % patients;
+    }
+
+    private static long timestampOf(int sample, int patients) {
+        return 1_700_000_000_000L + sample / patients;
+    }
+
+    private static void report(int run, String name, int samples, long elapsedNanos) {
+        if (run > 0) {
+            System.out.printf("%-28s %,12.0f samples/sec%n", name, samples / (elapsedNanos / 1e9));
+        }
+    }
+}
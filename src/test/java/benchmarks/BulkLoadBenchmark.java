@@ -0,0 +1,48 @@
+package benchmarks;
+
+import com.data_management.DataStorage;
+import com.data_management.FileDataReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Compares {@link FileDataReader#readData} with {@link FileDataReader#bulkLoad} on a large
+ * synthetic history file, in lines per second, each into a fresh DataStorage.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.BulkLoadBenchmark -Dexec.args="/tmp/history.txt 1000 25000000"
+ * </pre>
+ * Arguments: file (generated with {@link SyntheticHistoryGenerator} if missing), patients, lines.
+ * The stored data stays on the heap, so give the JVM room, e.g. {@code -Xmx3g} for 25M lines.
+ */
+public class BulkLoadBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "history.txt");
+        int patients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long lines = args.length > 2 ? Long.parseLong(args[2]) : 25_000_000L;
+        if (!Files.exists(file)) {
+            SyntheticHistoryGenerator.write(file, patients, lines);
+        }
+        System.out.printf("%,d bytes, %d cores%n", Files.size(file), Runtime.getRuntime().availableProcessors());
+
+        FileDataReader reader = new FileDataReader(file.toString());
+        long begin = System.nanoTime();
+        reader.readData(new DataStorage() {});
+        report("readData (line by line)", lines, System.nanoTime() - begin);
+        System.gc();
+
+        begin = System.nanoTime();
+        reader.bulkLoad(new DataStorage() {});
+        report("bulkLoad (mmap, parallel)", lines, System.nanoTime() - begin);
+    }
+
+    private static void report(String name, long lines, long elapsedNanos) {
+        System.out.printf("%-26s %6.1f s  %,12.0f lines/sec%n", name, elapsedNanos / 1e9, lines / (elapsedNanos / 1e9));
+    }
+}
@@ -0,0 +1,70 @@
+package benchmarks;
+
+import com.common.RecordParser;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares {@link RecordParser} with the previous {@code WebSocketDataReader.onMessage} parsing
+ * ({@code trim().split(",")} plus {@code Integer/Long/Double.parseX}) in messages per second and
+ * bytes allocated per message.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.CsvParsingBenchmark -Dexec.args="5000000"
+ * </pre>
+ * The argument is the number of messages parsed per measurement. Allocation is read from
+ * HotSpot's per-thread allocation counter.
+ */
+public class CsvParsingBenchmark {
+
+    private static final String[] MESSAGES = {
+            "17,1714376789050,ECG,0.4213987654321",
+            "17,1714376789051,Saturation,97.0",
+            "942,1714376789052,SystolicPressure,121.0",
+            "942,1714376789053,WhiteBloodCells,6.843125",
+    };
+
+    private static double checksum;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        RecordParser parser = new RecordParser(RecordParser.Layout.STREAM);
+        RecordParser.Handler handler = (patientId, timestamp, recordType, value) ->
+                checksum += patientId + timestamp + value + recordType.length();
+
+        Runnable split = () -> {
+            for (int i = 0; i < count; i++) {
+                String[] parts = MESSAGES[i & 3].trim().split(",");
+                handler.onRecord(Integer.parseInt(parts[0]), Long.parseLong(parts[1]), parts[2],
+                        Double.parseDouble(parts[3]));
+            }
+        };
+        Runnable indexed = () -> {
+            for (int i = 0; i < count; i++) {
+                parser.parse(MESSAGES[i & 3], handler);
+            }
+        };
+
+        for (int round = 0; round < 2; round++) {
+            report("split + parseX ", count, split);
+            report("RecordParser   ", count, indexed);
+        }
+        if (checksum == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void report(String name, int count, Runnable work) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long begin = System.nanoTime();
+        work.run();
+        long elapsed = System.nanoTime() - begin;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        System.out.printf("%s %,12.0f msgs/sec, %6.1f bytes/msg allocated%n",
+                name, count / (elapsed / 1e9), (double) allocated / count);
+    }
+}
@@ -0,0 +1,116 @@
+package benchmarks;
+
+import com.data_management.DataStorage;
+import com.data_management.PatientRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Measures ingest and query throughput under contention: one ingest thread per patient shard
+ * appends samples while N reader threads run random recent-window range queries.
+ * The lock-free storage is compared against the same storage wrapped in a per-patient
+ * ReentrantReadWriteLock, which is how reads and writes were coordinated before.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.DataStorageContentionBenchmark -Dexec.args="4 4 200 5"
+ * </pre>
+ * Arguments are {@code <ingest shards> <reader threads> <patients> <seconds>}.
+ */
+public class DataStorageContentionBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int shards = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int patients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        System.out.println("read/write locked: " + run(new LockedDataStorage(patients), shards, readers, patients, seconds));
+        System.out.println("lock-free reads:   " + run(new DataStorage() {}, shards, readers, patients, seconds));
+    }
+
+    private static String run(DataStorage storage, int shards, int readers, int patients, int seconds)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder inserts = new LongAdder();
+        LongAdder queries = new LongAdder();
+        long[] clock = new long[patients + 1];
+        List<Thread> threads = new ArrayList<>();
+
+        for (int shard = 0; shard < shards; shard++) {
+            int shardId = shard;
+            threads.add(new Thread(() -> {
+                while (running.get()) {
+                    for (int id = 1 + shardId; id <= patients; id += shards) {
+                        long timestamp = ++clock[id];
+                        storage.addPatientData(id, timestamp, "ECG", timestamp);
+                    }
+                    inserts.add((patients - shardId + shards - 1) / shards);
+                }
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long sink = 0;
+                while (running.get()) {
+                    int id = 1 + random.nextInt(patients);
+                    long end = clock[id];
+                    List<PatientRecord> records = storage.getRecords(id, end - 100, end);
+                    sink += records.size();
+                    queries.increment();
+                }
+                if (sink == 42) {
+                    System.out.println();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return String.format("%,.0f inserts/sec, %,.0f queries/sec",
+                inserts.sum() / (double) seconds, queries.sum() / (double) seconds);
+    }
+
+    /** Storage guarded by per-patient read/write locks, as before the lock-free read path. */
+    private static final class LockedDataStorage extends DataStorage {
+        private final ReadWriteLock[] locks;
+
+        LockedDataStorage(int patients) {
+            locks = new ReadWriteLock[patients + 1];
+            for (int i = 0; i < locks.length; i++) {
+                locks[i] = new ReentrantReadWriteLock();
+            }
+        }
+
+        @Override
+        public void addPatientData(int patientId, double measurementValue, String recordType, long timestamp) {
+            locks[patientId].writeLock().lock();
+            try {
+                super.addPatientData(patientId, measurementValue, recordType, timestamp);
+            } finally {
+                locks[patientId].writeLock().unlock();
+            }
+        }
+
+        @Override
+        public List<PatientRecord> getRecords(int patientId, long startTime, long endTime) {
+            locks[patientId].readLock().lock();
+            try {
+                return super.getRecords(patientId, startTime, endTime);
+            } finally {
+                locks[patientId].readLock().unlock();
+            }
+        }
+    }
+}
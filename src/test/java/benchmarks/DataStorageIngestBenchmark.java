@@ -0,0 +1,34 @@
+package benchmarks;
+
+import com.data_management.DataStorage;
+
+/**
+ * Measures {@link DataStorage#addPatientData} throughput as a patient's history grows, to show
+ * that the duplicate check no longer depends on history length.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.DataStorageIngestBenchmark -Dexec.args="10 1000000"
+ * </pre>
+ * Arguments are {@code <rounds> <inserts per round>}; one line is printed per round.
+ */
+public class DataStorageIngestBenchmark {
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int perRound = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        DataStorage storage = new DataStorage() {};
+        long timestamp = 1_700_000_000_000L;
+
+        for (int round = 1; round <= rounds; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < perRound; i++) {
+                storage.addPatientData(1, i, "ECG", timestamp++);
+            }
+            long elapsed = System.nanoTime() - begin;
+            System.out.printf("history %,12d records: %,.0f inserts/sec%n",
+                    (long) round * perRound, perRound / (elapsed / 1e9));
+        }
+    }
+}
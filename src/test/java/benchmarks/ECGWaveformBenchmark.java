@@ -0,0 +1,137 @@
+package benchmarks;
+
+import com.cardio_generator.generators.ECGWaveformGenerator;
+import com.cardio_generator.generators.SampleBlock;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.common.RecordTypes;
+import com.data_management.DataStorage;
+import com.data_management.RecordBatch;
+
+import java.util.SplittableRandom;
+
+/**
+ * Measures the samples per second one thread gets out of {@link ECGWaveformGenerator}, and how
+ * many times faster than real time that is for the configured patients and sampling rate.
+ *
+ * <p>Measured are filling blocks with {@code generateBatch}, filling them and handing every
+ * column to a typed output that discards it, one-patient blocks from {@code generate} to the same
+ * output, and filling blocks and storing every sample in a DataStorage. Each measurement
+ * generates the given simulated time for every patient, repeated for warm-up and then measured
+ * rounds, and reports the best round; the storage measurement, which keeps everything it is
+ * given, runs once over a tenth of that time.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.ECGWaveformBenchmark -Dexec.args="1000 500 60"
+ * </pre>
+ * Arguments: patients, samples per second, simulated seconds per round.
+ */
+public class ECGWaveformBenchmark {
+
+    private static final int WARM_UP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    private static final long START_MILLIS = 1_714_376_000_000L;
+
+    // Keeps the JIT from discarding the generated values
+    private static double sink;
+
+    public static void main(String[] args) {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int sampleRate = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+
+        ECGWaveformGenerator ecg = new ECGWaveformGenerator(patients, sampleRate);
+        SampleBlock block = ecg.newBlock(patients);
+        SplittableRandom random = new SplittableRandom(42);
+        int blocks = (int) (seconds * 1000L / ecg.getBlockMillis());
+        long samples = (long) blocks * patients * ecg.getSamplesPerBlock();
+        double realTime = (double) patients * sampleRate;
+        OutputStrategy discard = new OutputStrategy() {
+            @Override
+            public void output(int patientId, long timestamp, String label, String data) {
+                sink += data.length();
+            }
+
+            @Override
+            public void output(int patientId, long timestamp, int typeId, double value) {
+                sink += value;
+            }
+
+            @Override
+            public void outputBatch(int fromPatientId, int patientCount, long timestamp, int typeId, double[] values) {
+                sink += values[patientCount - 1];
+            }
+        };
+
+        System.out.printf("%,d patients at %d Hz, %,d samples/s in real time, Java %s, one thread%n", patients,
+                sampleRate, (long) realTime, System.getProperty("java.version"));
+        report("generateBatch", realTime, samples / best(() -> {
+            for (int b = 0; b < blocks; b++) {
+                ecg.generateBatch(1, patients + 1, START_MILLIS + b * ecg.getBlockMillis(), random, block);
+                sink += block.getValues(0)[0];
+            }
+        }));
+        report("generateBatch + writeTo", realTime, samples / best(() -> {
+            for (int b = 0; b < blocks; b++) {
+                ecg.generateBatch(1, patients + 1, START_MILLIS + b * ecg.getBlockMillis(), random, block);
+                block.writeTo(discard);
+            }
+        }));
+        report("generate per patient", realTime, samples / best(() -> {
+            for (int b = 0; b < blocks; b++) {
+                for (int patientId = 1; patientId <= patients; patientId++) {
+                    ecg.generate(patientId, discard);
+                }
+            }
+        }));
+
+        DataStorage storage = new DataStorage() {};
+        RecordBatch records = new RecordBatch(patients * ecg.getSamplesPerBlock());
+        OutputStrategy store = new OutputStrategy() {
+            @Override
+            public void output(int patientId, long timestamp, String label, String data) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void outputBatch(int fromPatientId, int patientCount, long timestamp, int typeId, double[] values) {
+                String label = RecordTypes.nameOf(typeId);
+                for (int i = 0; i < patientCount; i++) {
+                    records.add(fromPatientId + i, timestamp, label, values[i]);
+                }
+            }
+        };
+        int storedBlocks = Math.max(1, blocks / 10);
+        long begin = System.nanoTime();
+        for (int b = 0; b < storedBlocks; b++) {
+            ecg.generateBatch(1, patients + 1, START_MILLIS + b * ecg.getBlockMillis(), random, block);
+            block.writeTo(store);
+            storage.addPatientDataBatch(records);
+            records.clear();
+        }
+        double storedSeconds = (System.nanoTime() - begin) / 1e9;
+        report("generateBatch + DataStorage", realTime,
+                (double) storedBlocks * patients * ecg.getSamplesPerBlock() / storedSeconds);
+    }
+
+    private static void report(String name, double realTime, double perSecond) {
+        System.out.printf("  %-28s %,14.0f samples/s  %7.1fx real time%n", name, perSecond, perSecond / realTime);
+    }
+
+    /**
+     * Returns the shortest time of one round, in seconds.
+     */
+    private static double best(Runnable round) {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < WARM_UP_ROUNDS + ROUNDS; i++) {
+            long begin = System.nanoTime();
+            round.run();
+            double elapsed = (System.nanoTime() - begin) / 1e9;
+            if (i >= WARM_UP_ROUNDS) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        return best;
+    }
+}
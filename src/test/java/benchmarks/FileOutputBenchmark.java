@@ -0,0 +1,102 @@
+package benchmarks;
+
+import com.cardio_generator.outputs.FileOutputStrategy;
+import com.cardio_generator.outputs.OutputStrategy;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares {@link FileOutputStrategy} with the previous open-write-close per sample implementation,
+ * in samples per second, using the simulator's labels for 1,000 patients written from several
+ * threads, as the simulator's scheduler does.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.FileOutputBenchmark -Dexec.args="1000 200000 4"
+ * </pre>
+ * Arguments: patients, samples per run, writer threads.
+ */
+public class FileOutputBenchmark {
+
+    private static final String[] LABELS = {"ECG", "Saturation", "SystolicPressure", "DiastolicPressure",
+            "Cholesterol", "WhiteBloodCells", "RedBloodCells", "Alert"};
+    private static final String[] DATA = {"0.4213987654321", "97%", "121.0", "79.0", "190.3", "6.84", "4.9", "triggered"};
+
+    public static void main(String[] args) throws Exception {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        for (int round = 0; round < 2; round++) {
+            Path legacyDir = Files.createTempDirectory("legacy-output");
+            run("open/write/close per sample", new LegacyFileOutput(legacyDir.toString()), patients, samples / 10, threads);
+
+            Path bufferedDir = Files.createTempDirectory("buffered-output");
+            try (FileOutputStrategy buffered = new FileOutputStrategy(bufferedDir.toString())) {
+                run("buffered, persistent handle", buffered, patients, samples, threads);
+            }
+
+            Path syncedDir = Files.createTempDirectory("synced-output");
+            try (FileOutputStrategy synced = new FileOutputStrategy(syncedDir.toString(),
+                    FileOutputStrategy.DEFAULT_BUFFER_SIZE, FileOutputStrategy.DEFAULT_FLUSH_INTERVAL_MILLIS, true)) {
+                run("buffered + group fsync     ", synced, patients, samples, threads);
+            }
+        }
+    }
+
+    private static void run(String name, OutputStrategy output, int patients, int samples, int threads)
+            throws InterruptedException {
+        AtomicLong next = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                long i;
+                while ((i = next.getAndIncrement()) < samples) {
+                    int type = (int) (i % LABELS.length);
+                    output.output((int) (i % patients) + 1, 1714376789050L + i, LABELS[type], DATA[type]);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.printf("%s %,12.0f samples/sec%n", name, samples / ((System.nanoTime() - begin) / 1e9));
+    }
+
+    /** The implementation before persistent handles, kept here for comparison. */
+    private static final class LegacyFileOutput implements OutputStrategy {
+        private final String baseDirectory;
+
+        LegacyFileOutput(String baseDirectory) {
+            this.baseDirectory = baseDirectory;
+        }
+
+        @Override
+        public void output(int patientId, long timestamp, String label, String data) {
+            try {
+                Files.createDirectories(Paths.get(baseDirectory));
+            } catch (IOException e) {
+                return;
+            }
+            Path file = Paths.get(baseDirectory, label + ".txt");
+            try (PrintWriter out = new PrintWriter(
+                    Files.newBufferedWriter(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                out.printf("Patient ID: %d, Timestamp: %d, Label: %s, Data: %s%n", patientId, timestamp, label, data);
+            } catch (Exception e) {
+                System.err.println("Error writing to file " + file + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package benchmarks;
+
+import com.cardio_generator.generators.AlertGenerator;
+import com.cardio_generator.generators.BloodLevelsDataGenerator;
+import com.cardio_generator.generators.BloodPressureDataGenerator;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.generators.SampleBlock;
+import com.cardio_generator.outputs.OutputStrategy;
+
+import java.util.SplittableRandom;
+
+/**
+ * Measures the samples per second one thread gets out of each generator, one patient at a time
+ * with {@link PatientDataGenerator#generate} and a tick at a time with
+ * {@link PatientDataGenerator#generateBatch}. Per-sample generation includes formatting the value
+ * as the text the output strategies receive; the batch figures are given both for filling the
+ * block alone and with {@link SampleBlock#writeTo} formatting it the same way. Outputs discard
+ * the samples.
+ *
+ * <p>Each measurement repeats a warm-up and then several rounds, and reports the best round. Not
+ * run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.GeneratorBatchBenchmark -Dexec.args="10000 1000"
+ * </pre>
+ * Arguments: patients, milliseconds per round.
+ */
+public class GeneratorBatchBenchmark {
+
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+
+    // Keeps the JIT from discarding the generated values
+    private static double sink;
+
+    public static void main(String[] args) {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long roundMillis = args.length > 1 ? Long.parseLong(args[1]) : 1_000L;
+
+        System.out.printf("%,d patients, Java %s, samples/s on one thread%n", patients,
+                System.getProperty("java.version"));
+        System.out.printf("%-28s %16s %16s %16s%n", "generator", "generate", "batch", "batch + text");
+        run("ECGDataGenerator", new ECGDataGenerator(patients), patients, roundMillis);
+        run("BloodSaturationDataGenerator", new BloodSaturationDataGenerator(patients), patients, roundMillis);
+        run("BloodPressureDataGenerator", new BloodPressureDataGenerator(patients), patients, roundMillis);
+        run("BloodLevelsDataGenerator", new BloodLevelsDataGenerator(patients), patients, roundMillis);
+        run("AlertGenerator", new AlertGenerator(patients), patients, roundMillis);
+    }
+
+    private static void run(String name, PatientDataGenerator generator, int patients, long roundMillis) {
+        int channels = generator.newBlock(1).getChannelCount();
+        SampleBlock block = generator.newBlock(patients);
+        SplittableRandom random = new SplittableRandom(42);
+        OutputStrategy discard = (patientId, timestamp, label, data) -> sink += data.length();
+
+        double perSample = best(roundMillis, () -> {
+            for (int patientId = 1; patientId <= patients; patientId++) {
+                generator.generate(patientId, discard);
+            }
+        }) * patients * channels;
+        double batch = best(roundMillis, () -> {
+            generator.generateBatch(1, patients + 1, System.currentTimeMillis(), random, block);
+            sink += block.getValues(0)[0];
+        }) * patients * channels;
+        double batchText = best(roundMillis, () -> {
+            generator.generateBatch(1, patients + 1, System.currentTimeMillis(), random, block);
+            block.writeTo(discard);
+        }) * patients * channels;
+        System.out.printf("%-28s %,16.0f %,16.0f %,16.0f%n", name, perSample, batch, batchText);
+    }
+
+    /**
+     * Returns the highest rate, in calls per second, of {@code tick} over the measured rounds.
+     */
+    private static double best(long roundMillis, Runnable tick) {
+        double best = 0;
+        for (int round = 0; round < WARM_UP_ROUNDS + ROUNDS; round++) {
+            long calls = 0;
+            long start = System.nanoTime();
+            long end = start + roundMillis * 1_000_000L;
+            long now;
+            do {
+                tick.run();
+                calls++;
+                now = System.nanoTime();
+            } while (now < end);
+            if (round >= WARM_UP_ROUNDS) {
+                best = Math.max(best, calls * 1e9 / (now - start));
+            }
+        }
+        return best;
+    }
+}
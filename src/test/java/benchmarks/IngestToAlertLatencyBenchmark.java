@@ -0,0 +1,98 @@
+package benchmarks;
+
+import com.alerts.AlertDispatcher;
+import com.alerts.AlertFactory;
+import com.alerts.AlertGenerator;
+import com.alerts.AlertStrategy;
+import com.alerts.BloodPressureStrategy;
+import com.alerts.ECGStrategy;
+import com.alerts.HeartRateStrategy;
+import com.alerts.OxygenSaturationStrategy;
+import com.alerts.RapidSaturationDropStrategy;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.data_management.DataStorage;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures ingest-to-alert latency of the push path: simulator generators write straight into
+ * {@link DataStorage}, which notifies an {@link AlertDispatcher}. Latency is taken from the moment
+ * a record is stored until its evaluation completes.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.IngestToAlertLatencyBenchmark -Dexec.args="1000 10 5"
+ * </pre>
+ * Arguments are {@code <patients> <seconds> <batching window millis>}. Every simulated second
+ * each patient emits one ECG and one saturation sample, as in {@code HealthDataSimulator}.
+ */
+public class IngestToAlertLatencyBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long windowMillis = args.length > 2 ? Long.parseLong(args[2]) : 5;
+
+        DataStorage storage = new DataStorage() {};
+        List<AlertStrategy> strategies = List.of(new HeartRateStrategy(), new ECGStrategy(),
+                new OxygenSaturationStrategy(), new BloodPressureStrategy(), new RapidSaturationDropStrategy());
+        AlertGenerator alertGenerator = new AlertGenerator(storage, strategies, new AlertFactory());
+        AlertDispatcher dispatcher = new AlertDispatcher(alertGenerator, 65_536, windowMillis);
+        LatencyRecorder recorder = new LatencyRecorder();
+        dispatcher.setLatencyObserver(recorder::record);
+        storage.addListener(dispatcher);
+        dispatcher.start();
+
+        OutputStrategy toStorage = (patientId, timestamp, label, data) ->
+                storage.addPatientData(patientId, Double.parseDouble(data.replace("%", "")), label, timestamp);
+        ECGDataGenerator ecg = new ECGDataGenerator(patients);
+        BloodSaturationDataGenerator saturation = new BloodSaturationDataGenerator(patients);
+
+        for (int second = 0; second < seconds; second++) {
+            long tickStart = System.currentTimeMillis();
+            for (int patientId = 1; patientId <= patients; patientId++) {
+                ecg.generate(patientId, toStorage);
+                saturation.generate(patientId, toStorage);
+            }
+            Thread.sleep(Math.max(0, 1000 - (System.currentTimeMillis() - tickStart)));
+        }
+        dispatcher.close();
+
+        long[] latencies = recorder.sorted();
+        System.out.printf("%d patients, %d records evaluated, window %d ms: p50 %.3f ms, p99 %.3f ms, max %.3f ms, "
+                        + "%d alerts%n", patients, latencies.length, windowMillis,
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6,
+                alertGenerator.getTriggeredAlerts().size());
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(fraction * sorted.length))];
+    }
+
+    /** Collects latencies from the single dispatcher thread. */
+    static final class LatencyRecorder {
+        private long[] values = new long[1 << 16];
+        private int size;
+
+        synchronized void record(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
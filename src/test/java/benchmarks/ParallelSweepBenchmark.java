@@ -0,0 +1,69 @@
+package benchmarks;
+
+import com.alerts.AlertFactory;
+import com.alerts.AlertGenerator;
+import com.alerts.AlertStrategy;
+import com.alerts.BloodPressureStrategy;
+import com.alerts.ECGStrategy;
+import com.alerts.HeartRateStrategy;
+import com.alerts.OxygenSaturationStrategy;
+import com.alerts.RapidSaturationDropStrategy;
+import com.data_management.DataStorage;
+import com.data_management.Patient;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how {@link AlertGenerator#evaluateAll(List, ForkJoinPool)} scales with the number of
+ * worker threads over a full batch sweep.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.ParallelSweepBenchmark -Dexec.args="10000 600"
+ * </pre>
+ * Arguments are {@code <patients> <records per patient>}. Each patient gets ECG and saturation
+ * history; thread counts 1, 2, 4, 8 and 16 are measured in turn.
+ */
+public class ParallelSweepBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) {
+        int patientCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int recordsPerPatient = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+
+        DataStorage storage = new DataStorage() {};
+        long start = System.currentTimeMillis() - recordsPerPatient * 1000L;
+        for (int id = 1; id <= patientCount; id++) {
+            for (int i = 0; i < recordsPerPatient; i += 2) {
+                storage.addPatientData(id, Math.sin(i), "ECG", start + i * 1000L);
+                storage.addPatientData(id, 96 + (i % 3), "Saturation", start + i * 1000L);
+            }
+        }
+        List<Patient> patients = storage.getAllPatients();
+        List<AlertStrategy> strategies = List.of(new HeartRateStrategy(), new ECGStrategy(),
+                new OxygenSaturationStrategy(), new BloodPressureStrategy(), new RapidSaturationDropStrategy());
+        System.out.printf("%,d patients x %,d records, %d cores available%n",
+                patientCount, recordsPerPatient, Runtime.getRuntime().availableProcessors());
+
+        double baseline = 0;
+        for (int threads : THREADS) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            AlertGenerator generator = new AlertGenerator(storage, strategies, new AlertFactory());
+            generator.evaluateAll(patients, pool); // warm-up
+            long begin = System.nanoTime();
+            int sweeps = 5;
+            for (int i = 0; i < sweeps; i++) {
+                generator.evaluateAll(patients, pool);
+            }
+            double millis = (System.nanoTime() - begin) / 1e6 / sweeps;
+            pool.shutdown();
+            if (threads == 1) {
+                baseline = millis;
+            }
+            System.out.printf("%2d threads: %,8.1f ms/sweep, speedup %.2fx%n", threads, millis, baseline / millis);
+        }
+    }
+}
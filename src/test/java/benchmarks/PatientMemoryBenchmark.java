@@ -0,0 +1,70 @@
+package benchmarks;
+
+import com.data_management.Patient;
+import com.data_management.PatientRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the retained heap of the columnar {@link Patient} store against the old
+ * {@code ArrayList<PatientRecord>} layout for one ECG sample per second per patient.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.PatientMemoryBenchmark -Dexec.args="columnar 1000 24"
+ * </pre>
+ * Arguments are {@code <columnar|boxed> <patients> <hours>}. Each layout is measured in its own
+ * JVM so the two do not share a heap; 1,000 patients x 24h needs roughly 2 GB for the columnar
+ * layout and 8 GB for the boxed one.
+ */
+public class PatientMemoryBenchmark {
+
+    public static void main(String[] args) {
+        String layout = args.length > 0 ? args[0] : "columnar";
+        int patients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int hours = args.length > 2 ? Integer.parseInt(args[2]) : 24;
+        long samplesPerPatient = hours * 3600L;
+        long start = 1_700_000_000_000L;
+
+        long before = usedHeap();
+        List<?> retained;
+        if (layout.equals("boxed")) {
+            List<List<PatientRecord>> all = new ArrayList<>(patients);
+            for (int p = 1; p <= patients; p++) {
+                List<PatientRecord> records = new ArrayList<>();
+                for (long i = 0; i < samplesPerPatient; i++) {
+                    records.add(new PatientRecord(p, Math.sin(i), "ECG", start + i * 1000));
+                }
+                all.add(records);
+            }
+            retained = all;
+        } else {
+            List<Patient> all = new ArrayList<>(patients);
+            for (int p = 1; p <= patients; p++) {
+                Patient patient = new Patient(p);
+                for (long i = 0; i < samplesPerPatient; i++) {
+                    patient.addRecord(Math.sin(i), "ECG", start + i * 1000);
+                }
+                all.add(patient);
+            }
+            retained = all;
+        }
+        long used = usedHeap() - before;
+        long samples = patients * samplesPerPatient;
+
+        System.out.printf("%s: %d patients x %dh = %d samples, %.1f MB retained, %.1f bytes/sample%n",
+                layout, patients, hours, samples, used / 1e6, (double) used / samples);
+        // Keep the data reachable until after the measurement
+        System.out.println("(" + retained.size() + " patients retained)");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
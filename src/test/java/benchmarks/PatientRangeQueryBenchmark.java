@@ -0,0 +1,84 @@
+package benchmarks;
+
+import com.data_management.Patient;
+import com.data_management.PatientRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares a recent-window range query on {@link Patient#getRecords(long, long)} (binary search
+ * plus a zero-copy view) with the previous implementation (linear scan over an
+ * {@code ArrayList<PatientRecord>} copying matches into a new list).
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.PatientRangeQueryBenchmark -Dexec.args="10000 1000000 10000000"
+ * </pre>
+ * Each argument is a history size in records per patient. The query asks for the last 60 seconds
+ * of a one-sample-per-second series.
+ */
+public class PatientRangeQueryBenchmark {
+
+    private static final long START = 1_700_000_000_000L;
+    private static final long WINDOW_MILLIS = 60_000L;
+
+    public static void main(String[] args) {
+        String[] sizes = args.length > 0 ? args : new String[] {"10000", "1000000", "10000000"};
+        for (String arg : sizes) {
+            int size = Integer.parseInt(arg);
+            run(size);
+        }
+    }
+
+    private static void run(int size) {
+        Patient patient = new Patient(1);
+        List<PatientRecord> baseline = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long timestamp = START + i * 1000L;
+            patient.addRecord(i, "ECG", timestamp);
+            baseline.add(new PatientRecord(1, i, "ECG", timestamp));
+        }
+        long end = START + (size - 1) * 1000L;
+        long start = end - WINDOW_MILLIS;
+
+        int iterations = (int) Math.max(20, 200_000_000L / size);
+        double linear = nanosPerOp(iterations, () -> linearScan(baseline, start, end).size());
+        double indexed = nanosPerOp(iterations, () -> patient.getRecords(start, end).size());
+
+        System.out.printf("%,d records: linear scan %,.0f ns/op, binary search %,.0f ns/op (%.0fx)%n",
+                size, linear, indexed, linear / indexed);
+    }
+
+    private static List<PatientRecord> linearScan(List<PatientRecord> records, long start, long end) {
+        List<PatientRecord> filtered = new ArrayList<>();
+        for (PatientRecord record : records) {
+            if (record.getTimestamp() >= start && record.getTimestamp() <= end) {
+                filtered.add(record);
+            }
+        }
+        return filtered;
+    }
+
+    private static double nanosPerOp(int iterations, Query query) {
+        long sink = 0;
+        // Warm up before timing so both paths are compiled
+        for (int i = 0; i < iterations; i++) {
+            sink += query.run();
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += query.run();
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (sink == 42) {
+            System.out.println();
+        }
+        return (double) elapsed / iterations;
+    }
+
+    private interface Query {
+        int run();
+    }
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.SlowConsumerPolicy;
+import com.cardio_generator.outputs.TcpOutputStrategy;
+import com.cardio_generator.outputs.WebSocketOutputStrategy;
+import com.data_management.DataReader;
+import com.data_management.DataStorage;
+import com.data_management.RecordBatch;
+import com.data_management.TcpDataReader;
+import com.data_management.WebSocketDataReader;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the sustained ingest rate of {@link TcpDataReader} and {@link WebSocketDataReader} on
+ * loopback: samples per second from the simulator's output strategy into a real DataStorage.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.ReaderIngestBenchmark -Dexec.args="1000000 8400"
+ * </pre>
+ * Arguments: samples per run, first port.
+ */
+public class ReaderIngestBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8400;
+
+        for (int round = 0; round < 2; round++) {
+            TcpOutputStrategy tcp = new TcpOutputStrategy(0, TcpOutputStrategy.DEFAULT_BUFFER_SIZE,
+                    TcpOutputStrategy.DEFAULT_MAX_BUFFERS, SlowConsumerPolicy.BLOCK);
+            run("TCP                   ", tcp, new TcpDataReader("localhost", tcp.getPort()), count);
+            tcp.close();
+
+            WebSocketOutputStrategy ws = new WebSocketOutputStrategy(port);
+            run("WebSocket             ", ws, new WebSocketDataReader(new URI("ws://localhost:" + port)), count);
+            port++;
+
+            WebSocketOutputStrategy batched = new WebSocketOutputStrategy(port, 256, 5);
+            run("WebSocket, batch 256  ", batched, new WebSocketDataReader(new URI("ws://localhost:" + port)), count);
+            port++;
+        }
+        System.exit(0);
+    }
+
+    private static void run(String name, OutputStrategy output, DataReader reader, int count) throws Exception {
+        Thread.sleep(300);
+        AtomicLong stored = new AtomicLong();
+        DataStorage storage = new DataStorage() {
+            @Override
+            public void addPatientData(int patientId, double measurementValue, String recordType, long timestamp) {
+                super.addPatientData(patientId, measurementValue, recordType, timestamp);
+                stored.incrementAndGet();
+            }
+
+            @Override
+            public void addPatientDataBatch(RecordBatch batch) {
+                super.addPatientDataBatch(batch);
+                stored.addAndGet(batch.size());
+            }
+        };
+        reader.readData(storage);
+        Thread.sleep(300);
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            output.output(i & 1023, 1714376789050L + i, "ECG", "0.4213987654321");
+        }
+        while (stored.get() < count) {
+            Thread.sleep(1);
+        }
+        System.out.printf("%s %,12.0f samples/sec stored%n", name, count / ((System.nanoTime() - begin) / 1e9));
+        if (reader instanceof WebSocketDataReader) {
+            ((WebSocketDataReader) reader).closeBlocking();
+        } else {
+            ((TcpDataReader) reader).close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package benchmarks;
+
+import com.cardio_generator.generators.BloodLevelsDataGenerator;
+import com.cardio_generator.generators.BloodPressureDataGenerator;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.data_management.DataStorage;
+import com.data_management.Patient;
+import com.data_management.PatientRecord;
+import com.data_management.RetentionPolicy;
+import com.data_management.Rollup;
+
+import java.util.List;
+
+/**
+ * Shows heap usage over a multi-day simulated run with and without a {@link RetentionPolicy},
+ * and compares a day-long query on raw samples with one served from rollups.
+ *
+ * <p>The simulator's generators are driven on a simulated clock at the simulator's rates. The
+ * policy keeps raw ECG for 1 hour and everything else for 24 hours; the storage is compacted
+ * every simulated minute, standing in for the background compactor, which runs on wall-clock
+ * time. Heap is measured after a full GC.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.RetentionBenchmark -Dexec.args="50 4"
+ * </pre>
+ * Arguments: patients, simulated days.
+ */
+public class RetentionBenchmark {
+
+    private static final long START = 1_699_999_200_000L;
+    private static final long HOUR = 3_600_000L;
+
+    public static void main(String[] args) {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        System.out.println("Without retention:");
+        run(patients, days, null);
+        System.out.println("With retention (raw ECG 1 h, other raw 24 h):");
+        run(patients, days, new RetentionPolicy(24 * HOUR).withRawRetention("ECG", HOUR)
+                .withCompactionInterval(Long.MAX_VALUE));
+    }
+
+    private static void run(int patients, int days, RetentionPolicy policy) {
+        DataStorage storage = new DataStorage() {};
+        storage.setRetentionPolicy(policy);
+        long[] clock = new long[1];
+        OutputStrategy capture = (patientId, timestamp, label, data) -> {
+            String number = data.endsWith("%") ? data.substring(0, data.length() - 1) : data;
+            storage.addPatientData(patientId, Double.parseDouble(number), label, clock[0]);
+        };
+        ECGDataGenerator ecg = new ECGDataGenerator(patients);
+        BloodSaturationDataGenerator saturation = new BloodSaturationDataGenerator(patients);
+        BloodPressureDataGenerator pressure = new BloodPressureDataGenerator(patients);
+        BloodLevelsDataGenerator levels = new BloodLevelsDataGenerator(patients);
+        long compactionNanos = 0;
+        int compactions = 0;
+        for (long second = 0; second < days * 86_400L; second++) {
+            clock[0] = START + second * 1000L;
+            for (int patientId = 1; patientId <= patients; patientId++) {
+                ecg.generate(patientId, capture);
+                saturation.generate(patientId, capture);
+                if (second % 60 == 0) {
+                    pressure.generate(patientId, capture);
+                }
+                if (second % 120 == 0) {
+                    levels.generate(patientId, capture);
+                }
+            }
+            if (policy != null && second % 60 == 59) {
+                long begin = System.nanoTime();
+                storage.compact();
+                compactionNanos += System.nanoTime() - begin;
+                compactions++;
+            }
+            if (second % (12 * 3600) == 12 * 3600 - 1) {
+                System.out.printf("  day %4.1f: heap %,6d MB%n", (second + 1) / 86_400.0, usedHeapMegabytes());
+            }
+        }
+        if (policy != null) {
+            System.out.printf("  compaction: %,.0f us per pass over %d patients%n",
+                    compactionNanos / 1e3 / compactions, patients);
+        }
+
+        long end = clock[0];
+        List<Patient> all = storage.getAllPatients();
+        long begin = System.nanoTime();
+        int queries = 0;
+        long sink = 0;
+        while (System.nanoTime() - begin < 2_000_000_000L) {
+            for (Patient patient : all) {
+                if (policy == null) {
+                    for (PatientRecord record : patient.getRecords("Saturation", end - 24 * HOUR, end)) {
+                        sink += (long) record.getMeasurementValue();
+                    }
+                } else {
+                    for (Rollup rollup : patient.getRollups("Saturation", end - 24 * HOUR, end, 1_500)) {
+                        sink += (long) rollup.getAverage();
+                    }
+                }
+                queries++;
+            }
+        }
+        System.out.printf("  24 h saturation query (%s): %,.0f us%n", policy == null ? "raw samples" : "rollups",
+                (System.nanoTime() - begin) / 1e3 / queries);
+        if (sink == 42) {
+            System.out.print("");
+        }
+        storage.setRetentionPolicy(null);
+    }
+
+    private static long usedHeapMegabytes() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+    }
+}
@@ -0,0 +1,186 @@
+package benchmarks;
+
+import com.cardio_generator.TickScheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of scheduling the simulator's per-patient tasks, as a function of the
+ * patient count: CPU time per simulated second, thread count, heap, and how late tasks run.
+ * The tasks do no work, so everything measured is scheduling overhead.
+ *
+ * <p>Compared are the previous setup, a {@code ScheduledThreadPoolExecutor} with four threads
+ * per patient (only up to a thread limit), the same executor with one thread per core, and
+ * {@link TickScheduler}. Each patient gets the simulator's five tasks: two every second, one
+ * every 20 seconds, one every minute and one every two minutes, starting at random points
+ * within their first period.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.SchedulerBenchmark -Dexec.args="1000,10000,100000 10 4000"
+ * </pre>
+ * Arguments: comma-separated patient counts, seconds measured per run, thread limit for the
+ * four-threads-per-patient executor.
+ */
+public class SchedulerBenchmark {
+
+    private static final long[] PERIODS_MILLIS = {1_000L, 1_000L, 60_000L, 120_000L, 20_000L};
+    private static final long WARM_UP_MILLIS = 2_000L;
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] counts = (args.length > 0 ? args[0] : "1000,10000,100000").split(",");
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threadLimit = args.length > 2 ? Integer.parseInt(args[2]) : 4000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%d cores, %d s per run%n", cores, seconds);
+        for (String count : counts) {
+            int patients = Integer.parseInt(count.trim());
+            System.out.printf("%,d patients:%n", patients);
+            if (patients * 4 <= threadLimit) {
+                run("  thread pool, 4 threads/patient", patients, seconds,
+                        new ExecutorScheduler(Executors.newScheduledThreadPool(patients * 4)));
+            } else {
+                System.out.printf("  thread pool, 4 threads/patient  skipped: %,d threads%n", patients * 4);
+            }
+            run("  thread pool, 1 thread/core    ", patients, seconds,
+                    new ExecutorScheduler(Executors.newScheduledThreadPool(cores)));
+            run("  timing wheel                  ", patients, seconds, new WheelScheduler(new TickScheduler()));
+        }
+    }
+
+    private static void run(String name, int patients, int seconds, Scheduler scheduler)
+            throws InterruptedException {
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int patient = 0; patient < patients; patient++) {
+            for (long period : PERIODS_MILLIS) {
+                long initialDelay = (long) (random.nextDouble() * period);
+                Task task = new Task(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelay),
+                        TimeUnit.MILLISECONDS.toNanos(period));
+                tasks.add(task);
+                scheduler.schedule(task, initialDelay, period);
+            }
+        }
+        long scheduledNanos = System.nanoTime() - start;
+
+        Thread.sleep(WARM_UP_MILLIS);
+        for (Task task : tasks) {
+            task.measuring = true;
+        }
+        long cpuBefore = processCpuNanos();
+        Thread.sleep(seconds * 1000L);
+        long cpu = processCpuNanos() - cpuBefore;
+        for (Task task : tasks) {
+            task.measuring = false;
+        }
+        int threads = Thread.activeCount();
+        long heap = usedHeapMegabytes();
+        scheduler.close();
+
+        long runs = 0;
+        long lateNanos = 0;
+        long maxLateNanos = 0;
+        for (Task task : tasks) {
+            runs += task.runs;
+            lateNanos += task.lateNanos;
+            maxLateNanos = Math.max(maxLateNanos, task.maxLateNanos);
+        }
+        System.out.printf("%s  setup %,6d ms, %,7.1f ms CPU/s, %,9d runs/s, %,6d threads, heap %,5d MB,"
+                        + " late avg %,7.2f ms max %,7.1f ms%n",
+                name, scheduledNanos / 1_000_000, cpu / 1e6 / seconds, runs / seconds, threads, heap,
+                runs == 0 ? 0 : lateNanos / 1e6 / runs, maxLateNanos / 1e6);
+        System.gc();
+        Thread.sleep(500);
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getProcessCpuTime();
+    }
+
+    private static long usedHeapMegabytes() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+    }
+
+    /**
+     * A no-op task that tracks how far behind its fixed-rate schedule each run starts.
+     */
+    private static final class Task implements Runnable {
+        private final long periodNanos;
+        private long dueNanos;
+        volatile boolean measuring;
+        long runs;
+        long lateNanos;
+        long maxLateNanos;
+
+        Task(long dueNanos, long periodNanos) {
+            this.dueNanos = dueNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        @Override
+        public void run() {
+            long late = System.nanoTime() - dueNanos;
+            dueNanos += periodNanos;
+            if (measuring) {
+                runs++;
+                lateNanos += late;
+                maxLateNanos = Math.max(maxLateNanos, late);
+            }
+        }
+    }
+
+    private interface Scheduler {
+        void schedule(Runnable task, long initialDelayMillis, long periodMillis);
+
+        void close() throws InterruptedException;
+    }
+
+    private static final class ExecutorScheduler implements Scheduler {
+        private final ScheduledExecutorService executor;
+
+        ExecutorScheduler(ScheduledExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void schedule(Runnable task, long initialDelayMillis, long periodMillis) {
+            executor.scheduleAtFixedRate(task, initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static final class WheelScheduler implements Scheduler {
+        private final TickScheduler scheduler;
+
+        WheelScheduler(TickScheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public void schedule(Runnable task, long initialDelayMillis, long periodMillis) {
+            scheduler.scheduleAtFixedRate(task, initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void close() {
+            scheduler.close();
+        }
+    }
+}
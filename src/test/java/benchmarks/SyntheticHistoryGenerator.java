@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a synthetic history file in the {@code patientId,value,label,timestamp} layout read by
+ * {@link com.data_management.FileDataReader}, in time order, as a ward's simulator log would be.
+ * Each patient gets one sample per second cycling through the simulator's record types.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.SyntheticHistoryGenerator -Dexec.args="/tmp/history.txt 1000 25000000"
+ * </pre>
+ * Arguments: output file, patients, lines.
+ */
+public class SyntheticHistoryGenerator {
+
+    private static final String[] LABELS = {"ECG", "Saturation", "SystolicPressure", "DiastolicPressure",
+            "HeartRate", "Cholesterol", "WhiteBloodCells", "RedBloodCells"};
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "history.txt");
+        int patients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long lines = args.length > 2 ? Long.parseLong(args[2]) : 25_000_000L;
+        long begin = System.nanoTime();
+        write(file, patients, lines);
+        System.out.printf("Wrote %,d lines (%,d bytes) in %.1f s%n", lines, Files.size(file),
+                (System.nanoTime() - begin) / 1e9);
+    }
+
+    /**
+     * Writes {@code lines} records for {@code patients} patients to {@code file}.
+     *
+     * @param file     the file to create or overwrite
+     * @param patients the number of patients
+     * @param lines    the number of records
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, int patients, long lines) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        long start = 1714376000000L;
+        StringBuilder line = new StringBuilder(64);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (long i = 0; i < lines; i++) {
+                long second = i / patients;
+                int patient = (int) (i % patients) + 1;
+                int type = (int) ((second + patient) % LABELS.length);
+                line.setLength(0);
+                line.append(patient).append(',')
+                        .append(Math.round(random.nextDouble(40, 200) * 100) / 100.0).append(',')
+                        .append(LABELS[type]).append(',')
+                        .append(start + second * 1000).append('\n');
+                out.append(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package benchmarks;
+
+import com.cardio_generator.outputs.SlowConsumerPolicy;
+import com.cardio_generator.outputs.TcpOutputStrategy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for {@link TcpOutputStrategy}: one producer broadcasting to many local TCP consumers.
+ * Reports aggregate lines and bytes delivered per second, and lines dropped, for each policy.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.TcpOutputBenchmark -Dexec.args="100 200000"
+ * </pre>
+ * Arguments: consumers, lines produced per run.
+ */
+public class TcpOutputBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int consumers = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        for (SlowConsumerPolicy policy : new SlowConsumerPolicy[] {SlowConsumerPolicy.BLOCK, SlowConsumerPolicy.DROP_OLDEST}) {
+            try (TcpOutputStrategy output = new TcpOutputStrategy(0, TcpOutputStrategy.DEFAULT_BUFFER_SIZE,
+                    TcpOutputStrategy.DEFAULT_MAX_BUFFERS, policy)) {
+                run(policy.name(), output, consumers, lines);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void run(String name, TcpOutputStrategy output, int consumers, int lines) throws Exception {
+        AtomicLong receivedLines = new AtomicLong();
+        AtomicLong receivedBytes = new AtomicLong();
+        List<SocketChannel> channels = new ArrayList<>();
+        for (int i = 0; i < consumers; i++) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", output.getPort()));
+            channels.add(channel);
+            Thread reader = new Thread(() -> consume(channel, receivedLines, receivedBytes));
+            reader.setDaemon(true);
+            reader.start();
+        }
+        while (output.getClientCount() < consumers) {
+            Thread.sleep(1);
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            output.output(i & 1023, 1714376789050L + i, "ECG", "0.4213987654321");
+        }
+        long produced = System.nanoTime() - begin;
+        long expected = (long) consumers * lines;
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (receivedLines.get() + output.getDroppedLineCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("%-12s %d consumers: %,12.0f lines/sec  %7.1f MB/sec delivered, producer %,10.0f lines/sec,"
+                        + " dropped %d of %d%n",
+                name, consumers, receivedLines.get() / seconds, receivedBytes.get() / seconds / 1e6,
+                lines / (produced / 1e9), output.getDroppedLineCount(), expected);
+        for (SocketChannel channel : channels) {
+            channel.close();
+        }
+    }
+
+    private static void consume(SocketChannel channel, AtomicLong lines, AtomicLong bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        try {
+            int read;
+            while ((read = channel.read(buffer)) >= 0) {
+                buffer.flip();
+                long count = 0;
+                while (buffer.hasRemaining()) {
+                    if (buffer.get() == '\n') {
+                        count++;
+                    }
+                }
+                buffer.clear();
+                lines.addAndGet(count);
+                bytes.addAndGet(read);
+            }
+        } catch (IOException e) {
+            // Closed at the end of the run
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package benchmarks;
+
+import com.cardio_generator.PatientLoop;
+import com.cardio_generator.generators.AlertGenerator;
+import com.cardio_generator.generators.BloodLevelsDataGenerator;
+import com.cardio_generator.generators.BloodPressureDataGenerator;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.common.ThreadMode;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the memory footprint and the achievable patient count of the simulator's
+ * thread-per-patient mode with platform and with virtual threads. Each patient runs a
+ * {@link PatientLoop} with the simulator's generators and periods; the output discards the
+ * samples. For each patient count the benchmark reports the time to start the threads, the
+ * process's resident set size, the heap the threads add, the operating-system threads in use,
+ * and the task runs achieved against the schedule. Run each mode in its own JVM: memory freed by
+ * one configuration is not always returned to the operating system before the next.
+ *
+ * <p>A mode stops at the first count whose threads cannot all be created, or take more than 30
+ * seconds to start. Virtual
+ * threads need Java 21. Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.ThreadModeBenchmark -Dexec.args="virtual 1000,10000,100000 5"
+ * </pre>
+ * Arguments: thread mode, comma-separated patient counts, seconds measured per run.
+ */
+public class ThreadModeBenchmark {
+
+    private static final long[] PERIODS_MILLIS = {1_000L, 1_000L, 60_000L, 120_000L, 20_000L};
+    private static final long WARM_UP_MILLIS = 2_000L;
+    // A configuration whose threads take longer than this to start counts as not achievable
+    private static final long START_BUDGET_NANOS = 30_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        ThreadMode mode = ThreadMode.parse(args.length > 0 ? args[0] : "virtual");
+        String[] counts = (args.length > 1 ? args[1] : "1000,10000,100000").split(",");
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        System.out.printf("%s threads, Java %s, %d cores, %,d MB max heap, %,d MB RSS at start%n", mode,
+                System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory() / (1024 * 1024), residentMegabytes());
+        if (mode == ThreadMode.VIRTUAL && !mode.isVirtual()) {
+            System.out.println("Virtual threads need Java 21");
+            return;
+        }
+        for (String count : counts) {
+            if (!run(mode, Integer.parseInt(count.trim()), seconds)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Runs one configuration; returns false if not every patient thread could be started.
+     */
+    private static boolean run(ThreadMode mode, int patients, int seconds) throws Exception {
+        LongAdder runs = new LongAdder();
+        OutputStrategy discard = (patientId, timestamp, label, data) -> { };
+        ECGDataGenerator ecg = new ECGDataGenerator(patients);
+        BloodSaturationDataGenerator saturation = new BloodSaturationDataGenerator(patients);
+        BloodPressureDataGenerator pressure = new BloodPressureDataGenerator(patients);
+        BloodLevelsDataGenerator levels = new BloodLevelsDataGenerator(patients);
+        AlertGenerator alerts = new AlertGenerator(patients);
+        Random random = new Random(42);
+
+        long heapBefore = usedHeapMegabytes();
+        List<Thread> threads = new ArrayList<>(patients);
+        long start = System.nanoTime();
+        boolean complete = true;
+        try {
+            for (int patientId = 1; patientId <= patients; patientId++) {
+                int id = patientId;
+                Runnable[] tasks = {
+                        counted(() -> ecg.generate(id, discard), runs),
+                        counted(() -> saturation.generate(id, discard), runs),
+                        counted(() -> pressure.generate(id, discard), runs),
+                        counted(() -> levels.generate(id, discard), runs),
+                        counted(() -> alerts.generate(id, discard), runs)
+                };
+                Thread thread = mode.newThread("patient-" + id, new PatientLoop(tasks, PERIODS_MILLIS, random));
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+                if (System.nanoTime() - start > START_BUDGET_NANOS) {
+                    complete = false;
+                    System.out.printf("  %,7d patients: gave up, %,d threads started in %d s%n", patients,
+                            threads.size(), START_BUDGET_NANOS / 1_000_000_000L);
+                    break;
+                }
+            }
+        } catch (OutOfMemoryError e) {
+            complete = false;
+            System.out.printf("  %,7d patients: failed after %,d threads: %s%n", patients, threads.size(),
+                    e.getMessage());
+        }
+        long startMillis = (System.nanoTime() - start) / 1_000_000;
+
+        if (complete) {
+            Thread.sleep(WARM_UP_MILLIS);
+            long before = runs.sum();
+            Thread.sleep(seconds * 1000L);
+            double perSecond = (runs.sum() - before) / (double) seconds;
+            double expected = 0;
+            for (long period : PERIODS_MILLIS) {
+                expected += patients * 1000.0 / period;
+            }
+            int osThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+            long heap = usedHeapMegabytes() - heapBefore;
+            long rss = residentMegabytes();
+            System.out.printf("  %,7d patients: start %,6d ms, %,5d MB RSS, +%,4d MB heap, %,6d OS threads,"
+                            + " %,9.0f runs/s (%.0f%% of schedule)%n",
+                    patients, startMillis, rss, heap, osThreads, perSecond, 100 * perSecond / expected);
+        }
+
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        threads.clear();
+        usedHeapMegabytes();
+        return complete;
+    }
+
+    private static Runnable counted(Runnable task, LongAdder runs) {
+        return () -> {
+            task.run();
+            runs.increment();
+        };
+    }
+
+    private static long usedHeapMegabytes() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+    }
+
+    private static long residentMegabytes() throws IOException {
+        for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,117 @@
+package benchmarks;
+
+import com.cardio_generator.generators.BloodLevelsDataGenerator;
+import com.cardio_generator.generators.BloodPressureDataGenerator;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.data_management.ColdStorage;
+import com.data_management.DataStorage;
+import com.data_management.PatientRecord;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Reports the compression ratio of {@link ColdStorage} on simulator data and compares range query
+ * latency on the heap and on disk.
+ *
+ * <p>The simulator's generators are driven on a simulated clock at the simulator's rates (ECG and
+ * saturation every second, blood pressure every minute, blood levels every two minutes) with a few
+ * milliseconds of scheduling jitter, into a storage with a one-hour hot window and into one that
+ * keeps everything on the heap.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.TieredStorageBenchmark -Dexec.args="/tmp/cold 100 6"
+ * </pre>
+ * Arguments: cold storage directory, patients, simulated hours.
+ */
+public class TieredStorageBenchmark {
+
+    private static final long START = 1_700_000_000_000L;
+    private static final long HOT_WINDOW_MILLIS = 3_600_000L;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "cold");
+        int patients = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int hours = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+
+        DataStorage heap = new DataStorage() {};
+        DataStorage tiered = new DataStorage() {};
+        try (ColdStorage cold = new ColdStorage(directory)) {
+            tiered.setColdStorage(cold, HOT_WINDOW_MILLIS);
+            long samples = simulate(patients, hours, heap, tiered);
+            System.out.printf("%,d samples, %,d sealed to disk in %,d bytes: %.2f bytes/sample, %.1fx smaller%n",
+                    samples, cold.getSealedSampleCount(), cold.getStoredBytes(),
+                    (double) cold.getStoredBytes() / cold.getSealedSampleCount(),
+                    cold.getSealedSampleCount() * 16.0 / cold.getStoredBytes());
+
+            long end = START + hours * 3_600_000L;
+            query("last minute (hot)", heap, tiered, patients, end - 60_000L, end);
+            query("1 min, 3 h ago (cold)", heap, tiered, patients, end - 3 * 3_600_000L, end - 3 * 3_600_000L + 60_000L);
+            query("1 h, 3 h ago (cold)", heap, tiered, patients, end - 3 * 3_600_000L, end - 2 * 3_600_000L);
+        }
+    }
+
+    private static long simulate(int patients, int hours, DataStorage heap, DataStorage tiered) {
+        Random jitter = new Random(1);
+        long[] clock = new long[1];
+        long[] samples = new long[1];
+        OutputStrategy capture = (patientId, timestamp, label, data) -> {
+            String number = data.endsWith("%") ? data.substring(0, data.length() - 1) : data;
+            double value = Double.parseDouble(number);
+            long at = clock[0] + jitter.nextInt(4);
+            heap.addPatientData(patientId, value, label, at);
+            tiered.addPatientData(patientId, value, label, at);
+            samples[0]++;
+        };
+        ECGDataGenerator ecg = new ECGDataGenerator(patients);
+        BloodSaturationDataGenerator saturation = new BloodSaturationDataGenerator(patients);
+        BloodPressureDataGenerator pressure = new BloodPressureDataGenerator(patients);
+        BloodLevelsDataGenerator levels = new BloodLevelsDataGenerator(patients);
+        for (int second = 0; second < hours * 3600; second++) {
+            clock[0] = START + second * 1000L;
+            for (int patientId = 1; patientId <= patients; patientId++) {
+                ecg.generate(patientId, capture);
+                saturation.generate(patientId, capture);
+                if (second % 60 == 0) {
+                    pressure.generate(patientId, capture);
+                }
+                if (second % 120 == 0) {
+                    levels.generate(patientId, capture);
+                }
+            }
+        }
+        return samples[0];
+    }
+
+    private static void query(String name, DataStorage heap, DataStorage tiered, int patients, long start, long end) {
+        double heapNanos = nanosPerQuery(heap, patients, start, end);
+        double tieredNanos = nanosPerQuery(tiered, patients, start, end);
+        System.out.printf("%-24s heap %,10.0f ns/query   tiered %,10.0f ns/query%n", name, heapNanos, tieredNanos);
+    }
+
+    private static double nanosPerQuery(DataStorage storage, int patients, long start, long end) {
+        long sink = 0;
+        int queries = 0;
+        long begin = System.nanoTime();
+        long deadline = begin + 2_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            for (int patientId = 1; patientId <= patients; patientId++) {
+                // Touch every record so lazily materialized views do their work
+                for (PatientRecord record : storage.getRecords(patientId, start, end)) {
+                    sink += (long) record.getMeasurementValue();
+                }
+                queries++;
+            }
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return (System.nanoTime() - begin) / (double) queries;
+    }
+}
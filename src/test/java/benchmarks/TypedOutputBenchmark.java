@@ -0,0 +1,146 @@
+package benchmarks;
+
+import com.cardio_generator.generators.BloodLevelsDataGenerator;
+import com.cardio_generator.generators.BloodPressureDataGenerator;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.generators.SampleBlock;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.WebSocketOutputStrategy;
+import com.data_management.DataStorage;
+import com.data_management.RecordBatch;
+import com.data_management.WebSocketDataReader;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the simulator's path end to end: generators, a batching {@link WebSocketOutputStrategy},
+ * a binary {@link WebSocketDataReader} over loopback, and a DataStorage. For each way of handing
+ * samples to the output it reports the rate at which samples are stored and the bytes allocated
+ * per sample, summed over every thread of the process (producer, server, reader) and for the
+ * producing thread alone, which runs the generators and encodes the frames.
+ *
+ * <p>Compared are samples formatted as text and parsed back by the output (the string interface),
+ * typed samples one at a time, and typed columns from {@link PatientDataGenerator#generateBatch}.
+ * The generators are ECG, saturation, blood pressure and blood levels, seven samples per patient
+ * per round; alerts are left out because their sample count is random.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.TypedOutputBenchmark -Dexec.args="10000 30 8500"
+ * </pre>
+ * Arguments: patients, rounds per run, first port (one port is used per run).
+ */
+public class TypedOutputBenchmark {
+
+    private static final int BATCH_SIZE = 256;
+    private static final long MAX_DELAY_MILLIS = 5;
+    private static final int SAMPLES_PER_PATIENT = 7;
+
+    public static void main(String[] args) throws Exception {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 8500;
+
+        System.out.printf("%,d patients, %d rounds, %,d samples per run%n", patients, rounds,
+                (long) patients * rounds * SAMPLES_PER_PATIENT);
+        // The first pass warms up the JIT
+        for (int pass = 0; pass < 2; pass++) {
+            for (String mode : new String[] {"string", "typed", "typed batch"}) {
+                run(mode, patients, rounds, port++, pass == 1);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void run(String mode, int patients, int rounds, int port, boolean report) throws Exception {
+        WebSocketOutputStrategy webSocket = new WebSocketOutputStrategy(port, BATCH_SIZE, MAX_DELAY_MILLIS);
+        Thread.sleep(300);
+        AtomicLong stored = new AtomicLong();
+        DataStorage storage = new DataStorage() {
+            @Override
+            public void addPatientData(int patientId, double measurementValue, String recordType, long timestamp) {
+                super.addPatientData(patientId, measurementValue, recordType, timestamp);
+                stored.incrementAndGet();
+            }
+
+            @Override
+            public void addPatientDataBatch(RecordBatch batch) {
+                super.addPatientDataBatch(batch);
+                stored.addAndGet(batch.size());
+            }
+        };
+        WebSocketDataReader reader = new WebSocketDataReader(
+                new URI("ws://localhost:" + port + "/?" + WebSocketOutputStrategy.BINARY_FORMAT_QUERY));
+        reader.readData(storage);
+        Thread.sleep(300);
+
+        // A lambda only implements the string method, so typed samples reach it formatted as text
+        OutputStrategy output = mode.equals("string")
+                ? (patientId, timestamp, label, data) -> webSocket.output(patientId, timestamp, label, data)
+                : webSocket;
+        PatientDataGenerator[] generators = {
+                new ECGDataGenerator(patients),
+                new BloodSaturationDataGenerator(patients),
+                new BloodPressureDataGenerator(patients),
+                new BloodLevelsDataGenerator(patients)
+        };
+        SampleBlock[] blocks = new SampleBlock[generators.length];
+        for (int i = 0; i < generators.length; i++) {
+            blocks[i] = generators[i].newBlock(patients);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        long expected = (long) patients * rounds * SAMPLES_PER_PATIENT;
+
+        long allocatedBefore = allocatedBytes();
+        long producerBefore = producerAllocatedBytes();
+        long begin = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < generators.length; i++) {
+                if (mode.equals("typed batch")) {
+                    generators[i].generateBatch(1, patients + 1, System.currentTimeMillis(), random, blocks[i]);
+                    blocks[i].writeTo(output);
+                } else {
+                    for (int patientId = 1; patientId <= patients; patientId++) {
+                        generators[i].generate(patientId, output);
+                    }
+                }
+            }
+        }
+        webSocket.flush();
+        long producerAllocated = producerAllocatedBytes() - producerBefore;
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        while (stored.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        long elapsed = System.nanoTime() - begin;
+        long allocated = allocatedBytes() - allocatedBefore;
+        if (report) {
+            System.out.printf("  %-12s %,12.0f samples/s stored, %6.1f bytes/sample allocated,"
+                            + " %6.1f by the producer%s%n", mode,
+                    stored.get() / (elapsed / 1e9), (double) allocated / stored.get(),
+                    (double) producerAllocated / expected,
+                    stored.get() < expected ? ", only " + stored.get() + " stored" : "");
+        }
+        reader.closeBlocking();
+    }
+
+    private static long producerAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(allocated, 0);
+        }
+        return total;
+    }
+}
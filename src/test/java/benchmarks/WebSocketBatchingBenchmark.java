@@ -0,0 +1,108 @@
+package benchmarks;
+
+import com.cardio_generator.outputs.WebSocketOutputStrategy;
+import com.data_management.DataStorage;
+import com.data_management.RecordBatch;
+import com.data_management.WebSocketDataReader;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures {@link WebSocketOutputStrategy} batching over loopback: saturated throughput and the
+ * delivery latency added at a steady sample rate, for several batch sizes and both wire formats.
+ * Batch size 1 is the unbatched strategy.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.WebSocketBatchingBenchmark -Dexec.args="200000 20000 8100"
+ * </pre>
+ * Arguments: samples per throughput run, steady rate in samples/sec for the latency run, first
+ * port (one port is used per configuration). The latency run sends the send time in nanoseconds
+ * as the sample timestamp and the reader subtracts it on arrival.
+ */
+public class WebSocketBatchingBenchmark {
+
+    private static final int[] BATCH_SIZES = {1, 16, 64, 256, 1024};
+    private static final long MAX_DELAY_MILLIS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 8100;
+
+        for (boolean binary : new boolean[] {false, true}) {
+            for (int batchSize : BATCH_SIZES) {
+                WebSocketOutputStrategy output = batchSize == 1
+                        ? new WebSocketOutputStrategy(port)
+                        : new WebSocketOutputStrategy(port, batchSize, MAX_DELAY_MILLIS);
+                Thread.sleep(300);
+                String uri = "ws://localhost:" + port + (binary ? "/?" + WebSocketOutputStrategy.BINARY_FORMAT_QUERY : "");
+                run(output, uri, (binary ? "binary" : "text  ") + " batch " + batchSize, count, rate);
+                port++;
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void run(WebSocketOutputStrategy output, String uri, String name, int count, int rate)
+            throws Exception {
+        int latencySamples = rate;
+        long[] latencies = new long[latencySamples];
+        AtomicInteger received = new AtomicInteger();
+        boolean[] measuring = {false};
+        WebSocketDataReader reader = new WebSocketDataReader(new URI(uri));
+        reader.readData(new DataStorage() {
+            @Override
+            public void addPatientData(int patientId, double measurementValue, String recordType, long timestamp) {
+                receive(timestamp);
+            }
+
+            @Override
+            public void addPatientDataBatch(RecordBatch batch) {
+                for (int i = 0; i < batch.size(); i++) {
+                    receive(batch.timestampAt(i));
+                }
+            }
+
+            private void receive(long timestamp) {
+                int n = received.getAndIncrement();
+                if (measuring[0] && n < latencies.length) {
+                    latencies[n] = System.nanoTime() - timestamp;
+                }
+            }
+        });
+        Thread.sleep(200);
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            output.output(i & 1023, i, "ECG", "0.4213987654321");
+        }
+        while (received.get() < count) {
+            Thread.sleep(1);
+        }
+        double throughput = count / ((System.nanoTime() - begin) / 1e9);
+
+        received.set(0);
+        measuring[0] = true;
+        long interval = 1_000_000_000L / rate;
+        long next = System.nanoTime();
+        for (int i = 0; i < latencySamples; i++) {
+            while (System.nanoTime() < next) {
+                LockSupport.parkNanos(20_000);
+            }
+            output.output(i & 1023, System.nanoTime(), "ECG", "0.4213987654321");
+            next += interval;
+        }
+        while (received.get() < latencySamples) {
+            Thread.sleep(1);
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-18s %,10.0f samples/sec  latency p50 %6.2f ms  p99 %6.2f ms%n", name, throughput,
+                latencies[latencySamples / 2] / 1e6, latencies[latencySamples * 99 / 100] / 1e6);
+        reader.closeBlocking();
+    }
+}
@@ -0,0 +1,112 @@
+package benchmarks;
+
+import com.cardio_generator.outputs.SlowConsumerPolicy;
+import com.cardio_generator.outputs.WebSocketOutputStrategy;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long {@link WebSocketOutputStrategy#output} holds the generator thread with many
+ * subscribers, sending on the caller's thread versus per-connection queues. CPU time is what the
+ * call itself costs; wall time also includes being descheduled in favour of the I/O threads. One extra subscriber
+ * completes the handshake and then never reads, to stand in for a stalled client.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.WebSocketFanOutBenchmark -Dexec.args="500 2000 100 8300"
+ * </pre>
+ * Arguments: subscribers, samples, samples per second, first port.
+ */
+public class WebSocketFanOutBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int subscribers = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int rate = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : 8300;
+
+        run("caller thread    ", new WebSocketOutputStrategy(port), port, subscribers, samples, rate);
+        run("queued, drop old ", new WebSocketOutputStrategy(port + 1, 256,
+                SlowConsumerPolicy.DROP_OLDEST), port + 1, subscribers, samples, rate);
+        System.exit(0);
+    }
+
+    private static void run(String name, WebSocketOutputStrategy output, int port, int subscribers, int samples,
+                            int rate)
+            throws Exception {
+        Thread.sleep(300);
+        AtomicLong received = new AtomicLong();
+        List<WebSocketClient> clients = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            WebSocketClient client = new WebSocketClient(new URI("ws://localhost:" + port)) {
+                @Override public void onOpen(ServerHandshake handshake) {}
+                @Override public void onMessage(String message) { received.incrementAndGet(); }
+                @Override public void onClose(int code, String reason, boolean remote) {}
+                @Override public void onError(Exception ex) {}
+            };
+            client.connectBlocking();
+            clients.add(client);
+        }
+        Socket stalled = new Socket("localhost", port);
+        stalled.setReceiveBufferSize(4096);
+        OutputStream handshake = stalled.getOutputStream();
+        handshake.write(("GET / HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 13\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        handshake.flush();
+        Thread.sleep(500);
+
+        long[] callNanos = new long[samples];
+        long cpuNanos = 0;
+        // A payload large enough for the stalled client's socket buffers to fill during the run
+        String data = "0.4213987654321".repeat(20);
+        int maxDepth = 0;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long begin = System.nanoTime();
+        long next = begin;
+        for (int i = 0; i < samples; i++) {
+            while (System.nanoTime() < next) {
+                Thread.onSpinWait();
+            }
+            long cpuStart = threads.getCurrentThreadCpuTime();
+            long start = System.nanoTime();
+            output.output(i, System.currentTimeMillis(), "ECG", data);
+            callNanos[i] = System.nanoTime() - start;
+            cpuNanos += threads.getCurrentThreadCpuTime() - cpuStart;
+            next += 1_000_000_000L / rate;
+            if (i % 50 == 0) {
+                for (int depth : output.getQueueDepths().values()) {
+                    maxDepth = Math.max(maxDepth, depth);
+                }
+            }
+        }
+        long expected = (long) subscribers * samples;
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (received.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        long delivered = System.nanoTime() - begin;
+        Arrays.sort(callNanos);
+        System.out.printf("%s output() cpu %6.1f us, wall p50 %7.1f us  p99 %7.1f us  max %8.1f us | delivered %d/%d in %.2f s,"
+                        + " max queue depth %d, dropped %d%n",
+                name, cpuNanos / 1e3 / samples, callNanos[samples / 2] / 1e3, callNanos[samples * 99 / 100] / 1e3,
+                callNanos[samples - 1] / 1e3, received.get(), expected, delivered / 1e9, maxDepth,
+                output.getDroppedFrameCount());
+        for (WebSocketClient client : clients) {
+            client.close();
+        }
+        stalled.close();
+    }
+}
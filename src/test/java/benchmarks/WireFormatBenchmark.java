@@ -0,0 +1,113 @@
+package benchmarks;
+
+import com.cardio_generator.outputs.WebSocketOutputStrategy;
+import com.common.BinaryRecordCodec;
+import com.common.RecordParser;
+import com.data_management.DataStorage;
+import com.data_management.RecordBatch;
+import com.data_management.WebSocketDataReader;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the text and binary WebSocket wire formats: payload bytes per sample, encode + decode
+ * throughput in-process, and end-to-end samples per second from a {@link WebSocketOutputStrategy}
+ * to a {@link WebSocketDataReader} over loopback.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.WireFormatBenchmark -Dexec.args="1000000 200000 8090"
+ * </pre>
+ * Arguments: samples per in-process measurement, samples per loopback measurement, port.
+ */
+public class WireFormatBenchmark {
+
+    private static final String[] LABELS = {"ECG", "Saturation", "SystolicPressure", "WhiteBloodCells"};
+    private static final String[] DATA = {"0.4213987654321", "97.0%", "121.0", "6.843125"};
+
+    private static double checksum;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int streamed = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 8090;
+
+        long textBytes = 0;
+        long binaryBytes = 0;
+        for (int i = 0; i < 4; i++) {
+            textBytes += text(i).getBytes(StandardCharsets.UTF_8).length;
+            binaryBytes += binary(i).remaining();
+        }
+        System.out.printf("payload bytes/sample: text %.1f, binary %.1f%n", textBytes / 4.0, binaryBytes / 4.0);
+
+        RecordParser parser = new RecordParser(RecordParser.Layout.STREAM);
+        RecordParser.Handler handler = (patientId, timestamp, recordType, value) -> checksum += value;
+        for (int round = 0; round < 2; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                parser.parse(text(i), handler);
+            }
+            report("text   encode+decode", count, System.nanoTime() - begin);
+            begin = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                BinaryRecordCodec.decode(binary(i), handler);
+            }
+            report("binary encode+decode", count, System.nanoTime() - begin);
+        }
+
+        WebSocketOutputStrategy output = new WebSocketOutputStrategy(port);
+        Thread.sleep(500);
+        stream(output, "ws://localhost:" + port, "text   loopback     ", streamed);
+        stream(output, "ws://localhost:" + port + "/?" + WebSocketOutputStrategy.BINARY_FORMAT_QUERY,
+                "binary loopback     ", streamed);
+        if (checksum == 42) {
+            System.out.println();
+        }
+        System.exit(0);
+    }
+
+    private static void stream(WebSocketOutputStrategy output, String uri, String name, int count) throws Exception {
+        AtomicLong received = new AtomicLong();
+        WebSocketDataReader reader = new WebSocketDataReader(new URI(uri));
+        reader.readData(new DataStorage() {
+            @Override
+            public void addPatientData(int patientId, double measurementValue, String recordType, long timestamp) {
+                received.incrementAndGet();
+            }
+
+            @Override
+            public void addPatientDataBatch(RecordBatch batch) {
+                received.addAndGet(batch.size());
+            }
+        });
+        Thread.sleep(200);
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            output.output(i & 1023, 1714376789050L + i, LABELS[i & 3], DATA[i & 3]);
+        }
+        while (received.get() < count) {
+            Thread.sleep(1);
+        }
+        report(name, count, System.nanoTime() - begin);
+        reader.closeBlocking();
+        Thread.sleep(200);
+    }
+
+    private static String text(int i) {
+        return String.format("%d,%d,%s,%s", i & 1023, 1714376789050L + i, LABELS[i & 3], DATA[i & 3]);
+    }
+
+    private static ByteBuffer binary(int i) {
+        String data = DATA[i & 3];
+        return BinaryRecordCodec.encode(i & 1023, 1714376789050L + i, LABELS[i & 3],
+                RecordParser.parseDouble(data, 0, data.length()));
+    }
+
+    private static void report(String name, int count, long elapsedNanos) {
+        System.out.printf("%s %,12.0f samples/sec%n", name, count / (elapsedNanos / 1e9));
+    }
+}
@@ -0,0 +1,137 @@
+package benchmarks;
+
+import com.data_management.DataStorage;
+import com.data_management.RecordBatch;
+import com.data_management.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures the ingest overhead of a {@link WriteAheadLog} and the time to recover from it.
+ *
+ * <p>The ingest phase stores the same samples through {@link DataStorage#addPatientDataBatch}
+ * without a log, with a log written to the page cache and with a log forced to disk on every
+ * group commit, each into a fresh storage. Writer threads feed disjoint sets of patients, so
+ * concurrent batches share group commits. The recovery phase writes a log of the given size
+ * directly, then replays it into a fresh storage.
+ *
+ * <p>Not run by Surefire. Run with, for example:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=benchmarks.WriteAheadLogBenchmark \
+ *     -Dexec.args="/tmp/wal 1000 10000000 256 4 100000000"
+ * </pre>
+ * Arguments: log directory (emptied first), patients, ingest samples, batch size, writer threads,
+ * recovery samples. The recovered data stays on the heap, so give the JVM room, e.g.
+ * {@code -Xmx4g} for 100M samples.
+ */
+public class WriteAheadLogBenchmark {
+
+    private static final String[] LABELS = {"ECG", "Saturation", "SystolicPressure", "DiastolicPressure"};
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "wal");
+        int patients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int samples = args.length > 2 ? Integer.parseInt(args[2]) : 10_000_000;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+        long recoverySamples = args.length > 5 ? Long.parseLong(args[5]) : 100_000_000L;
+
+        for (int run = 0; run < 2; run++) {
+            ingest(run, "no log", null, patients, samples, batchSize, threads);
+            delete(directory);
+            try (WriteAheadLog log = new WriteAheadLog(directory, WriteAheadLog.DEFAULT_SEGMENT_BYTES, false)) {
+                ingest(run, "log, no sync", log, patients, samples, batchSize, threads);
+            }
+            delete(directory);
+            try (WriteAheadLog log = new WriteAheadLog(directory, WriteAheadLog.DEFAULT_SEGMENT_BYTES, true)) {
+                ingest(run, "log, sync", log, patients, samples, batchSize, threads);
+            }
+        }
+
+        delete(directory);
+        long begin = System.nanoTime();
+        try (WriteAheadLog log = new WriteAheadLog(directory, WriteAheadLog.DEFAULT_SEGMENT_BYTES, false)) {
+            RecordBatch batch = new RecordBatch(4096);
+            for (long i = 0; i < recoverySamples; i++) {
+                batch.add(patientOf(i, patients), timestampOf(i, patients), LABELS[(int) (i % LABELS.length)], i);
+                if (batch.size() == 4096) {
+                    log.append(batch);
+                    batch.clear();
+                }
+            }
+            log.append(batch);
+        }
+        long bytes;
+        try (Stream<Path> files = Files.list(directory)) {
+            bytes = files.mapToLong(file -> file.toFile().length()).sum();
+        }
+        System.out.printf("wrote %,d samples, %,d bytes (%.1f bytes/sample) in %.1f s%n", recoverySamples, bytes,
+                (double) bytes / recoverySamples, (System.nanoTime() - begin) / 1e9);
+        System.gc();
+
+        begin = System.nanoTime();
+        long replayed = WriteAheadLog.recover(directory, new DataStorage() {});
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("recovered %,d samples in %.1f s  %,12.0f samples/sec%n", replayed, elapsed / 1e9,
+                replayed / (elapsed / 1e9));
+    }
+
+    private static void ingest(int run, String name, WriteAheadLog log, int patients, int samples, int batchSize,
+                               int threads) throws InterruptedException {
+        DataStorage storage = new DataStorage() {};
+        storage.setWriteAheadLog(log);
+        List<Thread> writers = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int writer = t;
+            Thread thread = new Thread(() -> {
+                RecordBatch batch = new RecordBatch(batchSize);
+                for (long i = writer; i < samples; i += threads) {
+                    batch.add(patientOf(i, patients), timestampOf(i, patients), LABELS[(int) (i % LABELS.length)], i);
+                    if (batch.size() == batchSize) {
+                        storage.addPatientDataBatch(batch);
+                        batch.clear();
+                    }
+                }
+                storage.addPatientDataBatch(batch);
+            });
+            writers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : writers) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (run > 0) {
+            System.out.printf("%-14s %,12.0f samples/sec%n", name, samples / (elapsed / 1e9));
+        }
+    }
+
+    // With threads dividing patients evenly, each writer owns a disjoint set of patients
+    private static int patientOf(long sample, int patients) {
+        return 1000 + (int) (sample % patients);
+    }
+
+    private static long timestampOf(long sample, int patients) {
+        return 1_700_000_000_000L + sample / patients;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
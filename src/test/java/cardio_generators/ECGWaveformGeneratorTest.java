@@ -0,0 +1,83 @@
+package cardio_generators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cardio_generator.generators.ECGWaveformGenerator;
+import com.cardio_generator.generators.SampleBlock;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+class ECGWaveformGeneratorTest {
+
+    @Test
+    void shouldProduceBeatsAtPhysiologicalRates() {
+        ECGWaveformGenerator ecg = new ECGWaveformGenerator(3, 500);
+        SampleBlock block = ecg.newBlock(3);
+        assertEquals(50, block.getChannelCount());
+
+        // Ten seconds of samples for each patient
+        double[][] signal = new double[3][5000];
+        for (int b = 0; b < 100; b++) {
+            ecg.generateBatch(1, 4, b * 100L, new SplittableRandom(), block);
+            for (int k = 0; k < 50; k++) {
+                for (int i = 0; i < 3; i++) {
+                    signal[i][b * 50 + k] = block.getValues(k)[i];
+                }
+            }
+        }
+        for (double[] samples : signal) {
+            int peaks = 0;
+            for (int t = 1; t < samples.length - 1; t++) {
+                assertTrue(samples[t] > -1 && samples[t] < 2, "Sample out of range: " + samples[t]);
+                if (samples[t] > 0.6 && samples[t] >= samples[t - 1] && samples[t] > samples[t + 1]) {
+                    peaks++;
+                }
+            }
+            // 60 to 90 bpm, give or take the variability
+            assertTrue(peaks >= 8 && peaks <= 17, peaks + " R peaks in 10 s");
+        }
+    }
+
+    @Test
+    void shouldTimestampEachChannelOfABlock() {
+        ECGWaveformGenerator ecg = new ECGWaveformGenerator(2, 250, 40);
+        SampleBlock block = ecg.newBlock(2);
+        ecg.generateBatch(1, 3, 1_000L, new SplittableRandom(), block);
+
+        assertEquals(10, ecg.getSamplesPerBlock());
+        assertEquals(1_000L, block.getTimestamp(0));
+        assertEquals(1_036L, block.getTimestamp(9));
+        List<Long> timestamps = new ArrayList<>();
+        block.writeTo((patientId, timestamp, label, data) -> {
+            assertEquals("ECG", label);
+            if (patientId == 2) {
+                timestamps.add(timestamp);
+            }
+        });
+        assertEquals(List.of(1_000L, 1_004L, 1_008L, 1_012L, 1_016L, 1_020L, 1_024L, 1_028L, 1_032L, 1_036L),
+                timestamps);
+    }
+
+    @Test
+    void shouldEmitOneBlockPerGenerateCall() {
+        ECGWaveformGenerator ecg = new ECGWaveformGenerator(1, 1000, 10);
+        List<Long> timestamps = new ArrayList<>();
+        ecg.generate(1, (patientId, timestamp, label, data) -> timestamps.add(timestamp));
+
+        assertEquals(10, timestamps.size());
+        for (int k = 1; k < timestamps.size(); k++) {
+            assertEquals(1, timestamps.get(k) - timestamps.get(k - 1));
+        }
+    }
+
+    @Test
+    void shouldRejectUnsupportedRates() {
+        assertThrows(IllegalArgumentException.class, () -> new ECGWaveformGenerator(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ECGWaveformGenerator(1, 2000));
+        // 33.3 samples per 100 ms block
+        assertThrows(IllegalArgumentException.class, () -> new ECGWaveformGenerator(1, 333));
+    }
+}
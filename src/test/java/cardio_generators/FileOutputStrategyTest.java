@@ -0,0 +1,108 @@
+package cardio_generators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cardio_generator.outputs.FileOutputStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class FileOutputStrategyTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldWriteOneFilePerLabelOnFlush() throws Exception {
+        FileOutputStrategy strategy = new FileOutputStrategy(directory.resolve("out").toString(), 1024, 60_000, false);
+        strategy.output(1, 100L, "ECG", "0.5");
+        strategy.output(2, 101L, "Saturation", "97%");
+        strategy.output(1, 102L, "ECG", "0.6");
+        assertFalse(Files.exists(directory.resolve("out").resolve("ECG.txt")) && Files.size(directory.resolve("out").resolve("ECG.txt")) > 0,
+                "Lines should stay buffered until a flush");
+
+        strategy.flush();
+
+        assertEquals(List.of(
+                "Patient ID: 1, Timestamp: 100, Label: ECG, Data: 0.5",
+                "Patient ID: 1, Timestamp: 102, Label: ECG, Data: 0.6"),
+                Files.readAllLines(directory.resolve("out").resolve("ECG.txt")));
+        assertEquals(List.of("Patient ID: 2, Timestamp: 101, Label: Saturation, Data: 97%"),
+                Files.readAllLines(directory.resolve("out").resolve("Saturation.txt")));
+        assertEquals(directory.resolve("out").resolve("ECG.txt").toString(), strategy.fileMap.get("ECG"));
+        strategy.close();
+    }
+
+    @Test
+    void shouldWriteFullBuffersAndRemainderOnClose() throws Exception {
+        FileOutputStrategy strategy = new FileOutputStrategy(directory.toString(), 128, 60_000, true);
+        for (int i = 0; i < 100; i++) {
+            strategy.output(i, i, "HeartRate", "72.0");
+        }
+        assertTrue(Files.size(directory.resolve("HeartRate.txt")) > 0, "Full buffers should be written right away");
+
+        strategy.close();
+        strategy.output(999, 999L, "HeartRate", "72.0");
+
+        List<String> lines = Files.readAllLines(directory.resolve("HeartRate.txt"));
+        assertEquals(100, lines.size());
+        assertEquals("Patient ID: 99, Timestamp: 99, Label: HeartRate, Data: 72.0", lines.get(99));
+    }
+
+    @Test
+    void shouldFlushOnInterval() throws Exception {
+        FileOutputStrategy strategy = new FileOutputStrategy(directory.toString(), 1024, 10, false);
+        strategy.output(5, 500L, "Alert", "triggered");
+        Path file = directory.resolve("Alert.txt");
+        long deadline = System.currentTimeMillis() + 2000;
+        while ((!Files.exists(file) || Files.size(file) == 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(List.of("Patient ID: 5, Timestamp: 500, Label: Alert, Data: triggered"), Files.readAllLines(file));
+        strategy.close();
+    }
+
+    @Test
+    void shouldIgnoreOutputRacingWithClose() throws Exception {
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        PrintStream originalErr = System.err;
+        System.setErr(new PrintStream(errors, true));
+        try {
+            for (int round = 0; round < 20; round++) {
+                FileOutputStrategy strategy = new FileOutputStrategy(directory.resolve("round" + round).toString(),
+                        64, 60_000, false);
+                AtomicBoolean stop = new AtomicBoolean();
+                CountDownLatch started = new CountDownLatch(4);
+                Thread[] writers = new Thread[4];
+                for (int t = 0; t < writers.length; t++) {
+                    int patientId = t;
+                    writers[t] = new Thread(() -> {
+                        started.countDown();
+                        for (int i = 0; !stop.get(); i++) {
+                            strategy.output(patientId, i, "HeartRate", "72.0");
+                        }
+                    });
+                    writers[t].start();
+                }
+                started.await();
+                Thread.sleep(5);
+                strategy.close();
+                Thread.sleep(5);
+                stop.set(true);
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+            }
+        } finally {
+            System.setErr(originalErr);
+        }
+        assertEquals("", errors.toString(), "No write should reach a closed file");
+    }
+}
@@ -0,0 +1,135 @@
+package cardio_generators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cardio_generator.generators.AlertGenerator;
+import com.cardio_generator.generators.BloodLevelsDataGenerator;
+import com.cardio_generator.generators.BloodPressureDataGenerator;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.generators.SampleBlock;
+import com.common.RecordTypes;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+class GeneratorBatchTest {
+
+    @Test
+    void shouldKeepBatchValuesInRange() {
+        BloodPressureDataGenerator pressure = new BloodPressureDataGenerator(100);
+        BloodSaturationDataGenerator saturation = new BloodSaturationDataGenerator(100);
+        SampleBlock pressureBlock = pressure.newBlock(100);
+        SampleBlock saturationBlock = saturation.newBlock(100);
+        SplittableRandom random = new SplittableRandom(7);
+
+        // Enough ticks for the random walks to reach their bounds
+        for (int tick = 0; tick < 2000; tick++) {
+            pressure.generateBatch(1, 101, tick, random, pressureBlock);
+            saturation.generateBatch(1, 101, tick, random, saturationBlock);
+            for (int i = 0; i < 100; i++) {
+                assertTrue(pressureBlock.getValues(0)[i] >= 90 && pressureBlock.getValues(0)[i] <= 180);
+                assertTrue(pressureBlock.getValues(1)[i] >= 60 && pressureBlock.getValues(1)[i] <= 120);
+                assertTrue(saturationBlock.getValues(0)[i] >= 90 && saturationBlock.getValues(0)[i] <= 100);
+            }
+        }
+        assertEquals("SystolicPressure", pressureBlock.getLabel(0));
+        assertEquals("DiastolicPressure", pressureBlock.getLabel(1));
+        assertEquals(100, pressureBlock.getPatientCount());
+    }
+
+    @Test
+    void shouldContinueFromTheLastBatch() {
+        BloodSaturationDataGenerator saturation = new BloodSaturationDataGenerator(10);
+        SampleBlock block = saturation.newBlock(10);
+        SplittableRandom random = new SplittableRandom(3);
+
+        saturation.generateBatch(1, 11, 0, random, block);
+        double[] previous = block.getValues(0).clone();
+        saturation.generateBatch(1, 11, 1000, random, block);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(Math.abs(block.getValues(0)[i] - previous[i]) <= 1);
+        }
+    }
+
+    @Test
+    void shouldWriteBlocksLikeGenerate() {
+        List<String> lines = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(11);
+        BloodSaturationDataGenerator saturation = new BloodSaturationDataGenerator(4);
+        SampleBlock saturationBlock = saturation.newBlock(2);
+        saturation.generateBatch(3, 5, 42, random, saturationBlock);
+        saturationBlock.writeTo((patientId, timestamp, label, data) ->
+                lines.add(patientId + "," + timestamp + "," + label + "," + data));
+
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).matches("3,42,Saturation,\\d+\\.0%"), lines.get(0));
+        assertTrue(lines.get(1).startsWith("4,42,Saturation,"));
+
+        BloodLevelsDataGenerator levels = new BloodLevelsDataGenerator(1);
+        SampleBlock levelsBlock = levels.newBlock(1);
+        levels.generateBatch(1, 2, 42, random, levelsBlock);
+        lines.clear();
+        levelsBlock.writeTo((patientId, timestamp, label, data) -> lines.add(label));
+        assertEquals(List.of("Cholesterol", "WhiteBloodCells", "RedBloodCells"), lines);
+
+        ECGDataGenerator ecg = new ECGDataGenerator(1);
+        SampleBlock ecgBlock = ecg.newBlock(1);
+        ecg.generateBatch(1, 2, 42, random, ecgBlock);
+        assertTrue(Math.abs(ecgBlock.getValues(0)[0]) < 1);
+    }
+
+    @Test
+    void shouldOnlyWriteAlertChanges() {
+        AlertGenerator alerts = new AlertGenerator(1000);
+        SampleBlock block = alerts.newBlock(1000);
+        SplittableRandom random = new SplittableRandom(5);
+        boolean[] pressed = new boolean[1000];
+        int changes = 0;
+
+        for (int tick = 0; tick < 20; tick++) {
+            alerts.generateBatch(1, 1001, tick, random, block);
+            List<String> written = new ArrayList<>();
+            block.writeTo((patientId, timestamp, label, data) -> written.add(patientId + ":" + data));
+            for (String line : written) {
+                int index = Integer.parseInt(line.substring(0, line.indexOf(':'))) - 1;
+                // An alert is only resolved after it was triggered, and the other way round
+                assertEquals(pressed[index] ? "resolved" : "triggered", line.substring(line.indexOf(':') + 1));
+                pressed[index] = !pressed[index];
+            }
+            changes += written.size();
+        }
+        assertTrue(changes > 0);
+    }
+
+    @Test
+    void shouldBatchGeneratorsThatOnlyGeneratePerPatient() {
+        PatientDataGenerator perPatient = (patientId, outputStrategy) -> {
+            outputStrategy.output(patientId, 7L, RecordTypes.HEART_RATE, 60 + patientId);
+            outputStrategy.output(patientId, 8L, "Note", "ok");
+        };
+        SampleBlock block = perPatient.newBlock(2);
+        List<String> lines = new ArrayList<>();
+
+        perPatient.generateBatch(3, 5, 42, new SplittableRandom(1), block);
+        block.writeTo((patientId, timestamp, label, data) -> lines.add(patientId + "," + timestamp + "," + label + "," + data));
+        assertEquals(0, block.getChannelCount());
+        assertEquals(List.of("3,7,HeartRate,63.0", "3,8,Note,ok", "4,7,HeartRate,64.0", "4,8,Note,ok"), lines);
+
+        perPatient.generateBatch(5, 6, 43, new SplittableRandom(1), block);
+        lines.clear();
+        block.writeTo((patientId, timestamp, label, data) -> lines.add(patientId + "," + label));
+        assertEquals(List.of("5,HeartRate", "5,Note"), lines, "A new batch should replace the previous samples");
+    }
+
+    @Test
+    void shouldRejectBatchesLargerThanTheBlock() {
+        ECGDataGenerator ecg = new ECGDataGenerator(10);
+        SampleBlock block = ecg.newBlock(4);
+        assertThrows(IllegalArgumentException.class,
+                () -> ecg.generateBatch(1, 10, 0, new SplittableRandom(), block));
+    }
+}
@@ -0,0 +1,42 @@
+package cardio_generators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cardio_generator.PatientLoop;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class PatientLoopTest {
+
+    @Test
+    void shouldRunTasksAtTheirRatesUntilInterrupted() throws Exception {
+        AtomicInteger fast = new AtomicInteger();
+        AtomicInteger slow = new AtomicInteger();
+        Runnable failing = () -> {
+            throw new IllegalStateException("task fails");
+        };
+        PatientLoop loop = new PatientLoop(new Runnable[] {fast::incrementAndGet, slow::incrementAndGet, failing},
+                new long[] {5, 50, 5}, new Random(1));
+        Thread thread = new Thread(loop);
+        thread.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (slow.get() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        thread.interrupt();
+        thread.join(5000);
+
+        assertFalse(thread.isAlive());
+        assertTrue(slow.get() >= 4);
+        // The failing task does not stop the others
+        assertTrue(fast.get() >= 8 * slow.get() - 10, fast.get() + " vs " + slow.get());
+    }
+
+    @Test
+    void shouldRejectMismatchedPeriods() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PatientLoop(new Runnable[] {() -> { }}, new long[] {1, 2}, new Random()));
+    }
+}
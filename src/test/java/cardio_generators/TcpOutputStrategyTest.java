@@ -0,0 +1,98 @@
+package cardio_generators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cardio_generator.outputs.SlowConsumerPolicy;
+import com.cardio_generator.outputs.TcpOutputStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+class TcpOutputStrategyTest {
+
+    private TcpOutputStrategy strategy;
+
+    @AfterEach
+    void tearDown() {
+        if (strategy != null) {
+            strategy.close();
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    void shouldSendEveryLineToEveryClient() throws Exception {
+        strategy = new TcpOutputStrategy(0);
+        try (Socket first = new Socket("localhost", strategy.getPort());
+             Socket second = new Socket("localhost", strategy.getPort())) {
+            awaitCondition(() -> strategy.getClientCount() == 2);
+
+            strategy.output(10, 111L, "T", "9.9");
+            strategy.output(11, 112L, "T", "8.8");
+
+            for (Socket socket : new Socket[] {first, second}) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                assertEquals("10,111,T,9.9", in.readLine());
+                assertEquals("11,112,T,8.8", in.readLine());
+            }
+        }
+    }
+
+    @Test
+    void shouldDropForStalledClientWithoutBlocking() throws Exception {
+        strategy = new TcpOutputStrategy(0, 1024, 4, SlowConsumerPolicy.DROP_OLDEST);
+        try (Socket stalled = new Socket("localhost", strategy.getPort())) {
+            stalled.setReceiveBufferSize(1024);
+            awaitCondition(() -> strategy.getClientCount() == 1);
+
+            // Far more than the socket buffers and the four client buffers can hold
+            String data = "x".repeat(200);
+            for (int i = 0; i < 200_000 && strategy.getDroppedLineCount() == 0; i++) {
+                strategy.output(i, i, "T", data);
+            }
+            assertTrue(strategy.getDroppedLineCount() > 0);
+            assertEquals(1, strategy.getClientCount());
+        }
+    }
+
+    @Test
+    void shouldDisconnectStalledClient() throws Exception {
+        strategy = new TcpOutputStrategy(0, 1024, 4, SlowConsumerPolicy.DISCONNECT);
+        try (Socket stalled = new Socket("localhost", strategy.getPort())) {
+            stalled.setReceiveBufferSize(1024);
+            awaitCondition(() -> strategy.getClientCount() == 1);
+
+            String data = "x".repeat(200);
+            for (int i = 0; i < 200_000 && strategy.getClientCount() == 1; i++) {
+                strategy.output(i, i, "T", data);
+            }
+            assertEquals(0, strategy.getClientCount());
+            assertEquals(1, strategy.getDisconnectedClientCount());
+
+            // The selector thread closes the stalled connection and keeps serving new clients
+            stalled.setSoTimeout(5000);
+            byte[] sink = new byte[64 * 1024];
+            while (stalled.getInputStream().read(sink) >= 0) {
+                // Drain what was sent before the disconnect
+            }
+            try (Socket next = new Socket("localhost", strategy.getPort())) {
+                awaitCondition(() -> strategy.getClientCount() == 1);
+                strategy.output(1, 2L, "T", "3.0");
+                BufferedReader in = new BufferedReader(new InputStreamReader(next.getInputStream(), StandardCharsets.UTF_8));
+                assertEquals("1,2,T,3.0", in.readLine());
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package cardio_generators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cardio_generator.TickScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BooleanSupplier;
+
+class TickSchedulerTest {
+
+    private TickScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    void shouldRunEveryTaskAtItsRate() throws Exception {
+        // Small wheel, so periods span several turns of it
+        scheduler = new TickScheduler(1, 8, 3);
+        AtomicIntegerArray runs = new AtomicIntegerArray(1_000);
+        for (int i = 0; i < runs.length(); i++) {
+            int task = i;
+            long period = i % 2 == 0 ? 10 : 40;
+            scheduler.scheduleAtFixedRate(() -> runs.incrementAndGet(task), i % 7, period, TimeUnit.MILLISECONDS);
+        }
+        awaitCondition(() -> runs.get(runs.length() - 1) >= 5);
+        scheduler.close();
+
+        for (int i = 0; i < runs.length() - 2; i += 2) {
+            // 10 ms tasks run about four times as often as 40 ms ones
+            int fast = runs.get(i);
+            int slow = runs.get(i + 1);
+            assertTrue(fast >= 3 * slow - 2 && fast <= 5 * slow + 4, "task " + i + ": " + fast + " vs " + slow);
+        }
+    }
+
+    @Test
+    void shouldKeepTaskScheduledAfterError() throws Exception {
+        scheduler = new TickScheduler(1, 16, 1);
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.scheduleAtFixedRate(() -> {
+            if (runs.incrementAndGet() == 1) {
+                throw new IllegalStateException("first run fails");
+            }
+        }, 0, 2, TimeUnit.MILLISECONDS);
+        awaitCondition(() -> runs.get() >= 3);
+    }
+
+    @Test
+    void shouldNotRunTasksAfterClose() throws Exception {
+        scheduler = new TickScheduler(1, 16, 2);
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.scheduleAtFixedRate(runs::incrementAndGet, 0, 1, TimeUnit.MILLISECONDS);
+        awaitCondition(() -> runs.get() > 0);
+        scheduler.close();
+        int afterClose = runs.get();
+        Thread.sleep(20);
+        assertEquals(afterClose, runs.get());
+        assertThrows(IllegalStateException.class,
+                () -> scheduler.scheduleAtFixedRate(runs::incrementAndGet, 0, 1, TimeUnit.MILLISECONDS));
+    }
+}
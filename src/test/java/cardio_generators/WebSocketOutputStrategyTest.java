@@ -2,7 +2,9 @@ package cardio_generators;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.cardio_generator.outputs.SlowConsumerPolicy;
 import com.cardio_generator.outputs.WebSocketOutputStrategy;
+import com.common.RecordTypes;
 import org.java_websocket.WebSocket;
 import org.java_websocket.framing.Framedata;
 import org.java_websocket.handshake.ClientHandshake;
@@ -16,9 +18,13 @@ import org.junit.jupiter.api.Test;
 import javax.net.ssl.SSLSession;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 class WebSocketOutputStrategyTest {
 
@@ -51,7 +57,9 @@ class WebSocketOutputStrategyTest {
         //defaults:
         @Override public void send(ByteBuffer bytes) {}
         @Override public void send(byte[] data) {}
-        @Override public void sendFrame(Framedata framedata) {}
+        @Override public void sendFrame(Framedata framedata) {
+            if (open) buffer.append(StandardCharsets.UTF_8.decode(framedata.getPayloadData())).append('|');
+        }
         @Override public void sendFrame(Collection<Framedata> frames) {}
         @Override public void sendPing() {}
         @Override public void sendFragmentedFrame(Opcode op, ByteBuffer buf, boolean fin) {}
@@ -99,6 +107,57 @@ class WebSocketOutputStrategyTest {
     }
 
 
+    @Test
+    void shouldFormatTypedSamplesForTextClients() {
+        TestWebSocketServer stubServer = new TestWebSocketServer();
+        TestWebSocket client = new TestWebSocket();
+        stubServer.injectConnection(client);
+
+        WebSocketOutputStrategy strat = new WebSocketOutputStrategy(0) {
+            @Override
+            protected WebSocketServer createServer(int port) {
+                return stubServer;
+            }
+        };
+
+        strat.output(2, 101L, RecordTypes.SATURATION, 97);
+        strat.output(3, 102L, RecordTypes.ALERT, 1);
+        assertEquals("2,101,Saturation,97.0%3,102,Alert,triggered", client.getSent());
+    }
+
+    @Test
+    void shouldSendTypedBatchAsOneFrameWithoutMissingSamples() throws InterruptedException {
+        TestWebSocketServer stubServer = new TestWebSocketServer();
+        TestWebSocket client = new TestWebSocket();
+        stubServer.injectConnection(client);
+        WebSocketOutputStrategy strat = queuedStrategy(stubServer, 8, SlowConsumerPolicy.DROP_OLDEST);
+
+        // A batch without samples sends no frame at all
+        strat.outputBatch(1, 1, 499L, RecordTypes.ECG, new double[] {Double.NaN});
+        strat.outputBatch(7, 3, 500L, RecordTypes.ECG, new double[] {0.5, Double.NaN, 1.5});
+
+        awaitCondition(() -> !client.getSent().isEmpty());
+        assertEquals("7,500,ECG,0.5\n9,500,ECG,1.5|", client.getSent());
+    }
+
+    @Test
+    void shouldBatchTypedAndStringSamplesTogether() {
+        TestWebSocketServer stubServer = new TestWebSocketServer();
+        TestWebSocket client = new TestWebSocket();
+        stubServer.injectConnection(client);
+
+        WebSocketOutputStrategy strat = new WebSocketOutputStrategy(0, 3, 60_000) {
+            @Override
+            protected WebSocketServer createServer(int port) {
+                return stubServer;
+            }
+        };
+
+        strat.output(1, 100L, "A", "1.0");
+        strat.outputBatch(2, 3, 101L, RecordTypes.SYSTOLIC_PRESSURE, new double[] {120, Double.NaN, 118});
+        assertEquals("1,100,A,1.0\n2,101,SystolicPressure,120.0\n4,101,SystolicPressure,118.0", client.getSent());
+    }
+
     @Test
     void shouldSkipClosedConnections() {
         TestWebSocketServer stubServer = new TestWebSocketServer();
@@ -116,4 +175,154 @@ class WebSocketOutputStrategyTest {
         strat.output(5, 5L, "L", "1.1");
         assertTrue(client.getSent().isEmpty());
     }
+
+    @Test
+    void shouldSendFullBatchAsOneFrame() {
+        TestWebSocketServer stubServer = new TestWebSocketServer();
+        TestWebSocket client = new TestWebSocket();
+        stubServer.injectConnection(client);
+
+        WebSocketOutputStrategy strat = new WebSocketOutputStrategy(0, 2, 60_000) {
+            @Override
+            protected WebSocketServer createServer(int port) {
+                return stubServer;
+            }
+        };
+
+        strat.output(1, 100L, "A", "1.0");
+        assertTrue(client.getSent().isEmpty(), "A partial batch should be held back");
+        strat.output(2, 101L, "B", "2.0");
+        assertEquals("1,100,A,1.0\n2,101,B,2.0", client.getSent());
+    }
+
+    @Test
+    void shouldFlushPartialBatchAfterDelay() throws InterruptedException {
+        TestWebSocketServer stubServer = new TestWebSocketServer();
+        TestWebSocket client = new TestWebSocket();
+        stubServer.injectConnection(client);
+
+        WebSocketOutputStrategy strat = new WebSocketOutputStrategy(0, 100, 5) {
+            @Override
+            protected WebSocketServer createServer(int port) {
+                return stubServer;
+            }
+        };
+
+        strat.output(3, 300L, "C", "3.0");
+        long deadline = System.currentTimeMillis() + 2000;
+        while (client.getSent().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals("3,300,C,3.0", client.getSent());
+    }
+
+    @Test
+    void shouldFlushPendingBatchOnClose() {
+        TestWebSocketServer stubServer = new TestWebSocketServer();
+        TestWebSocket client = new TestWebSocket();
+        stubServer.injectConnection(client);
+
+        WebSocketOutputStrategy strat = new WebSocketOutputStrategy(0, 100, 60_000) {
+            @Override
+            protected WebSocketServer createServer(int port) {
+                return stubServer;
+            }
+        };
+
+        strat.output(4, 400L, "D", "4.0");
+        strat.close();
+        assertEquals("4,400,D,4.0", client.getSent());
+
+        strat.output(5, 500L, "E", "5.0");
+        strat.close();
+        assertEquals("4,400,D,4.0", client.getSent(), "Samples output after close should be ignored");
+    }
+
+    /** A client whose first frame stays stuck in the network until released. */
+    private static class StalledWebSocket extends TestWebSocket {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override public void sendFrame(Framedata framedata) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.sendFrame(framedata);
+        }
+    }
+
+    private static WebSocketOutputStrategy queuedStrategy(TestWebSocketServer stubServer, int capacity,
+                                                          SlowConsumerPolicy policy) {
+        return new WebSocketOutputStrategy(0, capacity, policy) {
+            @Override
+            protected WebSocketServer createServer(int port) {
+                return stubServer;
+            }
+        };
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    void shouldQueueEncodedFramesForEveryClient() throws InterruptedException {
+        TestWebSocketServer stubServer = new TestWebSocketServer();
+        TestWebSocket client1 = new TestWebSocket();
+        TestWebSocket client2 = new TestWebSocket();
+        stubServer.injectConnection(client1);
+        stubServer.injectConnection(client2);
+        WebSocketOutputStrategy strat = queuedStrategy(stubServer, 8, SlowConsumerPolicy.DROP_OLDEST);
+
+        strat.output(10, 111L, "T", "9.9");
+        strat.output(11, 112L, "T", "8.8");
+
+        awaitCondition(() -> client1.getSent().length() == 26 && client2.getSent().length() == 26);
+        assertEquals("10,111,T,9.9|11,112,T,8.8|", client1.getSent());
+        assertEquals("10,111,T,9.9|11,112,T,8.8|", client2.getSent());
+    }
+
+    @Test
+    void shouldDropOldestFramesOfSlowClientWithoutBlocking() throws InterruptedException {
+        TestWebSocketServer stubServer = new TestWebSocketServer();
+        StalledWebSocket client = new StalledWebSocket();
+        stubServer.injectConnection(client);
+        WebSocketOutputStrategy strat = queuedStrategy(stubServer, 2, SlowConsumerPolicy.DROP_OLDEST);
+
+        strat.output(1, 1L, "T", "1.0");
+        assertTrue(client.entered.await(2, TimeUnit.SECONDS));
+        for (int i = 2; i <= 5; i++) {
+            strat.output(i, i, "T", i + ".0");
+        }
+        assertEquals(2, strat.getDroppedFrameCount());
+        assertEquals(2, strat.getQueueDepths().get(client));
+
+        client.release.countDown();
+        awaitCondition(() -> client.getSent().split("\\|").length == 3);
+        assertEquals("1,1,T,1.0|4,4,T,4.0|5,5,T,5.0|", client.getSent());
+    }
+
+    @Test
+    void shouldDisconnectSlowClient() throws InterruptedException {
+        TestWebSocketServer stubServer = new TestWebSocketServer();
+        StalledWebSocket slow = new StalledWebSocket();
+        stubServer.injectConnection(slow);
+        WebSocketOutputStrategy strat = queuedStrategy(stubServer, 1, SlowConsumerPolicy.DISCONNECT);
+
+        strat.output(1, 1L, "T", "1.0");
+        assertTrue(slow.entered.await(2, TimeUnit.SECONDS));
+        strat.output(2, 2L, "T", "2.0");
+        strat.output(3, 3L, "T", "3.0");
+
+        assertFalse(slow.isOpen());
+        assertEquals(1, strat.getDisconnectedClientCount());
+        slow.release.countDown();
+    }
 }
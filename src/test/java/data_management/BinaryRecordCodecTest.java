@@ -0,0 +1,108 @@
+package data_management;
+
+import com.common.BinaryRecordCodec;
+import com.common.RecordParser;
+import com.common.RecordTypes;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryRecordCodecTest {
+
+    private final List<String> decoded = new ArrayList<>();
+    private final RecordParser.Handler collect =
+            (patientId, timestamp, recordType, value) -> decoded.add(patientId + "|" + timestamp + "|" + recordType + "|" + value);
+
+    @Test
+    void testSingleRecordRoundTrip() {
+        ByteBuffer frame = BinaryRecordCodec.encode(12, 1714376789050L, "ECG", -0.25);
+        assertEquals(23, frame.remaining());
+        assertEquals(1, BinaryRecordCodec.decode(frame, collect));
+        assertEquals(List.of("12|1714376789050|ECG|-0.25"), decoded);
+    }
+
+    @Test
+    void testDeltaTimestampsAndInlineLabels() {
+        BinaryRecordCodec.FrameWriter writer = new BinaryRecordCodec.FrameWriter(BinaryRecordCodec.FLAG_DELTA_TIMESTAMPS, 16);
+        writer.add(1, 1714376789050L, "Saturation", 97.0);
+        writer.add(2, 1714376789051L, "CustomProbe", 3.5);
+        writer.add(3, 1714376789049L, "HeartRate", 72.0);
+        ByteBuffer frame = writer.finish();
+        assertEquals(0, writer.count());
+
+        assertEquals(3, BinaryRecordCodec.decode(frame, collect));
+        assertEquals(List.of(
+                "1|1714376789050|Saturation|97.0",
+                "2|1714376789051|CustomProbe|3.5",
+                "3|1714376789049|HeartRate|72.0"), decoded);
+    }
+
+    @Test
+    void testTypedRecordsMatchLabelledRecords() {
+        ByteBuffer typed = BinaryRecordCodec.encode(12, 1714376789050L, RecordTypes.SATURATION, 97.0);
+        assertEquals(BinaryRecordCodec.encode(12, 1714376789050L, "Saturation", 97.0), typed);
+
+        BinaryRecordCodec.FrameWriter writer = new BinaryRecordCodec.FrameWriter(BinaryRecordCodec.FLAG_DELTA_TIMESTAMPS, 16);
+        writer.add(1, 1714376789050L, RecordTypes.ALERT, 1);
+        writer.add(2, 1714376789051L, RecordTypes.idOf("TypedProbe"), 3.5);
+        assertEquals(2, BinaryRecordCodec.decode(writer.finish(), collect));
+        assertEquals(List.of("1|1714376789050|Alert|1.0", "2|1714376789051|TypedProbe|3.5"), decoded);
+    }
+
+    @Test
+    void testDeltaFramesAreSmallerThanFixedWidth() {
+        BinaryRecordCodec.FrameWriter fixed = new BinaryRecordCodec.FrameWriter(0, 64);
+        BinaryRecordCodec.FrameWriter delta = new BinaryRecordCodec.FrameWriter(BinaryRecordCodec.FLAG_DELTA_TIMESTAMPS, 64);
+        for (int i = 0; i < 100; i++) {
+            fixed.add(i, 1714376789050L + i, "ECG", i);
+            delta.add(i, 1714376789050L + i, "ECG", i);
+        }
+        assertTrue(delta.size() < fixed.size());
+    }
+
+    @Test
+    void testTruncatedFrameIsMalformed() {
+        ByteBuffer frame = BinaryRecordCodec.encode(12, 1714376789050L, "ECG", -0.25);
+        frame.limit(frame.limit() - 3);
+        assertEquals(-1, BinaryRecordCodec.decode(frame, collect));
+        assertTrue(decoded.isEmpty());
+        assertEquals(-1, BinaryRecordCodec.decode(ByteBuffer.allocate(0), collect));
+    }
+
+    @Test
+    void testTruncatedFrameDeliversNoRecords() {
+        BinaryRecordCodec.FrameWriter writer = new BinaryRecordCodec.FrameWriter(0, 64);
+        writer.add(1, 1714376789050L, "ECG", 0.5);
+        writer.add(2, 1714376789051L, "ECG", 0.6);
+        ByteBuffer frame = writer.finish();
+        frame.limit(frame.limit() - 3);
+        assertEquals(-1, BinaryRecordCodec.decode(frame, collect));
+        assertTrue(decoded.isEmpty(), "The complete first record must not be delivered");
+    }
+
+    @Test
+    void testRejectedFrameRegistersNoLabels() {
+        byte[] label = ("Malformed-" + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(1 + 2 * (4 + 8 + 2 + 1 + label.length + 8));
+        frame.put((byte) 0);
+        frame.putInt(1).putLong(1714376789050L).putShort((short) BinaryRecordCodec.INLINE_LABEL);
+        frame.put((byte) label.length).put(label).putDouble(0.5);
+        // The second record is cut short
+        frame.putInt(2).putLong(1714376789051L);
+        frame.flip();
+        int registered = RecordTypes.size();
+
+        assertEquals(-1, BinaryRecordCodec.decode(frame, collect));
+        assertTrue(decoded.isEmpty());
+        assertEquals(registered, RecordTypes.size());
+        String name = new String(label, StandardCharsets.UTF_8);
+        assertNull(RecordTypes.lookup(name, 0, name.length()));
+    }
+}
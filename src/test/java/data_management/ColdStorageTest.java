@@ -0,0 +1,163 @@
+package data_management;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.data_management.ColdStorage;
+import com.data_management.DataStorage;
+import com.data_management.Patient;
+import com.data_management.PatientRecord;
+import com.data_management.RetentionPolicy;
+import com.data_management.Rollup;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+class ColdStorageTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @TempDir
+    Path coldDir;
+
+    private ColdStorage cold;
+    private DataStorage tiered;
+    private DataStorage reference;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cold = new ColdStorage(coldDir, 64 * 1024);
+        tiered = new DataStorage() {};
+        tiered.setColdStorage(cold, 60_000L);
+        reference = new DataStorage() {};
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        cold.close();
+    }
+
+    @Test
+    void testOldDataMovesToDiskAndReadsBackUnchanged() {
+        Random random = new Random(42);
+        int saturation = 97;
+        for (int second = 0; second < 20_000; second++) {
+            // Jittered timestamps and values with every kind of bit pattern
+            long timestamp = START + second * 1000L + random.nextInt(5);
+            saturation = Math.min(100, Math.max(90, saturation + random.nextInt(3) - 1));
+            double ecg = second % 1000 == 0 ? Double.NaN : random.nextGaussian();
+            add(1, saturation, "Saturation", timestamp);
+            add(1, ecg, "ECG", timestamp);
+            add(2, -second * 0.25, "ECG", START + second * 3000L);
+        }
+
+        assertTrue(cold.getSealedSampleCount() > 50_000, "Most samples should have left the heap");
+        assertTrue(cold.getStoredBytes() < cold.getSealedSampleCount() * 16, "Sealed data should be compressed");
+        for (long[] range : new long[][] {{0L, Long.MAX_VALUE}, {START + 5_000_500L, START + 9_000_000L},
+                {START + 19_990_000L, Long.MAX_VALUE}, {START + 1_000_000L, START + 1_000_000L}}) {
+            for (int patientId = 1; patientId <= 2; patientId++) {
+                assertEquals(describe(reference.getRecords(patientId, range[0], range[1])),
+                        describe(tiered.getRecords(patientId, range[0], range[1])));
+            }
+        }
+        Patient patient = tiered.getAllPatients().stream().filter(p -> p.getPatientId() == 1).findFirst().get();
+        assertEquals(20_000, patient.getRecords("Saturation", 0L, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void testLateSamplesAreDeduplicatedAgainstSealedData() {
+        for (int second = 0; second < 5_000; second++) {
+            add(1, second, "HeartRate", START + second * 1000L);
+        }
+        assertTrue(cold.getSealedSampleCount() > 0);
+
+        tiered.addPatientData(1, -1.0, "HeartRate", START + 10_000L);
+        add(1, 0.5, "HeartRate", START + 10_500L);
+        // Push the late sample out to disk too, in a block overlapping older ones
+        for (int second = 5_000; second < 8_000; second++) {
+            add(1, second, "HeartRate", START + second * 1000L);
+        }
+
+        List<PatientRecord> records = tiered.getRecords(1, START + 9_000L, START + 11_000L);
+        assertEquals(describe(reference.getRecords(1, START + 9_000L, START + 11_000L)), describe(records));
+        assertEquals(10.0, records.get(1).getMeasurementValue(), "The sealed sample should be kept");
+        assertEquals(8_001, tiered.getRecords(1, 0L, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void testLateDuplicateOfSealedSampleIsDroppedBehindAnotherLateSample() {
+        for (int second = 0; second < 5_000; second++) {
+            add(1, second, "HeartRate", START + second * 1000L);
+        }
+        assertTrue(cold.getSealedSampleCount() > 0);
+
+        // The first late sample becomes the oldest on the heap, so the duplicate lands after it
+        add(1, 0.5, "HeartRate", START + 10_500L);
+        add(1, -1.0, "HeartRate", START + 20_000L);
+
+        List<PatientRecord> records = tiered.getRecords(1, START + 20_000L, START + 20_000L);
+        assertEquals(1, records.size(), "The duplicate should not be stored");
+        assertEquals(20.0, records.get(0).getMeasurementValue(), "The sealed sample should be kept");
+        assertEquals(describe(reference.getRecords(1, 0L, Long.MAX_VALUE)),
+                describe(tiered.getRecords(1, 0L, Long.MAX_VALUE)));
+    }
+
+    @Test
+    void testExpiredBlocksFreeTheirSegmentFiles() throws IOException {
+        Path directory = coldDir.resolve("retained");
+        ColdStorage small = new ColdStorage(directory, 1024);
+        DataStorage storage = new DataStorage() {};
+        storage.setColdStorage(small, 60_000L);
+        storage.setRetentionPolicy(new RetentionPolicy(600_000L).withCompactionInterval(3_600_000L));
+        try {
+            for (int second = 0; second < 30_000; second++) {
+                storage.addPatientData(1, second % 100, "HeartRate", START + second * 1000L);
+                if (second % 600 == 0) {
+                    storage.compact();
+                }
+            }
+            storage.compact();
+            storage.compact();
+
+            assertTrue(small.getSealedSampleCount() > 25_000, "Most samples should have been sealed");
+            try (Stream<Path> files = Files.list(directory)) {
+                long count = files.count();
+                assertEquals(small.getSegmentCount(), count);
+                assertTrue(count <= 3, "Only segments holding retained blocks should be left, not " + count);
+            }
+            // Rolled up block by block before the raw data went: every sample of a completed hour is counted
+            long hour = 3_600_000L;
+            long rolledUpBefore = Math.floorDiv(START + 29_999_000L, hour) * hour;
+            long counted = 0;
+            for (Rollup rollup : storage.getRollups(1, "HeartRate", START, START + 30_000_000L, 10)) {
+                counted += rollup.getCount();
+            }
+            assertEquals((rolledUpBefore - START) / 1000, counted);
+        } finally {
+            storage.setRetentionPolicy(null);
+            small.close();
+        }
+    }
+
+    private void add(int patientId, double value, String type, long timestamp) {
+        tiered.addPatientData(patientId, value, type, timestamp);
+        reference.addPatientData(patientId, value, type, timestamp);
+    }
+
+    private static List<String> describe(List<PatientRecord> records) {
+        List<String> lines = new ArrayList<>();
+        for (PatientRecord record : records) {
+            lines.add(record.getTimestamp() + "," + record.getRecordType() + "," + record.getMeasurementValue());
+        }
+        return lines;
+    }
+}
@@ -12,10 +12,15 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.io.*;
 import java.nio.file.*;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 class DataReaderTest {
 
+    @TempDir
+    Path bulkDir;
+
     private Path tempFilePath;
     private DataStorage dataStorage;
     private DataReader dataReader;
@@ -56,4 +61,45 @@ class DataReaderTest {
         assertEquals(190.0, systolic.getMeasurementValue(), 0.01);
         assertEquals(1714376120000L, systolic.getTimestamp());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBulkLoadMatchesLineByLineRead() throws IOException {
+        ((FileDataReader) dataReader).bulkLoad(dataStorage);
+        List<PatientRecord> records = dataStorage.getRecords(1001, 1714375999000L, 1714376121000L);
+        assertEquals(3, records.size(), "Should store 3 records for patient 1001");
+        assertEquals(98.0, records.get(0).getMeasurementValue(), 0.01);
+        assertEquals("Saturation", records.get(0).getRecordType());
+    }
+
+    @Test
+    void testBulkLoadAcrossManySmallChunks() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lines.add((i % 7) + "," + (60.0 + i % 40) + ",HeartRate," + (1714376000000L + i));
+        }
+        lines.add(500, "not,a,valid,line");
+        Path file = bulkDir.resolve("bulk.txt");
+        // No trailing newline after the last line
+        Files.writeString(file, String.join("\n", lines));
+
+        DataStorage storage = new DataStorage() {};
+        FileDataReader reader = new FileDataReader(file.toString());
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            reader.bulkLoad(storage, pool, 64);
+        } finally {
+            pool.shutdown();
+        }
+
+        int total = 0;
+        for (int patient = 0; patient < 7; patient++) {
+            List<PatientRecord> records = storage.getRecords(patient, 0, Long.MAX_VALUE);
+            for (int i = 1; i < records.size(); i++) {
+                assertTrue(records.get(i - 1).getTimestamp() < records.get(i).getTimestamp());
+            }
+            total += records.size();
+        }
+        assertEquals(1000, total);
+        assertEquals(1, reader.getMalformedLineCount());
+    }
+}
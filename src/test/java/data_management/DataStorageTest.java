@@ -6,9 +6,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.data_management.DataStorage;
+import com.data_management.Patient;
 import com.data_management.PatientRecord;
+import com.data_management.RecordBatch;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 class DataStorageTest {
 
@@ -43,4 +47,96 @@ class DataStorageTest {
         storage.addPatientData(2, 150.0, "HeartRate", 1714376789051L);
         assertEquals(2, storage.getAllPatients().size(), "There should be 2 patients in storage");
     }
+
+    @Test
+    void testDuplicateRecordsAreIgnored() {
+        DataStorage storage = DataStorage.getInstance();
+        storage.addPatientData(1, 100.0, "HeartRate", 1714376789050L);
+        storage.addPatientData(1, 101.0, "HeartRate", 1714376789050L); // same type and time
+        storage.addPatientData(1, 97.0, "Saturation", 1714376789050L); // same time, other type
+        storage.addPatientData(1, 99.0, "HeartRate", 1714376789000L); // late but unique
+        storage.addPatientData(1, 98.0, "HeartRate", 1714376789000L); // late duplicate
+
+        List<PatientRecord> records = storage.getRecords(1, 0L, Long.MAX_VALUE);
+        assertEquals(3, records.size(), "Duplicates by type and timestamp should be dropped");
+        assertEquals(99.0, records.get(0).getMeasurementValue());
+        // Records sharing a timestamp are ordered by record type id: Saturation, then HeartRate
+        assertEquals(97.0, records.get(1).getMeasurementValue());
+        assertEquals(100.0, records.get(2).getMeasurementValue());
+    }
+
+    @Test
+    void testReadersSeeConsistentSnapshotsWhileWriting() throws InterruptedException {
+        DataStorage storage = DataStorage.getInstance();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            for (long t = 0; t < 200_000; t++) {
+                // Every 100th sample arrives late, one slot behind its neighbour
+                long timestamp = t % 100 == 99 ? t - 1 : t;
+                if (t % 100 == 98) {
+                    timestamp = t + 1;
+                }
+                storage.addPatientData(1, timestamp, "ECG", timestamp);
+            }
+        });
+        Thread reader = new Thread(() -> {
+            while (writer.isAlive() && failure.get() == null) {
+                List<PatientRecord> records = storage.getRecords(1, 0L, Long.MAX_VALUE);
+                for (int i = 0; i < records.size(); i++) {
+                    PatientRecord record = records.get(i);
+                    if (record.getMeasurementValue() != record.getTimestamp()
+                            || (i > 0 && records.get(i - 1).getTimestamp() >= record.getTimestamp())) {
+                        failure.set("Inconsistent record at index " + i);
+                        return;
+                    }
+                }
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+
+        assertNull(failure.get(), failure.get());
+        assertEquals(200_000, storage.getRecords(1, 0L, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void testBatchInsertMatchesSingleInserts() {
+        DataStorage storage = DataStorage.getInstance();
+        RecordBatch batch = new RecordBatch(2);
+        // Interleaved patients, enough of them to grow the grouping table
+        for (int t = 0; t < 100; t++) {
+            batch.add(t % 40 - 3, 1714376789000L + t / 40, "HeartRate", t);
+            batch.add(1_000_000 + t % 3, 1714376789000L + t, "Saturation", t);
+        }
+        batch.add(0, 1714376789000L, "HeartRate", -1.0); // duplicate of the record of patient 0 at t = 3
+        List<PatientRecord> notified = new ArrayList<>();
+        storage.addListener(notified::add);
+
+        storage.addPatientDataBatch(batch);
+
+        DataStorage expected = new DataStorage() {};
+        for (int i = 0; i < batch.size(); i++) {
+            expected.addPatientData(batch.patientIdAt(i), batch.valueAt(i), batch.recordTypeAt(i), batch.timestampAt(i));
+        }
+        assertEquals(43, storage.getAllPatients().size());
+        for (Patient patient : expected.getAllPatients()) {
+            int patientId = patient.getPatientId();
+            assertEquals(describe(expected.getRecords(patientId, 0L, Long.MAX_VALUE)),
+                    describe(storage.getRecords(patientId, 0L, Long.MAX_VALUE)));
+        }
+        assertEquals(200, notified.size(), "Listeners should only hear about added records");
+        assertEquals(-3, notified.get(0).getPatientId(), "Listeners should be notified in batch order");
+        assertEquals(1_000_000, notified.get(1).getPatientId());
+    }
+
+    private static List<String> describe(List<PatientRecord> records) {
+        List<String> lines = new ArrayList<>();
+        for (PatientRecord record : records) {
+            lines.add(record.getPatientId() + "," + record.getTimestamp() + "," + record.getRecordType() + ","
+                    + record.getMeasurementValue());
+        }
+        return lines;
+    }
 }
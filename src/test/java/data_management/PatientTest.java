@@ -43,4 +43,63 @@ public class PatientTest {
         List<PatientRecord> filtered = patient.getRecords(1714389060000L, 1714389060000L);
         assertTrue(filtered.isEmpty());
     }
+
+    @Test
+    void testGetRecordsAcrossTypesIsChronological() {
+        patient.addRecord(97.0, "Saturation", 1714385000000L);
+        patient.addRecord(120.0, "SystolicBP", 1714384900000L);
+
+        List<PatientRecord> all = patient.getRecords(1714384800000L, 1714385400000L);
+        assertEquals(5, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getTimestamp() <= all.get(i).getTimestamp());
+        }
+        assertEquals("SystolicBP", all.get(1).getRecordType());
+        assertEquals(1234, all.get(1).getPatientId());
+    }
+
+    @Test
+    void testManyRecordsSpanChunks() {
+        Patient large = new Patient(1);
+        for (int i = 0; i < 5000; i++) {
+            large.addRecord(i, "ECG", 1000L + i);
+        }
+        List<PatientRecord> filtered = large.getRecords(2000L, 4999L);
+        assertEquals(3000, filtered.size());
+        assertEquals(1000.0, filtered.get(0).getMeasurementValue());
+        assertEquals(3999.0, filtered.get(2999).getMeasurementValue());
+    }
+
+    @Test
+    void testOutOfOrderRecordIsInsertedInPlace() {
+        patient.addRecord(82.0, "HeartRate", 1714384950000L); // 10:02:30, arrives late
+
+        List<PatientRecord> all = patient.getRecords("HeartRate", 0L, Long.MAX_VALUE);
+        assertEquals(4, all.size());
+        assertEquals(80.0, all.get(0).getMeasurementValue());
+        assertEquals(82.0, all.get(1).getMeasurementValue());
+        assertEquals(85.0, all.get(2).getMeasurementValue());
+    }
+
+    @Test
+    void testViewIsUnaffectedByLaterInserts() {
+        List<PatientRecord> before = patient.getRecords("HeartRate", 0L, Long.MAX_VALUE);
+        patient.addRecord(70.0, "HeartRate", 1714384700000L);
+        patient.addRecord(95.0, "HeartRate", 1714385700000L);
+
+        assertEquals(3, before.size());
+        assertEquals(80.0, before.get(0).getMeasurementValue());
+        assertEquals(2, before.subList(1, 3).size());
+        assertEquals(90.0, before.subList(1, 3).get(1).getMeasurementValue());
+    }
+
+    @Test
+    void testGetRecordsByTypeUsesInclusiveBounds() {
+        patient.addRecord(97.0, "Saturation", 1714385100000L);
+
+        List<PatientRecord> heartRate = patient.getRecords("HeartRate", 1714385100000L, 1714385400000L);
+        assertEquals(2, heartRate.size());
+        assertEquals("HeartRate", heartRate.get(0).getRecordType());
+        assertTrue(patient.getRecords("ECG", 0L, Long.MAX_VALUE).isEmpty());
+    }
 }
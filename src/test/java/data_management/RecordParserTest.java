@@ -0,0 +1,100 @@
+package data_management;
+
+import com.common.RecordParser;
+import com.common.RecordTypes;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordParserTest {
+
+    private final List<String> parsed = new ArrayList<>();
+    private final RecordParser.Handler collect =
+            (patientId, timestamp, recordType, value) -> parsed.add(patientId + "|" + timestamp + "|" + recordType + "|" + value);
+
+    @Test
+    void testParsesStreamLayout() {
+        RecordParser parser = new RecordParser(RecordParser.Layout.STREAM);
+        assertTrue(parser.parse(" 12,1714376789050,ECG,-0.25\n", collect));
+        assertEquals(List.of("12|1714376789050|ECG|-0.25"), parsed);
+    }
+
+    @Test
+    void testParsesFileLayout() {
+        RecordParser parser = new RecordParser(RecordParser.Layout.FILE);
+        assertTrue(parser.parse("1001,190.0,SystolicBP,1714376120000", collect));
+        assertEquals(List.of("1001|1714376120000|SystolicBP|190.0"), parsed);
+    }
+
+    @Test
+    void testKnownLabelsAreInterned() {
+        RecordParser parser = new RecordParser(RecordParser.Layout.STREAM);
+        String[] label = new String[1];
+        parser.parse("1,2," + new String("Saturation".toCharArray()) + ",97.0%", (p, t, type, v) -> label[0] = type);
+        assertSame("Saturation", label[0]);
+    }
+
+    @Test
+    void testNewLabelsAreRegisteredWithinTheLimit() {
+        RecordParser parser = new RecordParser(RecordParser.Layout.STREAM);
+        assertTrue(parser.parse("1,2,NetworkProbe,1.0", collect));
+        assertEquals("NetworkProbe", RecordTypes.lookup("x,NetworkProbe,y", 2, 14));
+
+        // A full registry rejects new labels instead of growing
+        int size = RecordTypes.size();
+        assertEquals(-1, RecordTypes.idOf("OverflowProbe", size));
+        assertEquals(size, RecordTypes.size());
+        assertNull(RecordTypes.lookup("OverflowProbe", 0, "OverflowProbe".length()));
+    }
+
+    @Test
+    void testAcceptsPercentAndExponent() {
+        RecordParser parser = new RecordParser(RecordParser.Layout.STREAM);
+        assertTrue(parser.parse("1,2,Saturation,97.0%", collect));
+        assertTrue(parser.parse("1,3,ECG,1.5e-3", collect));
+        assertEquals(List.of("1|2|Saturation|97.0", "1|3|ECG|0.0015"), parsed);
+    }
+
+    @Test
+    void testAlertWordsParseLikeBinaryAlerts() {
+        RecordParser parser = new RecordParser(RecordParser.Layout.STREAM);
+        assertTrue(parser.parse("4,2,Alert,triggered", collect));
+        assertTrue(parser.parse("4,3,Alert,resolved", collect));
+        assertFalse(parser.parse("4,4,Alert,trigger", collect));
+        assertEquals(List.of("4|2|Alert|1.0", "4|3|Alert|0.0"), parsed);
+    }
+
+    @Test
+    void testCountsMalformedLines() {
+        RecordParser parser = new RecordParser(RecordParser.Layout.STREAM);
+        assertFalse(parser.parse("1,invalidMessage", collect));
+        assertFalse(parser.parse("abc,1714376789050,HeartRate,75.5", collect));
+        assertFalse(parser.parse("1,1714376789050,HeartRate,seventy", collect));
+        assertFalse(parser.parse("1,1714376789050,HeartRate,75.5,extra", collect));
+        assertFalse(parser.parse("99999999999,1,HeartRate,75.5", collect));
+        assertFalse(parser.parse("1,1,,75.5", collect));
+        assertTrue(parsed.isEmpty());
+        assertEquals(6, parser.getMalformedCount());
+    }
+
+    @Test
+    void testValuesMatchDoubleParseDouble() {
+        RecordParser parser = new RecordParser(RecordParser.Layout.STREAM);
+        Random random = new Random(42);
+        double[] result = new double[1];
+        for (int i = 0; i < 10_000; i++) {
+            double expected = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 4);
+            String text = Double.toString(expected);
+            assertTrue(parser.parse("1,1,ECG," + text, (p, t, type, v) -> result[0] = v), text);
+            assertEquals(Double.parseDouble(text), result[0], text);
+        }
+    }
+}
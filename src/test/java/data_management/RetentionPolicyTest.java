@@ -0,0 +1,136 @@
+package data_management;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.data_management.DataStorage;
+import com.data_management.PatientRecord;
+import com.data_management.RetentionPolicy;
+import com.data_management.Rollup;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class RetentionPolicyTest {
+
+    // On an hour boundary, so buckets line up with the samples
+    private static final long START = 1_699_999_200_000L;
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+
+    private DataStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new DataStorage() {};
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.setRetentionPolicy(null);
+    }
+
+    @Test
+    void testRollupsSummarizeEachBucket() {
+        // Compaction is driven by hand; the background run is an hour away
+        storage.setRetentionPolicy(new RetentionPolicy(24 * HOUR).withCompactionInterval(HOUR));
+        for (long millis = 0; millis < 2 * HOUR; millis += 250) {
+            storage.addPatientData(1, millis % 1000, "HeartRate", START + millis);
+            if (millis == HOUR) {
+                storage.compact();
+            }
+        }
+        storage.compact();
+
+        List<Rollup> seconds = storage.getRollups(1, "HeartRate", START + HOUR, START + HOUR + 9_999L, 100);
+        assertEquals(10, seconds.size());
+        Rollup second = seconds.get(0);
+        assertEquals(START + HOUR, second.getStartTime());
+        assertEquals(1_000L, second.getDurationMillis());
+        assertEquals(4, second.getCount());
+        assertEquals(0.0, second.getMin());
+        assertEquals(750.0, second.getMax());
+        assertEquals(375.0, second.getAverage());
+
+        List<Rollup> minutes = storage.getRollups(1, "HeartRate", START, START + 2 * HOUR, 200);
+        // The last bucket is still open
+        assertEquals(119, minutes.size());
+        assertEquals(MINUTE, minutes.get(0).getDurationMillis());
+        for (Rollup minute : minutes) {
+            assertEquals(240, minute.getCount());
+            assertEquals(375.0, minute.getAverage());
+        }
+        assertEquals(1, storage.getRollups(1, "HeartRate", START, START + 2 * HOUR, 10).size(),
+                "Only one hour has ended");
+    }
+
+    @Test
+    void testExpiredRawDataIsDroppedPerType() {
+        storage.setRetentionPolicy(new RetentionPolicy(HOUR).withRawRetention("ECG", 10 * MINUTE)
+                .withCompactionInterval(HOUR));
+        for (long second = 0; second < 3 * 3600; second++) {
+            storage.addPatientData(1, second, "ECG", START + second * 1000L);
+            storage.addPatientData(1, 97, "Saturation", START + second * 1000L);
+            if (second % 600 == 0) {
+                storage.compact();
+            }
+        }
+        storage.compact();
+
+        long newest = START + (3 * 3600 - 1) * 1000L;
+        // Raw data goes a chunk of 1,024 samples at a time
+        List<PatientRecord> ecg = storage.getAllPatients().get(0).getRecords("ECG", 0L, Long.MAX_VALUE);
+        long ecgAge = newest - ecg.get(0).getTimestamp();
+        assertTrue(ecgAge >= 10 * MINUTE && ecgAge < 10 * MINUTE + 1_024_000L, "ECG kept for " + ecgAge);
+        List<PatientRecord> saturation = storage.getAllPatients().get(0).getRecords("Saturation", 0L, Long.MAX_VALUE);
+        long saturationAge = newest - saturation.get(0).getTimestamp();
+        assertTrue(saturationAge >= HOUR && saturationAge < HOUR + 1_024_000L, "Saturation kept for " + saturationAge);
+
+        // The dropped history is still summarized
+        List<Rollup> minutes = storage.getRollups(1, "ECG", START, newest, 500);
+        assertEquals(START, minutes.get(0).getStartTime());
+        assertEquals(179, minutes.size());
+    }
+
+    @Test
+    void testLongRangesReadRollupsPastTheRawRetention() {
+        storage.setRetentionPolicy(new RetentionPolicy(30 * MINUTE).withCompactionInterval(HOUR));
+        for (long second = 0; second < 2 * 3600; second++) {
+            storage.addPatientData(1, 80, "HeartRate", START + second * 1000L);
+            if (second % 600 == 0) {
+                storage.compact();
+            }
+        }
+        storage.compact();
+
+        // The first hour has expired: raw reads no longer reach it
+        assertTrue(storage.getRecords(1, START, START + HOUR - 1).isEmpty());
+        List<PatientRecord> raw = storage.getRecords(1, START, START + 2 * HOUR);
+        assertTrue(raw.get(0).getTimestamp() > START + HOUR, "Raw data should only cover the retained window");
+
+        // The same ranges are still summarized by the rollups
+        List<Rollup> expired = storage.getRollups(1, "HeartRate", START, START + HOUR - 1, 10);
+        assertEquals(1, expired.size());
+        assertEquals(3600, expired.get(0).getCount());
+        List<Rollup> minutes = storage.getRollups(1, "HeartRate", START, START + 2 * HOUR, 200);
+        assertEquals(START, minutes.get(0).getStartTime());
+        assertEquals(119, minutes.size());
+    }
+
+    @Test
+    void testBackgroundCompactorBuildsRollups() throws InterruptedException {
+        for (int second = 0; second < 120; second++) {
+            storage.addPatientData(1, second, "Saturation", START + second * 1000L);
+        }
+        storage.setRetentionPolicy(new RetentionPolicy(HOUR).withCompactionInterval(10));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (storage.getRollups(1, "Saturation", START, START + 120_000L, 1_000).isEmpty()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(119, storage.getRollups(1, "Saturation", START, START + 120_000L, 1_000).size());
+    }
+}
@@ -0,0 +1,99 @@
+package data_management;
+
+import com.cardio_generator.outputs.TcpOutputStrategy;
+import com.data_management.DataStorage;
+import com.data_management.InMemoryDataStorage;
+import com.data_management.PatientRecord;
+import com.data_management.TcpDataReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TcpDataReaderTest {
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    void testReadsFromTcpOutputStrategy() throws Exception {
+        DataStorage storage = new InMemoryDataStorage();
+        try (TcpOutputStrategy output = new TcpOutputStrategy(0);
+             TcpDataReader reader = new TcpDataReader("localhost", output.getPort())) {
+            reader.readData(storage);
+            awaitCondition(() -> output.getClientCount() == 1);
+
+            for (int i = 0; i < 1000; i++) {
+                output.output(7, 1714376789050L + i, "HeartRate", "75.5");
+            }
+            output.output(7, 1714376790050L, "Alert", "triggered");
+
+            awaitCondition(() -> storage.getRecords(7, 0, Long.MAX_VALUE).size() == 1001);
+            assertEquals(0, reader.getMalformedLineCount());
+            List<PatientRecord> alerts = storage.getRecords(7, "Alert", 0, Long.MAX_VALUE);
+            assertEquals(1.0, alerts.get(0).getMeasurementValue(), "A triggered alert should be stored as 1");
+        }
+    }
+
+    @Test
+    void testReassemblesSplitLinesAndReconnects() throws Exception {
+        DataStorage storage = new InMemoryDataStorage();
+        try (ServerSocket server = new ServerSocket(0);
+             TcpDataReader reader = new TcpDataReader("localhost", server.getLocalPort(), 50)) {
+            reader.readData(storage);
+            try (Socket first = server.accept()) {
+                OutputStream out = first.getOutputStream();
+                out.write("1,1000,HeartRate,70.0\n1,20".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                Thread.sleep(50);
+                out.write("00,HeartRate,71.0\n1,3000,Heart".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+            }
+            try (Socket second = server.accept()) {
+                second.getOutputStream().write("1,4000,HeartRate,72.0\n".getBytes(StandardCharsets.US_ASCII));
+                awaitCondition(() -> storage.getRecords(1, 0, Long.MAX_VALUE).size() == 3);
+            }
+            List<PatientRecord> records = storage.getRecords(1, 0, Long.MAX_VALUE);
+            assertEquals(70.0, records.get(0).getMeasurementValue());
+            assertEquals(71.0, records.get(1).getMeasurementValue());
+            assertEquals(72.0, records.get(2).getMeasurementValue());
+        }
+    }
+
+    @Test
+    void testCloseWhileWaitingToReconnectLeavesNoConnection() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            TcpDataReader reader = new TcpDataReader("localhost", server.getLocalPort(), 300);
+            reader.readData(new InMemoryDataStorage());
+            server.accept().close();
+            // Let the reader notice the drop and start waiting to reconnect
+            Thread.sleep(100);
+            reader.close();
+
+            server.setSoTimeout(1000);
+            Socket late;
+            try {
+                late = server.accept();
+            } catch (SocketTimeoutException e) {
+                return;
+            }
+            try (Socket socket = late) {
+                socket.setSoTimeout(1000);
+                assertEquals(-1, socket.getInputStream().read(), "A connection opened after close must be closed");
+            }
+        }
+    }
+}
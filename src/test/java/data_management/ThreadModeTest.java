@@ -0,0 +1,39 @@
+package data_management;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.common.ThreadMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class ThreadModeTest {
+
+    @Test
+    void testParseIgnoresCase() {
+        assertEquals(ThreadMode.VIRTUAL, ThreadMode.parse("Virtual"));
+        assertEquals(ThreadMode.PLATFORM, ThreadMode.parse(" platform "));
+        assertThrows(IllegalArgumentException.class, () -> ThreadMode.parse("green"));
+    }
+
+    @Test
+    void testPlatformThreadsAreNotDaemons() {
+        Thread thread = ThreadMode.PLATFORM.newThread("worker", () -> { });
+        assertEquals("worker", thread.getName());
+        assertFalse(thread.isDaemon());
+        assertFalse(ThreadMode.PLATFORM.isVirtual());
+    }
+
+    @Test
+    void testVirtualModeRunsTasksOnAnyJvm() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        Thread thread = ThreadMode.VIRTUAL.newThread("patient-1", ran::countDown);
+        // Falls back to a platform thread before Java 21
+        assertEquals(ThreadMode.isVirtualAvailable(), ThreadMode.VIRTUAL.isVirtual());
+        assertEquals(ThreadMode.VIRTUAL.isVirtual(), thread.isDaemon());
+        assertEquals("patient-1", thread.getName());
+        thread.start();
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+}
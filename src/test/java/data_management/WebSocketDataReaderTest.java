@@ -1,5 +1,6 @@
 package data_management;
 
+import com.common.BinaryRecordCodec;
 import com.data_management.DataStorage;
 import com.data_management.InMemoryDataStorage;
 import com.data_management.WebSocketDataReader;
@@ -7,7 +8,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -49,6 +52,7 @@ public class WebSocketDataReaderTest {
         // Check that no record was added for the patient.
         assertTrue(storage.getRecords(1, 0L, System.currentTimeMillis()).isEmpty(),
                 "No data should be stored for an invalid message.");
+        assertEquals(1, reader.getMalformedMessageCount(), "The invalid message should be counted.");
     }
 
     @Test
@@ -60,4 +64,27 @@ public class WebSocketDataReaderTest {
         assertTrue(storage.getAllPatients().isEmpty(),
                 "No data should be stored when a wrong number format is provided.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBinaryFrameParsing() {
+        reader.onMessage(BinaryRecordCodec.encode(1, 1714376789050L, "HeartRate", 75.5));
+        assertEquals(1, storage.getRecords(1, 0L, System.currentTimeMillis()).size(),
+                "Data should be stored for a valid binary frame.");
+        assertEquals(75.5, storage.getRecords(1, 0L, System.currentTimeMillis()).get(0).getMeasurementValue());
+    }
+
+    @Test
+    void testMalformedBinaryFrameIsCounted() {
+        reader.onMessage(ByteBuffer.wrap(new byte[] {0, 1, 2}));
+        assertTrue(storage.getAllPatients().isEmpty(), "No data should be stored for a malformed frame.");
+        assertEquals(1, reader.getMalformedMessageCount(), "The malformed frame should be counted.");
+    }
+
+    @Test
+    void testBatchedMessageParsing() {
+        reader.onMessage("1,1714376789050,HeartRate,75.5\n2,1714376789051,HeartRate,80.0\nbroken\n1,1714376789052,HeartRate,76.0");
+        assertEquals(2, storage.getRecords(1, 0L, System.currentTimeMillis()).size());
+        assertEquals(1, storage.getRecords(2, 0L, System.currentTimeMillis()).size());
+        assertEquals(1, reader.getMalformedMessageCount(), "Only the broken line should be counted.");
+    }
+}
@@ -0,0 +1,109 @@
+package data_management;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.data_management.DataStorage;
+import com.data_management.PatientRecord;
+import com.data_management.RecordBatch;
+import com.data_management.WriteAheadLog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path logDir;
+
+    @Test
+    void testRecoverRestoresEverythingLogged() throws Exception {
+        DataStorage original = new DataStorage() {};
+        // Small segments so the log spans several of them
+        try (WriteAheadLog log = new WriteAheadLog(logDir, 1024, false)) {
+            original.setWriteAheadLog(log);
+            RecordBatch batch = new RecordBatch(16);
+            for (int t = 0; t < 500; t++) {
+                original.addPatientData(1 + t % 7, t, "HeartRate", 1714376789000L + t);
+                batch.add(100 + t % 3, 1714376789000L + t, "CustomLabel", -t);
+                if (batch.size() == 16) {
+                    original.addPatientDataBatch(batch);
+                    batch.clear();
+                }
+            }
+            original.addPatientDataBatch(batch);
+        }
+        assertTrue(segmentCount() > 2, "The log should have rolled over to new segments");
+
+        DataStorage recovered = new DataStorage() {};
+        List<PatientRecord> notified = new ArrayList<>();
+        recovered.addListener(notified::add);
+        long replayed = WriteAheadLog.recover(logDir, recovered, new ForkJoinPool(3));
+
+        assertEquals(1000, replayed);
+        assertEquals(10, recovered.getAllPatients().size());
+        for (int patientId : new int[] {1, 4, 7, 100, 102}) {
+            assertEquals(describe(original.getRecords(patientId, 0L, Long.MAX_VALUE)),
+                    describe(recovered.getRecords(patientId, 0L, Long.MAX_VALUE)));
+        }
+        assertTrue(notified.isEmpty(), "Replayed records should not be reported to listeners");
+    }
+
+    @Test
+    void testRecoverStopsAtTornEntry() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(logDir)) {
+            log.append(1, 98.0, "Saturation", 1714376000000L);
+            log.append(1, 97.0, "Saturation", 1714376001000L);
+        }
+        Path segment = segments().get(0);
+        long intact = Files.size(segment);
+        // A crash in the middle of the third entry: its header promises more bytes than exist
+        Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        DataStorage recovered = new DataStorage() {};
+        assertEquals(2, WriteAheadLog.recover(logDir, recovered));
+        assertEquals(2, recovered.getRecords(1, 0L, Long.MAX_VALUE).size());
+
+        // Appends after a restart go to a new segment, past the torn tail
+        try (WriteAheadLog log = new WriteAheadLog(logDir)) {
+            recovered.setWriteAheadLog(log);
+            recovered.addPatientData(1, 96.0, "Saturation", 1714376002000L);
+        }
+        assertEquals(intact + 9, Files.size(segment));
+        assertEquals(3, WriteAheadLog.recover(logDir, new DataStorage() {}));
+    }
+
+    @Test
+    void testAppendAfterCloseFails() throws IOException {
+        WriteAheadLog log = new WriteAheadLog(logDir);
+        log.close();
+        assertThrows(IllegalStateException.class, () -> log.append(1, 1.0, "ECG", 1L));
+    }
+
+    private long segmentCount() throws IOException {
+        return segments().size();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(logDir)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> describe(List<PatientRecord> records) {
+        List<String> lines = new ArrayList<>();
+        for (PatientRecord record : records) {
+            lines.add(record.getTimestamp() + "," + record.getRecordType() + "," + record.getMeasurementValue());
+        }
+        return lines;
+    }
+}